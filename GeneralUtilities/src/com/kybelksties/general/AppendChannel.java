@@ -0,0 +1,349 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.general;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A long-lived channel that appends text to a file in the background. The
+ * file is opened once; appended text is queued and a writer thread writes
+ * everything that has been queued since its last write in one go, so many
+ * small appends made while a write is in progress become one large write
+ * (group commit). When the channel syncs, each such write is forced to the
+ * device once for all the appends it contains.
+ *
+ * append() returns as soon as the text is queued; appendAndWait() and flush()
+ * wait until the text is written, and synced if the channel syncs. The queue
+ * holds at most maxPending characters, appends wait while it is full. A
+ * failed write fails all later calls with the same exception.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class AppendChannel implements Closeable
+{
+
+    private static final Class CLAZZ = AppendChannel.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    /**
+     * The default number of queued characters at which appends wait for the
+     * writer. Configured by the system property
+     * "com.kybelksties.general.AppendChannel.maxPending", defaults to 1M.
+     */
+    public static final int DEFAULT_MAX_PENDING =
+                            Integer.getInteger(CLASS_NAME + ".maxPending",
+                                               1024 * 1024);
+
+    private final Path file;
+    private final Charset charset;
+    private final boolean sync;
+    private final int maxPending;
+    private final FileChannel channel;
+    private final Thread writer;
+
+    private StringBuilder pending = new StringBuilder();
+    private long appended = 0L;
+    private long committed = 0L;
+    private long writes = 0L;
+    private boolean closed = false;
+    private IOException failure = null;
+
+    /**
+     * Open a channel appending to the file in the platform's default
+     * encoding, creating the file and its directory if they do not exist.
+     *
+     * @param fileName path of the file as string
+     * @param sync     force each write to the device
+     * @throws IOException if the file cannot be created or opened
+     */
+    public AppendChannel(String fileName, boolean sync) throws IOException
+    {
+        this(fileName, Charset.defaultCharset(), sync, DEFAULT_MAX_PENDING);
+    }
+
+    /**
+     * Open a channel appending to the file, creating the file and its
+     * directory if they do not exist.
+     *
+     * @param fileName   path of the file as string
+     * @param charset    the encoding of the file
+     * @param sync       force each write to the device
+     * @param maxPending the number of queued characters at which appends wait
+     * @throws IOException if the file cannot be created or opened
+     */
+    public AppendChannel(String fileName,
+                         Charset charset,
+                         boolean sync,
+                         int maxPending) throws IOException
+    {
+        this.file = new File(fileName).getAbsoluteFile().toPath();
+        this.charset = charset;
+        this.sync = sync;
+        this.maxPending = Math.max(1, maxPending);
+        Files.createDirectories(file.getParent());
+        channel = FileChannel.open(file,
+                                   StandardOpenOption.CREATE,
+                                   StandardOpenOption.WRITE,
+                                   StandardOpenOption.APPEND);
+        writer = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                writeLoop();
+            }
+        }, "AppendChannel-" + file.getFileName());
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Retrieve the file this channel appends to.
+     *
+     * @return the absolute path
+     */
+    public Path getFile()
+    {
+        return file;
+    }
+
+    /**
+     * Queue text to be appended. Empty or null text queues nothing, its
+     * sequence number is that of the last append.
+     *
+     * @param text the text to append
+     * @return the sequence number of this append, for awaitWritten()
+     * @throws IOException if the channel is closed or a write has failed
+     */
+    public synchronized long append(String text) throws IOException
+    {
+        checkOpen();
+        if (text == null || text.isEmpty())
+        {
+            // the writer only commits what it has found pending
+            return appended;
+        }
+        try
+        {
+            while (pending.length() >= maxPending && failure == null && !closed)
+            {
+                wait();
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(ex.getMessage());
+        }
+        checkOpen();
+        pending.append(text);
+        appended++;
+        notifyAll();
+        return appended;
+    }
+
+    /**
+     * Append text and wait until it is written.
+     *
+     * @param text the text to append
+     * @throws IOException if the channel is closed or the write fails
+     */
+    public void appendAndWait(String text) throws IOException
+    {
+        awaitWritten(append(text));
+    }
+
+    /**
+     * Wait until everything appended so far is written.
+     *
+     * @throws IOException if a write fails
+     */
+    public void flush() throws IOException
+    {
+        long last;
+        synchronized (this)
+        {
+            last = appended;
+        }
+        awaitWritten(last);
+    }
+
+    /**
+     * Wait until the append with the given sequence number is written, and
+     * synced if this channel syncs.
+     *
+     * @param sequence the number returned by append()
+     * @throws IOException if the write fails
+     */
+    public synchronized void awaitWritten(long sequence) throws IOException
+    {
+        try
+        {
+            while (committed < sequence && failure == null)
+            {
+                wait();
+            }
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(ex.getMessage());
+        }
+        if (committed < sequence)
+        {
+            throw failure;
+        }
+    }
+
+    /**
+     * Retrieve the number of writes made, each of which holds all the appends
+     * queued while the previous one was in progress.
+     *
+     * @return the number of writes
+     */
+    public synchronized long getWriteCount()
+    {
+        return writes;
+    }
+
+    /**
+     * Write what is queued and close the file.
+     *
+     * @throws IOException if a write or the close fails
+     */
+    @Override
+    public void close() throws IOException
+    {
+        synchronized (this)
+        {
+            if (closed)
+            {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        try
+        {
+            writer.join();
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        synchronized (this)
+        {
+            if (failure != null)
+            {
+                throw failure;
+            }
+        }
+    }
+
+    private void checkOpen() throws IOException
+    {
+        if (failure != null)
+        {
+            throw failure;
+        }
+        if (closed)
+        {
+            throw new IOException("Append channel to " + file + " is closed");
+        }
+    }
+
+    private void writeLoop()
+    {
+        while (true)
+        {
+            String batch;
+            long last;
+            synchronized (this)
+            {
+                while (pending.length() == 0 && !closed)
+                {
+                    try
+                    {
+                        wait();
+                    }
+                    catch (InterruptedException ex)
+                    {
+                        // only close() ends the writer
+                    }
+                }
+                if (pending.length() == 0)
+                {
+                    committed = appended;
+                    notifyAll();
+                    return;
+                }
+                batch = pending.toString();
+                // do not hold on to the capacity of a burst
+                pending = new StringBuilder(Math.min(batch.length(),
+                                                     maxPending));
+                last = appended;
+                notifyAll();
+            }
+            try
+            {
+                ByteBuffer bytes = charset.encode(CharBuffer.wrap(batch));
+                while (bytes.hasRemaining())
+                {
+                    channel.write(bytes);
+                }
+                if (sync)
+                {
+                    channel.force(false);
+                }
+            }
+            catch (IOException ex)
+            {
+                LOGGER.log(Level.SEVERE, "Cannot append to " + file, ex);
+                synchronized (this)
+                {
+                    failure = ex;
+                    notifyAll();
+                }
+                return;
+            }
+            synchronized (this)
+            {
+                writes++;
+                committed = last;
+                notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.general;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Writes objects of one type in a compact binary form of its own, as an
+ * alternative to Java serialization, which writes class descriptors and
+ * field names along with the data.
+ *
+ * @author Dieter J Kybelksties
+ * @param <T> the type of the objects
+ */
+public interface BinaryCodec<T>
+{
+
+    /**
+     * Write an object.
+     *
+     * @param out the stream to write to
+     * @param obj the object
+     * @throws IOException if the stream cannot be written to
+     */
+    void write(DataOutput out, T obj) throws IOException;
+
+    /**
+     * Read an object written by write().
+     *
+     * @param in the stream to read from
+     * @return the object
+     * @throws IOException if the stream cannot be read or is corrupt
+     */
+    T read(DataInput in) throws IOException;
+}
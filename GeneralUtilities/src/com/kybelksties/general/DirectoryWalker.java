@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.general;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Walks a directory tree in parallel on a fork/join pool. Every directory is
+ * read once through a DirectoryStream and each of its sub-directories is
+ * walked by a task of its own. The name filter is applied to each entry as it
+ * is read, so only the matching files are ever collected, and they are
+ * collected into one sink rather than copied from list to list up the tree.
+ *
+ * A root that is a symbolic link to a directory is walked; symbolic links
+ * below it are listed but not followed, so cycles in the tree cannot make the
+ * walk run forever. Directories that cannot be read are skipped.
+ * The order of the files in the result is not defined.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class DirectoryWalker
+{
+
+    private static final Class CLAZZ = DirectoryWalker.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    /**
+     * The number of threads of a walker that is not given a parallelism.
+     * Configured by the system property
+     * "com.kybelksties.general.DirectoryWalker.parallelism", defaults to the
+     * number of available processors.
+     */
+    public static final int DEFAULT_PARALLELISM = Math.max(
+                            1,
+                            Integer.getInteger(
+                                    CLASS_NAME + ".parallelism",
+                                    Runtime.getRuntime().availableProcessors()));
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Construct a walker with the default parallelism.
+     */
+    public DirectoryWalker()
+    {
+        this(DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * Construct a walker with the given number of threads.
+     *
+     * @param parallelism the number of threads reading directories
+     */
+    public DirectoryWalker(int parallelism)
+    {
+        pool = new ForkJoinPool(Math.max(1, parallelism));
+    }
+
+    /**
+     * Retrieve the number of threads of this walker.
+     *
+     * @return the parallelism
+     */
+    public int getParallelism()
+    {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Walk the tree under the root and collect all files and directories,
+     * including the root itself, whose name is accepted by the filter.
+     *
+     * @param root   root of the directory tree
+     * @param filter filter applied to the name of each entry, null accepts
+     *               all
+     * @return the list of accepted files, null if the root does not exist
+     */
+    public List<File> walk(File root, FilenameFilter filter)
+    {
+        if (root == null || !root.exists())
+        {
+            return null;
+        }
+        Path rootPath = root.toPath();
+        Collection<File> sink = new ConcurrentLinkedQueue<>();
+        File parent = root.getParentFile();
+        if (filter == null || filter.accept(parent, root.getName()))
+        {
+            sink.add(root);
+        }
+        if (Files.isDirectory(rootPath))
+        {
+            pool.invoke(new DirectoryTask(rootPath, filter, sink));
+        }
+        return new ArrayList<>(sink);
+    }
+
+    /**
+     * Stop the threads of this walker. Walks in progress are completed.
+     */
+    public void shutdown()
+    {
+        pool.shutdown();
+    }
+
+    /**
+     * Reads one directory, collects its accepted entries and walks its
+     * sub-directories in forked tasks.
+     */
+    private static final class DirectoryTask extends RecursiveAction
+    {
+
+        private final Path directory;
+        private final FilenameFilter filter;
+        private final Collection<File> sink;
+
+        DirectoryTask(Path directory,
+                      FilenameFilter filter,
+                      Collection<File> sink)
+        {
+            this.directory = directory;
+            this.filter = filter;
+            this.sink = sink;
+        }
+
+        @Override
+        protected void compute()
+        {
+            List<DirectoryTask> subTasks = new ArrayList<>();
+            File dirFile = directory.toFile();
+            try (DirectoryStream<Path> entries =
+                                       Files.newDirectoryStream(directory))
+            {
+                for (Path entry : entries)
+                {
+                    if (filter == null ||
+                        filter.accept(dirFile, entry.getFileName().toString()))
+                    {
+                        sink.add(entry.toFile());
+                    }
+                    if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS))
+                    {
+                        subTasks.add(new DirectoryTask(entry, filter, sink));
+                    }
+                }
+            }
+            catch (IOException |
+                   DirectoryIteratorException |
+                   SecurityException ex)
+            {
+                LOGGER.log(Level.FINE, "Cannot read directory {0}: {1}",
+                           new Object[]
+                           {
+                               directory, ex.getMessage()
+                           });
+            }
+            if (!subTasks.isEmpty())
+            {
+                invokeAll(subTasks);
+            }
+        }
+    }
+}
@@ -141,8 +141,9 @@ public class EnvironmentVar implements Comparable, Serializable
     {
         name = rhs.name;
         defined = rhs.defined;
-        value = new PodVariant(rhs.getValue());
+        value = rhs.value == null ? new PodVariant() : new PodVariant(rhs.value);
         category = rhs.category;
+        stereoType = rhs.stereoType;
     }
 
     /**
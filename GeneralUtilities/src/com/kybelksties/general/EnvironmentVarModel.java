@@ -20,15 +20,20 @@
  */
 package com.kybelksties.general;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.swing.event.TableModelEvent;
 import javax.swing.table.AbstractTableModel;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
@@ -65,6 +70,137 @@ public final class EnvironmentVarModel
 
     private String modelCategory = EnvironmentVar.ALL_CATEGORIES;
 
+    // counts the changes, every change is announced to the table listeners
+    private transient volatile long version = 0L;
+    private transient Map<String, String> environmentMap = null;
+    private transient long environmentMapVersion = 0L;
+
+    /**
+     * Writes the variables of a model field by field, for
+     * FileUtilities.writeBinary() and readBinary(). Much more compact and
+     * faster than Java serialization of the model.
+     */
+    public static final BinaryCodec<EnvironmentVarModel> BINARY_CODEC =
+            new BinaryCodec<EnvironmentVarModel>()
+    {
+        @Override
+        public void write(DataOutput out, EnvironmentVarModel model)
+                throws IOException
+        {
+            out.writeInt(model.allEnvVars.size());
+            for (EnvironmentVar var : model.allEnvVars)
+            {
+                writeString(out, var.getStereoType().name());
+                writeString(out, var.getCategory());
+                writeString(out, var.getName());
+                out.writeBoolean(var.getDefined());
+                PodVariant value = var.getValue();
+                PodVariant.Type type = value == null ?
+                                       PodVariant.Type.UNDEFINED :
+                                       value.getType();
+                out.writeByte(type.ordinal());
+                boolean hasValue = value != null && value.getValue() != null;
+                out.writeBoolean(hasValue);
+                if (!hasValue)
+                {
+                    continue;
+                }
+                switch (type)
+                {
+                    case BOOLEAN:
+                        out.writeBoolean((Boolean) value.getValue());
+                        break;
+                    case INTEGER:
+                        out.writeInt((Integer) value.getValue());
+                        break;
+                    case DOUBLE:
+                        out.writeDouble((Double) value.getValue());
+                        break;
+                    case STRING:
+                        writeString(out, value.getValue().toString());
+                        break;
+                }
+            }
+        }
+
+        @Override
+        public EnvironmentVarModel read(DataInput in) throws IOException
+        {
+            EnvironmentVarModel reval = new EnvironmentVarModel();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++)
+            {
+                String stereoType = readString(in);
+                String category = readString(in);
+                String name = readString(in);
+                boolean defined = in.readBoolean();
+                int typeIndex = in.readByte();
+                if (typeIndex < 0 ||
+                    typeIndex >= PodVariant.Type.values().length)
+                {
+                    throw new IOException("Unknown value type " + typeIndex);
+                }
+                PodVariant.Type type = PodVariant.Type.values()[typeIndex];
+                PodVariant value;
+                switch (in.readBoolean() ? type : PodVariant.Type.UNDEFINED)
+                {
+                    case BOOLEAN:
+                        value = new PodVariant(in.readBoolean());
+                        break;
+                    case INTEGER:
+                        value = new PodVariant((Object) in.readInt());
+                        break;
+                    case DOUBLE:
+                        value = new PodVariant((Object) in.readDouble());
+                        break;
+                    case STRING:
+                        value = new PodVariant((Object) readString(in));
+                        break;
+                    default:
+                        value = new PodVariant(type);
+                        break;
+                }
+                try
+                {
+                    reval.addRead(new EnvironmentVar(
+                            EnvironmentVar.StereoType.valueOf(stereoType),
+                            category,
+                            name,
+                            defined,
+                            value));
+                }
+                catch (Exception ex)
+                {
+                    throw new IOException(ex);
+                }
+            }
+            reval.fireTableDataChanged();
+            return reval;
+        }
+
+        // unlike writeUTF() not limited to 64K
+        private void writeString(DataOutput out, String str)
+                throws IOException
+        {
+            byte[] bytes = (str == null ? "" : str).getBytes(
+                   StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private String readString(DataInput in) throws IOException
+        {
+            int length = in.readInt();
+            if (length < 0)
+            {
+                throw new IOException("Negative string length " + length);
+            }
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
     /**
      * Default construct.
      */
@@ -150,6 +286,39 @@ public final class EnvironmentVarModel
         }
     }
 
+    // add a variable read by the binary codec: without the search of
+    // addIndexToCategory() for other categories holding the new index, which
+    // makes reading a large model quadratic, and without an event per variable
+    private void addRead(EnvironmentVar var)
+    {
+        if (var.getCategory() == null ||
+            var.getCategory().equals(EnvironmentVar.ALL_CATEGORIES))
+        {
+            var.setCategory(EnvironmentVar.NULL_CATEGORY);
+        }
+        if (varName2index.containsKey(var.getName()))
+        {
+            add(var);
+            return;
+        }
+        int newIndex = allEnvVars.size();
+        allEnvVars.add(var);
+        for (String category : new String[]
+        {
+            EnvironmentVar.ALL_CATEGORIES, var.getCategory()
+        })
+        {
+            ArrayList<Integer> indices = category2indexList.get(category);
+            if (indices == null)
+            {
+                indices = new ArrayList<>();
+                category2indexList.put(category, indices);
+            }
+            indices.add(newIndex);
+        }
+        varName2index.put(var.getName(), newIndex);
+    }
+
     /**
      * Retrieve a category specific Table-model for example for the use in a
      * JTable.
@@ -837,6 +1006,61 @@ public final class EnvironmentVarModel
         fireTableDataChanged();
     }
 
+    /**
+     * Count the change before telling the listeners about it. All changes made
+     * through the model end up here.
+     *
+     * @param e the event describing the change
+     */
+    @Override // overriding AbstractTableModel
+    public void fireTableChanged(TableModelEvent e)
+    {
+        version++;
+        super.fireTableChanged(e);
+    }
+
+    /**
+     * Retrieve the number of changes made to this model so far.
+     *
+     * @return the version of the model
+     */
+    public long getVersion()
+    {
+        return version;
+    }
+
+    /**
+     * Retrieve the defined variables as name-value map, like a process
+     * environment. The map is built once and reused until the model changes,
+     * so asking again for an unchanged model costs next to nothing and returns
+     * the same map. Changes made directly to the variables or their values,
+     * bypassing the model, are not noticed.
+     *
+     * @return an unmodifiable map of the names and values of all defined
+     *         variables
+     */
+    public synchronized Map<String, String> toEnvironmentMap()
+    {
+        long current = version;
+        if (environmentMap == null || environmentMapVersion != current)
+        {
+            HashMap<String, String> materialized = new HashMap<>();
+            for (EnvironmentVar var : allEnvVars)
+            {
+                if (var.getDefined())
+                {
+                    materialized.put(var.getName(),
+                                     var.getValue() == null ?
+                                     "" :
+                                     var.getValue().toString());
+                }
+            }
+            environmentMap = Collections.unmodifiableMap(materialized);
+            environmentMapVersion = current;
+        }
+        return environmentMap;
+    }
+
     /**
      * Enumeration of the columns per Environment-variable.
      */
@@ -20,23 +20,48 @@
  */
 package com.kybelksties.general;
 
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
-import java.io.FileReader;
 import java.io.FileWriter;
+import java.io.FilenameFilter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
@@ -189,31 +214,66 @@ public class FileUtilities
     }
 
     /**
-     * Recursively list all files/directories in the path.
+     * The largest file that can be read or mapped as text.
+     */
+    static final long MAX_TEXT_SIZE = Integer.MAX_VALUE - 8;
+
+    private static final AtomicLong TEMP_COUNTER = new AtomicLong();
+    private static final Map<String, AppendChannel> APPEND_CHANNELS =
+                                                    new HashMap<>();
+    private static boolean appendHookAdded = false;
+
+    /**
+     * The walker used to list and search directory trees, created on first
+     * use.
+     */
+    private static DirectoryWalker walker;
+
+    /**
+     * Retrieve the shared walker that lists and searches directory trees.
      *
-     * @param path root path of the directory tree to list
-     * @return List of all files in the directory listed recursively
+     * @return the walker
      */
-    public static List<File> listRecursive(File path)
+    static synchronized DirectoryWalker getWalker()
     {
-        List<File> reval = new ArrayList<>();
-        if (path == null || !path.exists())
+        if (walker == null)
         {
-            return null;
+            walker = new DirectoryWalker();
         }
-        if (path.isDirectory())
+        return walker;
+    }
+
+    /**
+     * Orders files deepest first, so that the contents of a directory come
+     * before the directory.
+     */
+    private static final Comparator<File> DEEPEST_FIRST =
+            new Comparator<File>()
+    {
+        @Override
+        public int compare(File f1, File f2)
         {
-            for (File f : path.listFiles())
-            {
-                List<File> sub = listRecursive(f);
-                if (sub != null)
-                {
-                    reval.addAll(sub);
-                }
-            }
+            return Integer.compare(f2.toPath().getNameCount(),
+                                   f1.toPath().getNameCount());
         }
-        reval.add(path);
+    };
 
+    /**
+     * Recursively list all files/directories in the path. The directories are
+     * read in parallel, but the contents of each directory are still
+     * listed before the directory itself and the root comes last, so that
+     * the files can be deleted in list order.
+     *
+     * @param path root path of the directory tree to list
+     * @return List of all files in the directory listed recursively
+     */
+    public static List<File> listRecursive(File path)
+    {
+        List<File> reval = getWalker().walk(path, null);
+        if (reval != null)
+        {
+            Collections.sort(reval, DEEPEST_FIRST);
+        }
         return reval;
     }
 
@@ -245,23 +305,17 @@ public class FileUtilities
                                                    final String extension)
     {
         File root = new File(rootPath == null ? "" : rootPath);
-        List<File> allFiles = listRecursive(root);
-        ArrayList<File> reval = new ArrayList<>();
-        if (allFiles != null)
+        FilenameFilter filter = new FilenameFilter()
         {
-            for (File f : allFiles)
+            @Override
+            public boolean accept(File dir, String name)
             {
-                if ((startString == null ||
-                     f.getName().startsWith(startString)) &&
-                    (extension == null ||
-                     f.getName().endsWith(extension)))
-                {
-                    reval.add(f);
-                }
+                return (startString == null || name.startsWith(startString)) &&
+                       (extension == null || name.endsWith(extension));
             }
-        }
-
-        return reval;
+        };
+        List<File> reval = getWalker().walk(root, filter);
+        return reval == null ? new ArrayList<File>() : reval;
     }
 
     /**
@@ -276,23 +330,150 @@ public class FileUtilities
     {
         File root = new File(rootPath == null ? "" : rootPath);
 
-        Set<String> nameSet = new HashSet<>();
-        nameSet.addAll(Arrays.asList(names));
+        final Set<String> nameSet = new HashSet<>();
+        if (names != null)
+        {
+            nameSet.addAll(Arrays.asList(names));
+        }
+
+        FilenameFilter filter = names == null ? null : new FilenameFilter()
+        {
+            @Override
+            public boolean accept(File dir, String name)
+            {
+                return nameSet.contains(name);
+            }
+        };
+        List<File> reval = getWalker().walk(root, filter);
+        return reval == null ? new ArrayList<File>() : reval;
+    }
 
-        List<File> allFiles = listRecursive(root);
-        ArrayList<File> reval = new ArrayList<>();
-        if (allFiles != null)
+    /**
+     * Lazily list all files/directories in the path, down to a maximum depth.
+     * Each directory is reported before its contents. The stream must be
+     * closed, closing it early leaves the rest of the tree unread.
+     *
+     * @param path     root path of the directory tree to list
+     * @param maxDepth the deepest level to list, the root is level 0
+     * @return a stream of all the paths
+     * @throws IOException if the root path does not exist
+     */
+    public static RecursiveDirectoryStream streamRecursive(File path,
+                                                           int maxDepth)
+            throws IOException
+    {
+        return new RecursiveDirectoryStream(
+                new File(path == null ? "" : path.getPath()).toPath(),
+                maxDepth,
+                null);
+    }
+
+    /**
+     * Lazily find the files with a common start string and/or a common end
+     * string, down to a maximum depth.
+     *
+     * @param rootPath    root path of the directory tree
+     * @param startString start of the file names, null for any
+     * @param extension   end of the file names including the '.', null for
+     *                    any
+     * @param maxDepth    the deepest level to search, the root is level 0
+     * @return a stream of the matching paths
+     * @throws IOException if the root path does not exist
+     */
+    public static RecursiveDirectoryStream streamFilesStartingWith(
+            String rootPath,
+            final String startString,
+            final String extension,
+            int maxDepth)
+            throws IOException
+    {
+        return new RecursiveDirectoryStream(
+                new File(rootPath == null ? "" : rootPath).toPath(),
+                maxDepth,
+                new DirectoryStream.Filter<Path>()
         {
-            for (File f : allFiles)
+            @Override
+            public boolean accept(Path entry)
             {
-                String fileName = f.getName();
-                if (names == null || nameSet.contains(fileName))
-                {
-                    reval.add(f);
-                }
+                String name = fileName(entry);
+                return (startString == null || name.startsWith(startString)) &&
+                       (extension == null || name.endsWith(extension));
             }
+        });
+    }
+
+    /**
+     * Lazily find the files with one of the given names, down to a maximum
+     * depth.
+     *
+     * @param rootPath root path of the directory tree
+     * @param maxDepth the deepest level to search, the root is level 0
+     * @param names    the file names to find, null for any
+     * @return a stream of the matching paths
+     * @throws IOException if the root path does not exist
+     */
+    public static RecursiveDirectoryStream streamFilesNamed(String rootPath,
+                                                            int maxDepth,
+                                                            String... names)
+            throws IOException
+    {
+        final Set<String> nameSet = new HashSet<>();
+        if (names != null)
+        {
+            nameSet.addAll(Arrays.asList(names));
         }
-        return reval;
+        return new RecursiveDirectoryStream(
+                new File(rootPath == null ? "" : rootPath).toPath(),
+                maxDepth,
+                names == null ? null : new DirectoryStream.Filter<Path>()
+        {
+            @Override
+            public boolean accept(Path entry)
+            {
+                return nameSet.contains(fileName(entry));
+            }
+        });
+    }
+
+    /**
+     * Lazily find the files whose names match a glob or regular expression,
+     * down to a maximum depth.
+     *
+     * @param rootPath         root path of the directory tree
+     * @param syntaxAndPattern the pattern as for
+     *                         FileSystem.getPathMatcher(), for example
+     *                         "glob:*.{log,txt}" or "regex:node[0-9]+\\.log"
+     * @param maxDepth         the deepest level to search, the root is level
+     *                         0
+     * @return a stream of the matching paths
+     * @throws IOException if the root path does not exist
+     */
+    public static RecursiveDirectoryStream streamFilesMatching(
+            String rootPath,
+            String syntaxAndPattern,
+            int maxDepth)
+            throws IOException
+    {
+        final PathMatcher matcher = FileSystems.getDefault().getPathMatcher(
+                             syntaxAndPattern);
+        return new RecursiveDirectoryStream(
+                new File(rootPath == null ? "" : rootPath).toPath(),
+                maxDepth,
+                new DirectoryStream.Filter<Path>()
+        {
+            @Override
+            public boolean accept(Path entry)
+            {
+                Path name = entry.getFileName();
+                return name != null && matcher.matches(name);
+            }
+        });
+    }
+
+    private static String fileName(Path path)
+    {
+        Path name = path.getFileName();
+        return name == null ? "" : name.toString();
     }
 
     /**
@@ -420,7 +601,140 @@ public class FileUtilities
     }
 
     /**
-     * Read the contents of a file.
+     * Save the text to a file atomically: the text is written to a temporary
+     * file in the same directory, which then replaces the file by a rename.
+     * Readers and a crash see either the old or the new contents, never a
+     * missing or partly written file. An existing file's permissions are kept
+     * where the file system supports it.
+     *
+     * @param fileName   Path of the (new) file as string
+     * @param textToSave the new contents of the file
+     * @param force      force the creation of path/file if set to true
+     * @param sync       force the contents and the rename to the device
+     *                   before returning
+     * @throws java.io.IOException
+     */
+    public static void saveTextAtomic(String fileName,
+                                      String textToSave,
+                                      boolean force,
+                                      boolean sync)
+            throws IOException
+    {
+        Path target = new File(fileName == null ? "" : fileName).
+             getAbsoluteFile().toPath();
+        Path directory = target.getParent();
+        if (force && !Files.exists(directory))
+        {
+            Files.createDirectories(directory);
+        }
+        if (!Files.isDirectory(directory))
+        {
+            throw new IOException(NbBundle.getMessage(
+                    CLAZZ,
+                    "FileUtilities.noSuchDirectory",
+                    directory,
+                    target));
+        }
+        Path temp = createTempSibling(target);
+        try
+        {
+            if (Files.exists(target))
+            {
+                try
+                {
+                    Files.setPosixFilePermissions(
+                            temp,
+                            Files.getPosixFilePermissions(target));
+                }
+                catch (UnsupportedOperationException ex)
+                {
+                    // not a POSIX file system
+                }
+            }
+            try (FileChannel channel = FileChannel.open(
+                         temp,
+                         StandardOpenOption.WRITE))
+            {
+                ByteBuffer bytes = Charset.defaultCharset().encode(
+                           textToSave == null ? "" : textToSave);
+                while (bytes.hasRemaining())
+                {
+                    channel.write(bytes);
+                }
+                if (sync)
+                {
+                    channel.force(true);
+                }
+            }
+            try
+            {
+                Files.move(temp,
+                           target,
+                           StandardCopyOption.ATOMIC_MOVE,
+                           StandardCopyOption.REPLACE_EXISTING);
+            }
+            catch (AtomicMoveNotSupportedException ex)
+            {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            temp = null;
+            if (sync)
+            {
+                syncDirectory(directory);
+            }
+        }
+        finally
+        {
+            if (temp != null)
+            {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    private static Path createTempSibling(Path target) throws IOException
+    {
+        while (true)
+        {
+            Path temp = target.resolveSibling(
+                 "." + target.getFileName() + "." +
+                 Long.toHexString(TEMP_COUNTER.incrementAndGet()) + "." +
+                 Long.toHexString(System.nanoTime()) + ".tmp");
+            try
+            {
+                // created with the default permissions, unlike createTempFile
+                Files.newByteChannel(temp,
+                                     StandardOpenOption.CREATE_NEW,
+                                     StandardOpenOption.WRITE).close();
+                return temp;
+            }
+            catch (FileAlreadyExistsException ex)
+            {
+                // try the next name
+            }
+        }
+    }
+
+    private static void syncDirectory(Path directory)
+    {
+        // makes the rename durable; not all platforms can open a directory
+        try (FileChannel channel = FileChannel.open(directory,
+                                                    StandardOpenOption.READ))
+        {
+            channel.force(true);
+        }
+        catch (IOException ex)
+        {
+            LOGGER.log(Level.FINE, "Cannot sync directory {0}: {1}",
+                       new Object[]
+                       {
+                           directory, ex.getMessage()
+                       });
+        }
+    }
+
+    /**
+     * Read the contents of a file in the platform's default encoding.
      *
      * @param fileName path of the file to read
      * @return the contents as string.
@@ -429,25 +743,107 @@ public class FileUtilities
      */
     public static String readText(String fileName) throws IOException
     {
-        String reval;
-        try (BufferedReader bufferedReader =
-                            new BufferedReader(new FileReader(fileName)))
+        return readText(fileName, Charset.defaultCharset());
+    }
+
+    /**
+     * Read the contents of a file in the given encoding. The file is read in
+     * bulk into a buffer of its size and decoded in one go.
+     *
+     * @param fileName path of the file to read
+     * @param charset  the encoding of the file
+     * @return the contents as string.
+     * @throws FileNotFoundException
+     * @throws IOException
+     */
+    public static String readText(String fileName, Charset charset)
+            throws IOException
+    {
+        try (FileInputStream in = new FileInputStream(fileName))
         {
-            StringBuilder sb = new StringBuilder();
-            int readChar;
-            do
+            long size = in.getChannel().size();
+            if (size > MAX_TEXT_SIZE)
             {
-                readChar = bufferedReader.read();
-                if (readChar != -1)
+                throw tooLarge(fileName, size);
+            }
+            byte[] bytes = new byte[(int) size];
+            int length = 0;
+            while (true)
+            {
+                if (length == bytes.length)
                 {
-                    sb.append(Character.toChars(readChar));
+                    // the file has grown or does not know its size
+                    int next = in.read();
+                    if (next < 0)
+                    {
+                        break;
+                    }
+                    if (length >= MAX_TEXT_SIZE)
+                    {
+                        throw tooLarge(fileName, length + 1L);
+                    }
+                    bytes = Arrays.copyOf(bytes,
+                                          (int) Math.min(MAX_TEXT_SIZE,
+                                                         Math.max(8192L,
+                                                                  2L * length)));
+                    bytes[length++] = (byte) next;
                 }
+                int read = in.read(bytes, length, bytes.length - length);
+                if (read < 0)
+                {
+                    break;
+                }
+                length += read;
             }
-            while (readChar != -1);
-            reval = sb.toString();
+            return new String(bytes, 0, length, charset);
         }
+    }
 
-        return reval;
+    /**
+     * Map the contents of a file into memory and view them as characters. For
+     * single byte encodings (ISO-8859-1 and US-ASCII) the characters are read
+     * straight from the mapping without any copy, so even very large files
+     * cost no heap; other encodings are decoded from the mapping into one
+     * character buffer. The mapping is released when the returned sequence is
+     * garbage collected.
+     *
+     * @param fileName path of the file to map
+     * @param charset  the encoding of the file
+     * @return the contents as character sequence
+     * @throws FileNotFoundException
+     * @throws IOException
+     */
+    public static CharSequence mapText(String fileName, Charset charset)
+            throws IOException
+    {
+        try (FileInputStream in = new FileInputStream(fileName))
+        {
+            FileChannel channel = in.getChannel();
+            long size = channel.size();
+            if (size > MAX_TEXT_SIZE)
+            {
+                throw tooLarge(fileName, size);
+            }
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY,
+                                                 0L,
+                                                 size);
+            if (MappedText.isSingleByte(charset))
+            {
+                return new MappedText(bytes, charset);
+            }
+            return charset.newDecoder().
+                    onMalformedInput(CodingErrorAction.REPLACE).
+                    onUnmappableCharacter(CodingErrorAction.REPLACE).
+                    decode(bytes);
+        }
+    }
+
+    private static IOException tooLarge(String fileName, long size)
+    {
+        return new IOException(NbBundle.getMessage(CLAZZ,
+                                                   "FileUtilities.fileTooLarge",
+                                                   fileName,
+                                                   size));
     }
 
     /**
@@ -462,10 +858,28 @@ public class FileUtilities
             throws FileNotFoundException,
                    IOException
     {
-        FileOutputStream fileOut = new FileOutputStream(filename);
-        ObjectOutputStream out = new ObjectOutputStream(fileOut);
-        out.writeObject(obj);
+        serialize(filename, obj, StreamCodec.NONE);
+    }
 
+    /**
+     * Serialize an object to file through a compressing codec.
+     *
+     * @param <T>      a serializable type
+     * @param filename the file to which the serialization is written
+     * @param obj      the serializable object
+     * @param codec    the compression of the file
+     * @throws java.io.FileNotFoundException
+     */
+    public static <T> void serialize(String filename, T obj, StreamCodec codec)
+            throws FileNotFoundException,
+                   IOException
+    {
+        // the stream is closed even if the wrapper cannot be constructed
+        try (OutputStream stream = openForWriting(filename, codec);
+             ObjectOutputStream out = new ObjectOutputStream(stream))
+        {
+            out.writeObject(obj);
+        }
     }
 
     /**
@@ -482,11 +896,120 @@ public class FileUtilities
                    IOException,
                    ClassNotFoundException
     {
+        return deserialize(filename, StreamCodec.NONE);
+    }
+
+    /**
+     * Deserialize an object from a file written through a compressing codec.
+     *
+     * @param <T>      a serializable type
+     * @param filename the file from which the serialization is read
+     * @param codec    the compression the file was written with
+     * @return the object
+     * @throws java.io.FileNotFoundException
+     * @throws java.lang.ClassNotFoundException
+     */
+    public static <T> T deserialize(String filename, StreamCodec codec)
+            throws FileNotFoundException,
+                   IOException,
+                   ClassNotFoundException
+    {
+        try (InputStream stream = openForReading(filename, codec);
+             ObjectInputStream in = new ObjectInputStream(stream))
+        {
+            return (T) in.readObject();
+        }
+    }
+
+    /**
+     * Write an object to file in the compact form of a binary codec.
+     *
+     * @param <T>         the type of the object
+     * @param filename    the file to write
+     * @param obj         the object
+     * @param binaryCodec writes the object
+     * @param codec       the compression of the file
+     * @throws java.io.FileNotFoundException
+     */
+    public static <T> void writeBinary(String filename,
+                                       T obj,
+                                       BinaryCodec<? super T> binaryCodec,
+                                       StreamCodec codec)
+            throws FileNotFoundException,
+                   IOException
+    {
+        try (OutputStream stream = openForWriting(filename, codec);
+             DataOutputStream out = new DataOutputStream(stream))
+        {
+            binaryCodec.write(out, obj);
+        }
+    }
+
+    /**
+     * Read an object from a file written by writeBinary().
+     *
+     * @param <T>         the type of the object
+     * @param filename    the file to read
+     * @param binaryCodec reads the object
+     * @param codec       the compression the file was written with
+     * @return the object
+     * @throws java.io.FileNotFoundException
+     */
+    public static <T> T readBinary(String filename,
+                                   BinaryCodec<T> binaryCodec,
+                                   StreamCodec codec)
+            throws FileNotFoundException,
+                   IOException
+    {
+        try (InputStream stream = openForReading(filename, codec);
+             DataInputStream in = new DataInputStream(stream))
+        {
+            return binaryCodec.read(in);
+        }
+    }
 
-        FileInputStream fileIn = new FileInputStream(filename);
-        ObjectInputStream in = new ObjectInputStream(fileIn);
+    // buffered on both sides of a compressing codec, so that neither the
+    // codec nor the file sees the many small writes of the callers
+    private static OutputStream openForWriting(String filename,
+                                               StreamCodec codec)
+            throws IOException
+    {
+        OutputStream file = new FileOutputStream(filename);
+        try
+        {
+            OutputStream reval = codec.wrap(new BufferedOutputStream(
+                                 file,
+                                 StreamCodec.BUFFER_SIZE));
+            return codec == StreamCodec.NONE ?
+                   reval :
+                   new BufferedOutputStream(reval, StreamCodec.BUFFER_SIZE);
+        }
+        catch (IOException | RuntimeException ex)
+        {
+            file.close();
+            throw ex;
+        }
+    }
 
-        return (T) in.readObject();
+    private static InputStream openForReading(String filename,
+                                              StreamCodec codec)
+            throws IOException
+    {
+        InputStream file = new FileInputStream(filename);
+        try
+        {
+            InputStream reval = codec.wrap(new BufferedInputStream(
+                                file,
+                                StreamCodec.BUFFER_SIZE));
+            return codec == StreamCodec.NONE ?
+                   reval :
+                   new BufferedInputStream(reval, StreamCodec.BUFFER_SIZE);
+        }
+        catch (IOException | RuntimeException ex)
+        {
+            file.close();
+            throw ex;
+        }
     }
 
     /**
@@ -591,4 +1114,101 @@ public class FileUtilities
             }
         }
     }
+
+    /**
+     * Append some text to a file through the shared append channel of the
+     * file, which is opened on first use and stays open. The call returns as
+     * soon as the text is queued; the channel writes all text queued while
+     * its previous write was in progress in one write. Use flushAppends() to
+     * wait until the text is in the file. The channels are closed, and their
+     * queues written, by closeAppendChannels() or when the JVM exits.
+     *
+     * @param fileName path to file as string
+     * @param text     the text to append
+     * @throws IOException if the file cannot be created or opened, or an
+     *                     earlier write to it has failed
+     */
+    public static void appendTextAsync(String fileName, String text)
+            throws IOException
+    {
+        getAppendChannel(fileName).append(text);
+    }
+
+    /**
+     * Retrieve the shared append channel of a file, opening it if needed.
+     *
+     * @param fileName path to file as string
+     * @return the channel
+     * @throws IOException if the file cannot be created or opened
+     */
+    public static AppendChannel getAppendChannel(String fileName)
+            throws IOException
+    {
+        String key = new File(fileName).getAbsolutePath();
+        synchronized (APPEND_CHANNELS)
+        {
+            AppendChannel reval = APPEND_CHANNELS.get(key);
+            if (reval == null)
+            {
+                if (!appendHookAdded)
+                {
+                    Runtime.getRuntime().addShutdownHook(new Thread(
+                            new Runnable()
+                    {
+                        @Override
+                        public void run()
+                        {
+                            closeAppendChannels();
+                        }
+                    }, "FileUtilities-closeAppendChannels"));
+                    appendHookAdded = true;
+                }
+                reval = new AppendChannel(fileName, false);
+                APPEND_CHANNELS.put(key, reval);
+            }
+            return reval;
+        }
+    }
+
+    /**
+     * Wait until all text appended through appendTextAsync() is written.
+     *
+     * @throws IOException if a write has failed
+     */
+    public static void flushAppends() throws IOException
+    {
+        List<AppendChannel> channels;
+        synchronized (APPEND_CHANNELS)
+        {
+            channels = new ArrayList<>(APPEND_CHANNELS.values());
+        }
+        for (AppendChannel channel : channels)
+        {
+            channel.flush();
+        }
+    }
+
+    /**
+     * Write the queued text of all shared append channels and close them.
+     */
+    public static void closeAppendChannels()
+    {
+        List<AppendChannel> channels;
+        synchronized (APPEND_CHANNELS)
+        {
+            channels = new ArrayList<>(APPEND_CHANNELS.values());
+            APPEND_CHANNELS.clear();
+        }
+        for (AppendChannel channel : channels)
+        {
+            try
+            {
+                channel.close();
+            }
+            catch (IOException ex)
+            {
+                LOGGER.log(Level.SEVERE, null, ex);
+            }
+        }
+    }
 }
@@ -0,0 +1,495 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.general;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * A fast LZ77 compressor in the style of LZ4. The data is cut into blocks;
+ * each block is a sequence of literal runs, each followed by a back-reference
+ * of at least four bytes into the last 64K of the block. Matches are found
+ * through a hash of the next four bytes, without searching, which trades
+ * ratio for speed. A block that does not shrink is stored as it is.
+ *
+ * A sequence starts with a token byte, literal length in the high and match
+ * length minus four in the low nibble; a nibble of 15 is continued by bytes
+ * that are added up to the first one that is not 255. The literals follow,
+ * then the offset as two bytes, low byte first, and the match length
+ * continuation. The last sequence of a block has literals only. On the
+ * stream each block is a type byte, its raw length and, for compressed
+ * blocks, its compressed length as ints, the CRC32 of its raw bytes as int,
+ * then the data; a type of 0 ends the stream. A block whose raw bytes do not
+ * match their checksum fails the read with an IOException.
+ *
+ * @author Dieter J Kybelksties
+ */
+final class LzCodec
+{
+
+    private static final Class CLAZZ = LzCodec.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    /**
+     * The size of the blocks compressed in one go.
+     */
+    static final int BLOCK_SIZE = 64 * 1024;
+
+    private static final int MIN_MATCH = 4;
+    private static final int MAX_OFFSET = 0xFFFF;
+    private static final int HASH_BITS = 13;
+    private static final int END = 0;
+    private static final int STORED = 1;
+    private static final int COMPRESSED = 2;
+
+    private LzCodec()
+    {
+    }
+
+    /**
+     * The largest size a block of the given length can compress to.
+     *
+     * @param length the raw length
+     * @return the bound
+     */
+    static int maxCompressedLength(int length)
+    {
+        return length + length / 255 + 16;
+    }
+
+    private static int readInt(byte[] bytes, int index)
+    {
+        return (bytes[index] & 0xFF) |
+               (bytes[index + 1] & 0xFF) << 8 |
+               (bytes[index + 2] & 0xFF) << 16 |
+               (bytes[index + 3] & 0xFF) << 24;
+    }
+
+    private static int hash(int fourBytes)
+    {
+        return (fourBytes * -1640531535) >>> (32 - HASH_BITS);
+    }
+
+    private static int writeLength(byte[] dst, int op, int length)
+    {
+        while (length >= 255)
+        {
+            dst[op++] = (byte) 255;
+            length -= 255;
+        }
+        dst[op++] = (byte) length;
+        return op;
+    }
+
+    private static int writeLiterals(byte[] dst,
+                                     int op,
+                                     byte[] src,
+                                     int anchor,
+                                     int literals,
+                                     int matchNibble)
+    {
+        dst[op++] = (byte) (Math.min(literals, 15) << 4 | matchNibble);
+        if (literals >= 15)
+        {
+            op = writeLength(dst, op, literals - 15);
+        }
+        System.arraycopy(src, anchor, dst, op, literals);
+        return op + literals;
+    }
+
+    /**
+     * Compress a block.
+     *
+     * @param src    the raw bytes
+     * @param length the number of raw bytes
+     * @param dst    receives the compressed block, at least
+     *               maxCompressedLength(length) long
+     * @param table  hash table of 1 &lt;&lt; 13 ints to reuse
+     * @return the compressed length
+     */
+    static int compress(byte[] src, int length, byte[] dst, int[] table)
+    {
+        // positions are stored plus one, so 0 means no entry
+        Arrays.fill(table, 0);
+        int anchor = 0;
+        int ip = 0;
+        int op = 0;
+        while (ip <= length - MIN_MATCH)
+        {
+            int sequence = readInt(src, ip);
+            int h = hash(sequence);
+            int ref = table[h] - 1;
+            table[h] = ip + 1;
+            if (ref < 0 ||
+                ip - ref > MAX_OFFSET ||
+                readInt(src, ref) != sequence)
+            {
+                ip++;
+                continue;
+            }
+            int matchLength = MIN_MATCH;
+            while (ip + matchLength < length &&
+                   src[ref + matchLength] == src[ip + matchLength])
+            {
+                matchLength++;
+            }
+            int extra = matchLength - MIN_MATCH;
+            op = writeLiterals(dst,
+                               op,
+                               src,
+                               anchor,
+                               ip - anchor,
+                               Math.min(extra, 15));
+            int offset = ip - ref;
+            dst[op++] = (byte) offset;
+            dst[op++] = (byte) (offset >>> 8);
+            if (extra >= 15)
+            {
+                op = writeLength(dst, op, extra - 15);
+            }
+            ip += matchLength;
+            anchor = ip;
+        }
+        return writeLiterals(dst, op, src, anchor, length - anchor, 0);
+    }
+
+    private static int readLength(byte[] src, int[] ip, int end)
+            throws IOException
+    {
+        int reval = 0;
+        int b;
+        do
+        {
+            if (ip[0] >= end)
+            {
+                throw corrupt();
+            }
+            b = src[ip[0]++] & 0xFF;
+            reval += b;
+        }
+        while (b == 255);
+        return reval;
+    }
+
+    /**
+     * Decompress a block.
+     *
+     * @param src       the compressed block
+     * @param srcLength its length
+     * @param dst       receives the raw bytes
+     * @param dstLength the raw length
+     * @throws IOException if the block is corrupt
+     */
+    static void decompress(byte[] src, int srcLength, byte[] dst, int dstLength)
+            throws IOException
+    {
+        int[] ip =
+        {
+            0
+        };
+        int op = 0;
+        while (ip[0] < srcLength)
+        {
+            int token = src[ip[0]++] & 0xFF;
+            int literals = token >>> 4;
+            if (literals == 15)
+            {
+                literals += readLength(src, ip, srcLength);
+            }
+            if (ip[0] + literals > srcLength || op + literals > dstLength)
+            {
+                throw corrupt();
+            }
+            System.arraycopy(src, ip[0], dst, op, literals);
+            ip[0] += literals;
+            op += literals;
+            if (ip[0] == srcLength)
+            {
+                break;
+            }
+            if (ip[0] + 2 > srcLength)
+            {
+                throw corrupt();
+            }
+            int offset = (src[ip[0]] & 0xFF) | (src[ip[0] + 1] & 0xFF) << 8;
+            ip[0] += 2;
+            int matchLength = token & 0x0F;
+            if (matchLength == 15)
+            {
+                matchLength += readLength(src, ip, srcLength);
+            }
+            matchLength += MIN_MATCH;
+            int ref = op - offset;
+            if (offset == 0 || ref < 0 || op + matchLength > dstLength)
+            {
+                throw corrupt();
+            }
+            // the match may overlap the bytes it produces
+            for (int i = 0; i < matchLength; i++)
+            {
+                dst[op++] = dst[ref++];
+            }
+        }
+        if (op != dstLength)
+        {
+            throw corrupt();
+        }
+    }
+
+    private static IOException corrupt()
+    {
+        return new IOException("Corrupt compressed block");
+    }
+
+    /**
+     * Compresses what is written to it block by block.
+     */
+    static final class LzOutputStream extends FilterOutputStream
+    {
+
+        private final DataOutputStream data;
+        private final byte[] block = new byte[BLOCK_SIZE];
+        private final byte[] compressed =
+                             new byte[maxCompressedLength(BLOCK_SIZE)];
+        private final int[] table = new int[1 << HASH_BITS];
+        private final CRC32 checksum = new CRC32();
+        private int length = 0;
+        private boolean finished = false;
+
+        LzOutputStream(OutputStream out)
+        {
+            super(new DataOutputStream(out));
+            data = (DataOutputStream) this.out;
+        }
+
+        @Override
+        public void write(int b) throws IOException
+        {
+            if (length == block.length)
+            {
+                writeBlock();
+            }
+            block[length++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int count)
+                throws IOException
+        {
+            while (count > 0)
+            {
+                if (length == block.length)
+                {
+                    writeBlock();
+                }
+                int chunk = Math.min(count, block.length - length);
+                System.arraycopy(bytes, offset, block, length, chunk);
+                length += chunk;
+                offset += chunk;
+                count -= chunk;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException
+        {
+            writeBlock();
+            data.flush();
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            if (!finished)
+            {
+                finished = true;
+                try
+                {
+                    writeBlock();
+                    data.writeByte(END);
+                }
+                finally
+                {
+                    data.close();
+                }
+            }
+        }
+
+        private void writeBlock() throws IOException
+        {
+            if (length == 0)
+            {
+                return;
+            }
+            checksum.reset();
+            checksum.update(block, 0, length);
+            int compressedLength = compress(block, length, compressed, table);
+            if (compressedLength < length)
+            {
+                data.writeByte(COMPRESSED);
+                data.writeInt(length);
+                data.writeInt(compressedLength);
+                data.writeInt((int) checksum.getValue());
+                data.write(compressed, 0, compressedLength);
+            }
+            else
+            {
+                data.writeByte(STORED);
+                data.writeInt(length);
+                data.writeInt((int) checksum.getValue());
+                data.write(block, 0, length);
+            }
+            length = 0;
+        }
+    }
+
+    /**
+     * Reads what an LzOutputStream has written.
+     */
+    static final class LzInputStream extends InputStream
+    {
+
+        private final DataInputStream data;
+        private final byte[] block = new byte[BLOCK_SIZE];
+        private final byte[] compressed =
+                             new byte[maxCompressedLength(BLOCK_SIZE)];
+        private final CRC32 checksum = new CRC32();
+        private int length = 0;
+        private int position = 0;
+        private boolean ended = false;
+
+        LzInputStream(InputStream in)
+        {
+            data = new DataInputStream(in);
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            if (!fill())
+            {
+                return -1;
+            }
+            return block[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int count)
+                throws IOException
+        {
+            if (count == 0)
+            {
+                return 0;
+            }
+            if (!fill())
+            {
+                return -1;
+            }
+            int reval = Math.min(count, length - position);
+            System.arraycopy(block, position, bytes, offset, reval);
+            position += reval;
+            return reval;
+        }
+
+        @Override
+        public int available()
+        {
+            return length - position;
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            data.close();
+        }
+
+        private boolean fill() throws IOException
+        {
+            while (position == length)
+            {
+                if (ended)
+                {
+                    return false;
+                }
+                int type;
+                try
+                {
+                    type = data.readByte();
+                }
+                catch (EOFException ex)
+                {
+                    throw new EOFException("Compressed stream is truncated");
+                }
+                if (type == END)
+                {
+                    ended = true;
+                    return false;
+                }
+                int rawLength = data.readInt();
+                if (rawLength < 0 || rawLength > block.length)
+                {
+                    throw corrupt();
+                }
+                int expected;
+                if (type == STORED)
+                {
+                    expected = data.readInt();
+                    data.readFully(block, 0, rawLength);
+                }
+                else if (type == COMPRESSED)
+                {
+                    int compressedLength = data.readInt();
+                    if (compressedLength < 0 ||
+                        compressedLength > compressed.length)
+                    {
+                        throw corrupt();
+                    }
+                    expected = data.readInt();
+                    data.readFully(compressed, 0, compressedLength);
+                    decompress(compressed, compressedLength, block, rawLength);
+                }
+                else
+                {
+                    throw corrupt();
+                }
+                checksum.reset();
+                checksum.update(block, 0, rawLength);
+                if ((int) checksum.getValue() != expected)
+                {
+                    throw new IOException(
+                            "Compressed block does not match its checksum");
+                }
+                length = rawLength;
+                position = 0;
+            }
+            return true;
+        }
+    }
+}
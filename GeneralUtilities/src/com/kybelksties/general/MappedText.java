@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.general;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Logger;
+
+/**
+ * A character view of a buffer of text in a single byte encoding, usually a
+ * memory mapped file. Each byte is one character, so the characters are read
+ * from the buffer as they are asked for and sub-sequences share the buffer.
+ * Bytes that are not US-ASCII read as the replacement character when the
+ * encoding is US-ASCII, as they would when decoded.
+ *
+ * @author Dieter J Kybelksties
+ */
+final class MappedText implements CharSequence
+{
+
+    private static final Class CLAZZ = MappedText.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    private static final char REPLACEMENT = '\uFFFD';
+
+    private final ByteBuffer bytes;
+    private final boolean ascii;
+
+    /**
+     * Construct a view of the remaining bytes of the buffer.
+     *
+     * @param bytes   the text
+     * @param charset the encoding, one for which isSingleByte() is true
+     */
+    MappedText(ByteBuffer bytes, Charset charset)
+    {
+        this(bytes.slice(), StandardCharsets.US_ASCII.equals(charset));
+    }
+
+    private MappedText(ByteBuffer bytes, boolean ascii)
+    {
+        this.bytes = bytes;
+        this.ascii = ascii;
+    }
+
+    /**
+     * Check whether text in the encoding can be viewed byte by byte.
+     *
+     * @param charset the encoding
+     * @return true for ISO-8859-1 and US-ASCII, false otherwise
+     */
+    static boolean isSingleByte(Charset charset)
+    {
+        return StandardCharsets.ISO_8859_1.equals(charset) ||
+               StandardCharsets.US_ASCII.equals(charset);
+    }
+
+    @Override
+    public int length()
+    {
+        return bytes.limit();
+    }
+
+    @Override
+    public char charAt(int index)
+    {
+        int b = bytes.get(index);
+        if (b < 0)
+        {
+            return ascii ? REPLACEMENT : (char) (b & 0xFF);
+        }
+        return (char) b;
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end)
+    {
+        if (start < 0 || end > length() || start > end)
+        {
+            throw new IndexOutOfBoundsException(
+                    "subSequence(" + start + ", " + end + ") of " + length());
+        }
+        ByteBuffer sub = bytes.duplicate();
+        sub.position(start);
+        sub.limit(end);
+        return new MappedText(sub.slice(), ascii);
+    }
+
+    @Override
+    public String toString()
+    {
+        char[] chars = new char[length()];
+        for (int i = 0; i < chars.length; i++)
+        {
+            chars[i] = charAt(i);
+        }
+        return new String(chars);
+    }
+}
@@ -128,6 +128,17 @@ public class PodVariant implements Serializable
                 null;
     }
 
+    /**
+     * Copy construct.
+     *
+     * @param rhs right hand side
+     */
+    public PodVariant(PodVariant rhs)
+    {
+        this.type = rhs.type;
+        this.value = rhs.value;
+    }
+
     /**
      * Construct from an object, bootstrapping the type.
      *
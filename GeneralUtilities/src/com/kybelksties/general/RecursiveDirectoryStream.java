@@ -0,0 +1,284 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.general;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A DirectoryStream over a whole directory tree. The tree is read lazily,
+ * depth first, while the iterator is advanced: a directory is reported
+ * before its contents and only one directory per level is open at a time, so
+ * memory stays bounded by the depth of the tree however many files it holds.
+ * Stopping early and closing the stream leaves the rest of the tree unread.
+ *
+ * Like the DirectoryStream it extends, this stream has a single iterator and
+ * should be used in a try-with-resources statement. The filter decides which
+ * entries are reported, the directories below maxDepth are descended into
+ * whether they are reported or not. A root that is a symbolic link to a
+ * directory is read; symbolic links below it are reported but not followed.
+ * Directories that cannot be read are skipped.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class RecursiveDirectoryStream implements DirectoryStream<Path>
+{
+
+    private static final Class CLAZZ = RecursiveDirectoryStream.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    /**
+     * The maximum depth that descends into the whole tree.
+     */
+    public static final int UNLIMITED_DEPTH = Integer.MAX_VALUE;
+
+    private final Path root;
+    private final int maxDepth;
+    private final DirectoryStream.Filter<? super Path> filter;
+    private final Deque<Frame> open = new ArrayDeque<>();
+    private boolean rootPending = true;
+    private boolean iteratorReturned = false;
+    private boolean closed = false;
+
+    /**
+     * Construct a stream over the tree under root.
+     *
+     * @param root     root of the tree, reported first if accepted
+     * @param maxDepth the deepest level to report, the root is level 0 and
+     *                 its entries level 1
+     * @param filter   decides which entries are reported, null accepts all
+     * @throws IOException if the root does not exist
+     */
+    public RecursiveDirectoryStream(Path root,
+                                    int maxDepth,
+                                    DirectoryStream.Filter<? super Path> filter)
+            throws IOException
+    {
+        if (!Files.exists(root, LinkOption.NOFOLLOW_LINKS))
+        {
+            throw new NoSuchFileException(root.toString());
+        }
+        this.root = root;
+        this.maxDepth = maxDepth;
+        this.filter = filter;
+    }
+
+    @Override
+    public synchronized Iterator<Path> iterator()
+    {
+        if (closed)
+        {
+            throw new IllegalStateException("Directory stream is closed");
+        }
+        if (iteratorReturned)
+        {
+            throw new IllegalStateException("Iterator already obtained");
+        }
+        iteratorReturned = true;
+        return new Iterator<Path>()
+        {
+            private Path next = null;
+
+            @Override
+            public boolean hasNext()
+            {
+                if (next == null)
+                {
+                    next = advance();
+                }
+                return next != null;
+            }
+
+            @Override
+            public Path next()
+            {
+                if (!hasNext())
+                {
+                    throw new NoSuchElementException();
+                }
+                Path reval = next;
+                next = null;
+                return reval;
+            }
+
+            @Override
+            public void remove()
+            {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public synchronized void close() throws IOException
+    {
+        closed = true;
+        while (!open.isEmpty())
+        {
+            open.pop().close();
+        }
+    }
+
+    /**
+     * Read on until the next accepted entry.
+     *
+     * @return the entry or null if the tree is exhausted or the stream closed
+     */
+    private synchronized Path advance()
+    {
+        if (closed)
+        {
+            return null;
+        }
+        if (rootPending)
+        {
+            rootPending = false;
+            descend(root, 0);
+            if (accept(root))
+            {
+                return root;
+            }
+        }
+        while (!open.isEmpty())
+        {
+            Frame top = open.peek();
+            Path entry;
+            try
+            {
+                if (!top.entries.hasNext())
+                {
+                    open.pop().close();
+                    continue;
+                }
+                entry = top.entries.next();
+            }
+            catch (DirectoryIteratorException ex)
+            {
+                LOGGER.log(Level.FINE, "Cannot read directory {0}: {1}",
+                           new Object[]
+                           {
+                               top.directory, ex.getMessage()
+                           });
+                open.pop().close();
+                continue;
+            }
+            descend(entry, top.depth + 1);
+            if (accept(entry))
+            {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private void descend(Path entry, int depth)
+    {
+        // only the root is followed if it is a link
+        if (depth >= maxDepth ||
+            !(depth == 0 ?
+              Files.isDirectory(entry) :
+              Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)))
+        {
+            return;
+        }
+        try
+        {
+            open.push(new Frame(entry, depth, Files.newDirectoryStream(entry)));
+        }
+        catch (IOException | SecurityException ex)
+        {
+            LOGGER.log(Level.FINE, "Cannot read directory {0}: {1}",
+                       new Object[]
+                       {
+                           entry, ex.getMessage()
+                       });
+        }
+    }
+
+    private boolean accept(Path entry)
+    {
+        if (filter == null)
+        {
+            return true;
+        }
+        try
+        {
+            return filter.accept(entry);
+        }
+        catch (IOException ex)
+        {
+            LOGGER.log(Level.FINE, "Cannot filter {0}: {1}",
+                       new Object[]
+                       {
+                           entry, ex.getMessage()
+                       });
+            return false;
+        }
+    }
+
+    /**
+     * An open directory and the depth of its entries' parent.
+     */
+    private static final class Frame
+    {
+
+        final Path directory;
+        final int depth;
+        final DirectoryStream<Path> stream;
+        final Iterator<Path> entries;
+
+        Frame(Path directory, int depth, DirectoryStream<Path> stream)
+        {
+            this.directory = directory;
+            this.depth = depth;
+            this.stream = stream;
+            this.entries = stream.iterator();
+        }
+
+        void close()
+        {
+            try
+            {
+                stream.close();
+            }
+            catch (IOException ex)
+            {
+                LOGGER.log(Level.FINE, "Cannot close directory {0}: {1}",
+                           new Object[]
+                           {
+                               directory, ex.getMessage()
+                           });
+            }
+        }
+    }
+}
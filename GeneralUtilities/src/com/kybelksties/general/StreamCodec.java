@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.general;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The compression applied to a serialized stream by FileUtilities. A stream
+ * must be read with the codec it was written with.
+ *
+ * @author Dieter J Kybelksties
+ */
+public enum StreamCodec
+{
+
+    /**
+     * No compression.
+     */
+    NONE
+    {
+        @Override
+        public OutputStream wrap(OutputStream out)
+        {
+            return out;
+        }
+
+        @Override
+        public InputStream wrap(InputStream in)
+        {
+            return in;
+        }
+    },
+    /**
+     * Deflate compression as in zip files: small output, slow.
+     */
+    DEFLATE
+    {
+        @Override
+        public OutputStream wrap(OutputStream out)
+        {
+            return new DeflaterOutputStream(out, new Deflater(), BUFFER_SIZE)
+            {
+                @Override
+                public void close() throws IOException
+                {
+                    try
+                    {
+                        super.close();
+                    }
+                    finally
+                    {
+                        def.end();
+                    }
+                }
+            };
+        }
+
+        @Override
+        public InputStream wrap(InputStream in)
+        {
+            return new InflaterInputStream(in, new Inflater(), BUFFER_SIZE)
+            {
+                @Override
+                public void close() throws IOException
+                {
+                    try
+                    {
+                        super.close();
+                    }
+                    finally
+                    {
+                        inf.end();
+                    }
+                }
+            };
+        }
+    },
+    /**
+     * LZ4-style compression: larger output than deflate, but fast enough to
+     * be cheaper than writing the bytes it saves.
+     */
+    LZ
+    {
+        @Override
+        public OutputStream wrap(OutputStream out)
+        {
+            return new LzCodec.LzOutputStream(out);
+        }
+
+        @Override
+        public InputStream wrap(InputStream in)
+        {
+            return new LzCodec.LzInputStream(in);
+        }
+    };
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Wrap a stream so that what is written to it is compressed.
+     *
+     * @param out the stream receiving the compressed bytes
+     * @return the stream to write to; closing it closes out
+     * @throws IOException if the stream cannot be started
+     */
+    public abstract OutputStream wrap(OutputStream out) throws IOException;
+
+    /**
+     * Wrap a stream so that what is read from it is decompressed.
+     *
+     * @param in the stream of compressed bytes
+     * @return the stream to read from; closing it closes in
+     * @throws IOException if the stream cannot be started
+     */
+    public abstract InputStream wrap(InputStream in) throws IOException;
+}
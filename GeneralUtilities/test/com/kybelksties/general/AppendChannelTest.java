@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.general;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test the batched, asynchronous appending to files.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class AppendChannelTest
+{
+
+    private static final Class CLAZZ = AppendChannelTest.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    final static String testDirectory = FileUtilities.FILE_SEPARATOR +
+                                        "tmp" +
+                                        FileUtilities.FILE_SEPARATOR +
+                                        "appendChannelTest";
+
+    /**
+     * Set up class statics.
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     * Tidy up class statics.
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     * Default construct.
+     */
+    public AppendChannelTest()
+    {
+    }
+
+    /**
+     * Set-up before any test.
+     *
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        if (new File(testDirectory).exists())
+        {
+            throw new Exception("Directory '" +
+                                testDirectory +
+                                "' exists. Please remove.");
+        }
+    }
+
+    /**
+     * Clean-up after any test.
+     */
+    @After
+    public void tearDown()
+    {
+        FileUtilities.deleteRecursive(testDirectory);
+    }
+
+    /**
+     * Test that concurrent appends all arrive, in fewer writes than appends.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGroupCommit() throws Exception
+    {
+        LOGGER.log(Level.INFO, "append from many threads");
+        String fileName = testDirectory + FileUtilities.FILE_SEPARATOR +
+                          "group.log";
+        final int threads = 4;
+        final int lines = 500;
+        final AppendChannel channel = new AppendChannel(fileName, true);
+        List<Thread> appenders = new ArrayList<>();
+        for (int t = 0; t < threads; t++)
+        {
+            final int thread = t;
+            Thread appender = new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        for (int i = 0; i < lines; i++)
+                        {
+                            channel.append("t" + thread + " line " + i + "\n");
+                        }
+                    }
+                    catch (IOException ex)
+                    {
+                        LOGGER.log(Level.SEVERE, null, ex);
+                    }
+                }
+            });
+            appenders.add(appender);
+            appender.start();
+        }
+        for (Thread appender : appenders)
+        {
+            appender.join();
+        }
+        channel.appendAndWait("last\n");
+        long writes = channel.getWriteCount();
+        LOGGER.log(Level.INFO, "{0} appends in {1} writes", new Object[]
+           {
+               threads * lines + 1, writes
+        });
+        assertTrue(writes <= threads * lines);
+        channel.close();
+
+        String[] written = FileUtilities.readText(fileName).split("\n");
+        assertEquals(threads * lines + 1, written.length);
+        assertEquals("last", written[written.length - 1]);
+        Set<String> distinct = new HashSet<>();
+        for (String line : written)
+        {
+            distinct.add(line);
+        }
+        assertEquals(written.length, distinct.size());
+
+        try
+        {
+            channel.append("too late");
+            fail("Appending to a closed channel should fail");
+        }
+        catch (IOException ex)
+        {
+            LOGGER.log(Level.INFO, "expected failure: {0}", ex.toString());
+        }
+    }
+
+    /**
+     * Test that appending nothing neither queues anything nor blocks.
+     *
+     * @throws Exception
+     */
+    @Test(timeout = 10000)
+    public void testEmptyAppend() throws Exception
+    {
+        LOGGER.log(Level.INFO, "append empty and null text");
+        String fileName = testDirectory + FileUtilities.FILE_SEPARATOR +
+                          "empty.log";
+        AppendChannel channel = new AppendChannel(fileName, false);
+        channel.appendAndWait("");
+        channel.flush();
+        long sequence = channel.append("first\n");
+        assertEquals(sequence, channel.append(""));
+        assertEquals(sequence, channel.append(null));
+        channel.appendAndWait(null);
+        channel.flush();
+        channel.close();
+        assertEquals("first\n", FileUtilities.readText(fileName));
+
+        String sharedName = testDirectory + FileUtilities.FILE_SEPARATOR +
+                            "emptyShared.log";
+        FileUtilities.appendTextAsync(sharedName, "");
+        FileUtilities.flushAppends();
+        FileUtilities.closeAppendChannels();
+        assertEquals("", FileUtilities.readText(sharedName));
+    }
+
+    /**
+     * Test the shared append channels of FileUtilities.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testAppendTextAsync() throws Exception
+    {
+        LOGGER.log(Level.INFO, "append through the shared channels");
+        String fileName = testDirectory + FileUtilities.FILE_SEPARATOR +
+                          "shared" + FileUtilities.FILE_SEPARATOR +
+                          "async.log";
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 100; i++)
+        {
+            String line = "Line " + i + StringUtils.NEWLINE;
+            FileUtilities.appendTextAsync(fileName, line);
+            expected.append(line);
+        }
+        assertTrue(FileUtilities.getAppendChannel(fileName) ==
+                   FileUtilities.getAppendChannel(
+                           new File(fileName).getAbsolutePath()));
+        FileUtilities.flushAppends();
+        assertEquals(expected.toString(), FileUtilities.readText(fileName));
+
+        FileUtilities.appendTextAsync(fileName, "end");
+        FileUtilities.closeAppendChannels();
+        assertEquals(expected + "end", FileUtilities.readText(fileName));
+    }
+}
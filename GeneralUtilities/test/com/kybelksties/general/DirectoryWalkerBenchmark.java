@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.general;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Compares the recursive listing and searching of a generated directory tree
+ * by the former File.listFiles() recursion and by the DirectoryWalker. Not a
+ * unit test: run the main method from the test class path. The arguments are
+ * the depth of the tree, the number of sub-directories and of files per
+ * directory, and the parallelism of the walker. The tree is generated under
+ * the temporary directory and removed afterwards.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class DirectoryWalkerBenchmark
+{
+
+    private static final Class CLAZZ = DirectoryWalkerBenchmark.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    private static final int WARMUP_ROUNDS = 1;
+    private static final int MEASURED_ROUNDS = 3;
+
+    /**
+     * Run the benchmark.
+     *
+     * @param args optional depth, sub-directories and files per directory and
+     *             parallelism
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int fanOut = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+        int files = args.length > 2 ? Integer.parseInt(args[2]) : 40;
+        int parallelism = args.length > 3 ?
+                          Integer.parseInt(args[3]) :
+                          DirectoryWalker.DEFAULT_PARALLELISM;
+
+        File root = new File(System.getProperty("java.io.tmpdir"),
+                             "directoryWalkerBenchmark");
+        FileUtilities.deleteRecursive(root);
+        int created = generate(root, depth, fanOut, files);
+        final DirectoryWalker walker = new DirectoryWalker(parallelism);
+        try
+        {
+            System.out.printf("%d entries, depth %d, parallelism %d%n",
+                              created,
+                              depth,
+                              parallelism);
+            System.out.printf("%-28s %10s %12s%n", "operation", "found", "ms");
+            final File start = root;
+            report("listFiles recursion", new Operation()
+               {
+                   @Override
+                   public int run()
+                   {
+                       return legacyListRecursive(start).size();
+                   }
+               });
+            report("walker", new Operation()
+               {
+                   @Override
+                   public int run()
+                   {
+                       return walker.walk(start, null).size();
+                   }
+               });
+            report("listFiles recursion+filter", new Operation()
+               {
+                   @Override
+                   public int run()
+                   {
+                       int reval = 0;
+                       for (File f : legacyListRecursive(start))
+                       {
+                           if (f.getName().startsWith("file1") &&
+                               f.getName().endsWith(".log"))
+                           {
+                               reval++;
+                           }
+                       }
+                       return reval;
+                   }
+               });
+            report("findFilesStartingWith", new Operation()
+               {
+                   @Override
+                   public int run()
+                   {
+                       return FileUtilities.findFilesStartingWith(
+                               start.getPath(),
+                               "file1",
+                               ".log").size();
+                   }
+               });
+        }
+        finally
+        {
+            walker.shutdown();
+            FileUtilities.deleteRecursive(root);
+        }
+    }
+
+    private interface Operation
+    {
+
+        int run();
+    }
+
+    private static void report(String name, Operation operation)
+    {
+        int found = 0;
+        for (int i = 0; i < WARMUP_ROUNDS; i++)
+        {
+            found = operation.run();
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ROUNDS; i++)
+        {
+            long start = System.nanoTime();
+            found = operation.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-28s %10d %12.1f%n", name, found, best / 1e6);
+    }
+
+    private static int generate(File directory,
+                                int depth,
+                                int fanOut,
+                                int files) throws IOException
+    {
+        if (!directory.mkdirs())
+        {
+            throw new IOException("Cannot create " + directory);
+        }
+        int reval = 1;
+        for (int i = 0; i < files; i++)
+        {
+            if (!new File(directory, "file" + i + ".log").createNewFile())
+            {
+                throw new IOException("Cannot create file in " + directory);
+            }
+            reval++;
+        }
+        if (depth > 0)
+        {
+            for (int i = 0; i < fanOut; i++)
+            {
+                reval += generate(new File(directory, "dir" + i),
+                                  depth - 1,
+                                  fanOut,
+                                  files);
+            }
+        }
+        return reval;
+    }
+
+    // the implementation of FileUtilities.listRecursive() before the walker
+    private static List<File> legacyListRecursive(File path)
+    {
+        List<File> reval = new ArrayList<>();
+        if (path == null || !path.exists())
+        {
+            return null;
+        }
+        if (path.isDirectory())
+        {
+            for (File f : path.listFiles())
+            {
+                List<File> sub = legacyListRecursive(f);
+                if (sub != null)
+                {
+                    reval.addAll(sub);
+                }
+            }
+        }
+        reval.add(path);
+
+        return reval;
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.general;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test the parallel directory walker.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class DirectoryWalkerTest
+{
+
+    private static final Class CLAZZ = DirectoryWalkerTest.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    final static String testDirectory = FileUtilities.FILE_SEPARATOR +
+                                        "tmp" +
+                                        FileUtilities.FILE_SEPARATOR +
+                                        "directoryWalkerTest";
+
+    /**
+     * Set up class statics.
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     * Tidy up class statics.
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     * Default construct.
+     */
+    public DirectoryWalkerTest()
+    {
+    }
+
+    /**
+     * Set-up before any test.
+     *
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        if (new File(testDirectory).exists())
+        {
+            throw new Exception("Directory '" +
+                                testDirectory +
+                                "' exists. Please remove.");
+        }
+    }
+
+    /**
+     * Clean-up after any test.
+     */
+    @After
+    public void tearDown()
+    {
+        FileUtilities.deleteRecursive(testDirectory);
+    }
+
+    /**
+     * Test of walk method, of class DirectoryWalker.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testWalk() throws Exception
+    {
+        LOGGER.log(Level.INFO, "walk a tree with and without filter");
+        Set<File> expected = new HashSet<>();
+        expected.add(new File(testDirectory));
+        for (int a = 0; a < 3; a++)
+        {
+            File dirA = new File(testDirectory, "dir" + a);
+            expected.add(dirA);
+            for (int b = 0; b < 4; b++)
+            {
+                File dirB = new File(dirA, "sub" + b);
+                assertTrue(dirB.mkdirs());
+                expected.add(dirB);
+                for (int f = 0; f < 5; f++)
+                {
+                    File file = new File(dirB, "file" + f + ".log");
+                    FileUtilities.saveText(file.getPath(), file.getPath());
+                    expected.add(file);
+                }
+            }
+        }
+        // a link back to the root is listed but not followed
+        File loop = new File(testDirectory + "/dir0/sub0/loop");
+        Files.createSymbolicLink(loop.toPath(),
+                                 new File(testDirectory).toPath());
+        expected.add(loop);
+
+        DirectoryWalker walker = new DirectoryWalker(3);
+        try
+        {
+            assertEquals(3, walker.getParallelism());
+            List<File> all = walker.walk(new File(testDirectory), null);
+            assertEquals(expected.size(), all.size());
+            assertEquals(expected, new HashSet<>(all));
+
+            List<File> found = walker.walk(new File(testDirectory),
+                                           new FilenameFilter()
+                                   {
+                                       @Override
+                                       public boolean accept(File dir,
+                                                             String name)
+                                       {
+                                           return name.equals("file3.log");
+                                       }
+                                   });
+            assertEquals(12, found.size());
+            for (File file : found)
+            {
+                assertEquals("file3.log", file.getName());
+                assertTrue(file.isFile());
+            }
+
+            assertNull(walker.walk(new File(testDirectory, "missing"), null));
+            File single = new File(testDirectory, "dir1/sub1/file1.log");
+            assertEquals(1, walker.walk(single, null).size());
+
+            // a root that is a link is followed, links below it are not
+            File linkedRoot = new File(testDirectory, "dir2/link");
+            Files.createSymbolicLink(linkedRoot.toPath(),
+                                     new File(testDirectory, "dir0").toPath());
+            List<File> linked = walker.walk(linkedRoot, null);
+            assertEquals(1 + 4 + 4 * 5 + 1, linked.size());
+            assertTrue(linked.contains(new File(linkedRoot, "sub0/loop")));
+            assertTrue(linked.contains(new File(linkedRoot,
+                                                "sub3/file4.log")));
+        }
+        finally
+        {
+            walker.shutdown();
+            // deleteRecursive() would follow the links
+            Files.deleteIfExists(loop.toPath());
+            Files.deleteIfExists(new File(testDirectory, "dir2/link").toPath());
+        }
+    }
+}
@@ -21,11 +21,15 @@
 package com.kybelksties.general;
 
 import java.io.IOException;
+import java.util.Map;
 import java.util.Set;
 import java.util.logging.Logger;
 import org.junit.After;
 import org.junit.AfterClass;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -279,6 +283,81 @@ public class EnvironmentVarModelTest
         }
     }
 
+    /**
+     * Test of toEnvironmentMap method, of class EnvironmentVarModel.
+     */
+    @Test
+    public void testToEnvironmentMap()
+    {
+        System.out.println("toEnvironmentMap");
+        EnvironmentVarModel instance = new EnvironmentVarModel();
+        try
+        {
+            instance.initialiseVarsFromFile(fileName1);
+            Map<String, String> result = instance.toEnvironmentMap();
+            assertEquals(5, result.size());
+            assertEquals("strVal1", result.get("ENV_VAR1"));
+            assertEquals("666", result.get("ENV_VAR5"));
+            // unchanged model, same map
+            assertSame(result, instance.toEnvironmentMap());
+
+            long version = instance.getVersion();
+            instance.setValue("ENV_VAR5", null, new PodVariant(42));
+            assertTrue(instance.getVersion() > version);
+            result = instance.toEnvironmentMap();
+            assertEquals("42", result.get("ENV_VAR5"));
+
+            instance.viewCategory("Cat1").undefineAll();
+            result = instance.toEnvironmentMap();
+            assertEquals(3, result.size());
+            assertFalse(result.containsKey("ENV_VAR1"));
+            assertSame(result, instance.toEnvironmentMap());
+        }
+        catch (Exception ex)
+        {
+            fail("Unexpected exception." + ex.toString());
+        }
+    }
+
+    /**
+     * Test of the binary codec of class EnvironmentVarModel.
+     */
+    @Test
+    public void testBinaryCodec()
+    {
+        System.out.println("binaryCodec");
+        EnvironmentVarModel instance = new EnvironmentVarModel();
+        String binFile = "EnvironmentVarModelTest.bin";
+        try
+        {
+            instance.initialiseVarsFromFile(fileName1);
+            for (StreamCodec codec : StreamCodec.values())
+            {
+                FileUtilities.writeBinary(binFile,
+                                          instance,
+                                          EnvironmentVarModel.BINARY_CODEC,
+                                          codec);
+                EnvironmentVarModel result = FileUtilities.readBinary(
+                                    binFile,
+                                    EnvironmentVarModel.BINARY_CODEC,
+                                    codec);
+                assertEquals(instance.toString(), result.toString());
+                assertEquals(instance.getCategoryNameSet(),
+                             result.getCategoryNameSet());
+                assertEquals(instance.toEnvironmentMap(),
+                             result.toEnvironmentMap());
+            }
+        }
+        catch (Exception ex)
+        {
+            fail("Unexpected exception." + ex.toString());
+        }
+        finally
+        {
+            FileUtilities.deleteRecursive(binFile);
+        }
+    }
+
     /**
      * Test of getCategoryNameSet method, of class EnvironmentVarModel.
      */
@@ -20,17 +20,24 @@
  */
 package com.kybelksties.general;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.xml.bind.JAXBException;
 import org.junit.After;
 import org.junit.AfterClass;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -245,6 +252,16 @@ public class FileUtilitiesTest
         assertEquals("count of all files",
                      dirs.length * (1 + fileNames.length) + 1,
                      resultFiles.size());
+        // children come before their parent and the root comes last
+        List<File> ordered = FileUtilities.listRecursive(testDirectory);
+        for (int i = 0; i < ordered.size(); i++)
+        {
+            File parent = ordered.get(i).getParentFile();
+            assertTrue(ordered.indexOf(parent) < 0 ||
+                       ordered.indexOf(parent) > i);
+        }
+        assertEquals(new File(testDirectory),
+                     ordered.get(ordered.size() - 1));
 
         resultFiles = FileUtilities.findFilesNamed(testDirectory, "fileName");
         LOGGER.log(Level.INFO,
@@ -366,6 +383,101 @@ public class FileUtilitiesTest
 
     }
 
+    /**
+     * Test of readText and mapText with explicit encodings.
+     */
+    @Test
+    public void testReadAndMapText()
+    {
+        LOGGER.log(Level.INFO, "read and map text files");
+        String fileName = testDirectory +
+                          FileUtilities.FILE_SEPARATOR + "encoded.txt";
+        String fileContents = "Gr\u00fc\u00dfe,caf\u00e9" +
+                              StringUtils.NEWLINE +
+                              "ENV_VAR,42";
+        try
+        {
+            FileUtilities.createFolders(testDirectory);
+            Files.write(new File(fileName).toPath(),
+                        fileContents.getBytes(StandardCharsets.UTF_8));
+            assertEquals(fileContents,
+                         FileUtilities.readText(fileName,
+                                                StandardCharsets.UTF_8));
+            assertEquals(fileContents,
+                         FileUtilities.mapText(fileName,
+                                               StandardCharsets.UTF_8).
+                         toString());
+
+            Files.write(new File(fileName).toPath(),
+                        fileContents.getBytes(StandardCharsets.ISO_8859_1));
+            CharSequence mapped = FileUtilities.mapText(
+                         fileName,
+                         StandardCharsets.ISO_8859_1);
+            assertEquals(fileContents.length(), mapped.length());
+            assertEquals('\u00fc', mapped.charAt(2));
+            assertEquals(fileContents, mapped.toString());
+            assertEquals("caf\u00e9", mapped.subSequence(6, 10).toString());
+            assertEquals(fileContents,
+                         FileUtilities.readText(fileName,
+                                                StandardCharsets.ISO_8859_1));
+
+            CharSequence ascii = FileUtilities.mapText(
+                         fileName,
+                         StandardCharsets.US_ASCII);
+            assertEquals(new String(
+                    fileContents.getBytes(StandardCharsets.ISO_8859_1),
+                    StandardCharsets.US_ASCII),
+                         ascii.toString());
+
+            FileUtilities.saveText(fileName, "");
+            assertEquals("", FileUtilities.readText(fileName));
+            assertEquals(0, FileUtilities.mapText(
+                         fileName,
+                         StandardCharsets.ISO_8859_1).length());
+        }
+        catch (IOException ex)
+        {
+            fail("unexpected exception " + ex);
+        }
+    }
+
+    /**
+     * Test of saveTextAtomic method, of class FileUtilities.
+     */
+    @Test
+    public void testSaveTextAtomic()
+    {
+        LOGGER.log(Level.INFO, "save text files atomically");
+        String fileName = testDirectory +
+                          FileUtilities.FILE_SEPARATOR + "sub" +
+                          FileUtilities.FILE_SEPARATOR + "atomic.txt";
+        try
+        {
+            FileUtilities.saveTextAtomic(fileName, "first", false, false);
+            fail("Should have thrown IOException ");
+        }
+        catch (IOException ex)
+        {
+            // expected
+        }
+
+        try
+        {
+            FileUtilities.saveTextAtomic(fileName, "first", true, true);
+            assertEquals("first", FileUtilities.readText(fileName));
+            FileUtilities.saveTextAtomic(fileName, "second\nline", false, false);
+            assertEquals("second\nline", FileUtilities.readText(fileName));
+            FileUtilities.saveTextAtomic(fileName, null, false, true);
+            assertEquals("", FileUtilities.readText(fileName));
+            // no temporary files are left behind
+            assertEquals(1, new File(fileName).getParentFile().list().length);
+        }
+        catch (IOException ex)
+        {
+            fail("unexpected exception " + ex);
+        }
+    }
+
     /**
      * Test of appendText method, of class FileUtilities.
      */
@@ -403,6 +515,144 @@ public class FileUtilitiesTest
         }
     }
 
+    /**
+     * Test of serialize and deserialize methods with all codecs.
+     */
+    @Test
+    public void testSerializeWithCodecs()
+    {
+        LOGGER.log(Level.INFO, "serialize through the codecs");
+        String filename = testDirectory + FileUtilities.FILE_SEPARATOR +
+                          "object.ser";
+        ArrayList<Object> obj = new ArrayList<>();
+        Random random = new Random(4711L);
+        for (int i = 0; i < 50000; i++)
+        {
+            obj.add("variable" + (i % 100) + "=" + random.nextInt(1000));
+        }
+        // incompressible data has to be stored as it is
+        byte[] noise = new byte[200000];
+        random.nextBytes(noise);
+        obj.add(noise);
+        FileUtilities.createFolders(testDirectory);
+        try
+        {
+            for (StreamCodec codec : StreamCodec.values())
+            {
+                FileUtilities.serialize(filename, obj, codec);
+                LOGGER.log(Level.INFO, "{0}: {1} bytes", new Object[]
+                   {
+                       codec, new File(filename).length()
+                });
+                List<Object> result = FileUtilities.deserialize(filename,
+                                                                codec);
+                assertEquals(obj.size(), result.size());
+                assertEquals(obj.subList(0, obj.size() - 1),
+                             result.subList(0, result.size() - 1));
+                assertTrue(Arrays.equals(noise,
+                                         (byte[]) result.get(obj.size() - 1)));
+            }
+            FileUtilities.serialize(filename, "plain");
+            assertEquals("plain", FileUtilities.deserialize(filename));
+        }
+        catch (IOException | ClassNotFoundException ex)
+        {
+            fail("unexpected exception " + ex);
+        }
+    }
+
+    /**
+     * Test of the LZ compression of blocks.
+     */
+    @Test
+    public void testLzCodec()
+    {
+        LOGGER.log(Level.INFO, "compress blocks");
+        Random random = new Random(42L);
+        int[] table = new int[1 << 13];
+        byte[][] inputs =
+        {
+            new byte[0],
+            "abc".getBytes(StandardCharsets.UTF_8),
+            "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa".getBytes(
+            StandardCharsets.UTF_8),
+            new byte[LzCodec.BLOCK_SIZE],
+            new byte[LzCodec.BLOCK_SIZE]
+        };
+        random.nextBytes(inputs[4]);
+        for (int i = 0; i < inputs[3].length; i++)
+        {
+            inputs[3][i] = (byte) "0123456789,ENV_VAR".charAt(
+                           random.nextInt(18));
+        }
+        try
+        {
+            for (byte[] input : inputs)
+            {
+                byte[] compressed = new byte[LzCodec.maxCompressedLength(
+                       input.length)];
+                int length = LzCodec.compress(input,
+                                              input.length,
+                                              compressed,
+                                              table);
+                byte[] output = new byte[input.length];
+                LzCodec.decompress(compressed, length, output, output.length);
+                assertTrue(Arrays.equals(input, output));
+            }
+            byte[] corrupt =
+            {
+                0x0F, 1, 2
+            };
+            LzCodec.decompress(corrupt, corrupt.length, new byte[100], 100);
+            fail("Corrupt blocks should not decompress");
+        }
+        catch (IOException ex)
+        {
+            LOGGER.log(Level.INFO, "expected failure: {0}", ex.toString());
+        }
+    }
+
+    /**
+     * Test that a corrupted LZ stream fails its block checksum.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testLzChecksum() throws Exception
+    {
+        LOGGER.log(Level.INFO, "detect corrupted blocks");
+        byte[] input = new byte[1000];
+        new Random(7L).nextBytes(input);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (LzCodec.LzOutputStream out = new LzCodec.LzOutputStream(bytes))
+        {
+            out.write(input);
+        }
+        byte[] stream = bytes.toByteArray();
+        byte[] output = new byte[input.length];
+        try (LzCodec.LzInputStream in = new LzCodec.LzInputStream(
+                                   new ByteArrayInputStream(stream)))
+        {
+            assertEquals(input.length, in.read(output, 0, output.length));
+            assertEquals(-1, in.read());
+        }
+        assertTrue(Arrays.equals(input, output));
+
+        // random bytes are stored: type, length and checksum precede them
+        stream[9 + 500] ^= 1;
+        try (LzCodec.LzInputStream in = new LzCodec.LzInputStream(
+                                   new ByteArrayInputStream(stream)))
+        {
+            in.read(output, 0, output.length);
+            fail("A corrupted block should fail its checksum");
+        }
+        catch (IOException ex)
+        {
+            LOGGER.log(Level.INFO, "expected failure: {0}", ex.toString());
+            assertTrue(ex.getMessage().contains("checksum"));
+        }
+    }
+
     /**
      * Test of serialize method, of class FileUtilities.
      */
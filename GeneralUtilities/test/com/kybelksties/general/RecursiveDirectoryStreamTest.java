@@ -0,0 +1,249 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.general;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test the lazy enumeration of directory trees.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class RecursiveDirectoryStreamTest
+{
+
+    private static final Class CLAZZ = RecursiveDirectoryStreamTest.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    final static String testDirectory = FileUtilities.FILE_SEPARATOR +
+                                        "tmp" +
+                                        FileUtilities.FILE_SEPARATOR +
+                                        "recursiveDirectoryStreamTest";
+
+    /**
+     * Set up class statics.
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     * Tidy up class statics.
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     * Default construct.
+     */
+    public RecursiveDirectoryStreamTest()
+    {
+    }
+
+    /**
+     * Set-up before any test.
+     *
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        if (new File(testDirectory).exists())
+        {
+            throw new Exception("Directory '" +
+                                testDirectory +
+                                "' exists. Please remove.");
+        }
+    }
+
+    /**
+     * Clean-up after any test.
+     */
+    @After
+    public void tearDown()
+    {
+        FileUtilities.deleteRecursive(testDirectory);
+    }
+
+    private static void makeTree() throws Exception
+    {
+        for (int a = 0; a < 2; a++)
+        {
+            for (int b = 0; b < 3; b++)
+            {
+                File dir = new File(testDirectory, "dir" + a + "/sub" + b);
+                assertTrue(dir.mkdirs());
+                for (int f = 0; f < 4; f++)
+                {
+                    File file = new File(dir, "node" + f + ".log");
+                    FileUtilities.saveText(file.getPath(), file.getPath());
+                }
+                FileUtilities.saveText(new File(dir, "notes.txt").getPath(),
+                                       "notes");
+            }
+        }
+    }
+
+    private static List<Path> drain(RecursiveDirectoryStream stream)
+            throws Exception
+    {
+        List<Path> reval = new ArrayList<>();
+        try (RecursiveDirectoryStream s = stream)
+        {
+            for (Path path : s)
+            {
+                reval.add(path);
+            }
+        }
+        return reval;
+    }
+
+    /**
+     * Test that the whole tree is listed lazily, directories before their
+     * contents, and that the depth is limited.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testStreamRecursive() throws Exception
+    {
+        LOGGER.log(Level.INFO, "list a tree lazily");
+        makeTree();
+        File root = new File(testDirectory);
+        List<Path> all = drain(FileUtilities.streamRecursive(
+                         root,
+                         RecursiveDirectoryStream.UNLIMITED_DEPTH));
+        // root, 2 dirs, 6 sub-dirs, 30 files
+        assertEquals(1 + 2 + 6 + 30, all.size());
+        assertEquals(new HashSet<>(FileUtilities.listRecursive(root)),
+                     toFiles(all));
+        Set<Path> seen = new HashSet<>();
+        for (Path path : all)
+        {
+            if (!path.equals(root.toPath()))
+            {
+                assertTrue("parent before " + path,
+                           seen.contains(path.getParent()));
+            }
+            seen.add(path);
+        }
+
+        assertEquals(1, drain(FileUtilities.streamRecursive(root, 0)).size());
+        assertEquals(1 + 2 + 6,
+                     drain(FileUtilities.streamRecursive(root, 2)).size());
+
+        try
+        {
+            FileUtilities.streamRecursive(new File(root, "missing"), 1);
+            fail("A missing root should not be streamed");
+        }
+        catch (IOException ex)
+        {
+            LOGGER.log(Level.INFO, "expected failure: {0}", ex.toString());
+        }
+    }
+
+    /**
+     * Test the filters and stopping after the first matches.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testStreamFiles() throws Exception
+    {
+        LOGGER.log(Level.INFO, "find files lazily");
+        makeTree();
+        int unlimited = RecursiveDirectoryStream.UNLIMITED_DEPTH;
+        assertEquals(6, drain(FileUtilities.streamFilesStartingWith(
+                              testDirectory,
+                              "node1",
+                              ".log",
+                              unlimited)).size());
+        assertEquals(12, drain(FileUtilities.streamFilesNamed(
+                               testDirectory,
+                               unlimited,
+                               "node0.log",
+                               "notes.txt")).size());
+        assertEquals(18, drain(FileUtilities.streamFilesMatching(
+                               testDirectory,
+                               "glob:node[0-2].log",
+                               unlimited)).size());
+        assertEquals(30, drain(FileUtilities.streamFilesMatching(
+                               testDirectory,
+                               "regex:(node[0-9]+\\.log|notes\\.txt)",
+                               unlimited)).size());
+        assertEquals(0, drain(FileUtilities.streamFilesMatching(
+                              testDirectory,
+                              "glob:*.log",
+                              2)).size());
+
+        RecursiveDirectoryStream stream = FileUtilities.streamFilesMatching(
+                                 testDirectory,
+                                 "glob:*.log",
+                                 unlimited);
+        Iterator<Path> it = stream.iterator();
+        assertTrue(it.hasNext());
+        assertTrue(it.next().toString().endsWith(".log"));
+        stream.close();
+        assertFalse(it.hasNext());
+        try
+        {
+            stream.iterator();
+            fail("A closed stream should not give an iterator");
+        }
+        catch (IllegalStateException ex)
+        {
+            LOGGER.log(Level.INFO, "expected failure: {0}", ex.toString());
+        }
+    }
+
+    private static Set<File> toFiles(List<Path> paths)
+    {
+        Set<File> reval = new HashSet<>();
+        for (Path path : paths)
+        {
+            reval.add(path.toFile());
+        }
+        return reval;
+    }
+}
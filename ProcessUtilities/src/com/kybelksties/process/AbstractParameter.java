@@ -19,6 +19,9 @@
  */
 package com.kybelksties.process;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.logging.Logger;
 import javax.xml.bind.annotation.XmlSeeAlso;
 import javax.xml.bind.annotation.XmlTransient;
@@ -273,4 +276,36 @@ public abstract class AbstractParameter
         return isMandatory() || isOptionallySelected();
     }
 
+    /**
+     * Write the members in the binary wire format of the ProcessMessageCodec.
+     *
+     * @param out the output to write to
+     * @throws IOException if writing fails
+     */
+    void writeBinary(DataOutput out) throws IOException
+    {
+        out.writeBoolean(mandatory);
+        BinaryFormat.writeString(out, value);
+        BinaryFormat.writeString(out, defaultValue);
+        out.writeBoolean(fixed);
+        out.writeBoolean(optionallySelected);
+        out.writeBoolean(multipleInstances);
+    }
+
+    /**
+     * Read the members written by writeBinary().
+     *
+     * @param in the input to read from
+     * @throws IOException if reading fails
+     */
+    void readBinary(DataInput in) throws IOException
+    {
+        mandatory = in.readBoolean();
+        value = BinaryFormat.readString(in);
+        defaultValue = BinaryFormat.readString(in);
+        fixed = in.readBoolean();
+        optionallySelected = in.readBoolean();
+        multipleInstances = in.readBoolean();
+    }
+
 }
@@ -0,0 +1,592 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import com.kybelksties.general.EnvironmentVar;
+import com.kybelksties.general.EnvironmentVarModel;
+import com.kybelksties.general.PodVariant;
+import java.awt.Rectangle;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * The compact binary encoding of ProcessMessage s used by
+ * ProcessMessageCodec.BINARY. A message is written as
+ * <pre>
+ *   byte  MAGIC
+ *   byte  ordinal of the ExeMessageType.Type
+ *   long  correlation id
+ *   int   number of objects (-1 for none)
+ *   value object...
+ * </pre>
+ * where each value is a one byte tag followed by the tag specific data. The
+ * payload classes of the process package write their own fields, objects
+ * without a tag of their own are embedded as Java serialised bytes.
+ *
+ * @author Dieter J Kybelksties
+ */
+final class BinaryFormat
+{
+
+    private static final Class CLAZZ = BinaryFormat.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    /**
+     * First byte of every binary frame. Java serialised frames always start
+     * with 0xAC, so the codec of a frame can be told from its first byte.
+     */
+    static final byte MAGIC = (byte) 0xB1;
+
+    static final byte TAG_NULL = 0;
+    static final byte TAG_STRING = 1;
+    static final byte TAG_INTEGER = 2;
+    static final byte TAG_LONG = 3;
+    static final byte TAG_BOOLEAN = 4;
+    static final byte TAG_DOUBLE = 5;
+    static final byte TAG_PROCESS_STATE = 6;
+    static final byte TAG_MESSAGE_TYPE = 7;
+    static final byte TAG_SCHEDULED_PROCESS = 8;
+    static final byte TAG_EXE_DEFINITION = 9;
+    static final byte TAG_PARAMETER_LIST = 10;
+    static final byte TAG_ENVIRONMENT = 11;
+    static final byte TAG_LIST = 12;
+    static final byte TAG_SERIALIZED = 13;
+
+    private BinaryFormat()
+    {
+    }
+
+    /**
+     * Encode a message.
+     *
+     * @param message the message to encode
+     * @return the encoded bytes
+     * @throws IOException if an object of the message cannot be encoded
+     */
+    static byte[] encode(ProcessMessage message) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(MAGIC);
+        writeEnum(out, message.getType().type);
+        out.writeLong(message.getCorrelationId());
+        List objs = message.getObjects();
+        if (objs == null)
+        {
+            out.writeInt(-1);
+        }
+        else
+        {
+            out.writeInt(objs.size());
+            for (Object obj : objs)
+            {
+                writeValue(out, obj);
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decode a message.
+     *
+     * @param frame  buffer containing the encoded message
+     * @param offset start of the message in the buffer
+     * @param length number of bytes of the message
+     * @return the decoded message
+     * @throws IOException            if the bytes are not a valid message
+     * @throws ClassNotFoundException if an embedded serialised object refers
+     *                                to unknown classes
+     */
+    static ProcessMessage decode(byte[] frame, int offset, int length)
+            throws IOException, ClassNotFoundException
+    {
+        DataInputStream in = new DataInputStream(
+                        new ByteArrayInputStream(frame, offset, length));
+        if (in.readByte() != MAGIC)
+        {
+            throw new IOException("Not a binary Process Command!");
+        }
+        ExeMessageType.Type type = readEnum(in, ExeMessageType.Type.class);
+        long correlationId = in.readLong();
+        int count = in.readInt();
+        ArrayList<Serializable> objs = null;
+        if (count >= 0)
+        {
+            objs = new ArrayList<>(Math.min(count, 1024));
+            for (int i = 0; i < count; i++)
+            {
+                objs.add((Serializable) readValue(in));
+            }
+        }
+        ProcessMessage reval = new ProcessMessage<>(
+                       ExeMessageType.valueOf(type),
+                       objs);
+        reval.setCorrelationId(correlationId);
+        return reval;
+    }
+
+    /**
+     * Write a tagged value.
+     *
+     * @param out the output to write to
+     * @param obj the value, may be null
+     * @throws IOException if the value can be neither encoded nor serialised
+     */
+    static void writeValue(DataOutput out, Object obj) throws IOException
+    {
+        if (obj == null)
+        {
+            out.writeByte(TAG_NULL);
+        }
+        else if (obj instanceof String)
+        {
+            out.writeByte(TAG_STRING);
+            writeString(out, (String) obj);
+        }
+        else if (obj instanceof Integer)
+        {
+            out.writeByte(TAG_INTEGER);
+            out.writeInt((Integer) obj);
+        }
+        else if (obj instanceof Long)
+        {
+            out.writeByte(TAG_LONG);
+            out.writeLong((Long) obj);
+        }
+        else if (obj instanceof Boolean)
+        {
+            out.writeByte(TAG_BOOLEAN);
+            out.writeBoolean((Boolean) obj);
+        }
+        else if (obj instanceof Double)
+        {
+            out.writeByte(TAG_DOUBLE);
+            out.writeDouble((Double) obj);
+        }
+        else if (obj instanceof ConcreteProcess.State)
+        {
+            out.writeByte(TAG_PROCESS_STATE);
+            writeEnum(out, (ConcreteProcess.State) obj);
+        }
+        else if (obj instanceof ExeMessageType)
+        {
+            out.writeByte(TAG_MESSAGE_TYPE);
+            writeEnum(out, ((ExeMessageType) obj).type);
+        }
+        else if (obj.getClass() == ScheduledProcess.class)
+        {
+            out.writeByte(TAG_SCHEDULED_PROCESS);
+            ((ScheduledProcess) obj).writeBinary(out);
+        }
+        else if (obj.getClass() == ExeDefinition.class)
+        {
+            out.writeByte(TAG_EXE_DEFINITION);
+            ((ExeDefinition) obj).writeBinary(out);
+        }
+        else if (obj.getClass() == ParameterList.class)
+        {
+            out.writeByte(TAG_PARAMETER_LIST);
+            ((ParameterList) obj).writeBinary(out);
+        }
+        else if (obj instanceof EnvironmentVarModel)
+        {
+            out.writeByte(TAG_ENVIRONMENT);
+            writeEnvironment(out, (EnvironmentVarModel) obj);
+        }
+        else if (obj.getClass() == ArrayList.class)
+        {
+            out.writeByte(TAG_LIST);
+            List list = (List) obj;
+            out.writeInt(list.size());
+            for (Object element : list)
+            {
+                writeValue(out, element);
+            }
+        }
+        else
+        {
+            out.writeByte(TAG_SERIALIZED);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            try (ObjectOutputStream objOut = new ObjectOutputStream(bytes))
+            {
+                objOut.writeObject(obj);
+            }
+            out.writeInt(bytes.size());
+            out.write(bytes.toByteArray());
+        }
+    }
+
+    /**
+     * Read a tagged value.
+     *
+     * @param in the input to read from
+     * @return the value, may be null
+     * @throws IOException            if the tag is unknown or the data garbled
+     * @throws ClassNotFoundException if an embedded serialised object refers
+     *                                to unknown classes
+     */
+    static Object readValue(DataInput in)
+            throws IOException, ClassNotFoundException
+    {
+        byte tag = in.readByte();
+        switch (tag)
+        {
+            case TAG_NULL:
+                return null;
+            case TAG_STRING:
+                return readString(in);
+            case TAG_INTEGER:
+                return in.readInt();
+            case TAG_LONG:
+                return in.readLong();
+            case TAG_BOOLEAN:
+                return in.readBoolean();
+            case TAG_DOUBLE:
+                return in.readDouble();
+            case TAG_PROCESS_STATE:
+                return readEnum(in, ConcreteProcess.State.class);
+            case TAG_MESSAGE_TYPE:
+                return ExeMessageType.valueOf(
+                        readEnum(in, ExeMessageType.Type.class));
+            case TAG_SCHEDULED_PROCESS:
+                ScheduledProcess scheduledProcess = new ScheduledProcess();
+                scheduledProcess.readBinary(in);
+                return scheduledProcess;
+            case TAG_EXE_DEFINITION:
+                ExeDefinition exeDefinition = new ExeDefinition();
+                exeDefinition.readBinary(in);
+                return exeDefinition;
+            case TAG_PARAMETER_LIST:
+                ParameterList parameters = new ParameterList();
+                parameters.readBinary(in);
+                return parameters;
+            case TAG_ENVIRONMENT:
+                return readEnvironment(in);
+            case TAG_LIST:
+                int size = readLength(in);
+                ArrayList<Object> list = new ArrayList<>(Math.min(size, 1024));
+                for (int i = 0; i < size; i++)
+                {
+                    list.add(readValue(in));
+                }
+                return list;
+            case TAG_SERIALIZED:
+                byte[] bytes = new byte[readLength(in)];
+                in.readFully(bytes);
+                try (ObjectInputStream objIn = new ObjectInputStream(
+                                       new ByteArrayInputStream(bytes)))
+                {
+                    return objIn.readObject();
+                }
+            default:
+                throw new IOException("Unknown value tag " + tag);
+        }
+    }
+
+    /**
+     * Write a string that may be null and may be longer than what
+     * DataOutput.writeUTF() can handle.
+     *
+     * @param out the output to write to
+     * @param str the string
+     * @throws IOException if writing fails
+     */
+    static void writeString(DataOutput out, String str) throws IOException
+    {
+        if (str == null)
+        {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Read a string written by writeString().
+     *
+     * @param in the input to read from
+     * @return the string, may be null
+     * @throws IOException if reading fails
+     */
+    static String readString(DataInput in) throws IOException
+    {
+        int length = in.readInt();
+        if (length < 0)
+        {
+            return null;
+        }
+        byte[] bytes = new byte[checkLength(length)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Write a string array that may be null.
+     *
+     * @param out  the output to write to
+     * @param strs the strings
+     * @throws IOException if writing fails
+     */
+    static void writeStrings(DataOutput out, String[] strs) throws IOException
+    {
+        if (strs == null)
+        {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(strs.length);
+        for (String str : strs)
+        {
+            writeString(out, str);
+        }
+    }
+
+    /**
+     * Read a string array written by writeStrings().
+     *
+     * @param in the input to read from
+     * @return the strings, may be null
+     * @throws IOException if reading fails
+     */
+    static String[] readStrings(DataInput in) throws IOException
+    {
+        int length = in.readInt();
+        if (length < 0)
+        {
+            return null;
+        }
+        String[] reval = new String[checkLength(length)];
+        for (int i = 0; i < reval.length; i++)
+        {
+            reval[i] = readString(in);
+        }
+        return reval;
+    }
+
+    /**
+     * Write an enumeration value that may be null as its ordinal.
+     *
+     * @param out   the output to write to
+     * @param value the enumeration value
+     * @throws IOException if writing fails
+     */
+    static void writeEnum(DataOutput out, Enum value) throws IOException
+    {
+        out.writeByte(value == null ? -1 : value.ordinal());
+    }
+
+    /**
+     * Read an enumeration value written by writeEnum().
+     *
+     * @param <E>   the enumeration type
+     * @param in    the input to read from
+     * @param clazz the class of the enumeration
+     * @return the enumeration value, may be null
+     * @throws IOException if the ordinal is out of range
+     */
+    static <E extends Enum<E>> E readEnum(DataInput in, Class<E> clazz)
+            throws IOException
+    {
+        int ordinal = in.readByte();
+        if (ordinal < 0)
+        {
+            return null;
+        }
+        E[] values = clazz.getEnumConstants();
+        if (ordinal >= values.length)
+        {
+            throw new IOException("Invalid ordinal " +
+                                  ordinal +
+                                  " for " +
+                                  clazz.getSimpleName());
+        }
+        return values[ordinal];
+    }
+
+    /**
+     * Write a rectangle that may be null.
+     *
+     * @param out       the output to write to
+     * @param rectangle the rectangle
+     * @throws IOException if writing fails
+     */
+    static void writeRectangle(DataOutput out, Rectangle rectangle)
+            throws IOException
+    {
+        out.writeBoolean(rectangle != null);
+        if (rectangle != null)
+        {
+            out.writeInt(rectangle.x);
+            out.writeInt(rectangle.y);
+            out.writeInt(rectangle.width);
+            out.writeInt(rectangle.height);
+        }
+    }
+
+    /**
+     * Read a rectangle written by writeRectangle().
+     *
+     * @param in the input to read from
+     * @return the rectangle, may be null
+     * @throws IOException if reading fails
+     */
+    static Rectangle readRectangle(DataInput in) throws IOException
+    {
+        if (!in.readBoolean())
+        {
+            return null;
+        }
+        return new Rectangle(in.readInt(),
+                             in.readInt(),
+                             in.readInt(),
+                             in.readInt());
+    }
+
+    /**
+     * Write an environment model that may be null. Only the variables are
+     * written, the category indexes are rebuilt when reading.
+     *
+     * @param out         the output to write to
+     * @param environment the environment
+     * @throws IOException if writing fails
+     */
+    static void writeEnvironment(DataOutput out,
+                                 EnvironmentVarModel environment)
+            throws IOException
+    {
+        if (environment == null)
+        {
+            out.writeInt(-1);
+            return;
+        }
+        // a null category retrieves the variables of all categories
+        ArrayList<EnvironmentVar> vars = environment.getCategoryVariables(null);
+        out.writeInt(vars.size());
+        for (EnvironmentVar var : vars)
+        {
+            writeString(out, var.getName());
+            writeString(out, var.getCategory());
+            writeEnum(out, var.getStereoType());
+            out.writeBoolean(var.getDefined());
+            PodVariant value = var.getValue();
+            writeEnum(out, value == null ? null : value.getType());
+            if (value != null)
+            {
+                writeValue(out, value.getValue());
+            }
+        }
+    }
+
+    /**
+     * Read an environment model written by writeEnvironment().
+     *
+     * @param in the input to read from
+     * @return the environment, may be null
+     * @throws IOException            if reading fails or a variable is invalid
+     * @throws ClassNotFoundException if a value refers to unknown classes
+     */
+    static EnvironmentVarModel readEnvironment(DataInput in)
+            throws IOException, ClassNotFoundException
+    {
+        int count = in.readInt();
+        if (count < 0)
+        {
+            return null;
+        }
+        EnvironmentVarModel reval = new EnvironmentVarModel();
+        for (int i = 0; i < count; i++)
+        {
+            String name = readString(in);
+            String category = readString(in);
+            EnvironmentVar.StereoType stereoType =
+                                      readEnum(in,
+                                               EnvironmentVar.StereoType.class);
+            boolean defined = in.readBoolean();
+            PodVariant.Type valueType = readEnum(in, PodVariant.Type.class);
+            PodVariant value = null;
+            if (valueType != null)
+            {
+                value = new PodVariant(valueType);
+                Object obj = readValue(in);
+                switch (valueType)
+                {
+                    case BOOLEAN:
+                        value.setBooleanValue((Boolean) obj);
+                        break;
+                    case STRING:
+                        value.setStringValue((String) obj);
+                        break;
+                    case INTEGER:
+                        value.setIntegerValue((Integer) obj);
+                        break;
+                    case DOUBLE:
+                        value.setDoubleValue((Double) obj);
+                        break;
+                    default:
+                        break;
+                }
+            }
+            try
+            {
+                EnvironmentVar var = new EnvironmentVar(stereoType,
+                                                        category,
+                                                        name,
+                                                        defined);
+                var.setValue(value);
+                reval.add(var);
+            }
+            catch (Exception ex)
+            {
+                throw new IOException(ex.getMessage(), ex);
+            }
+        }
+        return reval;
+    }
+
+    private static int readLength(DataInput in) throws IOException
+    {
+        return checkLength(in.readInt());
+    }
+
+    private static int checkLength(int length) throws IOException
+    {
+        if (length < 0 || length > ProcessMessageCodec.MAX_FRAME_LENGTH)
+        {
+            throw new IOException("Invalid length " + length);
+        }
+        return length;
+    }
+}
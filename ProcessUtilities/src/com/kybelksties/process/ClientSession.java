@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import com.kybelksties.protocol.HashedWheelTimer;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Server side state of one connected client, independent of whether the
+ * connection is served by a thread of its own or by the selector loop.
+ *
+ * @author Dieter J Kybelksties
+ */
+class ClientSession
+{
+
+    private static final Class CLAZZ = ClientSession.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    private final int clientNumber;
+    private String clientServerAddress = "";
+    private int clientPort = 0;
+    private volatile boolean identified = false;
+    private HashedWheelTimer.Timeout identifyDeadline = null;
+    private boolean closed = false;
+    private volatile ProcessMessageCodec codec = ProcessMessageCodec.SERIALIZED;
+    private volatile HandlerRegistry.Responder responder = null;
+    private final FlowControl flowControl = new FlowControl();
+
+    /**
+     * Construct with the number the server has given to the client.
+     *
+     * @param clientNumber unique number of the client
+     */
+    ClientSession(int clientNumber)
+    {
+        this.clientNumber = clientNumber;
+    }
+
+    /**
+     * Retrieve the unique number of the client.
+     *
+     * @return the client number
+     */
+    int getClientNumber()
+    {
+        return clientNumber;
+    }
+
+    /**
+     * Retrieve the address the client has identified itself with.
+     *
+     * @return the client address
+     */
+    String getClientServerAddress()
+    {
+        return clientServerAddress;
+    }
+
+    /**
+     * Retrieve the port the client has identified itself with.
+     *
+     * @return the client port
+     */
+    int getClientPort()
+    {
+        return clientPort;
+    }
+
+    /**
+     * Check whether the identify-handshake has been completed.
+     *
+     * @return true if so, false otherwise
+     */
+    boolean isIdentified()
+    {
+        return identified;
+    }
+
+    /**
+     * Record the identification sent by the client.
+     *
+     * @param address the client's address
+     * @param port    the client's port
+     */
+    void identify(String address, int port)
+    {
+        this.clientServerAddress = address == null ? "" : address;
+        this.clientPort = port;
+        this.identified = true;
+        synchronized (this)
+        {
+            if (identifyDeadline != null)
+            {
+                identifyDeadline.cancel();
+                identifyDeadline = null;
+            }
+        }
+    }
+
+    /**
+     * Give the client HANDSHAKE_TIMEOUT_MILLIS to identify itself. If it has
+     * not done so by then its connection is dropped, so that a client that
+     * connects and never speaks does not hold on to it forever.
+     *
+     * @param drop closes the connection, run on the timer thread
+     */
+    synchronized void awaitIdentify(final Runnable drop)
+    {
+        if (identified || closed || identifyDeadline != null)
+        {
+            return;
+        }
+        final int timeout =
+                  ProcessClientServerProtocol.HANDSHAKE_TIMEOUT_MILLIS;
+        identifyDeadline = HashedWheelTimer.shared().newTimeout(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                if (!identified)
+                {
+                    ProcessServer.logError(
+                            "Client {0} has not identified itself in {1} ms",
+                            clientNumber,
+                            timeout);
+                    drop.run();
+                }
+            }
+        }, timeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Called by the server when the connection to the client has closed.
+     * Cancels the identify deadline of a client that went away before it
+     * identified itself and drops the client's subscriptions, so that
+     * nothing is kept for the session any longer.
+     */
+    void closed()
+    {
+        synchronized (this)
+        {
+            closed = true;
+            if (identifyDeadline != null)
+            {
+                identifyDeadline.cancel();
+                identifyDeadline = null;
+            }
+        }
+        ProcessServer.STATE_CHANGES.remove(this);
+    }
+
+    /**
+     * Retrieve the codec negotiated for the responses to this client.
+     *
+     * @return the codec, SERIALIZED until negotiated
+     */
+    ProcessMessageCodec getCodec()
+    {
+        return codec;
+    }
+
+    /**
+     * Set the codec negotiated for the responses to this client.
+     *
+     * @param codec the new codec; null resets to the default
+     */
+    void setCodec(ProcessMessageCodec codec)
+    {
+        this.codec = codec == null ? ProcessMessageCodec.SERIALIZED : codec;
+    }
+
+    /**
+     * Retrieve what sends messages to this client outside of a request, like
+     * pushed state changes.
+     *
+     * @return the responder of the connection, null if not set
+     */
+    HandlerRegistry.Responder getResponder()
+    {
+        return responder;
+    }
+
+    /**
+     * Set what sends messages to this client outside of a request.
+     *
+     * @param responder the responder of the connection
+     */
+    void setResponder(HandlerRegistry.Responder responder)
+    {
+        this.responder = responder;
+    }
+
+    /**
+     * Retrieve the flow control of the messages sent to this client.
+     *
+     * @return the flow control
+     */
+    FlowControl getFlowControl()
+    {
+        return flowControl;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "client " + clientNumber + " (" + clientServerAddress + ":" +
+               clientPort + ")";
+    }
+}
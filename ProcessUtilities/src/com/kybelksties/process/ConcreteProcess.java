@@ -21,11 +21,14 @@ package com.kybelksties.process;
 
 import com.kybelksties.general.EnvironmentVar;
 import com.kybelksties.general.EnvironmentVarModel;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Serializable;
+import java.lang.reflect.Field;
 import java.util.EventListener;
 import java.util.EventObject;
 import java.util.Map;
@@ -63,6 +66,11 @@ public class ConcreteProcess extends Process implements Serializable
 
     transient private Process process = null;
     transient private ProcessBuilder builder = null;
+    transient private OutputCapture capture = null;
+    // whether the ProcessReaper has seen the started system process exit
+    transient private boolean exited = false;
+    // the materialized model environment last copied into the builder
+    transient private Map<String, String> appliedEnvironment = null;
 
     State state = null;
     private String[] command = null;
@@ -139,6 +147,16 @@ public class ConcreteProcess extends Process implements Serializable
         stateChangeListenerList.add(StateEventListener.class, listener);
     }
 
+    /**
+     * Remove a listener so that it no longer receives update messages.
+     *
+     * @param listener the object that received update messages
+     */
+    public void removeStateChangeEventListener(StateEventListener listener)
+    {
+        stateChangeListenerList.remove(StateEventListener.class, listener);
+    }
+
     void fireProcessStateEvent()
     {
         fireProcessStateEvent(new StateEvent(this));
@@ -211,6 +229,7 @@ public class ConcreteProcess extends Process implements Serializable
      */
     public void clearEnvironment()
     {
+        appliedEnvironment = null;
         builder.environment().clear();
     }
 
@@ -246,6 +265,8 @@ public class ConcreteProcess extends Process implements Serializable
      */
     public Map<String, String> getEnvironmentMap()
     {
+        // the caller may change it, so rebuild it on the next start
+        appliedEnvironment = null;
         return builder.environment();
     }
 
@@ -358,53 +379,158 @@ public class ConcreteProcess extends Process implements Serializable
         }
     }
 
+    /**
+     * Make the builder's environment that of the model. The model keeps its
+     * environment materialized until it changes, so restarting a process
+     * whose environment has not changed only compares two references.
+     */
     private void updateEnvironments()
     {
-        getEnvironmentMap().clear();
-        for (String category : environmentVarSets.getCategoryNameSet())
+        Map<String, String> materialized = environmentVarSets.toEnvironmentMap();
+        if (materialized == appliedEnvironment)
         {
-            updateEnvironment(category);
+            return;
         }
+        Map<String, String> environment = builder.environment();
+        environment.clear();
+        environment.putAll(materialized);
+        appliedEnvironment = materialized;
     }
 
     /**
-     * Start the process.
+     * Start the process. Its exit is tracked by the ProcessReaper, which sets
+     * the final state, so no thread waits for this process in particular.
+     * While the ProcessLauncher is started the fork is made by one of its
+     * small helper processes instead of by this JVM.
      *
      * @return this process after attempted start.
      */
     public ConcreteProcess start()
     {
         updateEnvironments();
-        Thread thread = new Thread(new Runnable()
+        try
         {
-            @Override
-            public void run()
+            builder.directory(directory());
+            synchronized (this)
             {
-                try
-                {
-                    builder.directory(directory());
-                    process = builder.start();
-                    setState(State.Running);
-                    waitFor();
-                    if (state == State.Running)
-                    {
-                        int prcReval = exitValue();
-                        setState((prcReval == 0) ?
-                                 State.FinishedSuccess :
-                                 State.FinishedError);
-
-                    }
-                }
-                catch (IOException | InterruptedException ex)
-                {
-                    setState(State.StartFailed);
-                }
+                capture = null;
+                exited = false;
             }
-        });
-        thread.start();
+            process = ProcessLauncher.isStarted() ?
+                      ProcessLauncher.launch(builder) :
+                      builder.start();
+            setState(State.Running);
+            ProcessReaper.watch(this, process);
+        }
+        catch (IOException ex)
+        {
+            setState(State.StartFailed);
+        }
         return this;
     }
 
+    /**
+     * Retrieve the operating system's id of the started process.
+     *
+     * @return the process id, -1 if not started or not known on this platform
+     */
+    public long getPid()
+    {
+        Process started = process;
+        return started == null ? -1L : pidOf(started);
+    }
+
+    /**
+     * Retrieve the operating system's id of a started system process.
+     *
+     * @param started the system process
+     * @return the process id, -1 if not known on this platform
+     */
+    static long pidOf(Process started)
+    {
+        try
+        {
+            // Java 9 and later
+            return (Long) Process.class.getMethod("pid").invoke(started);
+        }
+        catch (ReflectiveOperationException | RuntimeException ex)
+        {
+            // fall through to the field of the Unix implementation
+        }
+        try
+        {
+            Field pid = started.getClass().getDeclaredField("pid");
+            pid.setAccessible(true);
+            return pid.getLong(started);
+        }
+        catch (ReflectiveOperationException | RuntimeException ex)
+        {
+            return -1L;
+        }
+    }
+
+    /**
+     * Called by the ProcessReaper when the started system process has exited.
+     *
+     * @param exitValue the exit value of the system process
+     */
+    void processExited(int exitValue)
+    {
+        synchronized (this)
+        {
+            exited = true;
+            if (capture != null)
+            {
+                capture.processExited();
+            }
+        }
+        if (state == State.Running)
+        {
+            setState((exitValue == 0) ?
+                     State.FinishedSuccess :
+                     State.FinishedError);
+        }
+    }
+
+    /**
+     * Capture the standard and error output of the started process, so that
+     * it is drained continuously and its last part is kept. Once captured the
+     * streams must not be read from directly.
+     *
+     * @param capacity the number of bytes kept per stream
+     * @param teeFile  file to copy the output to, null if none
+     * @return the capture, the existing one if the output is already captured
+     * @throws IOException if the tee file cannot be opened
+     */
+    public synchronized OutputCapture capture(int capacity, File teeFile)
+            throws IOException
+    {
+        if (process == null)
+        {
+            throw new IllegalStateException(
+                    "Cannot capture the output of a process not started");
+        }
+        if (capture == null)
+        {
+            capture = new OutputCapture(process, capacity, teeFile);
+            if (exited)
+            {
+                capture.processExited();
+            }
+        }
+        return capture;
+    }
+
+    /**
+     * Retrieve the capture of the output.
+     *
+     * @return the capture, null if the output is not captured
+     */
+    public synchronized OutputCapture getOutputCapture()
+    {
+        return capture;
+    }
+
     @Override
     public OutputStream getOutputStream()
     {
@@ -519,6 +645,45 @@ public class ConcreteProcess extends Process implements Serializable
         return state;
     }
 
+    /**
+     * Write the process definition in the binary wire format of the
+     * ProcessMessageCodec. As with serialisation the running system process
+     * is not part of it.
+     *
+     * @param out the output to write to
+     * @throws IOException if writing fails
+     */
+    void writeBinary(DataOutput out) throws IOException
+    {
+        BinaryFormat.writeEnum(out, state);
+        BinaryFormat.writeStrings(out, command);
+        BinaryFormat.writeString(out, environmentVarFile);
+        BinaryFormat.writeEnvironment(out, environmentVarSets);
+    }
+
+    /**
+     * Read the process definition written by writeBinary().
+     *
+     * @param in the input to read from
+     * @throws IOException            if reading fails
+     * @throws ClassNotFoundException if an environment value refers to
+     *                                unknown classes
+     */
+    void readBinary(DataInput in) throws IOException, ClassNotFoundException
+    {
+        state = BinaryFormat.readEnum(in, State.class);
+        command = BinaryFormat.readStrings(in);
+        if (command != null)
+        {
+            builder.command(command);
+        }
+        environmentVarFile = BinaryFormat.readString(in);
+        EnvironmentVarModel environment = BinaryFormat.readEnvironment(in);
+        environmentVarSets = environment == null ?
+                             new EnvironmentVarModel() :
+                             environment;
+    }
+
     /**
      * An EventObject extension that triggers changes in the running state of
      * the process.
@@ -19,6 +19,9 @@
  */
 package com.kybelksties.process;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.Objects;
 import java.util.logging.Logger;
@@ -343,4 +346,45 @@ public class ExeDefinition implements Serializable, Comparable<Object>
                executable != null &&
                !executable.isEmpty();
     }
+
+    /**
+     * Write the definition in the binary wire format of the
+     * ProcessMessageCodec.
+     *
+     * @param out the output to write to
+     * @throws IOException if writing fails
+     */
+    void writeBinary(DataOutput out) throws IOException
+    {
+        BinaryFormat.writeString(out, name);
+        BinaryFormat.writeString(out, executable);
+        BinaryFormat.writeString(out, path);
+        out.writeBoolean(active);
+        out.writeBoolean(parameters != null);
+        if (parameters != null)
+        {
+            parameters.writeBinary(out);
+        }
+    }
+
+    /**
+     * Read the definition written by writeBinary(). Like a copy this gets a
+     * creation index of its own.
+     *
+     * @param in the input to read from
+     * @throws IOException if reading fails
+     */
+    void readBinary(DataInput in) throws IOException
+    {
+        name = BinaryFormat.readString(in);
+        executable = BinaryFormat.readString(in);
+        path = BinaryFormat.readString(in);
+        active = in.readBoolean();
+        parameters = null;
+        if (in.readBoolean())
+        {
+            parameters = new ParameterList();
+            parameters.readBinary(in);
+        }
+    }
 }
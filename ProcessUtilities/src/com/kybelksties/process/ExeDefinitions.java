@@ -19,6 +19,10 @@
  */
 package com.kybelksties.process;
 
+import com.kybelksties.general.BinaryCodec;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.EventListener;
@@ -59,6 +63,42 @@ public class ExeDefinitions
         NbBundle.getMessage(CLAZZ, "ExeDefinition.columnNames.parameters"),
     };
 
+    /**
+     * Writes the definitions in the binary wire format of the
+     * ProcessMessageCodec, for FileUtilities.writeBinary() and readBinary().
+     */
+    public static final BinaryCodec<ExeDefinitions> BINARY_CODEC =
+            new BinaryCodec<ExeDefinitions>()
+    {
+        @Override
+        public void write(DataOutput out, ExeDefinitions definitions)
+                throws IOException
+        {
+            out.writeInt(definitions.activeDefinition);
+            out.writeInt(definitions.defArray.size());
+            for (ExeDefinition definition : definitions.defArray)
+            {
+                definition.writeBinary(out);
+            }
+        }
+
+        @Override
+        public ExeDefinitions read(DataInput in) throws IOException
+        {
+            ExeDefinitions reval = new ExeDefinitions();
+            int active = in.readInt();
+            int size = in.readInt();
+            for (int i = 0; i < size; i++)
+            {
+                ExeDefinition definition = new ExeDefinition();
+                definition.readBinary(in);
+                reval.defArray.add(definition);
+            }
+            reval.activeDefinition = active;
+            return reval;
+        }
+    };
+
     /**
      * Default construct.
      */
@@ -22,40 +22,57 @@ package com.kybelksties.process;
 import com.kybelksties.protocol.MessageType;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.TreeSet;
 import java.util.logging.Logger;
 import javax.xml.bind.annotation.XmlType;
 import org.openide.util.NbBundle;
 
 /**
+ * The types of ProcessMessage s. There is exactly one instance per type, so
+ * that types can be compared by identity and messages can be created and
+ * dispatched without allocating a type; each type has a small integer id.
  *
  * @author Dieter J Kybelksties
  */
-public class ExeMessageType implements MessageType
+public class ExeMessageType
+        implements MessageType, Serializable, Comparable<Object>
 {
 
     private static final Class CLAZZ = ExeMessageType.class;
     private static final String CLASS_NAME = CLAZZ.getName();
     private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+    private static final long serialVersionUID = -8940196742313991701L;
 
-    static Object[] values()
+    /**
+     * The number of message types, one more than the highest id.
+     */
+    public static final int COUNT = Type.values().length;
+    private static final ExeMessageType[] INSTANCES = makeInstances();
+
+    private static ExeMessageType[] makeInstances()
     {
-        ExeMessageType[] reval = new ExeMessageType[Type.values().length];
-        for (int i = 0; i < Type.values().length; i++)
+        ExeMessageType[] reval = new ExeMessageType[COUNT];
+        for (Type type : Type.values())
         {
-            reval[i] = new ExeMessageType(Type.values()[i]);
+            reval[type.ordinal()] = new ExeMessageType(type);
         }
         return reval;
     }
 
+    static Object[] values()
+    {
+        return INSTANCES.clone();
+    }
+
     static Object[] instructions()
     {
-        ExeMessageType[] reval = new ExeMessageType[Type.values().length];
-        for (int i = 0; i < Type.values().length; i++)
+        ExeMessageType[] reval = new ExeMessageType[COUNT];
+        for (int i = 0; i < COUNT; i++)
         {
-            if (Type.values()[i].isInstruction())
+            if (INSTANCES[i].isInstruction())
             {
-                reval[i] = new ExeMessageType(Type.values()[i]);
+                reval[i] = INSTANCES[i];
             }
         }
         return reval;
@@ -67,7 +84,7 @@ public class ExeMessageType implements MessageType
      */
     public static MessageType bootstrap()
     {
-        return new ExeMessageType(Type.Bootstrap);
+        return INSTANCES[Type.Bootstrap.ordinal()];
     }
 
     /**
@@ -76,7 +93,7 @@ public class ExeMessageType implements MessageType
      */
     public static ExeMessageType invalid()
     {
-        return new ExeMessageType(Type.Invalid);
+        return INSTANCES[Type.Invalid.ordinal()];
     }
 
     /**
@@ -85,7 +102,7 @@ public class ExeMessageType implements MessageType
      */
     public static ExeMessageType acknowledge()
     {
-        return new ExeMessageType(Type.Ack);
+        return INSTANCES[Type.Ack.ordinal()];
     }
 
     /**
@@ -94,7 +111,7 @@ public class ExeMessageType implements MessageType
      */
     public static ExeMessageType chitChat()
     {
-        return new ExeMessageType(Type.ChitChat);
+        return INSTANCES[Type.ChitChat.ordinal()];
     }
 
     /**
@@ -103,7 +120,7 @@ public class ExeMessageType implements MessageType
      */
     static public ExeMessageType stopServer()
     {
-        return new ExeMessageType(Type.StopServer);
+        return INSTANCES[Type.StopServer.ordinal()];
     }
 
     /**
@@ -112,7 +129,7 @@ public class ExeMessageType implements MessageType
      */
     static public ExeMessageType identify()
     {
-        return new ExeMessageType(Type.Identify);
+        return INSTANCES[Type.Identify.ordinal()];
     }
 
     /**
@@ -121,7 +138,7 @@ public class ExeMessageType implements MessageType
      */
     static public ExeMessageType startProcess()
     {
-        return new ExeMessageType(Type.StartProcess);
+        return INSTANCES[Type.StartProcess.ordinal()];
     }
 
     /**
@@ -130,7 +147,7 @@ public class ExeMessageType implements MessageType
      */
     static public ExeMessageType listProcesses()
     {
-        return new ExeMessageType(Type.ListProcesses);
+        return INSTANCES[Type.ListProcesses.ordinal()];
     }
 
     /**
@@ -139,7 +156,7 @@ public class ExeMessageType implements MessageType
      */
     static public ExeMessageType processList()
     {
-        return new ExeMessageType(Type.ProcessList);
+        return INSTANCES[Type.ProcessList.ordinal()];
     }
 
     /**
@@ -148,7 +165,7 @@ public class ExeMessageType implements MessageType
      */
     static public ExeMessageType killProcess()
     {
-        return new ExeMessageType(Type.KillProcess);
+        return INSTANCES[Type.KillProcess.ordinal()];
     }
 
     /**
@@ -157,21 +174,174 @@ public class ExeMessageType implements MessageType
      */
     static public ExeMessageType restartProcess()
     {
-        return new ExeMessageType(Type.RestartProcess);
+        return INSTANCES[Type.RestartProcess.ordinal()];
+    }
+
+    /**
+     * Instruction to start a list of scheduled processes at once.
+     *
+     * @return the message type
+     */
+    static public ExeMessageType startProcesses()
+    {
+        return INSTANCES[Type.StartProcesses.ordinal()];
+    }
+
+    /**
+     * Instruction to kill a list of processes, given by their server IDs, at
+     * once.
+     *
+     * @return the message type
+     */
+    static public ExeMessageType killProcesses()
+    {
+        return INSTANCES[Type.KillProcesses.ordinal()];
+    }
+
+    /**
+     * Request for the resource samples of processes, given by their server
+     * IDs.
+     *
+     * @return the message type
+     */
+    static public ExeMessageType processResources()
+    {
+        return INSTANCES[Type.ProcessResources.ordinal()];
+    }
+
+    /**
+     * Instruction to push the state changes of processes, given by their
+     * server IDs, to the client.
+     *
+     * @return the message type
+     */
+    static public ExeMessageType subscribe()
+    {
+        return INSTANCES[Type.Subscribe.ordinal()];
+    }
+
+    /**
+     * Instruction to stop pushing the state changes of processes.
+     *
+     * @return the message type
+     */
+    static public ExeMessageType unsubscribe()
+    {
+        return INSTANCES[Type.Unsubscribe.ordinal()];
+    }
+
+    /**
+     * State changes of processes pushed by the server without request.
+     *
+     * @return the message type
+     */
+    static public ExeMessageType stateChanges()
+    {
+        return INSTANCES[Type.StateChanges.ordinal()];
     }
-    Type type = Type.Invalid;
+
+    /**
+     * Grant of credits for pushed messages by the client.
+     *
+     * @return the message type
+     */
+    static public ExeMessageType credit()
+    {
+        return INSTANCES[Type.Credit.ordinal()];
+    }
+
+    /**
+     * Retrieve the message type for an enumeration value.
+     *
+     * @param type the enumeration value
+     * @return the message type, invalid if type is null
+     */
+    static ExeMessageType valueOf(Type type)
+    {
+        return INSTANCES[type == null ?
+                         Type.Invalid.ordinal() :
+                         type.ordinal()];
+    }
+
+    /**
+     * Retrieve the message type for an id.
+     *
+     * @param id the id of the type
+     * @return the message type, invalid if there is no type with that id
+     */
+    static ExeMessageType valueOf(int id)
+    {
+        return id >= 0 && id < COUNT ?
+               INSTANCES[id] :
+               INSTANCES[Type.Invalid.ordinal()];
+    }
+    final Type type;
 
     private ExeMessageType(Type type)
     {
         this.type = type;
     }
 
+    /**
+     * Replace a deserialized type by the single instance.
+     *
+     * @return the single instance of the type
+     */
+    private Object readResolve()
+    {
+        return valueOf(type);
+    }
+
+    /**
+     * Retrieve the id of the type, a small integer to index tables with.
+     *
+     * @return the id, between 0 and COUNT - 1
+     */
+    public int getId()
+    {
+        return type.ordinal();
+    }
+
     @Override
     public String toString()
     {
         return type.toString();
     }
 
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (obj == null)
+        {
+            return false;
+        }
+        if (getClass() != obj.getClass())
+        {
+            return false;
+        }
+        return type == ((ExeMessageType) obj).type;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return type.ordinal();
+    }
+
+    @Override
+    public int compareTo(Object o)
+    {
+        if (!(o instanceof ExeMessageType))
+        {
+            return o == null ? Integer.MIN_VALUE : Integer.MIN_VALUE + 1;
+        }
+        return getId() - ((ExeMessageType) o).getId();
+    }
+
     boolean isInstruction()
     {
         return type == null ? false : type.isInstruction();
@@ -187,17 +357,14 @@ public class ExeMessageType implements MessageType
     public TreeSet<MessageType> getAllMessageTypes()
     {
         TreeSet<MessageType> reval = new TreeSet<>();
-        for (Type typeVal : Type.values())
-        {
-            reval.add(new ExeMessageType(typeVal));
-        }
+        reval.addAll(Arrays.asList(INSTANCES));
         return reval;
     }
 
     @Override // MessageType
     public MessageType fromString(String type)
     {
-        return new ExeMessageType(Type.fromSting(type));
+        return valueOf(Type.fromSting(type));
     }
 
     /**
@@ -250,7 +417,35 @@ public class ExeMessageType implements MessageType
         /**
          *
          */
-        RestartProcess;
+        RestartProcess,
+        /**
+         * Start a list of scheduled processes.
+         */
+        StartProcesses,
+        /**
+         * Kill a list of processes.
+         */
+        KillProcesses,
+        /**
+         * Retrieve the resource samples of a list of processes.
+         */
+        ProcessResources,
+        /**
+         * Subscribe to the state changes of a list of processes.
+         */
+        Subscribe,
+        /**
+         * Unsubscribe from the state changes of a list of processes.
+         */
+        Unsubscribe,
+        /**
+         * State changes pushed by the server.
+         */
+        StateChanges,
+        /**
+         * Grant credits for pushed messages.
+         */
+        Credit;
 
         private static final Class CLAZZ = Type.class;
         private static final String CLASS_NAME = CLAZZ.getName();
@@ -283,6 +478,25 @@ public class ExeMessageType implements MessageType
                    this == RestartProcess ?
                    NbBundle.getMessage(CLAZZ,
                                        "ProcessMessage.Type.RestartProcess") :
+                   this == StartProcesses ?
+                   NbBundle.getMessage(CLAZZ,
+                                       "ProcessMessage.Type.StartProcesses") :
+                   this == KillProcesses ?
+                   NbBundle.getMessage(CLAZZ,
+                                       "ProcessMessage.Type.KillProcesses") :
+                   this == ProcessResources ?
+                   NbBundle.getMessage(CLAZZ,
+                                       "ProcessMessage.Type.ProcessResources") :
+                   this == Subscribe ?
+                   NbBundle.getMessage(CLAZZ, "ProcessMessage.Type.Subscribe") :
+                   this == Unsubscribe ?
+                   NbBundle.getMessage(CLAZZ,
+                                       "ProcessMessage.Type.Unsubscribe") :
+                   this == StateChanges ?
+                   NbBundle.getMessage(CLAZZ,
+                                       "ProcessMessage.Type.StateChanges") :
+                   this == Credit ?
+                   NbBundle.getMessage(CLAZZ, "ProcessMessage.Type.Credit") :
                    NbBundle.getMessage(CLAZZ, "ProcessMessage.Type.Unknown");
         }
 
@@ -298,7 +512,13 @@ public class ExeMessageType implements MessageType
                    this == StartProcess ||
                    this == ListProcesses ||
                    this == KillProcess ||
-                   this == RestartProcess;
+                   this == RestartProcess ||
+                   this == StartProcesses ||
+                   this == KillProcesses ||
+                   this == ProcessResources ||
+                   this == Subscribe ||
+                   this == Unsubscribe ||
+                   this == Credit;
         }
 
         /**
@@ -341,6 +561,14 @@ public class ExeMessageType implements MessageType
                    "ProcessList".equalsIgnoreCase(string) ? ProcessList :
                    "KillProcess".equalsIgnoreCase(string) ? KillProcess :
                    "RestartProcess".equalsIgnoreCase(string) ? ProcessList :
+                   "StartProcesses".equalsIgnoreCase(string) ? StartProcesses :
+                   "KillProcesses".equalsIgnoreCase(string) ? KillProcesses :
+                   "ProcessResources".equalsIgnoreCase(string) ?
+                   ProcessResources :
+                   "Subscribe".equalsIgnoreCase(string) ? Subscribe :
+                   "Unsubscribe".equalsIgnoreCase(string) ? Unsubscribe :
+                   "StateChanges".equalsIgnoreCase(string) ? StateChanges :
+                   "Credit".equalsIgnoreCase(string) ? Credit :
                    Invalid;
 
         }
@@ -0,0 +1,333 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Flow control of the messages a server sends to one client. The outbound
+ * queue - frames handed to the connection but not yet written to the socket -
+ * is bounded; what happens to a frame that does not fit is decided by the
+ * SlowConsumerPolicy. On top of that the client can limit the pushed messages
+ * with a credit window: once it has granted credits, every pushed frame costs
+ * one credit and pushes are held back, and coalesced, while none are left.
+ * Until the first grant pushes are not limited by credits.
+ *
+ * The bound and the policy can be set with the system properties
+ * "com.kybelksties.process.FlowControl.maxQueuedFrames" and
+ * "com.kybelksties.process.FlowControl.policy".
+ *
+ * @author Dieter J Kybelksties
+ */
+class FlowControl
+{
+
+    private static final Class CLAZZ = FlowControl.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    /**
+     * Default maximum number of frames queued for a client.
+     */
+    static final int DEFAULT_MAX_QUEUED_FRAMES = 1024;
+    /**
+     * Maximum number of frames queued for a client.
+     */
+    static final int MAX_QUEUED_FRAMES =
+                     Integer.getInteger(CLASS_NAME + ".maxQueuedFrames",
+                                        DEFAULT_MAX_QUEUED_FRAMES);
+    /**
+     * The policy for clients whose queue is full.
+     */
+    static final SlowConsumerPolicy POLICY = SlowConsumerPolicy.fromString(
+                                    System.getProperty(CLASS_NAME + ".policy"),
+                                    SlowConsumerPolicy.COALESCE);
+    // credits of a client that has never granted any
+    private static final long UNLIMITED = -1L;
+
+    // totals over all clients
+    private static final AtomicLong TOTAL_QUEUED = new AtomicLong(0L);
+    private static final AtomicLong TOTAL_DROPPED = new AtomicLong(0L);
+    private static final AtomicLong TOTAL_DISCONNECTED = new AtomicLong(0L);
+
+    /**
+     * What to do with a frame that is to be sent.
+     */
+    enum Admission
+    {
+
+        /**
+         * Queue the frame.
+         */
+        SEND,
+        /**
+         * Discard the frame.
+         */
+        DROP,
+        /**
+         * Close the connection.
+         */
+        DISCONNECT
+    }
+
+    private final int maxQueuedFrames;
+    private final SlowConsumerPolicy policy;
+    private final AtomicInteger queued = new AtomicInteger(0);
+    private final AtomicInteger peakQueued = new AtomicInteger(0);
+    private final AtomicLong dropped = new AtomicLong(0L);
+    private final AtomicLong deferred = new AtomicLong(0L);
+    private final AtomicLong credits = new AtomicLong(UNLIMITED);
+
+    /**
+     * Construct with the configured bound and policy.
+     */
+    FlowControl()
+    {
+        this(MAX_QUEUED_FRAMES, POLICY);
+    }
+
+    /**
+     * Construct with a bound and a policy.
+     *
+     * @param maxQueuedFrames maximum number of frames queued, at least 1
+     * @param policy          what to do when the queue is full
+     */
+    FlowControl(int maxQueuedFrames, SlowConsumerPolicy policy)
+    {
+        this.maxQueuedFrames = Math.max(1, maxQueuedFrames);
+        this.policy = policy == null ? SlowConsumerPolicy.COALESCE : policy;
+    }
+
+    /**
+     * Decide whether a frame can be queued and count it if so. Every frame
+     * admitted with SEND must be given back with sent() once it is written or
+     * has failed.
+     *
+     * @param message the message of the frame
+     * @return what to do with the frame
+     */
+    Admission admit(ProcessMessage message)
+    {
+        if (queued.get() >= maxQueuedFrames)
+        {
+            if (policy == SlowConsumerPolicy.DISCONNECT)
+            {
+                TOTAL_DISCONNECTED.incrementAndGet();
+                return Admission.DISCONNECT;
+            }
+            if (message.isPush())
+            {
+                dropped.incrementAndGet();
+                TOTAL_DROPPED.incrementAndGet();
+                return Admission.DROP;
+            }
+        }
+        int depth = queued.incrementAndGet();
+        TOTAL_QUEUED.incrementAndGet();
+        int peak;
+        while (depth > (peak = peakQueued.get()) &&
+               !peakQueued.compareAndSet(peak, depth))
+        {
+            // retry
+        }
+        return Admission.SEND;
+    }
+
+    /**
+     * Give back a frame admitted before.
+     */
+    void sent()
+    {
+        queued.decrementAndGet();
+        TOTAL_QUEUED.decrementAndGet();
+    }
+
+    /**
+     * Check whether the queue is full.
+     *
+     * @return true if so, false otherwise
+     */
+    boolean isCongested()
+    {
+        return queued.get() >= maxQueuedFrames;
+    }
+
+    /**
+     * Check whether a push may be sent now and take a credit for it if so.
+     * Pushes are held back while the client has no credits and, with policy
+     * COALESCE, while its queue is full.
+     *
+     * @return true if the push may be sent, false if it must wait
+     */
+    boolean takePushCredit()
+    {
+        if (policy == SlowConsumerPolicy.COALESCE && isCongested())
+        {
+            deferred.incrementAndGet();
+            return false;
+        }
+        long available;
+        do
+        {
+            available = credits.get();
+            if (available == UNLIMITED)
+            {
+                return true;
+            }
+            if (available == 0L)
+            {
+                deferred.incrementAndGet();
+                return false;
+            }
+        }
+        while (!credits.compareAndSet(available, available - 1L));
+        return true;
+    }
+
+    /**
+     * Add credits granted by the client.
+     *
+     * @param count the number of pushed frames the client is ready for
+     * @return the credits now available
+     */
+    long grant(int count)
+    {
+        long available;
+        long reval;
+        do
+        {
+            available = credits.get();
+            reval = (available == UNLIMITED ? 0L : available) +
+                    Math.max(0, count);
+        }
+        while (!credits.compareAndSet(available, reval));
+        return reval;
+    }
+
+    /**
+     * Retrieve the credits available.
+     *
+     * @return the number of credits, -1 if the client has never granted any
+     */
+    long getCredits()
+    {
+        return credits.get();
+    }
+
+    /**
+     * Retrieve the policy for a full queue.
+     *
+     * @return the policy
+     */
+    SlowConsumerPolicy getPolicy()
+    {
+        return policy;
+    }
+
+    /**
+     * Retrieve the maximum number of queued frames.
+     *
+     * @return the bound of the queue
+     */
+    int getMaxQueuedFrames()
+    {
+        return maxQueuedFrames;
+    }
+
+    /**
+     * Retrieve the number of frames queued but not yet written.
+     *
+     * @return the queue depth
+     */
+    int getQueueDepth()
+    {
+        return queued.get();
+    }
+
+    /**
+     * Retrieve the highest queue depth seen.
+     *
+     * @return the peak queue depth
+     */
+    int getPeakQueueDepth()
+    {
+        return peakQueued.get();
+    }
+
+    /**
+     * Retrieve the number of pushed frames dropped.
+     *
+     * @return the number of dropped frames
+     */
+    long getDroppedFrames()
+    {
+        return dropped.get();
+    }
+
+    /**
+     * Retrieve how often a push had to wait for credits or for the queue.
+     *
+     * @return the number of deferred pushes
+     */
+    long getDeferredPushes()
+    {
+        return deferred.get();
+    }
+
+    /**
+     * Retrieve the number of frames queued for all clients.
+     *
+     * @return the total queue depth
+     */
+    static long getTotalQueueDepth()
+    {
+        return TOTAL_QUEUED.get();
+    }
+
+    /**
+     * Retrieve the number of pushed frames dropped for all clients.
+     *
+     * @return the total number of dropped frames
+     */
+    static long getTotalDroppedFrames()
+    {
+        return TOTAL_DROPPED.get();
+    }
+
+    /**
+     * Retrieve the number of clients disconnected for being too slow.
+     *
+     * @return the number of disconnects
+     */
+    static long getTotalDisconnects()
+    {
+        return TOTAL_DISCONNECTED.get();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "queued " + queued.get() + "/" + maxQueuedFrames +
+               " (peak " + peakQueued.get() + "), dropped " + dropped.get() +
+               ", deferred " + deferred.get() + ", credits " + credits.get();
+    }
+}
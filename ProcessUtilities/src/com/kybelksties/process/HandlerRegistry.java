@@ -0,0 +1,299 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
+/**
+ * Maps each message type to the handler that creates the response. A handler
+ * either runs inline, on the thread reading the client's messages, so that
+ * the messages of a client are handled in order, or it runs detached, on a
+ * shared pool, so that a slow request does not hold up the requests sent
+ * after it on the same connection. The response of a detached handler is
+ * sent when it is ready; the client pairs it with its request by the
+ * correlation id. Each detached type has a limit on how many of its handlers
+ * run at once, over all connections; further requests of that type wait in
+ * line, and once the line is full they are rejected with an invalid-message.
+ *
+ * @author Dieter J Kybelksties
+ */
+class HandlerRegistry
+{
+
+    private static final Class CLAZZ = HandlerRegistry.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    // runs the detached handlers; their number is bounded by the type limits
+    private static final ExecutorService DETACHED =
+                                         Executors.newCachedThreadPool(
+                                                 new NamedThreadFactory(
+                                                         "ProcessHandler-",
+                                                         true));
+
+    /**
+     * The number of requests of a detached type that may wait for a handler
+     * before further ones are rejected. Configured by the system property
+     * "com.kybelksties.process.HandlerRegistry.maxWaiting", defaults to 1024.
+     */
+    static final int DEFAULT_MAX_WAITING =
+                     Math.max(1,
+                              Integer.getInteger(CLASS_NAME + ".maxWaiting",
+                                                 1024));
+
+    private final Registration[] registrations =
+                                 new Registration[ExeMessageType.COUNT];
+
+    /**
+     * Register a handler that runs inline.
+     *
+     * @param type    the message type
+     * @param handler the handler
+     */
+    void register(ExeMessageType type, ProcessServer.Handler handler)
+    {
+        registrations[type.getId()] = new Registration(handler, 0, 0);
+    }
+
+    /**
+     * Register a handler that runs detached.
+     *
+     * @param type          the message type
+     * @param handler       the handler
+     * @param maxConcurrent the maximum number of handlers of this type that
+     *                      run at once, at least 1
+     */
+    void register(ExeMessageType type,
+                  ProcessServer.Handler handler,
+                  int maxConcurrent)
+    {
+        register(type, handler, maxConcurrent, DEFAULT_MAX_WAITING);
+    }
+
+    /**
+     * Register a handler that runs detached, with a limit on the requests
+     * waiting for it.
+     *
+     * @param type          the message type
+     * @param handler       the handler
+     * @param maxConcurrent the maximum number of handlers of this type that
+     *                      run at once, at least 1
+     * @param maxWaiting    the maximum number of requests of this type that
+     *                      wait for a handler, at least 1
+     */
+    void register(ExeMessageType type,
+                  ProcessServer.Handler handler,
+                  int maxConcurrent,
+                  int maxWaiting)
+    {
+        registrations[type.getId()] = new Registration(handler,
+                                                       Math.max(1,
+                                                                maxConcurrent),
+                                                       Math.max(1, maxWaiting));
+    }
+
+    /**
+     * Retrieve the handler of a message type.
+     *
+     * @param type the message type
+     * @return the handler, null if none is registered
+     */
+    ProcessServer.Handler get(ExeMessageType type)
+    {
+        Registration registration = registrations[type.getId()];
+        return registration == null ? null : registration.handler;
+    }
+
+    /**
+     * Check whether the handler of a message type runs detached.
+     *
+     * @param type the message type
+     * @return true if detached, false if inline or not registered
+     */
+    boolean isDetached(ExeMessageType type)
+    {
+        Registration registration = registrations[type.getId()];
+        return registration != null && registration.maxConcurrent > 0;
+    }
+
+    /**
+     * Retrieve the number of detached handlers of a type that are running.
+     *
+     * @param type the message type
+     * @return the number of running handlers
+     */
+    int getRunning(ExeMessageType type)
+    {
+        Registration registration = registrations[type.getId()];
+        return registration == null ? 0 : registration.getRunning();
+    }
+
+    /**
+     * Handle a received message and pass the response to the responder. An
+     * inline handler has responded when this returns; a detached one
+     * responds later from a thread of the pool. A message of a detached type
+     * whose line of waiting requests is full is answered at once with an
+     * invalid-message.
+     *
+     * @param session   the client that sent the message
+     * @param rcvdMsg   the received message
+     * @param responder sends the response to the client
+     */
+    void dispatch(final ClientSession session,
+                  final ProcessMessage rcvdMsg,
+                  final Responder responder)
+    {
+        final Registration registration =
+                           registrations[rcvdMsg.getType().getId()];
+        if (registration == null || registration.maxConcurrent == 0)
+        {
+            responder.respond(handle(registration, session, rcvdMsg));
+            return;
+        }
+        boolean accepted = registration.submit(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                responder.respond(handle(registration, session, rcvdMsg));
+            }
+        });
+        if (!accepted)
+        {
+            ProcessMessage rejection = ProcessMessage.makeInvalid(
+                           "Too many " + rcvdMsg.getType() +
+                           " requests waiting, try again later");
+            rejection.setCorrelationId(rcvdMsg.getCorrelationId());
+            responder.respond(rejection);
+        }
+    }
+
+    private static ProcessMessage handle(Registration registration,
+                                         ClientSession session,
+                                         ProcessMessage rcvdMsg)
+    {
+        ProcessMessage reval;
+        try
+        {
+            reval = registration == null ?
+                    ProcessMessage.makeAcknowledge() :
+                    registration.handler.handle(session, rcvdMsg);
+        }
+        catch (RuntimeException ex)
+        {
+            // a failing request must not stall the connection
+            reval = ProcessMessage.makeInvalid(ex.toString());
+        }
+        reval.setCorrelationId(rcvdMsg.getCorrelationId());
+        return reval;
+    }
+
+    /**
+     * Sends a response to the client that sent the request.
+     */
+    interface Responder
+    {
+
+        /**
+         * Send the response. May be called from any thread.
+         *
+         * @param response the response
+         */
+        void respond(ProcessMessage response);
+    }
+
+    private static final class Registration
+    {
+
+        private final ProcessServer.Handler handler;
+        private final int maxConcurrent;
+        private final int maxWaiting;
+        private final Queue<Runnable> waiting = new ArrayDeque<>();
+        private int running = 0;
+
+        Registration(ProcessServer.Handler handler,
+                     int maxConcurrent,
+                     int maxWaiting)
+        {
+            this.handler = handler;
+            this.maxConcurrent = maxConcurrent;
+            this.maxWaiting = maxWaiting;
+        }
+
+        synchronized int getRunning()
+        {
+            return running;
+        }
+
+        boolean submit(Runnable task)
+        {
+            synchronized (this)
+            {
+                if (waiting.size() >= maxWaiting)
+                {
+                    return false;
+                }
+                waiting.add(task);
+            }
+            startWaiting();
+            return true;
+        }
+
+        private void startWaiting()
+        {
+            while (true)
+            {
+                final Runnable task;
+                synchronized (this)
+                {
+                    if (running >= maxConcurrent || waiting.isEmpty())
+                    {
+                        return;
+                    }
+                    task = waiting.poll();
+                    running++;
+                }
+                DETACHED.execute(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        try
+                        {
+                            task.run();
+                        }
+                        finally
+                        {
+                            synchronized (Registration.this)
+                            {
+                                running--;
+                            }
+                            startWaiting();
+                        }
+                    }
+                });
+            }
+        }
+    }
+}
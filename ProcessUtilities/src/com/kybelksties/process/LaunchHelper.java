@@ -0,0 +1,438 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The program run by the helper processes of the ProcessLauncher. It reads
+ * launch, kill and credit requests from its standard input, starts the
+ * processes and writes their pids, their output and, later, their exit
+ * values to its standard output. The standard input of a launched process is
+ * empty. The helper ends when its standard input is closed; processes it has
+ * launched keep running.
+ *
+ * A single reaper thread serves all launched processes: it polls them for
+ * their exit and relays what is available on their standard output and
+ * error, quickly while there is something to do and more slowly while there
+ * is not. Output is relayed only as far as the launcher has granted credit
+ * for, so a process whose output is not read blocks on its pipe as it would
+ * if started directly, without holding up the others.
+ *
+ * The requests are a request code followed by an int id and, for launches,
+ * the working directory, the command and the environment as key and value
+ * strings, for credits the stream (byte) and the number of bytes (int). The
+ * replies are a reply code followed by the id and the pid (long), the reason
+ * of the failure (string), the stream (byte) with the length (int) and the
+ * bytes of the output or the stream (byte) that has ended, or the exit value
+ * (int). Strings are written as by BinaryFormat.writeString().
+ *
+ * @author Dieter J Kybelksties
+ */
+public final class LaunchHelper
+{
+
+    private static final Class CLAZZ = LaunchHelper.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    static final byte REQUEST_LAUNCH = 1;
+    static final byte REQUEST_KILL = 2;
+    static final byte REQUEST_CREDIT = 3;
+    static final byte REPLY_STARTED = 1;
+    static final byte REPLY_FAILED = 2;
+    static final byte REPLY_EXITED = 3;
+    static final byte REPLY_OUTPUT = 4;
+    static final byte REPLY_CLOSED = 5;
+
+    static final byte STDOUT = 0;
+    static final byte STDERR = 1;
+    /**
+     * The number of bytes of a stream the launcher initially takes without
+     * reading them.
+     */
+    static final int WINDOW = OutputDrainer.READ_SIZE;
+
+    private static final File NO_INPUT = new File("/dev/null");
+
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final ConcurrentMap<Integer, Child> launched =
+                                                new ConcurrentHashMap<>();
+    private final List<Child> added = new ArrayList<>();
+
+    private LaunchHelper(DataInputStream in, DataOutputStream out)
+    {
+        this.in = in;
+        this.out = out;
+    }
+
+    /**
+     * Serve the requests on standard input until it is closed.
+     *
+     * @param args not used
+     * @throws IOException if the replies cannot be written
+     */
+    public static void main(String[] args) throws IOException
+    {
+        new LaunchHelper(new DataInputStream(
+                new BufferedInputStream(System.in)),
+                         new DataOutputStream(
+                                 new BufferedOutputStream(System.out))).serve();
+    }
+
+    private void serve() throws IOException
+    {
+        Thread reaper = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                reap();
+            }
+        }, "LaunchHelper-reaper");
+        reaper.setDaemon(true);
+        reaper.start();
+        while (true)
+        {
+            byte request;
+            try
+            {
+                request = in.readByte();
+            }
+            catch (EOFException ex)
+            {
+                return;
+            }
+            int id = in.readInt();
+            Child child = launched.get(id);
+            if (request == REQUEST_LAUNCH)
+            {
+                launch(id);
+            }
+            else if (request == REQUEST_KILL)
+            {
+                if (child != null)
+                {
+                    child.process.destroy();
+                }
+            }
+            else if (request == REQUEST_CREDIT)
+            {
+                byte stream = in.readByte();
+                int bytes = in.readInt();
+                if (child != null)
+                {
+                    child.credit(stream, bytes);
+                    synchronized (added)
+                    {
+                        added.notifyAll();
+                    }
+                }
+            }
+            else
+            {
+                throw new IOException("Unknown request " + request);
+            }
+        }
+    }
+
+    private void launch(int id) throws IOException
+    {
+        String directory = BinaryFormat.readString(in);
+        String[] command = BinaryFormat.readStrings(in);
+        int count = in.readInt();
+        ProcessBuilder builder = new ProcessBuilder(command);
+        Map<String, String> environment = builder.environment();
+        environment.clear();
+        for (int i = 0; i < count; i++)
+        {
+            environment.put(BinaryFormat.readString(in),
+                            BinaryFormat.readString(in));
+        }
+
+        Process process;
+        try
+        {
+            process = builder.directory(directory == null ?
+                                        null :
+                                        new File(directory)).
+                    redirectInput(ProcessBuilder.Redirect.from(NO_INPUT)).
+                    start();
+        }
+        catch (IOException | RuntimeException ex)
+        {
+            synchronized (out)
+            {
+                out.writeByte(REPLY_FAILED);
+                out.writeInt(id);
+                BinaryFormat.writeString(out, ex.toString());
+                out.flush();
+            }
+            return;
+        }
+        Child child = new Child(id, process);
+        launched.put(id, child);
+        synchronized (out)
+        {
+            out.writeByte(REPLY_STARTED);
+            out.writeInt(id);
+            out.writeLong(ConcreteProcess.pidOf(process));
+            out.flush();
+        }
+        synchronized (added)
+        {
+            added.add(child);
+            added.notifyAll();
+        }
+    }
+
+    private void reap()
+    {
+        byte[] bytes = new byte[WINDOW];
+        long pollMillis = OutputDrainer.MIN_POLL_MILLIS;
+        List<Child> children = new ArrayList<>();
+        while (true)
+        {
+            synchronized (added)
+            {
+                try
+                {
+                    while (children.isEmpty() && added.isEmpty())
+                    {
+                        added.wait();
+                        pollMillis = OutputDrainer.MIN_POLL_MILLIS;
+                    }
+                }
+                catch (InterruptedException ex)
+                {
+                    return;
+                }
+                children.addAll(added);
+                added.clear();
+            }
+            boolean busy = false;
+            try
+            {
+                synchronized (out)
+                {
+                    Iterator<Child> iter = children.iterator();
+                    while (iter.hasNext())
+                    {
+                        Child child = iter.next();
+                        busy |= child.relay(bytes);
+                        if (child.isDone())
+                        {
+                            iter.remove();
+                            launched.remove(child.id);
+                        }
+                    }
+                    out.flush();
+                }
+            }
+            catch (IOException ex)
+            {
+                // the launcher has gone, nobody to tell
+                return;
+            }
+            pollMillis = busy ?
+                         OutputDrainer.MIN_POLL_MILLIS :
+                         Math.min(pollMillis * 2,
+                                  OutputDrainer.MAX_POLL_MILLIS);
+            synchronized (added)
+            {
+                try
+                {
+                    if (added.isEmpty())
+                    {
+                        added.wait(pollMillis);
+                    }
+                }
+                catch (InterruptedException ex)
+                {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * A launched process with the credit the launcher has granted for each
+     * of its output streams.
+     */
+    private final class Child
+    {
+
+        final int id;
+        final Process process;
+        private final InputStream[] streams;
+        private final long[] credits =
+        {
+            WINDOW, WINDOW
+        };
+        private final boolean[] closed =
+        {
+            false, false
+        };
+        private boolean exitSent = false;
+
+        Child(int id, Process process)
+        {
+            this.id = id;
+            this.process = process;
+            streams = new InputStream[]
+            {
+                process.getInputStream(), process.getErrorStream()
+            };
+        }
+
+        synchronized void credit(byte stream, int bytes)
+        {
+            if (stream == STDOUT || stream == STDERR)
+            {
+                credits[stream] = Math.min(credits[stream] + bytes,
+                                           Integer.MAX_VALUE);
+            }
+        }
+
+        private synchronized int take(int stream, int available)
+        {
+            int reval = (int) Math.min(available, credits[stream]);
+            credits[stream] -= reval;
+            return reval;
+        }
+
+        private synchronized void giveBack(int stream, int bytes)
+        {
+            credits[stream] += bytes;
+        }
+
+        /**
+         * Relay the available output and, once it has all been relayed or
+         * waits for credit, the exit. Called with the lock on out held.
+         *
+         * @param bytes buffer to read into
+         * @return true if anything was relayed
+         * @throws IOException if the launcher cannot be written to
+         */
+        boolean relay(byte[] bytes) throws IOException
+        {
+            // check for the exit first: output written before it is in the pipe
+            boolean exited = hasExited();
+            boolean reval = false;
+            boolean stalled = false;
+            for (byte stream = STDOUT; stream <= STDERR; stream++)
+            {
+                if (closed[stream])
+                {
+                    continue;
+                }
+                int available;
+                try
+                {
+                    available = streams[stream].available();
+                }
+                catch (IOException ex)
+                {
+                    available = -1;
+                }
+                if (available <= 0)
+                {
+                    if (exited)
+                    {
+                        close(stream);
+                    }
+                    continue;
+                }
+                int length = take(stream, Math.min(available, bytes.length));
+                if (length == 0)
+                {
+                    stalled = true;
+                    continue;
+                }
+                int read = streams[stream].read(bytes, 0, length);
+                if (read < 0)
+                {
+                    close(stream);
+                    continue;
+                }
+                giveBack(stream, length - read);
+                out.writeByte(REPLY_OUTPUT);
+                out.writeInt(id);
+                out.writeByte(stream);
+                out.writeInt(read);
+                out.write(bytes, 0, read);
+                reval = true;
+            }
+            if (exited &&
+                !exitSent &&
+                (stalled || closed[STDOUT] && closed[STDERR]))
+            {
+                out.writeByte(REPLY_EXITED);
+                out.writeInt(id);
+                out.writeInt(process.exitValue());
+                exitSent = true;
+                reval = true;
+            }
+            return reval;
+        }
+
+        boolean isDone()
+        {
+            return exitSent && closed[STDOUT] && closed[STDERR];
+        }
+
+        private void close(byte stream) throws IOException
+        {
+            closed[stream] = true;
+            try
+            {
+                streams[stream].close();
+            }
+            catch (IOException ex)
+            {
+                LOGGER.log(Level.FINE, ex.toString());
+            }
+            out.writeByte(REPLY_CLOSED);
+            out.writeInt(id);
+            out.writeByte(stream);
+        }
+
+        private boolean hasExited()
+        {
+            return ProcessReaper.hasExited(process);
+        }
+    }
+}
@@ -19,6 +19,9 @@
  */
 package com.kybelksties.process;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.logging.Logger;
 import javax.xml.bind.annotation.XmlAccessType;
@@ -211,6 +214,26 @@ public class LetterParameter
         return (style == Style.WINDOWS ? "/" : "-") + letter;
     }
 
+    @Override
+    void writeBinary(DataOutput out) throws IOException
+    {
+        super.writeBinary(out);
+        out.writeBoolean(letter != null);
+        if (letter != null)
+        {
+            out.writeChar(letter);
+        }
+        out.writeBoolean(hasArg);
+    }
+
+    @Override
+    void readBinary(DataInput in) throws IOException
+    {
+        super.readBinary(in);
+        letter = in.readBoolean() ? in.readChar() : null;
+        hasArg = in.readBoolean();
+    }
+
     /**
      * Enumeration of Style of letter-parameters.
      */
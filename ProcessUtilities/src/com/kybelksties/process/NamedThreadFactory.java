@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Thread factory giving the threads of a pool a common name prefix so they
+ * can be told apart in thread dumps.
+ *
+ * @author Dieter J Kybelksties
+ */
+class NamedThreadFactory implements ThreadFactory
+{
+
+    private static final Class CLAZZ = NamedThreadFactory.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    private final String prefix;
+    private final boolean daemon;
+    private final AtomicInteger count = new AtomicInteger(0);
+
+    /**
+     * Construct with a name prefix.
+     *
+     * @param prefix the prefix of all thread names
+     * @param daemon whether the threads should be daemon threads
+     */
+    NamedThreadFactory(String prefix, boolean daemon)
+    {
+        this.prefix = prefix;
+        this.daemon = daemon;
+    }
+
+    @Override
+    public Thread newThread(Runnable r)
+    {
+        Thread reval = new Thread(r, prefix + count.getAndIncrement());
+        reval.setDaemon(daemon);
+        return reval;
+    }
+}
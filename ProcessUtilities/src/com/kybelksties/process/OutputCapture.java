@@ -0,0 +1,306 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.EnumMap;
+import java.util.EventListener;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Captures the standard and error output of a started process. Both streams
+ * are drained by the shared OutputDrainer, so that a chatty process never
+ * blocks on a full pipe, and the last bytes of each are kept in an
+ * OutputRingBuffer. The output can also be copied to a log file and handed to
+ * any number of Listener s, for example an output panel or a network client;
+ * a listener that subscribes late can catch up from the ring buffers.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class OutputCapture
+{
+
+    private static final Class CLAZZ = OutputCapture.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    /**
+     * The number of bytes kept per stream if not given otherwise.
+     */
+    public static final int DEFAULT_CAPACITY = 64 * 1024;
+
+    private final Map<Source, OutputRingBuffer> buffers =
+                                                new EnumMap<>(Source.class);
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<Source, Boolean> open = new EnumMap<>(Source.class);
+    private OutputStream tee = null;
+    private volatile boolean exited = false;
+
+    /**
+     * Construct and start capturing the output of a started process.
+     *
+     * @param process  the started system process
+     * @param capacity the number of bytes kept per stream
+     * @param teeFile  file to copy the output to, null if none
+     * @throws IOException if the tee file cannot be opened
+     */
+    OutputCapture(Process process, int capacity, File teeFile)
+            throws IOException
+    {
+        if (teeFile != null)
+        {
+            tee = new FileOutputStream(teeFile);
+        }
+        for (Source source : Source.values())
+        {
+            buffers.put(source, new OutputRingBuffer(capacity));
+            open.put(source, Boolean.TRUE);
+        }
+        OutputDrainer.drain(this, Source.STDOUT, process.getInputStream());
+        OutputDrainer.drain(this, Source.STDERR, process.getErrorStream());
+    }
+
+    /**
+     * Retrieve the buffer holding the last output of a stream.
+     *
+     * @param source the stream
+     * @return the ring buffer of the stream
+     */
+    public OutputRingBuffer getBuffer(Source source)
+    {
+        return buffers.get(source);
+    }
+
+    /**
+     * Check whether the stream has ended.
+     *
+     * @param source the stream
+     * @return true if all output of the stream has been captured
+     */
+    public synchronized boolean isClosed(Source source)
+    {
+        return !open.get(source);
+    }
+
+    /**
+     * Called by the owning ConcreteProcess once the ProcessReaper has seen the
+     * process exit, so that the drainer knows streams that have run dry have
+     * ended.
+     */
+    void processExited()
+    {
+        exited = true;
+    }
+
+    /**
+     * Check whether the process has exited.
+     *
+     * @return true if the process has been seen to exit
+     */
+    boolean hasExited()
+    {
+        return exited;
+    }
+
+    /**
+     * Add a listener to receive the output from now on.
+     *
+     * @param listener the listener
+     */
+    public void addListener(Listener listener)
+    {
+        addListener(listener, false);
+    }
+
+    /**
+     * Add a listener, optionally handing it the output kept so far first. No
+     * output is lost or repeated between the replay and the output that
+     * follows.
+     *
+     * @param listener the listener
+     * @param replay   whether to hand the kept output to the listener first
+     */
+    public synchronized void addListener(Listener listener, boolean replay)
+    {
+        if (replay)
+        {
+            for (Source source : Source.values())
+            {
+                byte[] kept = buffers.get(source).snapshot();
+                if (kept.length > 0)
+                {
+                    listener.outputReceived(source, kept, 0, kept.length);
+                }
+                if (!open.get(source))
+                {
+                    listener.outputClosed(source);
+                }
+            }
+        }
+        listeners.add(listener);
+    }
+
+    /**
+     * Remove a listener.
+     *
+     * @param listener the listener
+     */
+    public void removeListener(Listener listener)
+    {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Called by the drainer with output read from a stream.
+     *
+     * @param source the stream
+     * @param bytes  the array holding the output
+     * @param length the number of bytes of output
+     */
+    synchronized void received(Source source, byte[] bytes, int length)
+    {
+        buffers.get(source).write(bytes, 0, length);
+        if (tee != null)
+        {
+            try
+            {
+                tee.write(bytes, 0, length);
+            }
+            catch (IOException ex)
+            {
+                LOGGER.log(Level.SEVERE,
+                           "Cannot write to log file, stop copying: {0}",
+                           ex.toString());
+                closeTee();
+            }
+        }
+        for (Listener listener : listeners)
+        {
+            try
+            {
+                listener.outputReceived(source, bytes, 0, length);
+            }
+            catch (RuntimeException ex)
+            {
+                LOGGER.log(Level.SEVERE,
+                           "Output listener failed: {0}",
+                           ex.toString());
+            }
+        }
+    }
+
+    /**
+     * Called by the drainer when a stream has ended. Once both have ended the
+     * memory of the ring buffers outside the heap is given up.
+     *
+     * @param source the stream
+     */
+    synchronized void closed(Source source)
+    {
+        open.put(source, Boolean.FALSE);
+        if (!open.containsValue(Boolean.TRUE))
+        {
+            closeTee();
+            for (OutputRingBuffer buffer : buffers.values())
+            {
+                buffer.release();
+            }
+        }
+        for (Listener listener : listeners)
+        {
+            try
+            {
+                listener.outputClosed(source);
+            }
+            catch (RuntimeException ex)
+            {
+                LOGGER.log(Level.SEVERE,
+                           "Output listener failed: {0}",
+                           ex.toString());
+            }
+        }
+    }
+
+    private void closeTee()
+    {
+        if (tee != null)
+        {
+            try
+            {
+                tee.close();
+            }
+            catch (IOException ex)
+            {
+                LOGGER.log(Level.WARNING, ex.toString());
+            }
+            tee = null;
+        }
+    }
+
+    /**
+     * The captured streams of a process.
+     */
+    public enum Source
+    {
+
+        /**
+         * The standard output.
+         */
+        STDOUT,
+        /**
+         * The error output.
+         */
+        STDERR
+    }
+
+    /**
+     * Interface that subscribers to the output of a process have to
+     * implement. Listeners are called on the drainer thread, so they must not
+     * block.
+     */
+    public interface Listener extends EventListener
+    {
+
+        /**
+         * Called with output of the process. The array is re-used after the
+         * call returns.
+         *
+         * @param source the stream the output was read from
+         * @param bytes  the array holding the output
+         * @param offset offset of the first byte of output in the array
+         * @param length number of bytes of output
+         */
+        void outputReceived(Source source, byte[] bytes, int offset, int length);
+
+        /**
+         * Called when a stream has ended.
+         *
+         * @param source the stream
+         */
+        void outputClosed(Source source);
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Drains the output streams of all captured processes with a single thread.
+ * Pipes of processes cannot be selected on, so the drainer polls them: it
+ * reads whatever is available without blocking, quickly while there is
+ * output and more slowly while there is none. A stream has ended when
+ * nothing is left to read and the ProcessReaper has seen its process exit;
+ * the exit is only looked at once a stream has run dry.
+ *
+ * @author Dieter J Kybelksties
+ */
+final class OutputDrainer
+{
+
+    private static final Class CLAZZ = OutputDrainer.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    static final long MIN_POLL_MILLIS = 2L;
+    static final long MAX_POLL_MILLIS = 50L;
+    static final int READ_SIZE = 64 * 1024;
+
+    private static final Object LOCK = new Object();
+    private static final List<Drained> DRAINED = new ArrayList<>();
+    private static Thread drainer = null;
+
+    private OutputDrainer()
+    {
+    }
+
+    /**
+     * Drain a stream of a started process into its capture.
+     *
+     * @param capture the capture to hand the output to, which also tells
+     *                when the process has exited
+     * @param source  which stream of the process it is
+     * @param stream  the stream
+     */
+    static void drain(OutputCapture capture,
+                      OutputCapture.Source source,
+                      InputStream stream)
+    {
+        synchronized (LOCK)
+        {
+            DRAINED.add(new Drained(capture, source, stream));
+            if (drainer == null)
+            {
+                drainer = new Thread(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        drainAll();
+                    }
+                }, "OutputDrainer");
+                drainer.setDaemon(true);
+                drainer.start();
+            }
+            LOCK.notifyAll();
+        }
+    }
+
+    /**
+     * Retrieve the number of streams that have not yet ended.
+     *
+     * @return the number of drained streams
+     */
+    static int drainedCount()
+    {
+        synchronized (LOCK)
+        {
+            return DRAINED.size();
+        }
+    }
+
+    private static void drainAll()
+    {
+        byte[] bytes = new byte[READ_SIZE];
+        long pollMillis = MIN_POLL_MILLIS;
+        List<Drained> current = new ArrayList<>();
+        while (true)
+        {
+            synchronized (LOCK)
+            {
+                try
+                {
+                    while (DRAINED.isEmpty())
+                    {
+                        LOCK.wait();
+                        pollMillis = MIN_POLL_MILLIS;
+                    }
+                }
+                catch (InterruptedException ex)
+                {
+                    LOGGER.log(Level.WARNING, "Output drainer interrupted");
+                    drainer = null;
+                    return;
+                }
+                current.addAll(DRAINED);
+            }
+
+            boolean readAny = false;
+            List<Drained> ended = new ArrayList<>();
+            for (Drained drained : current)
+            {
+                try
+                {
+                    int read = drainOnce(drained, bytes);
+                    if (read > 0)
+                    {
+                        readAny = true;
+                    }
+                    else if (read < 0)
+                    {
+                        ended.add(drained);
+                    }
+                }
+                catch (IOException ex)
+                {
+                    LOGGER.log(Level.WARNING,
+                               "Cannot read {0}: {1}",
+                               new Object[]
+                               {
+                                   drained.source, ex.toString()
+                               });
+                    ended.add(drained);
+                }
+            }
+            current.clear();
+            synchronized (LOCK)
+            {
+                DRAINED.removeAll(ended);
+            }
+            for (Drained drained : ended)
+            {
+                try
+                {
+                    drained.stream.close();
+                }
+                catch (IOException ex)
+                {
+                    LOGGER.log(Level.FINE, ex.toString());
+                }
+                drained.capture.closed(drained.source);
+            }
+
+            pollMillis = readAny ?
+                         MIN_POLL_MILLIS :
+                         Math.min(pollMillis * 2, MAX_POLL_MILLIS);
+            if (!readAny)
+            {
+                try
+                {
+                    Thread.sleep(pollMillis);
+                }
+                catch (InterruptedException ex)
+                {
+                    LOGGER.log(Level.WARNING, "Output drainer interrupted");
+                    synchronized (LOCK)
+                    {
+                        drainer = null;
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Read what is available of a stream without blocking.
+     *
+     * @return the number of bytes read, -1 if the stream has ended
+     */
+    private static int drainOnce(Drained drained, byte[] bytes)
+            throws IOException
+    {
+        int available = drained.stream.available();
+        if (available <= 0)
+        {
+            if (!drained.capture.hasExited())
+            {
+                return 0;
+            }
+            // output written before the exit is in the pipe by now
+            available = drained.stream.available();
+            if (available <= 0)
+            {
+                return -1;
+            }
+        }
+        int read = drained.stream.read(bytes,
+                                       0,
+                                       Math.min(available, bytes.length));
+        if (read > 0)
+        {
+            drained.capture.received(drained.source, bytes, read);
+        }
+        return read;
+    }
+
+    /**
+     * Helper to keep the stream to drain together with its capture.
+     */
+    private static class Drained
+    {
+
+        final OutputCapture capture;
+        final OutputCapture.Source source;
+        final InputStream stream;
+
+        Drained(OutputCapture capture,
+                OutputCapture.Source source,
+                InputStream stream)
+        {
+            this.capture = capture;
+            this.source = source;
+            this.stream = stream;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A fixed size buffer that keeps the most recent bytes written to it, older
+ * bytes being overwritten. The bytes are held outside the Java heap, so that
+ * the output of many processes does not weigh on the garbage collector. The
+ * memory is allocated in chunks as output arrives, so a quiet process costs
+ * next to nothing, and given up with release() once nothing more is written.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class OutputRingBuffer
+{
+
+    /**
+     * The number of bytes allocated at a time while the buffer fills.
+     */
+    static final int CHUNK_SIZE = 8 * 1024;
+
+    private final int capacity;
+    private ByteBuffer[] chunks;
+    // the bytes kept once released
+    private byte[] released = null;
+    private long totalWritten = 0L;
+
+    /**
+     * Construct with a capacity.
+     *
+     * @param capacity the maximal number of bytes kept
+     */
+    public OutputRingBuffer(int capacity)
+    {
+        if (capacity <= 0)
+        {
+            throw new IllegalArgumentException(
+                    "Capacity must be positive but is " + capacity);
+        }
+        this.capacity = capacity;
+        chunks = new ByteBuffer[(capacity - 1) / CHUNK_SIZE + 1];
+    }
+
+    /**
+     * Retrieve the capacity.
+     *
+     * @return the maximal number of bytes kept
+     */
+    public int getCapacity()
+    {
+        return capacity;
+    }
+
+    /**
+     * Append bytes, overwriting the oldest ones if the buffer is full.
+     *
+     * @param bytes  the bytes to append
+     * @param offset offset of the first byte in the array
+     * @param length number of bytes to append
+     */
+    public synchronized void write(byte[] bytes, int offset, int length)
+    {
+        if (chunks == null)
+        {
+            throw new IllegalStateException("Buffer has been released");
+        }
+        long start = totalWritten;
+        totalWritten += length;
+        if (length > capacity)
+        {
+            // only the tail survives
+            start += length - capacity;
+            offset += length - capacity;
+            length = capacity;
+        }
+        int position = (int) (start % capacity);
+        while (length > 0)
+        {
+            ByteBuffer chunk = chunkAt(position);
+            chunk.position(position % CHUNK_SIZE);
+            int count = Math.min(length, chunk.remaining());
+            chunk.put(bytes, offset, count);
+            position = (position + count) % capacity;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Retrieve the number of bytes kept.
+     *
+     * @return the number of bytes a snapshot would return
+     */
+    public synchronized int size()
+    {
+        return (int) Math.min(totalWritten, capacity);
+    }
+
+    /**
+     * Retrieve the number of bytes ever written, including overwritten ones.
+     *
+     * @return the total number of bytes written
+     */
+    public synchronized long getTotalWritten()
+    {
+        return totalWritten;
+    }
+
+    /**
+     * Retrieve the number of bytes currently allocated outside the heap.
+     *
+     * @return the number of bytes allocated, 0 once released
+     */
+    synchronized int getAllocated()
+    {
+        int reval = 0;
+        if (chunks != null)
+        {
+            for (ByteBuffer chunk : chunks)
+            {
+                reval += chunk == null ? 0 : chunk.capacity();
+            }
+        }
+        return reval;
+    }
+
+    /**
+     * Copy the bytes kept, oldest first.
+     *
+     * @return the bytes kept
+     */
+    public synchronized byte[] snapshot()
+    {
+        if (released != null)
+        {
+            return released.clone();
+        }
+        byte[] reval = new byte[size()];
+        int position = (int) ((totalWritten - reval.length) % capacity);
+        int offset = 0;
+        while (offset < reval.length)
+        {
+            ByteBuffer chunk = chunkAt(position).duplicate();
+            chunk.position(position % CHUNK_SIZE);
+            int count = Math.min(reval.length - offset, chunk.remaining());
+            chunk.get(reval, offset, count);
+            position = (position + count) % capacity;
+            offset += count;
+        }
+        return reval;
+    }
+
+    /**
+     * Give up the memory outside the heap once nothing more is written. The
+     * bytes kept are copied onto the heap, so that they can still be
+     * retrieved; write() must not be called any more.
+     */
+    public synchronized void release()
+    {
+        if (chunks != null)
+        {
+            released = snapshot();
+            chunks = null;
+        }
+    }
+
+    /**
+     * Discard all bytes kept.
+     */
+    public synchronized void clear()
+    {
+        if (chunks == null)
+        {
+            chunks = new ByteBuffer[(capacity - 1) / CHUNK_SIZE + 1];
+            released = null;
+        }
+        totalWritten = 0L;
+    }
+
+    private ByteBuffer chunkAt(int position)
+    {
+        int index = position / CHUNK_SIZE;
+        if (chunks[index] == null)
+        {
+            chunks[index] = ByteBuffer.allocateDirect(
+                    Math.min(CHUNK_SIZE, capacity - index * CHUNK_SIZE));
+        }
+        return chunks[index];
+    }
+}
@@ -19,6 +19,9 @@
  */
 package com.kybelksties.process;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -460,6 +463,51 @@ public class ParameterList
         }
     }
 
+    /**
+     * Write the list in the binary wire format of the ProcessMessageCodec.
+     * Each parameter is preceded by 'L' for letter- or 'P' for positional
+     * parameters.
+     *
+     * @param out the output to write to
+     * @throws IOException if writing fails
+     */
+    void writeBinary(DataOutput out) throws IOException
+    {
+        BinaryFormat.writeEnum(out, modelMode);
+        out.writeBoolean(isPositional);
+        out.writeInt(lastMandatoryPosition == null ? -1 : lastMandatoryPosition);
+        out.writeInt(parameterArray.size());
+        for (AbstractParameter param : parameterArray)
+        {
+            out.writeByte(param instanceof LetterParameter ? 'L' : 'P');
+            param.writeBinary(out);
+        }
+    }
+
+    /**
+     * Replace the contents of this list by the list written by writeBinary().
+     *
+     * @param in the input to read from
+     * @throws IOException if reading fails
+     */
+    void readBinary(DataInput in) throws IOException
+    {
+        modelMode = BinaryFormat.readEnum(in, ModelMode.class);
+        isPositional = in.readBoolean();
+        lastMandatoryPosition = in.readInt();
+        int size = in.readInt();
+        parameterArray.clear();
+        for (int i = 0; i < size; i++)
+        {
+            AbstractParameter param = in.readByte() == 'L' ?
+                                      new LetterParameter() :
+                                      new PositionalParameter();
+            param.readBinary(in);
+            parameterArray.add(param);
+        }
+        fireTableStructureChanged();
+    }
+
     @Override
     public String getColumnName(int column)
     {
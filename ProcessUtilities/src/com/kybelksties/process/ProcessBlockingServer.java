@@ -0,0 +1,618 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import com.kybelksties.general.ToString;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+/**
+ * Blocking front end of the ProcessServer. Every accepted connection is
+ * served by a ServerLoop that blocks on the socket. The loops are run on an
+ * executor, which decides how far the server scales: one platform thread per
+ * connection, one virtual thread per connection or a bounded pool of platform
+ * threads. Running loops are kept in a concurrent registry; a loop removes
+ * itself when its client goes away and closing the server closes all of them.
+ *
+ * Responses and pushes are not written by the thread that creates them but
+ * queued per connection and written by a writer of that connection, so that
+ * a client which stops reading holds up nobody but itself. The queue is
+ * bounded by the client's FlowControl; while it is full the loop reads no
+ * further requests.
+ *
+ * @author Dieter J Kybelksties
+ */
+class ProcessBlockingServer implements Closeable
+{
+
+    private static final Class CLAZZ = ProcessBlockingServer.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    /**
+     * How long a loop that ends waits for its queued responses to be written
+     * before it closes the connection regardless. Configured by the system
+     * property
+     * "com.kybelksties.process.ProcessBlockingServer.closeFlushMillis",
+     * defaults to 2 seconds.
+     */
+    static final long CLOSE_FLUSH_MILLIS =
+                      Long.getLong(CLASS_NAME + ".closeFlushMillis", 2000L);
+
+    /**
+     * The most platform threads writing the queued frames of the connections
+     * when the running JVM has no virtual threads. A writer blocked on a
+     * client that does not read holds on to its thread until the client reads
+     * or is disconnected; meanwhile the frames of other connections wait for
+     * a free writer and their flow control holds back their requests, rather
+     * than the server growing a thread per stalled client. Configured by the
+     * system property
+     * "com.kybelksties.process.ProcessBlockingServer.writerThreads", defaults
+     * to twice the number of available processors, at least 4.
+     */
+    static final int WRITER_THREADS =
+                     Integer.getInteger(CLASS_NAME + ".writerThreads",
+                                        Math.max(4,
+                                                 2 * Runtime.getRuntime().
+                                                 availableProcessors()));
+
+    // write the queued frames of the connections, at most one task each
+    private static final ExecutorService WRITERS = makeWriters();
+
+    /**
+     * Create an executor that runs each ServerLoop on a platform thread of its
+     * own, which is how the server has always worked.
+     *
+     * @return the executor
+     */
+    static ExecutorService threadPerConnection()
+    {
+        return Executors.newCachedThreadPool(
+                new NamedThreadFactory("ServerLoop-", false));
+    }
+
+    /**
+     * Create an executor that runs each ServerLoop on a virtual thread. As
+     * this code base is compiled for older platforms the executor is looked up
+     * reflectively.
+     *
+     * @return the executor or null if the running JVM has no virtual threads
+     */
+    static ExecutorService virtualThreadPerConnection()
+    {
+        try
+        {
+            Method factory = Executors.class.getMethod(
+                   "newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        }
+        catch (ReflectiveOperationException | RuntimeException ex)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Create an executor with at most the given number of platform threads.
+     * Connections accepted while all threads are busy wait in the queue until
+     * a client disconnects.
+     *
+     * @param maxThreads the maximum number of threads
+     * @return the executor
+     */
+    static ExecutorService boundedPool(int maxThreads)
+    {
+        int threads = Math.max(1, maxThreads);
+        ThreadPoolExecutor reval = new ThreadPoolExecutor(
+                           threads,
+                           threads,
+                           60L,
+                           TimeUnit.SECONDS,
+                           new LinkedBlockingQueue<Runnable>(),
+                           new NamedThreadFactory("ServerLoop-", false));
+        reval.allowCoreThreadTimeOut(true);
+        return reval;
+    }
+
+    /**
+     * Create an executor using virtual threads if available, otherwise a
+     * bounded pool of platform threads.
+     *
+     * @param maxThreads the maximum number of platform threads for the
+     *                   fallback
+     * @return the executor
+     */
+    static ExecutorService virtualOrBounded(int maxThreads)
+    {
+        ExecutorService reval = virtualThreadPerConnection();
+        return reval != null ? reval : boundedPool(maxThreads);
+    }
+
+    /**
+     * Create the executor writing the queued frames: virtual threads if
+     * available, otherwise at most WRITER_THREADS daemon threads.
+     *
+     * @return the executor
+     */
+    private static ExecutorService makeWriters()
+    {
+        ExecutorService reval = virtualThreadPerConnection();
+        if (reval == null)
+        {
+            int threads = Math.max(1, WRITER_THREADS);
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                               threads,
+                               threads,
+                               60L,
+                               TimeUnit.SECONDS,
+                               new LinkedBlockingQueue<Runnable>(),
+                               new NamedThreadFactory("ServerLoop-writer-",
+                                                      true));
+            pool.allowCoreThreadTimeOut(true);
+            reval = pool;
+        }
+        return reval;
+    }
+
+    private final int port;
+    private final ExecutorService executor;
+    private final ConcurrentMap<Integer, ServerLoop> loops =
+                                                     new ConcurrentHashMap<>();
+    private ServerSocket listener = null;
+    private Thread acceptor = null;
+    private volatile boolean running = false;
+
+    /**
+     * Construct a blocking server.
+     *
+     * @param port     the port to listen on; 0 picks an ephemeral port
+     * @param executor the executor running the ServerLoop s; it is shut down
+     *                 when the server is closed
+     */
+    ProcessBlockingServer(int port, ExecutorService executor)
+    {
+        this.port = port;
+        this.executor = executor;
+    }
+
+    /**
+     * Bind the listening socket and start accepting clients.
+     *
+     * @throws IOException if the port cannot be bound
+     */
+    synchronized void start() throws IOException
+    {
+        if (running)
+        {
+            return;
+        }
+        listener = new ServerSocket();
+        listener.setReuseAddress(true);
+        listener.bind(new InetSocketAddress(port), 1024);
+        running = true;
+        acceptor = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                acceptLoop();
+            }
+        }, "ProcessBlockingServer-acceptor");
+        acceptor.start();
+        ProcessServer.logInfo("Blocking server listening on port {0}",
+                              getLocalPort());
+    }
+
+    /**
+     * Retrieve the port actually bound.
+     *
+     * @return the local port or -1 if not started
+     */
+    int getLocalPort()
+    {
+        return listener == null ? -1 : listener.getLocalPort();
+    }
+
+    /**
+     * Retrieve the number of connections currently held, whether their loop
+     * is already running or still waiting for a thread.
+     *
+     * @return the connection count
+     */
+    int getConnectionCount()
+    {
+        return loops.size();
+    }
+
+    /**
+     * Check whether the server is still running.
+     *
+     * @return true if so, false otherwise
+     */
+    boolean isRunning()
+    {
+        return running;
+    }
+
+    /**
+     * Block until the server has stopped accepting clients.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    void awaitTermination() throws InterruptedException
+    {
+        if (acceptor != null)
+        {
+            acceptor.join();
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        running = false;
+        try
+        {
+            if (listener != null)
+            {
+                listener.close();
+            }
+        }
+        catch (IOException ex)
+        {
+            ProcessServer.logError("Couldn't close the server socket: {0}",
+                                   ex.toString());
+        }
+        for (ServerLoop loop : new ArrayList<>(loops.values()))
+        {
+            loop.close();
+            ProcessServer.logInfo(loop.getName() + " closed and removed.");
+        }
+        executor.shutdownNow();
+    }
+
+    private void acceptLoop()
+    {
+        int clientNumber = 0;
+        try
+        {
+            while (running && ProcessServer.keepRunning)
+            {
+                // blocking here, waiting for incoming request, then accept
+                Socket acceptedSocket = listener.accept();
+                ServerLoop loop = new ServerLoop(acceptedSocket, clientNumber);
+                loops.put(clientNumber, loop);
+                clientNumber++;
+                try
+                {
+                    executor.execute(loop);
+                }
+                catch (RejectedExecutionException ex)
+                {
+                    loop.close();
+                }
+            }
+        }
+        catch (IOException ex)
+        {
+            if (running)
+            {
+                ProcessServer.logError("Accept failed: {0}", ex.toString());
+            }
+        }
+        finally
+        {
+            close();
+        }
+    }
+
+    /**
+     * Handles the client requests on a particular socket. The client
+     * terminates the dialogue by sending a STOP-command.
+     */
+    private class ServerLoop implements Runnable, HandlerRegistry.Responder
+    {
+
+        private final Socket socket;
+        private final ProcessMessageStream stream;
+        private final ClientSession session;
+        private final Queue<byte[]> outbound = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean writing = new AtomicBoolean(false);
+        private volatile boolean closed = false;
+
+        ServerLoop(Socket socket, int clientNumber) throws IOException
+        {
+            this.socket = socket;
+            this.socket.setTcpNoDelay(true);
+            this.stream = new ProcessMessageStream(socket);
+            this.session = new ClientSession(clientNumber);
+            this.session.setResponder(this);
+        }
+
+        String getName()
+        {
+            return "'ServerLoop for client " + session.getClientNumber() + "'";
+        }
+
+        /**
+         * Services this loop's client by first expecting an identification
+         * from the client, to which a welcome message is sent back, then
+         * repeatedly reading commands and sending back the results.
+         */
+        @Override
+        public void run()
+        {
+            session.awaitIdentify(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    close();
+                }
+            });
+            try
+            {
+                while (running && ProcessServer.keepRunning)
+                {
+                    // the client must read its responses before it is served
+                    // further
+                    awaitUncongested();
+                    // Get message object from the client
+                    // small frames only until the client is known
+                    int maxFrameLength =
+                        session.isIdentified() ?
+                        ProcessMessageCodec.MAX_FRAME_LENGTH :
+                        ProcessMessageCodec.MAX_UNIDENTIFIED_FRAME_LENGTH;
+                    ProcessMessage rcvdMsg = stream.read(maxFrameLength);
+                    ProcessServer.dispatch(session, rcvdMsg, this);
+                    // switches after the identify handshake
+                    stream.setCodec(session.getCodec());
+                }
+            }
+            catch (IOException | ClassNotFoundException | ClassCastException e)
+            {
+                if (running)
+                {
+                    ProcessServer.logError("Error handling client {0}: {1}",
+                                           session.getClientNumber(),
+                                           ToString.make(e.toString()));
+                }
+            }
+            finally
+            {
+                awaitFlushed(CLOSE_FLUSH_MILLIS);
+                close();
+                if (!ProcessServer.keepRunning)
+                {
+                    ProcessBlockingServer.this.close();
+                }
+            }
+        }
+
+        /**
+         * Queue a response for the client. May be called from any thread; it
+         * is encoded with the codec in use now and written by the writer of
+         * this connection. The queue is bounded by the session's flow
+         * control: pushed messages that do not fit are dropped or the client
+         * is disconnected according to the SlowConsumerPolicy.
+         *
+         * @param response the response
+         */
+        @Override
+        public void respond(ProcessMessage response)
+        {
+            if (closed)
+            {
+                return;
+            }
+            FlowControl flow = session.getFlowControl();
+            FlowControl.Admission admission = flow.admit(response);
+            if (admission == FlowControl.Admission.DROP)
+            {
+                return;
+            }
+            if (admission == FlowControl.Admission.DISCONNECT)
+            {
+                ProcessServer.logError("Disconnecting slow client {0}: {1}",
+                                       session.getClientNumber(),
+                                       flow.toString());
+                close();
+                return;
+            }
+            try
+            {
+                outbound.add(stream.getCodec().encode(response));
+            }
+            catch (IOException ex)
+            {
+                flow.sent();
+                ProcessServer.logError("Cannot encode response to {0}: {1}",
+                                       session,
+                                       ex.toString());
+                return;
+            }
+            scheduleWrite();
+        }
+
+        /**
+         * Make sure a writer is writing the queued frames, unless one is
+         * already doing so. This keeps the frames in order.
+         */
+        private void scheduleWrite()
+        {
+            if (outbound.isEmpty() || !writing.compareAndSet(false, true))
+            {
+                return;
+            }
+            try
+            {
+                WRITERS.execute(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        writeQueued();
+                    }
+                });
+            }
+            catch (RejectedExecutionException ex)
+            {
+                writing.set(false);
+                close();
+            }
+        }
+
+        private void writeQueued()
+        {
+            FlowControl flow = session.getFlowControl();
+            try
+            {
+                byte[] payload;
+                while (!closed && (payload = outbound.poll()) != null)
+                {
+                    try
+                    {
+                        stream.writePayload(payload);
+                    }
+                    finally
+                    {
+                        flow.sent();
+                        synchronized (outbound)
+                        {
+                            outbound.notifyAll();
+                        }
+                    }
+                }
+            }
+            catch (IOException ex)
+            {
+                if (running && !closed)
+                {
+                    ProcessServer.logError("Cannot respond to client {0}: {1}",
+                                           session.getClientNumber(),
+                                           ex.toString());
+                }
+                close();
+            }
+            finally
+            {
+                if (closed)
+                {
+                    // queued while the connection was being closed
+                    while (outbound.poll() != null)
+                    {
+                        flow.sent();
+                    }
+                }
+                writing.set(false);
+                synchronized (outbound)
+                {
+                    outbound.notifyAll();
+                }
+            }
+            // a frame may have been queued after the last poll
+            scheduleWrite();
+        }
+
+        private void awaitUncongested() throws IOException
+        {
+            FlowControl flow = session.getFlowControl();
+            synchronized (outbound)
+            {
+                while (!closed && flow.isCongested())
+                {
+                    try
+                    {
+                        outbound.wait();
+                    }
+                    catch (InterruptedException ex)
+                    {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Interrupted while congested");
+                    }
+                }
+            }
+        }
+
+        private void awaitFlushed(long millis)
+        {
+            long deadline = System.currentTimeMillis() + millis;
+            synchronized (outbound)
+            {
+                long left;
+                while (!closed &&
+                       (!outbound.isEmpty() || writing.get()) &&
+                       (left = deadline - System.currentTimeMillis()) > 0L)
+                {
+                    try
+                    {
+                        outbound.wait(left);
+                    }
+                    catch (InterruptedException ex)
+                    {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+
+        void close()
+        {
+            closed = true;
+            while (outbound.poll() != null)
+            {
+                session.getFlowControl().sent();
+            }
+            synchronized (outbound)
+            {
+                outbound.notifyAll();
+            }
+            loops.remove(session.getClientNumber(), this);
+            session.closed();
+            try
+            {
+                stream.close();
+            }
+            catch (IOException e)
+            {
+                ProcessServer.logError("Couldn't close the socket: {0}",
+                                       e.toString());
+            }
+        }
+    }
+}
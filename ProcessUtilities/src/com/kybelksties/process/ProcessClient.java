@@ -21,19 +21,36 @@ package com.kybelksties.process;
 
 import com.kybelksties.general.SystemProperties;
 import com.kybelksties.protocol.Actor;
+import java.io.Closeable;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.net.Socket;
 import java.util.ArrayList;
+import java.util.EventListener;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
+ * Client side of a connection to a ProcessServer. One client can carry many
+ * outstanding requests from many threads: every request gets a correlation
+ * id, the server echoes it in its response and a reader thread hands each
+ * response to the request it answers.
  *
  * @author Dieter J Kybelksties
  */
-public class ProcessClient extends Actor
+public class ProcessClient extends Actor implements Closeable
 {
 
     private static final Class CLAZZ = ProcessClient.class;
@@ -62,11 +79,32 @@ public class ProcessClient extends Actor
     }
 
     Socket socket;
-    private ObjectInputStream in;
-    private ObjectOutputStream out;
+    private ProcessMessageStream stream;
     String serverAddress = null;
     int port = 9898;
-    private boolean connected = false;
+    private volatile boolean connected = false;
+    private final Object writeLock = new Object();
+    private final AtomicLong nextCorrelationId = new AtomicLong(1L);
+    private final ConcurrentMap<Long, ResponseFuture> pending =
+                                                      new ConcurrentHashMap<>();
+    private final Queue<ResponseFuture> pendingInOrder =
+                                        new ConcurrentLinkedQueue<>();
+    private final List<PushListener> pushListeners =
+                                     new CopyOnWriteArrayList<>();
+    private volatile int pushWindow = 0;
+    private final AtomicInteger pushesSinceCredit = new AtomicInteger(0);
+    private final AtomicInteger creditsToGrant = new AtomicInteger(0);
+    // writes the credits, so that the reader never blocks on the socket;
+    // its thread only lives while there are credits to write
+    private final ThreadPoolExecutor creditWriter = new ThreadPoolExecutor(
+                                     0,
+                                     1,
+                                     10L,
+                                     TimeUnit.SECONDS,
+                                     new LinkedBlockingQueue<Runnable>(),
+                                     new NamedThreadFactory(
+                                             "ProcessClient-credits-",
+                                             true));
 
     /**
      * Creates new ProcessClient.
@@ -87,9 +125,9 @@ public class ProcessClient extends Actor
     }
 
     /**
-     * Implements the connection logic by prompting the end user for the
-     * server's IP address, connecting, setting up streams, and consuming the
-     * welcome messages from the server.
+     * Implements the connection logic by connecting, setting up streams, and
+     * consuming the welcome messages from the server. Does nothing if the
+     * client is already connected.
      *
      * @return a (possibly empty, but not null) list of ProcessMessage s -
      *         welcome from the server
@@ -99,64 +137,360 @@ public class ProcessClient extends Actor
      *                                socket's input-stream cannot be
      *                                de-serialised
      */
-    public ArrayList<ProcessMessage> connectToServer()
+    public synchronized ArrayList<ProcessMessage> connectToServer()
             throws IOException, ClassNotFoundException
     {
         ArrayList<ProcessMessage> reval = new ArrayList<>();
+        if (connected)
+        {
+            return reval;
+        }
         // Make connection and initialize streams
         socket = new Socket(serverAddress, port);
-        out = new ObjectOutputStream(socket.getOutputStream());
-        out.flush();
-        in = new ObjectInputStream(socket.getInputStream());
+        socket.setTcpNoDelay(true);
+        stream = new ProcessMessageStream(socket);
 
-        out.writeObject(ProcessMessage.makeIdentify(LOCALHOST, port));
         ProcessMessage msg;
+        try
+        {
+            // a server that does not answer the identification within the
+            // handshake timeout fails the connection instead of hanging it
+            socket.setSoTimeout(
+                    ProcessClientServerProtocol.HANDSHAKE_TIMEOUT_MILLIS);
+            stream.write(ProcessMessage.makeIdentify(
+                    LOCALHOST,
+                    port,
+                    ProcessMessageCodec.offer()));
 
-        // read the welcome messages from the server
-        msg = (ProcessMessage) in.readObject();
+            // read the welcome messages from the server, which names the
+            // codec it has chosen if it knows about codecs
+            msg = stream.read();
+            socket.setSoTimeout(0);
+        }
+        catch (IOException | ClassNotFoundException ex)
+        {
+            stream.close();
+            throw ex;
+        }
         reval.add(msg);
+        ArrayList objs = msg.getObjects();
+        if (objs != null && objs.size() > 1 && objs.get(1) instanceof String)
+        {
+            stream.setCodec(ProcessMessageCodec.negotiate((String) objs.get(1)));
+        }
         connected = true;
+
+        final ProcessMessageStream readStream = stream;
+        Thread reader = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                readResponses(readStream);
+            }
+        }, "ProcessClient-reader-" + serverAddress + ":" + port);
+        reader.setDaemon(true);
+        reader.start();
         return reval;
     }
 
     /**
-     * Send the given message serialised over the socket's output-stream.
+     * Check whether the client is connected.
+     *
+     * @return true if so, false otherwise
+     */
+    public boolean isConnected()
+    {
+        return connected;
+    }
+
+    /**
+     * Retrieve the number of requests still waiting for their response.
+     *
+     * @return the number of outstanding requests
+     */
+    public int getOutstandingCount()
+    {
+        return pending.size();
+    }
+
+    /**
+     * Send the given message to the server and wait for the response. Other
+     * threads may send on this client at the same time.
      *
      * @param sendMsg the message to be sent
      * @return response message from the server
-     * @throws IOException            thrown if message cannot be sent or the
-     *                                response message is garbled
-     * @throws ClassNotFoundException thrown when the read-operation from the
-     *                                socket's input-stream cannot be
-     *                                de-serialised
+     * @throws IOException            thrown if the connection cannot be
+     *                                established or the message cannot be sent
+     * @throws ClassNotFoundException thrown when the welcome message from the
+     *                                server cannot be de-serialised
      */
     public ProcessMessage sendMessage(ProcessMessage sendMsg)
             throws IOException,
                    ClassNotFoundException
     {
-        Object response;
-        ProcessMessage rcvdMsg = null;
-        if (!connected)
+        ResponseFuture response = sendAsync(sendMsg);
+        try
+        {
+            return response.get();
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            return ProcessMessage.makeInvalid(ex.toString());
+        }
+        catch (ExecutionException ex)
+        {
+            return ProcessMessage.makeInvalid(ex.getCause().toString());
+        }
+    }
+
+    /**
+     * Send the given message to the server without waiting for the response.
+     * Any number of requests can be outstanding on one client; the server
+     * answers them in turn and the response is handed to the returned future.
+     * Only the first request of a client blocks, while it connects.
+     *
+     * @param sendMsg the message to be sent; it is given a new correlation id
+     * @return the pending response
+     * @throws IOException            thrown if the connection cannot be
+     *                                established or the message cannot be sent
+     * @throws ClassNotFoundException thrown when the welcome message from the
+     *                                server cannot be de-serialised
+     */
+    public ResponseFuture sendAsync(ProcessMessage sendMsg)
+            throws IOException, ClassNotFoundException
+    {
+        connectToServer();
+        ResponseFuture reval;
+        synchronized (writeLock)
         {
-            connectToServer();
+            // assign, register and write under one lock so that the order of
+            // pendingInOrder is the order on the wire
+            long correlationId = nextCorrelationId.getAndIncrement();
+            sendMsg.setCorrelationId(correlationId);
+            reval = new ResponseFuture(correlationId);
+            pending.put(correlationId, reval);
+            pendingInOrder.add(reval);
+            try
+            {
+                stream.write(sendMsg);
+            }
+            catch (IOException ex)
+            {
+                pending.remove(correlationId);
+                pendingInOrder.remove(reval);
+                disconnect(ex);
+                throw ex;
+            }
         }
-        out.writeObject(sendMsg);
-        out.flush();
+        return reval;
+    }
+
+    /**
+     * Add a listener to be told of the messages the server pushes without
+     * request, like the state changes of subscribed processes. Listeners are
+     * called on the client's reader thread, so they must not block.
+     *
+     * @param listener the listener
+     */
+    public void addPushListener(PushListener listener)
+    {
+        pushListeners.add(listener);
+    }
+
+    /**
+     * Remove a push listener.
+     *
+     * @param listener the listener
+     */
+    public void removePushListener(PushListener listener)
+    {
+        pushListeners.remove(listener);
+    }
+
+    /**
+     * Limit the messages the server pushes to a window: the server may push
+     * at most this many messages the client has not yet handled, and holds
+     * further state changes back, coalesced, until the client catches up.
+     * The client grants the window now and, each time its push listeners
+     * have handled half of it, grants as many credits again. The credits are
+     * written by a thread of their own, never by the reader, so a server
+     * that is slow to read cannot stall the responses. Set it after
+     * connecting; a new connection starts without window.
+     *
+     * @param window the number of pushed messages, at least 1
+     * @throws IOException            thrown if the connection cannot be
+     *                                established or the message cannot be sent
+     * @throws ClassNotFoundException thrown when the welcome message from the
+     *                                server cannot be de-serialised
+     */
+    public void setPushWindow(int window)
+            throws IOException, ClassNotFoundException
+    {
+        pushWindow = Math.max(1, window);
+        pushesSinceCredit.set(0);
+        sendAsync(ProcessMessage.makeCredit(pushWindow));
+    }
+
+    @Override
+    public void close()
+    {
+        disconnect(new IOException("Client closed"));
+    }
+
+    private void readResponses(ProcessMessageStream readStream)
+    {
         try
         {
-            response = in.readObject();
-            if (response == null || !(response instanceof ProcessMessage))
+            while (true)
+            {
+                dispatch(readStream.read());
+            }
+        }
+        catch (IOException | ClassNotFoundException ex)
+        {
+            if (connected && readStream == stream)
+            {
+                logError("Connection to {0}:{1} lost: {2}",
+                         serverAddress,
+                         port,
+                         ex.toString());
+                disconnect(ex);
+            }
+        }
+    }
+
+    /**
+     * Hand a response to the request it answers. Servers that do not echo
+     * correlation ids answer in order, so a response without id goes to the
+     * oldest outstanding request. Messages pushed by the server answer no
+     * request and go to the push listeners.
+     */
+    private void dispatch(ProcessMessage response)
+    {
+        if (response.isPush())
+        {
+            for (PushListener listener : pushListeners)
+            {
+                try
+                {
+                    listener.messagePushed(response);
+                }
+                catch (RuntimeException ex)
+                {
+                    logError("Push listener failed: {0}", ex.toString());
+                }
+            }
+            replenishCredits();
+            return;
+        }
+        long correlationId = response.getCorrelationId();
+        ResponseFuture request = correlationId != 0L ?
+                               pending.remove(correlationId) :
+                               null;
+        if (request == null && correlationId == 0L)
+        {
+            while ((request = pendingInOrder.poll()) != null &&
+                   pending.remove(request.getCorrelationId()) == null)
+            {
+                // already answered or failed, skip it
+            }
+        }
+        if (request == null)
+        {
+            logError("Dropping unexpected response {0}", response);
+            return;
+        }
+        pendingInOrder.remove(request);
+        request.complete(response);
+    }
+
+    private void replenishCredits()
+    {
+        int window = pushWindow;
+        if (window == 0)
+        {
+            return;
+        }
+        int handled = pushesSinceCredit.incrementAndGet();
+        if (handled >= Math.max(1, window / 2) &&
+            pushesSinceCredit.compareAndSet(handled, 0) &&
+            creditsToGrant.getAndAdd(handled) == 0)
+        {
+            // a write already queued takes these credits along
+            try
+            {
+                creditWriter.execute(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        grantCredits();
+                    }
+                });
+            }
+            catch (RejectedExecutionException ex)
             {
-                throw new IOException("Not a Process Command!");
+                creditsToGrant.set(0);
+                logError("Cannot grant credits: {0}", ex.toString());
             }
-            rcvdMsg = (ProcessMessage) response;
+        }
+    }
+
+    private void grantCredits()
+    {
+        int credits = creditsToGrant.getAndSet(0);
+        if (credits == 0 || !connected)
+        {
+            return;
+        }
+        try
+        {
+            sendAsync(ProcessMessage.makeCredit(credits));
         }
         catch (IOException | ClassNotFoundException ex)
         {
-            rcvdMsg = ProcessMessage.makeInvalid(ex.toString());
+            logError("Cannot grant credits: {0}", ex.toString());
         }
+    }
 
-        return rcvdMsg;
+    private synchronized void disconnect(Throwable reason)
+    {
+        connected = false;
+        pushWindow = 0;
+        creditsToGrant.set(0);
+        if (stream != null)
+        {
+            try
+            {
+                stream.close();
+            }
+            catch (IOException ex)
+            {
+                // nothing to do
+            }
+        }
+        ResponseFuture request;
+        while ((request = pendingInOrder.poll()) != null)
+        {
+            pending.remove(request.getCorrelationId());
+            request.fail(reason);
+        }
     }
 
+    /**
+     * Interface that listeners to the messages pushed by the server have to
+     * implement.
+     */
+    public interface PushListener extends EventListener
+    {
+
+        /**
+         * Called when the server has pushed a message.
+         *
+         * @param message the message, for example stateChanges
+         */
+        void messagePushed(ProcessMessage message);
+    }
 }
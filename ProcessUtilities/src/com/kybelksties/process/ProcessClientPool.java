@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Logger;
+
+/**
+ * Keeps one ProcessClient per server so that the connection, including the
+ * identify handshake, is set up once and then shared by all requests to that
+ * server. A pooled client that has lost its connection reconnects on the next
+ * request.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class ProcessClientPool
+{
+
+    private static final Class CLAZZ = ProcessClientPool.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    private static final ConcurrentMap<ConnectionInfoList.ConnectionInfo,
+                                       ProcessClient> CLIENTS =
+                                                      new ConcurrentHashMap<>();
+
+    private ProcessClientPool()
+    {
+    }
+
+    /**
+     * Retrieve the shared client for a server, creating it if necessary. The
+     * client connects on its first request.
+     *
+     * @param connectionInfo address and port of the server
+     * @return the shared client
+     * @throws IOException if the server address is null or empty
+     */
+    public static ProcessClient get(
+            ConnectionInfoList.ConnectionInfo connectionInfo)
+            throws IOException
+    {
+        // copy the key: connection infos are mutable
+        ConnectionInfoList.ConnectionInfo key =
+                                          new ConnectionInfoList.ConnectionInfo(
+                connectionInfo.serverIP,
+                connectionInfo.port,
+                connectionInfo.name);
+        ProcessClient reval = CLIENTS.get(key);
+        if (reval == null)
+        {
+            ProcessClient client = new ProcessClient(key.serverIP, key.port);
+            reval = CLIENTS.putIfAbsent(key, client);
+            if (reval == null)
+            {
+                reval = client;
+            }
+        }
+        return reval;
+    }
+
+    /**
+     * Retrieve the number of pooled clients.
+     *
+     * @return the number of servers a client is kept for
+     */
+    public static int size()
+    {
+        return CLIENTS.size();
+    }
+
+    /**
+     * Close and remove the client for a server.
+     *
+     * @param connectionInfo address and port of the server
+     */
+    public static void close(ConnectionInfoList.ConnectionInfo connectionInfo)
+    {
+        ProcessClient client = CLIENTS.remove(connectionInfo);
+        if (client != null)
+        {
+            client.close();
+        }
+    }
+
+    /**
+     * Close and remove all pooled clients.
+     */
+    public static void closeAll()
+    {
+        for (ConnectionInfoList.ConnectionInfo key :
+             new ArrayList<>(CLIENTS.keySet()))
+        {
+            close(key);
+        }
+    }
+}
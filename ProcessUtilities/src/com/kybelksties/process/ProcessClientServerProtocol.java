@@ -53,6 +53,13 @@ public class ProcessClientServerProtocol extends Protocol
     final static public Actor CLIENT_SENDING_ACK = new Actor(
                               "Client",
                               ProcessState.sendingAck());
+    /**
+     * Milliseconds a client waits for the acknowledgement of its
+     * identification before it falls back to the error state, and the server
+     * waits for the identification of a client before it drops the
+     * connection.
+     */
+    final static public int HANDSHAKE_TIMEOUT_MILLIS = 5000;
     static private ProcessClientServerProtocol instance = null;
 
     private ProcessClientServerProtocol()
@@ -82,6 +89,12 @@ public class ProcessClientServerProtocol extends Protocol
                                  ExeMessageType.bootstrap(),
                                  ProcessState.initial(),
                                  CLIENT_ERROR);
+                instance.addRule(CLIENT_INITIAL,
+                                 ExeMessageType.identify(),
+                                 ProcessState.sendingAck(),
+                                 Actor.ANY_ACTOR,
+                                 HANDSHAKE_TIMEOUT_MILLIS,
+                                 ProcessState.error());
                 instance.addRule(CLIENT_SENDING_ACK,
                                  ExeMessageType.acknowledge(),
                                  ProcessState.ready(),
@@ -24,17 +24,15 @@ import com.kybelksties.general.FileUtilities;
 import com.kybelksties.general.StringUtils;
 import com.kybelksties.gui.OutputPanel;
 import java.awt.Color;
-import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.util.logging.Level;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.logging.Logger;
 import javax.swing.JFileChooser;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.text.BadLocationException;
-import javax.swing.text.DefaultCaret;
 import javax.swing.text.SimpleAttributeSet;
 import javax.swing.text.Style;
 import javax.swing.text.StyleConstants;
@@ -55,95 +53,72 @@ public class ProcessDialog extends javax.swing.JDialog
     private static final String CLASS_NAME = CLAZZ.getName();
     private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
 
-    static class StreamGobbler extends Thread
+    /**
+     * Writes the captured output of the process line by line to the output
+     * panel.
+     */
+    static class OutputPanelWriter implements OutputCapture.Listener
     {
 
-        InputStream inStream;
-        String fileName;
-        InstreamType type;
-        final ScheduledProcess schedProcess;
-        DefaultCaret caret;
-        StyledDocument doc;
-        OutputPanel outputPanel;
-
-        // reads everything from inStream until empty.
-        StreamGobbler(OutputPanel outputPanel,
-                      ScheduledProcess schedProcess,
-                      InstreamType type,
-                      StyleContext styleContext)
+        final OutputPanel outputPanel;
+        final Map<OutputCapture.Source, ByteArrayOutputStream> lines =
+                                                               new EnumMap<>(
+                                                                       OutputCapture.Source.class);
+
+        OutputPanelWriter(OutputPanel outputPanel)
         {
-            // No checks for null, as we are the only user of the class and
-            // we do everything right!
             this.outputPanel = outputPanel;
-            this.type = type;
-            this.inStream = (this.type == null ||
-                             this.type == InstreamType.InputStream) ?
-                            schedProcess.getProcess().getInputStream() :
-                            schedProcess.getProcess().getErrorStream();
-
-            this.fileName = schedProcess.getLogFileName();
-            this.schedProcess = schedProcess;
+            for (OutputCapture.Source source : OutputCapture.Source.values())
+            {
+                lines.put(source, new ByteArrayOutputStream());
+            }
         }
 
         @Override
-        public void run()
+        public void outputReceived(OutputCapture.Source source,
+                                   byte[] bytes,
+                                   int offset,
+                                   int length)
         {
-            try
+            ByteArrayOutputStream line = lines.get(source);
+            for (int i = offset; i < offset + length; i++)
             {
-                InputStreamReader isr = new InputStreamReader(inStream);
-                BufferedReader br = new BufferedReader(isr);
-                String line;
-                while (isAlive() && schedProcess.isRunning())
+                if (bytes[i] == '\n')
                 {
-                    if ((line = br.readLine()) != null)
-                    {
-                        line = DateUtils.logTimestamp() + ": " + type + " :" +
-                               line;
-                        outputPanel.writeln(line);
-                    }
+                    writeLine(source, line);
                 }
-                outputPanel.writelnMeta(
-                        NbBundle.getMessage(
-                                CLAZZ,
-                                "ProcessDialog.noMoreOutputOnStream",
-                                type));
-            }
-            catch (IOException ioe)
-            {
-                outputPanel.writelnError(
-                        NbBundle.getMessage(
-                                CLAZZ,
-                                "ProcessDialog.exceptionOnOutputOnStream",
-                                DateUtils.logTimestamp(),
-                                StringUtils.NEWLINE,
-                                ioe));
-            }
-            try
-            {
-                if (schedProcess.getLogFileName() != null)
+                else
                 {
-                    FileUtilities.saveText(schedProcess.getLogFileName() +
-                                           DateUtils.file_now() + ".log",
-                                           outputPanel.getText());
+                    line.write(bytes[i]);
                 }
             }
-            catch (IOException | BadLocationException ex)
+        }
+
+        @Override
+        public void outputClosed(OutputCapture.Source source)
+        {
+            ByteArrayOutputStream line = lines.get(source);
+            if (line.size() > 0)
             {
-                LOGGER.log(Level.INFO, ex.toString());
+                writeLine(source, line);
             }
+            outputPanel.writelnMeta(
+                    NbBundle.getMessage(
+                            CLAZZ,
+                            "ProcessDialog.noMoreOutputOnStream",
+                            source));
         }
 
-        enum InstreamType
+        private void writeLine(OutputCapture.Source source,
+                               ByteArrayOutputStream line)
         {
-
-            InputStream, ErrorStream
+            outputPanel.writeln(DateUtils.logTimestamp() + ": " + source +
+                                " :" + line.toString());
+            line.reset();
         }
-
     }
 
     ScheduledProcess schedProcess = null;
-    StreamGobbler instreamGobbler = null;
-    StreamGobbler errstreamGobbler = null;
     StyleContext styleContext = new StyleContext();
     final StyledDocument doc;
 
@@ -181,17 +156,27 @@ public class ProcessDialog extends javax.swing.JDialog
                                     StringUtils.NEWLINE));
         if (!schedProcess.isRunning())
         {
-            schedProcess.getProcess().start();
-            instreamGobbler = new StreamGobbler(outputPanel,
-                                                this.schedProcess,
-                                                StreamGobbler.InstreamType.InputStream,
-                                                styleContext);
-            errstreamGobbler = new StreamGobbler(outputPanel,
-                                                 this.schedProcess,
-                                                 StreamGobbler.InstreamType.ErrorStream,
-                                                 styleContext);
-            instreamGobbler.start();
-            errstreamGobbler.start();
+            ConcreteProcess process = schedProcess.getProcess().start();
+            if (process.getState() != ConcreteProcess.State.StartFailed)
+            {
+                try
+                {
+                    process.capture(OutputCapture.DEFAULT_CAPACITY,
+                                    schedProcess.makeLogFile()).
+                            addListener(new OutputPanelWriter(outputPanel),
+                                        true);
+                }
+                catch (IOException ex)
+                {
+                    outputPanel.writelnError(
+                            NbBundle.getMessage(
+                                    CLAZZ,
+                                    "ProcessDialog.cannotCaptureOutput",
+                                    DateUtils.logTimestamp(),
+                                    StringUtils.NEWLINE,
+                                    ex));
+                }
+            }
         }
         else
         {
@@ -0,0 +1,619 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Launches a set of scheduled processes in the order given by the
+ * dependencies declared between them. The processes and their dependencies
+ * form a directed acyclic graph: a process is launched as soon as all its
+ * prerequisites are satisfied, so independent processes are launched
+ * concurrently. A prerequisite is satisfied when the prerequisite process has
+ * been started (start-order constraint, see startsAfter()) or when it has
+ * finished successfully (dependency, see dependsOn()). If a prerequisite
+ * fails before it is satisfied, the processes depending on it are skipped.
+ * <p>
+ * The no-operation time of a process is waited for on a timer once the
+ * process is ready, without holding a thread. The number of processes being
+ * launched at the same time on one target machine can be limited.
+ * <p>
+ * The scheduler follows the state events of the processes. The REMOTE
+ * launcher subscribes to the state changes the server pushes and applies
+ * them to the scheduled processes, so dependencies on the end of remote
+ * processes are satisfied once the server reports it.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class ProcessLaunchScheduler
+{
+
+    private static final Class CLAZZ = ProcessLaunchScheduler.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    /**
+     * Launches by sending the start instruction to the process' server.
+     */
+    public static final Launcher REMOTE = new Launcher()
+    {
+        @Override
+        public void launch(ScheduledProcess schedProc) throws Exception
+        {
+            RemoteProcessStates.launch(schedProc);
+        }
+    };
+
+    /**
+     * Launches by starting the process on this machine.
+     */
+    public static final Launcher LOCAL = new Launcher()
+    {
+        @Override
+        public void launch(ScheduledProcess schedProc) throws Exception
+        {
+            schedProc.start();
+        }
+    };
+
+    // waits out the no-operation times for all schedulers
+    private static final ScheduledExecutorService TIMER =
+                                                  Executors.newSingleThreadScheduledExecutor(
+                                                          new NamedThreadFactory(
+                                                                  "ProcessLaunchTimer-",
+                                                                  true));
+
+    private final Object lock = new Object();
+    private final Launcher launcher;
+    private final Map<ScheduledProcess, Node> nodes = new IdentityHashMap<>();
+    private final List<Node> tableOrder = new ArrayList<>();
+    private final Map<String, Deque<Node>> readyPerMachine =
+                                           new LinkedHashMap<>();
+    private final Map<String, Integer> launchingPerMachine = new HashMap<>();
+    private int maxParallelPerMachine = Integer.MAX_VALUE;
+    private boolean started = false;
+    private CountDownLatch launched = null;
+
+    /**
+     * Construct for a set of scheduled processes.
+     *
+     * @param processes the scheduled processes, in table order
+     * @param launcher  how to launch a process
+     */
+    public ProcessLaunchScheduler(Iterable<ScheduledProcess> processes,
+                                  Launcher launcher)
+    {
+        this.launcher = launcher;
+        for (ScheduledProcess schedProc : processes)
+        {
+            if (!nodes.containsKey(schedProc))
+            {
+                Node node = new Node(schedProc);
+                nodes.put(schedProc, node);
+                tableOrder.add(node);
+            }
+        }
+    }
+
+    /**
+     * Declare that a process may only be launched when another has finished
+     * successfully.
+     *
+     * @param dependent    the process to wait
+     * @param prerequisite the process to be waited for
+     */
+    public void dependsOn(ScheduledProcess dependent,
+                          ScheduledProcess prerequisite)
+    {
+        addPrerequisite(dependent, prerequisite, true);
+    }
+
+    /**
+     * Declare that a process may only be launched when another has been
+     * started.
+     *
+     * @param dependent    the process to wait
+     * @param prerequisite the process to be waited for
+     */
+    public void startsAfter(ScheduledProcess dependent,
+                            ScheduledProcess prerequisite)
+    {
+        addPrerequisite(dependent, prerequisite, false);
+    }
+
+    /**
+     * Limit the number of processes being launched at the same time on one
+     * target machine. A process counts as being launched from the launch
+     * until it is known to have started or failed.
+     *
+     * @param maxParallelPerMachine the limit, at least 1
+     */
+    public void setMaxParallelPerMachine(int maxParallelPerMachine)
+    {
+        if (maxParallelPerMachine < 1)
+        {
+            throw new IllegalArgumentException(
+                    "Limit must be positive but is " + maxParallelPerMachine);
+        }
+        synchronized (lock)
+        {
+            this.maxParallelPerMachine = maxParallelPerMachine;
+        }
+    }
+
+    /**
+     * Start launching. Processes already running count as started.
+     *
+     * @throws IllegalStateException if the dependencies contain a cycle or
+     *                               the scheduler has already been started
+     */
+    public void start()
+    {
+        List<Node> toLaunch;
+        synchronized (lock)
+        {
+            if (started)
+            {
+                throw new IllegalStateException("Already started");
+            }
+            checkAcyclic();
+            started = true;
+            launched = new CountDownLatch(tableOrder.size());
+            for (Node node : tableOrder)
+            {
+                node.schedProc.getProcess().addStateChangeEventListener(node);
+            }
+            for (Node node : tableOrder)
+            {
+                if (node.schedProc.getProcess().isRunning())
+                {
+                    node.status = Status.STARTED;
+                    launched.countDown();
+                }
+            }
+            for (Node node : tableOrder)
+            {
+                if (node.status == Status.STARTED)
+                {
+                    satisfy(node, false);
+                }
+            }
+            for (Node node : tableOrder)
+            {
+                if (node.status == Status.WAITING && node.unsatisfied == 0)
+                {
+                    prepare(node);
+                }
+            }
+            toLaunch = takeLaunchable();
+        }
+        launch(toLaunch);
+    }
+
+    /**
+     * Wait until every process has been started, has failed or has been
+     * skipped.
+     *
+     * @param timeout the maximal time to wait
+     * @param unit    the unit of the timeout
+     * @return true if all processes were launched, false on time-out
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitLaunched(long timeout, TimeUnit unit)
+            throws InterruptedException
+    {
+        CountDownLatch latch;
+        synchronized (lock)
+        {
+            if (!started)
+            {
+                throw new IllegalStateException("Not started");
+            }
+            latch = launched;
+        }
+        return latch.await(timeout, unit);
+    }
+
+    /**
+     * Stop launching: processes not yet being launched are skipped.
+     */
+    public void cancel()
+    {
+        synchronized (lock)
+        {
+            for (Node node : tableOrder)
+            {
+                if (node.status == Status.WAITING ||
+                    node.status == Status.DELAYING ||
+                    node.status == Status.READY)
+                {
+                    skip(node);
+                }
+            }
+            readyPerMachine.clear();
+        }
+    }
+
+    /**
+     * Retrieve the processes that were not launched because a prerequisite
+     * failed or the scheduler was cancelled.
+     *
+     * @return the skipped processes, in table order
+     */
+    public List<ScheduledProcess> getSkipped()
+    {
+        List<ScheduledProcess> reval = new ArrayList<>();
+        synchronized (lock)
+        {
+            for (Node node : tableOrder)
+            {
+                if (node.status == Status.SKIPPED)
+                {
+                    reval.add(node.schedProc);
+                }
+            }
+        }
+        return reval;
+    }
+
+    private void addPrerequisite(ScheduledProcess dependent,
+                                 ScheduledProcess prerequisite,
+                                 boolean untilFinished)
+    {
+        synchronized (lock)
+        {
+            if (started)
+            {
+                throw new IllegalStateException("Already started");
+            }
+            Node dependentNode = nodes.get(dependent);
+            Node prerequisiteNode = nodes.get(prerequisite);
+            if (dependentNode == null || prerequisiteNode == null)
+            {
+                throw new IllegalArgumentException(
+                        "Process is not scheduled by this scheduler");
+            }
+            if (untilFinished)
+            {
+                prerequisiteNode.finishDependents.add(dependentNode);
+            }
+            else
+            {
+                prerequisiteNode.startDependents.add(dependentNode);
+            }
+            dependentNode.unsatisfied++;
+        }
+    }
+
+    // Kahn's algorithm: all nodes can be ordered if there is no cycle
+    private void checkAcyclic()
+    {
+        Map<Node, Integer> inDegree = new IdentityHashMap<>();
+        Deque<Node> free = new ArrayDeque<>();
+        for (Node node : tableOrder)
+        {
+            inDegree.put(node, node.unsatisfied);
+            if (node.unsatisfied == 0)
+            {
+                free.add(node);
+            }
+        }
+        int ordered = 0;
+        while (!free.isEmpty())
+        {
+            Node node = free.poll();
+            ordered++;
+            for (Node dependent : node.allDependents())
+            {
+                int degree = inDegree.get(dependent) - 1;
+                inDegree.put(dependent, degree);
+                if (degree == 0)
+                {
+                    free.add(dependent);
+                }
+            }
+        }
+        if (ordered < tableOrder.size())
+        {
+            throw new IllegalStateException(
+                    "The dependencies between the processes contain a cycle");
+        }
+    }
+
+    // called with the lock held
+    private void satisfy(Node node, boolean finished)
+    {
+        for (Node dependent : finished ?
+                              node.finishDependents :
+                              node.startDependents)
+        {
+            dependent.unsatisfied--;
+            if (dependent.status == Status.WAITING && dependent.unsatisfied == 0)
+            {
+                prepare(dependent);
+            }
+        }
+    }
+
+    // called with the lock held
+    private void fail(Node node)
+    {
+        if (node.status == Status.LAUNCHING)
+        {
+            release(node);
+            launched.countDown();
+            for (Node dependent : node.startDependents)
+            {
+                skip(dependent);
+            }
+        }
+        node.status = Status.FAILED;
+        node.forget();
+        for (Node dependent : node.finishDependents)
+        {
+            skip(dependent);
+        }
+    }
+
+    // called with the lock held
+    private void skip(Node node)
+    {
+        if (node.status != Status.WAITING &&
+            node.status != Status.DELAYING &&
+            node.status != Status.READY)
+        {
+            return;
+        }
+        if (node.status == Status.READY)
+        {
+            Deque<Node> ready = readyPerMachine.get(node.machine());
+            if (ready != null)
+            {
+                ready.remove(node);
+            }
+        }
+        node.status = Status.SKIPPED;
+        node.forget();
+        launched.countDown();
+        for (Node dependent : node.allDependents())
+        {
+            skip(dependent);
+        }
+    }
+
+    // called with the lock held
+    private void prepare(final Node node)
+    {
+        Long noopTime = node.schedProc.getNoopTime();
+        if (noopTime != null && noopTime > 0L)
+        {
+            node.status = Status.DELAYING;
+            TIMER.schedule(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    List<Node> toLaunch;
+                    synchronized (lock)
+                    {
+                        if (node.status != Status.DELAYING)
+                        {
+                            return;
+                        }
+                        enqueue(node);
+                        toLaunch = takeLaunchable();
+                    }
+                    launch(toLaunch);
+                }
+            }, noopTime, TimeUnit.SECONDS);
+        }
+        else
+        {
+            enqueue(node);
+        }
+    }
+
+    // called with the lock held
+    private void enqueue(Node node)
+    {
+        node.status = Status.READY;
+        Deque<Node> ready = readyPerMachine.get(node.machine());
+        if (ready == null)
+        {
+            ready = new ArrayDeque<>();
+            readyPerMachine.put(node.machine(), ready);
+        }
+        ready.add(node);
+    }
+
+    // called with the lock held
+    private List<Node> takeLaunchable()
+    {
+        List<Node> reval = new ArrayList<>();
+        for (Map.Entry<String, Deque<Node>> entry : readyPerMachine.entrySet())
+        {
+            Integer launching = launchingPerMachine.get(entry.getKey());
+            int count = launching == null ? 0 : launching;
+            Deque<Node> ready = entry.getValue();
+            while (!ready.isEmpty() && count < maxParallelPerMachine)
+            {
+                Node node = ready.poll();
+                node.status = Status.LAUNCHING;
+                count++;
+                reval.add(node);
+            }
+            launchingPerMachine.put(entry.getKey(), count);
+        }
+        return reval;
+    }
+
+    // called with the lock held
+    private void release(Node node)
+    {
+        Integer launching = launchingPerMachine.get(node.machine());
+        launchingPerMachine.put(node.machine(),
+                                launching == null ? 0 : launching - 1);
+    }
+
+    // called without the lock: launching may fire state events at once
+    private void launch(List<Node> toLaunch)
+    {
+        for (Node node : toLaunch)
+        {
+            try
+            {
+                launcher.launch(node.schedProc);
+            }
+            catch (Exception ex)
+            {
+                LOGGER.log(Level.SEVERE,
+                           "Cannot launch {0}: {1}",
+                           new Object[]
+                           {
+                               node.schedProc.getExeDefinition().getName(),
+                               ex.toString()
+                           });
+                node.schedProc.getProcess().
+                        setState(ConcreteProcess.State.StartFailed);
+            }
+        }
+    }
+
+    private void stateChanged(Node node, ConcreteProcess.State state)
+    {
+        List<Node> toLaunch;
+        synchronized (lock)
+        {
+            if (node.status == Status.LAUNCHING)
+            {
+                if (state == ConcreteProcess.State.Running ||
+                    state == ConcreteProcess.State.FinishedSuccess ||
+                    state == ConcreteProcess.State.FinishedError)
+                {
+                    release(node);
+                    node.status = Status.STARTED;
+                    launched.countDown();
+                    satisfy(node, false);
+                }
+                else if (state == ConcreteProcess.State.StartFailed ||
+                         state == ConcreteProcess.State.Terminated)
+                {
+                    fail(node);
+                }
+            }
+            if (node.status == Status.STARTED)
+            {
+                if (state == ConcreteProcess.State.FinishedSuccess)
+                {
+                    node.status = Status.FINISHED;
+                    node.forget();
+                    satisfy(node, true);
+                }
+                else if (state == ConcreteProcess.State.FinishedError ||
+                         state == ConcreteProcess.State.Terminated)
+                {
+                    fail(node);
+                }
+            }
+            toLaunch = takeLaunchable();
+        }
+        launch(toLaunch);
+    }
+
+    /**
+     * Interface for the ways to launch a scheduled process.
+     */
+    public interface Launcher
+    {
+
+        /**
+         * Launch the process. The outcome must be reported through the state
+         * of the process.
+         *
+         * @param schedProc the process
+         * @throws Exception if the process cannot be launched
+         */
+        void launch(ScheduledProcess schedProc) throws Exception;
+    }
+
+    private enum Status
+    {
+
+        WAITING, DELAYING, READY, LAUNCHING, STARTED, FINISHED, FAILED,
+        SKIPPED
+    }
+
+    /**
+     * A process in the dependency graph.
+     */
+    private class Node implements ConcreteProcess.StateEventListener
+    {
+
+        final ScheduledProcess schedProc;
+        final List<Node> startDependents = new ArrayList<>();
+        final List<Node> finishDependents = new ArrayList<>();
+        int unsatisfied = 0;
+        Status status = Status.WAITING;
+
+        Node(ScheduledProcess schedProc)
+        {
+            this.schedProc = schedProc;
+        }
+
+        String machine()
+        {
+            String reval = schedProc.getTargetMachine();
+            return reval == null ? "" : reval;
+        }
+
+        // stop following the state once nothing depends on it any more
+        void forget()
+        {
+            schedProc.getProcess().removeStateChangeEventListener(this);
+        }
+
+        List<Node> allDependents()
+        {
+            List<Node> reval = new ArrayList<>(startDependents);
+            reval.addAll(finishDependents);
+            return reval;
+        }
+
+        @Override
+        public void processStateChanged(ConcreteProcess.StateEvent evt)
+        {
+            stateChanged(this,
+                         ((ConcreteProcess) evt.getSource()).getState());
+        }
+    }
+}
@@ -0,0 +1,697 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Starts processes through a few small, prewarmed helper JVMs running
+ * LaunchHelper instead of forking this JVM for each of them. Forking a JVM
+ * with a large heap is slow, the helpers are started once with a tiny heap
+ * and do the fork/exec on request, which they receive over a pipe. The
+ * standard output and error of a launched process are relayed over the same
+ * pipe and read like the pipes of a process started directly; a helper sends
+ * no more of a stream than fits into a window of LaunchHelper.WINDOW bytes
+ * until it has been read. The standard input of a launched process is empty,
+ * what is written to its getOutputStream() is discarded.
+ *
+ * The launcher is off until started; ConcreteProcess.start() uses it while
+ * it is started. The number of helpers to start with the ProcessServer can
+ * be set with the system property
+ * "com.kybelksties.process.ProcessLauncher.helpers", 0 meaning none.
+ *
+ * @author Dieter J Kybelksties
+ */
+final class ProcessLauncher
+{
+
+    private static final Class CLAZZ = ProcessLauncher.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    /**
+     * The number of helpers configured.
+     */
+    static final int HELPERS = Integer.getInteger(CLASS_NAME + ".helpers", 0);
+    /**
+     * How long to wait for a helper to report the start of a process.
+     */
+    static final long LAUNCH_TIMEOUT_MILLIS = 30000L;
+
+    private static final Object LOCK = new Object();
+    private static volatile Helper[] helpers = null;
+    private static final AtomicInteger nextHelper = new AtomicInteger(0);
+
+    private ProcessLauncher()
+    {
+    }
+
+    /**
+     * Start the helper processes, so that they are warm when the first
+     * process is launched. Does nothing if the launcher is already started.
+     *
+     * @param count the number of helpers, at least 1
+     * @throws IOException if a helper cannot be started
+     */
+    static void start(int count) throws IOException
+    {
+        synchronized (LOCK)
+        {
+            if (helpers != null)
+            {
+                return;
+            }
+            Helper[] started = new Helper[Math.max(1, count)];
+            try
+            {
+                for (int i = 0; i < started.length; i++)
+                {
+                    started[i] = new Helper(i);
+                }
+            }
+            catch (IOException ex)
+            {
+                for (Helper helper : started)
+                {
+                    if (helper != null)
+                    {
+                        helper.close();
+                    }
+                }
+                throw ex;
+            }
+            helpers = started;
+        }
+    }
+
+    /**
+     * Stop the helper processes. Processes launched by them keep running but
+     * are reported as exited with -1.
+     */
+    static void stop()
+    {
+        synchronized (LOCK)
+        {
+            if (helpers == null)
+            {
+                return;
+            }
+            for (Helper helper : helpers)
+            {
+                helper.close();
+            }
+            helpers = null;
+        }
+    }
+
+    /**
+     * Check whether the helpers are started.
+     *
+     * @return true if so, false otherwise
+     */
+    static boolean isStarted()
+    {
+        return helpers != null;
+    }
+
+    /**
+     * Launch a process as described by a process builder: its command,
+     * environment and working directory. Redirections of the builder are
+     * ignored.
+     *
+     * @param builder the description of the process
+     * @return the started process
+     * @throws IOException if the launcher is not started or the process
+     *                     cannot be started
+     */
+    static Process launch(ProcessBuilder builder) throws IOException
+    {
+        Helper[] current = helpers;
+        if (current == null)
+        {
+            throw new IOException("The process launcher is not started");
+        }
+        Helper helper = current[(nextHelper.getAndIncrement() &
+                                 Integer.MAX_VALUE) % current.length];
+        return helper.launch(builder.command(),
+                             builder.environment(),
+                             builder.directory());
+    }
+
+    /**
+     * One helper process with the thread reading its replies.
+     */
+    private static class Helper
+    {
+
+        private final Process process;
+        private final DataOutputStream requests;
+        private final DataInputStream replies;
+        private final AtomicInteger nextId = new AtomicInteger(0);
+        private final ConcurrentMap<Integer, LaunchedProcess> launched =
+                                                              new ConcurrentHashMap<>();
+
+        Helper(int index) throws IOException
+        {
+            String java = System.getProperty("java.home") + File.separator +
+                          "bin" + File.separator + "java";
+            process = new ProcessBuilder(java,
+                                         "-Xms8m",
+                                         "-Xmx32m",
+                                         "-XX:+UseSerialGC",
+                                         "-Djava.awt.headless=true",
+                                         "-cp",
+                                         System.getProperty("java.class.path"),
+                                         LaunchHelper.class.getName()).
+                    redirectError(ProcessBuilder.Redirect.INHERIT).
+                    start();
+            requests = new DataOutputStream(new BufferedOutputStream(
+                    process.getOutputStream()));
+            replies = new DataInputStream(new BufferedInputStream(
+                    process.getInputStream()));
+            Thread reader = new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    readReplies();
+                }
+            }, "ProcessLauncher-" + index);
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        LaunchedProcess launch(List<String> command,
+                               Map<String, String> environment,
+                               File directory) throws IOException
+        {
+            int id = nextId.getAndIncrement();
+            LaunchedProcess reval = new LaunchedProcess(this, id);
+            launched.put(id, reval);
+            try
+            {
+                synchronized (requests)
+                {
+                    requests.writeByte(LaunchHelper.REQUEST_LAUNCH);
+                    requests.writeInt(id);
+                    BinaryFormat.writeString(requests,
+                                             directory == null ?
+                                             null :
+                                             directory.getPath());
+                    BinaryFormat.writeStrings(requests,
+                                              command.toArray(
+                                                      new String[command.
+                                                      size()]));
+                    requests.writeInt(environment.size());
+                    for (Map.Entry<String, String> entry :
+                         environment.entrySet())
+                    {
+                        BinaryFormat.writeString(requests, entry.getKey());
+                        BinaryFormat.writeString(requests, entry.getValue());
+                    }
+                    requests.flush();
+                }
+                reval.awaitStart(LAUNCH_TIMEOUT_MILLIS);
+            }
+            catch (IOException ex)
+            {
+                launched.remove(id);
+                throw ex;
+            }
+            return reval;
+        }
+
+        void credit(int id, byte stream, int bytes)
+        {
+            try
+            {
+                synchronized (requests)
+                {
+                    requests.writeByte(LaunchHelper.REQUEST_CREDIT);
+                    requests.writeInt(id);
+                    requests.writeByte(stream);
+                    requests.writeInt(bytes);
+                    requests.flush();
+                }
+            }
+            catch (IOException ex)
+            {
+                // the helper has gone, the streams have ended
+                LOGGER.log(Level.FINE, ex.toString());
+            }
+        }
+
+        void kill(int id)
+        {
+            try
+            {
+                synchronized (requests)
+                {
+                    requests.writeByte(LaunchHelper.REQUEST_KILL);
+                    requests.writeInt(id);
+                    requests.flush();
+                }
+            }
+            catch (IOException ex)
+            {
+                LOGGER.log(Level.SEVERE,
+                           "Cannot kill launched process {0}: {1}",
+                           new Object[]
+                           {
+                               id, ex.toString()
+                           });
+            }
+        }
+
+        private void readReplies()
+        {
+            try
+            {
+                while (true)
+                {
+                    byte reply = replies.readByte();
+                    int id = replies.readInt();
+                    LaunchedProcess target = launched.get(id);
+                    if (reply == LaunchHelper.REPLY_STARTED)
+                    {
+                        long pid = replies.readLong();
+                        if (target != null)
+                        {
+                            target.started(pid);
+                        }
+                    }
+                    else if (reply == LaunchHelper.REPLY_FAILED)
+                    {
+                        String reason = BinaryFormat.readString(replies);
+                        launched.remove(id);
+                        if (target != null)
+                        {
+                            target.failed(reason);
+                        }
+                    }
+                    else if (reply == LaunchHelper.REPLY_OUTPUT)
+                    {
+                        byte stream = replies.readByte();
+                        byte[] bytes = new byte[replies.readInt()];
+                        replies.readFully(bytes);
+                        if (target != null)
+                        {
+                            target.output(stream).received(bytes);
+                        }
+                    }
+                    else if (reply == LaunchHelper.REPLY_CLOSED)
+                    {
+                        byte stream = replies.readByte();
+                        if (target != null)
+                        {
+                            target.output(stream).ended();
+                            if (target.isDone())
+                            {
+                                launched.remove(id);
+                            }
+                        }
+                    }
+                    else if (reply == LaunchHelper.REPLY_EXITED)
+                    {
+                        int exitValue = replies.readInt();
+                        if (target != null)
+                        {
+                            target.exited(exitValue);
+                            if (target.isDone())
+                            {
+                                launched.remove(id);
+                            }
+                        }
+                    }
+                    else
+                    {
+                        throw new IOException("Unknown reply " + reply);
+                    }
+                }
+            }
+            catch (IOException ex)
+            {
+                LOGGER.log(Level.INFO,
+                           "Launch helper has ended: {0}",
+                           ex.toString());
+            }
+            finally
+            {
+                for (LaunchedProcess target :
+                     new ArrayList<>(launched.values()))
+                {
+                    target.failed("Launch helper has ended");
+                    target.output(LaunchHelper.STDOUT).ended();
+                    target.output(LaunchHelper.STDERR).ended();
+                    target.exited(-1);
+                }
+                launched.clear();
+            }
+        }
+
+        void close()
+        {
+            try
+            {
+                requests.close();
+            }
+            catch (IOException ex)
+            {
+                // the helper has gone already
+            }
+            process.destroy();
+        }
+    }
+
+    /**
+     * A process started by a helper. It exits when the helper says so.
+     */
+    private static class LaunchedProcess extends Process
+    {
+
+        private final Helper helper;
+        private final int id;
+        // named like the field of the Unix implementation, see getPid()
+        private volatile long pid = -1L;
+        private volatile String failure = null;
+        private volatile int exitValue = 0;
+        private final CountDownLatch startReply = new CountDownLatch(1);
+        private final CountDownLatch exit = new CountDownLatch(1);
+        private final RelayedInputStream stdout =
+                                         new RelayedInputStream(
+                                                 LaunchHelper.STDOUT);
+        private final RelayedInputStream stderr =
+                                         new RelayedInputStream(
+                                                 LaunchHelper.STDERR);
+
+        LaunchedProcess(Helper helper, int id)
+        {
+            this.helper = helper;
+            this.id = id;
+        }
+
+        RelayedInputStream output(byte stream)
+        {
+            return stream == LaunchHelper.STDOUT ? stdout : stderr;
+        }
+
+        boolean isDone()
+        {
+            return exit.getCount() == 0 && stdout.hasEnded() &&
+                   stderr.hasEnded();
+        }
+
+        void started(long pid)
+        {
+            this.pid = pid;
+            startReply.countDown();
+        }
+
+        void failed(String reason)
+        {
+            failure = reason;
+            startReply.countDown();
+        }
+
+        void exited(int exitValue)
+        {
+            this.exitValue = exitValue;
+            exit.countDown();
+        }
+
+        void awaitStart(long timeoutMillis) throws IOException
+        {
+            try
+            {
+                if (!startReply.await(timeoutMillis, TimeUnit.MILLISECONDS))
+                {
+                    throw new IOException("No reply from the launch helper");
+                }
+            }
+            catch (InterruptedException ex)
+            {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while launching", ex);
+            }
+            if (failure != null)
+            {
+                throw new IOException("Launch failed: " + failure);
+            }
+        }
+
+        /**
+         * The pid reported by the helper. Overrides Process.pid() where
+         * there is one.
+         *
+         * @return the process id, -1 if not known
+         */
+        public long pid()
+        {
+            return pid;
+        }
+
+        /**
+         * The standard input of a launched process is /dev/null, so what is
+         * written to the returned stream is silently discarded.
+         *
+         * @return a stream discarding what is written to it
+         */
+        @Override
+        public OutputStream getOutputStream()
+        {
+            return new OutputStream()
+            {
+                @Override
+                public void write(int b)
+                {
+                }
+            };
+        }
+
+        @Override
+        public InputStream getInputStream()
+        {
+            return stdout;
+        }
+
+        @Override
+        public InputStream getErrorStream()
+        {
+            return stderr;
+        }
+
+        @Override
+        public int waitFor() throws InterruptedException
+        {
+            exit.await();
+            return exitValue;
+        }
+
+        @Override
+        public int exitValue()
+        {
+            if (exit.getCount() != 0)
+            {
+                throw new IllegalThreadStateException("process has not exited");
+            }
+            return exitValue;
+        }
+
+        @Override
+        public void destroy()
+        {
+            if (exit.getCount() != 0)
+            {
+                helper.kill(id);
+            }
+        }
+
+        /**
+         * An output stream of the process as relayed by the helper. It holds
+         * at most a window of bytes: the helper is granted more credit as
+         * they are read, and unlimited credit once the stream is closed.
+         */
+        private class RelayedInputStream extends InputStream
+        {
+
+            private final byte stream;
+            private final byte[] buffer = new byte[LaunchHelper.WINDOW];
+            private int start = 0;
+            private int count = 0;
+            private int unacknowledged = 0;
+            private boolean ended = false;
+            private boolean closed = false;
+
+            RelayedInputStream(byte stream)
+            {
+                this.stream = stream;
+            }
+
+            synchronized void received(byte[] bytes)
+            {
+                if (closed)
+                {
+                    return;
+                }
+                if (count + bytes.length > buffer.length)
+                {
+                    LOGGER.log(Level.WARNING,
+                               "Launch helper overran the window of {0}",
+                               id);
+                    return;
+                }
+                for (byte b : bytes)
+                {
+                    buffer[(start + count++) % buffer.length] = b;
+                }
+                notifyAll();
+            }
+
+            synchronized void ended()
+            {
+                ended = true;
+                notifyAll();
+            }
+
+            synchronized boolean hasEnded()
+            {
+                return ended;
+            }
+
+            @Override
+            public int read() throws IOException
+            {
+                byte[] one = new byte[1];
+                return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length)
+                    throws IOException
+            {
+                int reval;
+                boolean grant = false;
+                synchronized (this)
+                {
+                    if (length == 0)
+                    {
+                        return 0;
+                    }
+                    try
+                    {
+                        while (count == 0 && !ended && !closed)
+                        {
+                            wait();
+                        }
+                    }
+                    catch (InterruptedException ex)
+                    {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Interrupted while reading", ex);
+                    }
+                    if (closed)
+                    {
+                        throw new IOException("Stream closed");
+                    }
+                    if (count == 0)
+                    {
+                        return -1;
+                    }
+                    reval = Math.min(length, count);
+                    for (int i = 0; i < reval; i++)
+                    {
+                        bytes[offset + i] = buffer[start];
+                        start = (start + 1) % buffer.length;
+                    }
+                    count -= reval;
+                    unacknowledged += reval;
+                    // grant in large steps, the helper keeps half a window
+                    if (unacknowledged >= buffer.length / 2 && !ended)
+                    {
+                        grant = true;
+                    }
+                }
+                if (grant)
+                {
+                    acknowledge();
+                }
+                return reval;
+            }
+
+            @Override
+            public synchronized int available()
+            {
+                return count;
+            }
+
+            @Override
+            public void close()
+            {
+                synchronized (this)
+                {
+                    if (closed)
+                    {
+                        return;
+                    }
+                    closed = true;
+                    count = 0;
+                    notifyAll();
+                    if (ended)
+                    {
+                        return;
+                    }
+                }
+                // let the helper drain the process without relaying more
+                helper.credit(id, stream, Integer.MAX_VALUE);
+            }
+
+            private void acknowledge()
+            {
+                int bytes;
+                synchronized (this)
+                {
+                    bytes = unacknowledged;
+                    unacknowledged = 0;
+                }
+                if (bytes > 0)
+                {
+                    helper.credit(id, stream, bytes);
+                }
+            }
+        }
+    }
+}
@@ -23,6 +23,7 @@ import com.kybelksties.general.ToString;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.logging.Logger;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
@@ -112,6 +113,26 @@ public class ProcessMessage<T extends Serializable>
         return new ProcessMessage(ExeMessageType.identify(), hostname, port);
     }
 
+    /**
+     * Create an identify message that also offers the codecs the client can
+     * use for the rest of the connection.
+     *
+     * @param hostname the client's host
+     * @param port     the client's port
+     * @param codecs   comma separated codec names, see
+     *                 ProcessMessageCodec.offer()
+     * @return the message
+     */
+    public static ProcessMessage makeIdentify(String hostname,
+                                              int port,
+                                              String codecs)
+    {
+        return new ProcessMessage<Serializable>(ExeMessageType.identify(),
+                                                hostname,
+                                                port,
+                                                codecs);
+    }
+
     /**
      *
      * @param stringID
@@ -122,6 +143,128 @@ public class ProcessMessage<T extends Serializable>
         return new ProcessMessage(ExeMessageType.startProcess(), stringID);
     }
 
+    /**
+     * Create an instruction to start several scheduled processes at once. The
+     * server answers with an acknowledgement that carries a list of the
+     * processes' states and a list of their server IDs, in the order of the
+     * instruction.
+     *
+     * @param processes the scheduled processes to start
+     * @return the message
+     */
+    public static ProcessMessage makeStartProcesses(
+            List<ScheduledProcess> processes)
+    {
+        return new ProcessMessage<>(ExeMessageType.startProcesses(),
+                                    new ArrayList<>(processes));
+    }
+
+    /**
+     * Create an instruction to kill several processes at once. The server
+     * answers with an acknowledgement that carries a list telling for each
+     * process whether it was killed.
+     *
+     * @param serverIds the server IDs of the processes
+     * @return the message
+     */
+    public static ProcessMessage makeKillProcesses(List<String> serverIds)
+    {
+        return new ProcessMessage<>(ExeMessageType.killProcesses(),
+                                    new ArrayList<>(serverIds));
+    }
+
+    /**
+     * Create a request for the resource samples of processes the server has
+     * started. The server answers with an acknowledgement that carries a list
+     * with the ResourceSamples of each process, oldest first, in the order of
+     * the request; a process the server does not sample gets null.
+     *
+     * @param serverIds the server IDs of the processes
+     * @return the message
+     */
+    public static ProcessMessage makeProcessResources(List<String> serverIds)
+    {
+        return new ProcessMessage<>(ExeMessageType.processResources(),
+                                    new ArrayList<>(serverIds));
+    }
+
+    /**
+     * Create an instruction to push the state changes of processes to this
+     * client. The server acknowledges the subscription and from then on sends
+     * stateChanges messages with correlation id 0 that carry the server IDs
+     * (list of String) and the new states (list of ConcreteProcess.State) of
+     * the processes that have changed. Changes are coalesced: a client gets at
+     * most one such message per tick, with the latest state of each process.
+     *
+     * @param serverIds the server IDs of the processes, empty for all
+     *                  processes the server starts
+     * @return the message
+     */
+    public static ProcessMessage makeSubscribe(List<String> serverIds)
+    {
+        return new ProcessMessage<>(ExeMessageType.subscribe(),
+                                    new ArrayList<>(serverIds));
+    }
+
+    /**
+     * Create an instruction to stop pushing the state changes of processes.
+     *
+     * @param serverIds the server IDs of the processes, empty to drop the
+     *                  subscription altogether
+     * @return the message
+     */
+    public static ProcessMessage makeUnsubscribe(List<String> serverIds)
+    {
+        return new ProcessMessage<>(ExeMessageType.unsubscribe(),
+                                    new ArrayList<>(serverIds));
+    }
+
+    /**
+     * Create a grant of credits for pushed messages. Once a client has
+     * granted credits the server pushes one message per credit and holds
+     * further state changes back, coalesced, until more credits are granted.
+     * The server answers with an acknowledgement that carries the credits now
+     * available (Long).
+     *
+     * @param credits the number of further pushed messages the client is
+     *                ready to receive
+     * @return the message
+     */
+    public static ProcessMessage makeCredit(int credits)
+    {
+        return new ProcessMessage<>(ExeMessageType.credit(), credits);
+    }
+
+    /**
+     * Check whether this message has been pushed by the server rather than
+     * sent in response to a request.
+     *
+     * @return true if so, false otherwise
+     */
+    public boolean isPush()
+    {
+        return getType() == ExeMessageType.stateChanges();
+    }
+
+    /**
+     * Create a request for the changes of the server's process table since a
+     * sequence number. The server answers with a processList message that
+     * carries the new sequence number (Long), whether the list is the full
+     * table (Boolean), the processes that are new or have changed (list of
+     * ProcessInfo) and the PIDs of the processes that have gone (list of
+     * String). A listProcesses message without sequence number is answered
+     * with the full table as plain list of ProcessInfo.
+     *
+     * @param sinceSequence the sequence number of the last answer, negative
+     *                      for the full table
+     * @return the message
+     */
+    public static ProcessMessage makeListProcesses(long sinceSequence)
+    {
+        return new ProcessMessage<>(ExeMessageType.listProcesses(),
+                                    sinceSequence);
+    }
+
     /**
      *
      * @return
@@ -141,6 +284,7 @@ public class ProcessMessage<T extends Serializable>
     }
     private ExeMessageType type = ExeMessageType.invalid();
     private ArrayList<T> objs;
+    private long correlationId = 0L;
 
     /**
      *
@@ -200,7 +344,7 @@ public class ProcessMessage<T extends Serializable>
      */
     public boolean isAcknowledgement()
     {
-        return type == ExeMessageType.acknowledge();
+        return type.equals(ExeMessageType.acknowledge());
     }
 
     @Override
@@ -215,7 +359,7 @@ public class ProcessMessage<T extends Serializable>
      */
     public boolean isStopCommand()
     {
-        return type == null || type == ExeMessageType.stopServer();
+        return type == null || type.equals(ExeMessageType.stopServer());
     }
 
     /**
@@ -231,4 +375,25 @@ public class ProcessMessage<T extends Serializable>
     {
         return type;
     }
+
+    /**
+     * Retrieve the id that matches a response to its request. Responses carry
+     * the id of the request they answer.
+     *
+     * @return the correlation id, 0 if none has been assigned
+     */
+    long getCorrelationId()
+    {
+        return correlationId;
+    }
+
+    /**
+     * Set the id that matches a response to its request.
+     *
+     * @param correlationId the new correlation id
+     */
+    void setCorrelationId(long correlationId)
+    {
+        this.correlationId = correlationId;
+    }
 }
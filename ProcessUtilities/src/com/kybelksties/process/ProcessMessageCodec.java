@@ -0,0 +1,244 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.logging.Logger;
+
+/**
+ * Encodings of a ProcessMessage into the payload of a single frame. Frames are
+ * exchanged between ProcessClient and ProcessServer as a 4-byte big-endian
+ * length followed by that many bytes of payload, so that both the blocking
+ * and the selector based server can cut messages out of a byte stream without
+ * having to understand the payload. A connection starts with SERIALIZED; the
+ * codec for the frames after the identify handshake is negotiated with it.
+ *
+ * @author Dieter J Kybelksties
+ */
+public enum ProcessMessageCodec
+{
+
+    /**
+     * Standard Java serialization; every frame is a self-contained object
+     * stream.
+     */
+    SERIALIZED
+    {
+        @Override
+        public byte[] encode(ProcessMessage message)
+                throws IOException
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes))
+            {
+                out.writeObject(message);
+            }
+            return bytes.toByteArray();
+        }
+
+        @Override
+        public ProcessMessage decode(byte[] frame, int offset, int length)
+                throws IOException, ClassNotFoundException
+        {
+            try (ObjectInputStream in = new ObjectInputStream(
+                                   new ByteArrayInputStream(frame,
+                                                            offset,
+                                                            length)))
+            {
+                Object reval = in.readObject();
+                if (!(reval instanceof ProcessMessage))
+                {
+                    throw new IOException("Not a Process Command!");
+                }
+                return (ProcessMessage) reval;
+            }
+        }
+    },
+    /**
+     * Compact tagged binary encoding of the message and the payloads of the
+     * process package, see BinaryFormat. Objects it has no tag for are
+     * embedded using Java serialization.
+     */
+    BINARY
+    {
+        @Override
+        public byte[] encode(ProcessMessage message)
+                throws IOException
+        {
+            return BinaryFormat.encode(message);
+        }
+
+        @Override
+        public ProcessMessage decode(byte[] frame, int offset, int length)
+                throws IOException, ClassNotFoundException
+        {
+            return BinaryFormat.decode(frame, offset, length);
+        }
+    };
+
+    private static final Class CLAZZ = ProcessMessageCodec.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    /**
+     * Number of bytes of the length prefix of each frame.
+     */
+    public static final int FRAME_HEADER_LENGTH = 4;
+
+    /**
+     * Upper limit for the payload of a single frame. Anything larger is
+     * considered a corrupt stream.
+     */
+    public static final int MAX_FRAME_LENGTH = 64 * 1024 * 1024;
+
+    /**
+     * Upper limit for the payload of a frame from a peer that has not
+     * identified yet. The identify message is small, so a peer cannot make
+     * the server set aside much memory before it is known.
+     */
+    public static final int MAX_UNIDENTIFIED_FRAME_LENGTH = 64 * 1024;
+
+    /**
+     * Encode the message into the payload of a frame.
+     *
+     * @param message the message to encode
+     * @return the payload bytes, without length prefix
+     * @throws IOException if the message cannot be encoded
+     */
+    public abstract byte[] encode(ProcessMessage message) throws IOException;
+
+    /**
+     * Decode a message from the payload of a frame.
+     *
+     * @param frame  buffer containing the payload
+     * @param offset start of the payload in the buffer
+     * @param length number of payload bytes
+     * @return the decoded message
+     * @throws IOException            if the payload is garbled
+     * @throws ClassNotFoundException if the payload refers to unknown classes
+     */
+    public abstract ProcessMessage decode(byte[] frame, int offset, int length)
+            throws IOException, ClassNotFoundException;
+
+    /**
+     * Find the codec a frame has been encoded with. The first byte of a
+     * binary frame differs from that of a Java serialised one, so peers can
+     * always read both, whatever they have negotiated for writing.
+     *
+     * @param frame  buffer containing the payload
+     * @param offset start of the payload in the buffer
+     * @param length number of payload bytes
+     * @return the codec of the frame
+     */
+    public static ProcessMessageCodec detect(byte[] frame,
+                                             int offset,
+                                             int length)
+    {
+        return length > 0 && frame[offset] == BinaryFormat.MAGIC ?
+               BINARY :
+               SERIALIZED;
+    }
+
+    /**
+     * Decode a frame with the codec it has been encoded with.
+     *
+     * @param frame  buffer containing the payload
+     * @param offset start of the payload in the buffer
+     * @param length number of payload bytes
+     * @return the decoded message
+     * @throws IOException            if the payload is garbled
+     * @throws ClassNotFoundException if the payload refers to unknown classes
+     */
+    public static ProcessMessage decodeFrame(byte[] frame,
+                                             int offset,
+                                             int length)
+            throws IOException, ClassNotFoundException
+    {
+        return detect(frame, offset, length).decode(frame, offset, length);
+    }
+
+    /**
+     * List the codecs this side supports, most preferred first, as sent with
+     * the identify message.
+     *
+     * @return comma separated codec names
+     */
+    public static String offer()
+    {
+        return BINARY.name() + "," + SERIALIZED.name();
+    }
+
+    /**
+     * Choose the codec from the offer of the peer: the first one offered that
+     * is known here. Peers that offer nothing get SERIALIZED.
+     *
+     * @param offered comma separated codec names as created by offer(), may
+     *                be null
+     * @return the chosen codec
+     */
+    public static ProcessMessageCodec negotiate(String offered)
+    {
+        if (offered != null)
+        {
+            for (String name : offered.split(","))
+            {
+                for (ProcessMessageCodec codec : values())
+                {
+                    if (codec.name().equalsIgnoreCase(name.trim()))
+                    {
+                        return codec;
+                    }
+                }
+            }
+        }
+        return SERIALIZED;
+    }
+
+    /**
+     * Check a frame length read from the wire.
+     *
+     * @param length the length read from the frame header
+     * @throws IOException if the length cannot be a valid frame
+     */
+    static void checkFrameLength(int length) throws IOException
+    {
+        checkFrameLength(length, MAX_FRAME_LENGTH);
+    }
+
+    /**
+     * Check a frame length read from the wire against a limit.
+     *
+     * @param length         the length read from the frame header
+     * @param maxFrameLength the largest length allowed
+     * @throws IOException if the length cannot be a valid frame
+     */
+    static void checkFrameLength(int length, int maxFrameLength)
+            throws IOException
+    {
+        if (length < 0 || length > maxFrameLength)
+        {
+            throw new IOException("Invalid frame length " + length);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+/**
+ * Blocking reader/writer of framed ProcessMessage s on a socket. This is the
+ * counterpart of the selector based server for the thread-per-connection
+ * ServerLoop and for the ProcessClient.
+ *
+ * @author Dieter J Kybelksties
+ */
+class ProcessMessageStream implements Closeable
+{
+
+    private static final Class CLAZZ = ProcessMessageStream.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    private static final int READ_CHUNK = 64 * 1024;
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    // negotiated by the reading thread, used by the writing ones
+    private volatile ProcessMessageCodec codec =
+                                         ProcessMessageCodec.SERIALIZED;
+
+    /**
+     * Construct on a connected socket.
+     *
+     * @param socket the connected socket
+     * @throws IOException if the socket streams cannot be opened
+     */
+    ProcessMessageStream(Socket socket) throws IOException
+    {
+        this.socket = socket;
+        in = new DataInputStream(new BufferedInputStream(
+                socket.getInputStream()));
+        out = new DataOutputStream(new BufferedOutputStream(
+                socket.getOutputStream()));
+    }
+
+    /**
+     * Retrieve the codec used to encode the frames. Received frames are
+     * decoded with whatever codec they have been encoded with.
+     *
+     * @return the current codec
+     */
+    ProcessMessageCodec getCodec()
+    {
+        return codec;
+    }
+
+    /**
+     * Change the codec used to encode the frames.
+     *
+     * @param codec the new codec; null resets to the default
+     */
+    void setCodec(ProcessMessageCodec codec)
+    {
+        this.codec = codec == null ? ProcessMessageCodec.SERIALIZED : codec;
+    }
+
+    /**
+     * Write one message as a frame and flush it to the peer.
+     *
+     * @param message the message to send
+     * @throws IOException if the message cannot be encoded or sent
+     */
+    void write(ProcessMessage message) throws IOException
+    {
+        writePayload(codec.encode(message));
+    }
+
+    /**
+     * Write a message encoded before as a frame and flush it to the peer.
+     *
+     * @param payload the encoded message
+     * @throws IOException if the frame cannot be sent
+     */
+    void writePayload(byte[] payload) throws IOException
+    {
+        synchronized (out)
+        {
+            out.writeInt(payload.length);
+            out.write(payload);
+            out.flush();
+        }
+    }
+
+    /**
+     * Block until the next frame has been received and decode it.
+     *
+     * @return the received message
+     * @throws IOException            if the stream is closed or garbled
+     * @throws ClassNotFoundException if the payload cannot be de-serialised
+     */
+    ProcessMessage read() throws IOException, ClassNotFoundException
+    {
+        return read(ProcessMessageCodec.MAX_FRAME_LENGTH);
+    }
+
+    /**
+     * Block until the next frame of at most the given length has been
+     * received and decode it. The payload buffer grows as the bytes arrive,
+     * so a frame header alone does not make it take the announced length.
+     *
+     * @param maxFrameLength the largest payload accepted
+     * @return the received message
+     * @throws IOException            if the stream is closed or garbled, or
+     *                                the frame is too long
+     * @throws ClassNotFoundException if the payload cannot be de-serialised
+     */
+    ProcessMessage read(int maxFrameLength)
+            throws IOException, ClassNotFoundException
+    {
+        byte[] payload;
+        synchronized (in)
+        {
+            int length = in.readInt();
+            ProcessMessageCodec.checkFrameLength(length, maxFrameLength);
+            payload = new byte[Math.min(length, READ_CHUNK)];
+            int read = 0;
+            while (read < length)
+            {
+                if (read == payload.length)
+                {
+                    payload = Arrays.copyOf(payload,
+                                            (int) Math.min(length,
+                                                           2L * read));
+                }
+                int count = in.read(payload, read, payload.length - read);
+                if (count < 0)
+                {
+                    throw new EOFException("Frame is truncated");
+                }
+                read += count;
+            }
+        }
+        return ProcessMessageCodec.decodeFrame(payload, 0, payload.length);
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        socket.close();
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Tracks the exit of started processes with a single thread for all of them,
+ * instead of one thread per process blocking in waitFor(). The reaper polls
+ * each watched process for its exit, quickly just after it has started and
+ * more slowly the longer it runs, and hands each exit to the owning
+ * ConcreteProcess. The thread is started with the first watched process and
+ * waits while nothing is watched.
+ *
+ * @author Dieter J Kybelksties
+ */
+final class ProcessReaper
+{
+
+    private static final Class CLAZZ = ProcessReaper.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    static final long MIN_POLL_MILLIS = 5L;
+    static final long MAX_POLL_MILLIS = 100L;
+
+    private static final Object LOCK = new Object();
+    private static final List<Watched> WATCHED = new ArrayList<>();
+    private static Thread reaper = null;
+
+    private static final Method IS_ALIVE = isAliveMethod();
+
+    private ProcessReaper()
+    {
+    }
+
+    /**
+     * Watch a started system process and tell its owner when it exits.
+     *
+     * @param owner   the process wrapper to be told of the exit
+     * @param process the started system process
+     */
+    static void watch(ConcreteProcess owner, Process process)
+    {
+        synchronized (LOCK)
+        {
+            WATCHED.add(new Watched(owner, process));
+            if (reaper == null)
+            {
+                reaper = new Thread(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        reap();
+                    }
+                }, "ProcessReaper");
+                reaper.setDaemon(true);
+                reaper.start();
+            }
+            LOCK.notifyAll();
+        }
+    }
+
+    /**
+     * Retrieve the number of processes that have not yet exited.
+     *
+     * @return the number of watched processes
+     */
+    static int watchedCount()
+    {
+        synchronized (LOCK)
+        {
+            return WATCHED.size();
+        }
+    }
+
+    /**
+     * Check whether a system process has exited. Where the running JVM has
+     * Process.isAlive() that is asked, as it answers from the state the
+     * process implementation already keeps. Older platforms only tell by
+     * exitValue() throwing while the process is still running. As this code
+     * base is compiled for older platforms isAlive() is looked up
+     * reflectively.
+     *
+     * @param process the system process
+     * @return true if the process has exited, false otherwise
+     */
+    static boolean hasExited(Process process)
+    {
+        if (IS_ALIVE != null)
+        {
+            try
+            {
+                return !((Boolean) IS_ALIVE.invoke(process));
+            }
+            catch (ReflectiveOperationException | RuntimeException ex)
+            {
+                // fall back to the exit value
+            }
+        }
+        try
+        {
+            process.exitValue();
+            return true;
+        }
+        catch (IllegalThreadStateException ex)
+        {
+            // still running
+            return false;
+        }
+    }
+
+    private static Method isAliveMethod()
+    {
+        try
+        {
+            return Process.class.getMethod("isAlive");
+        }
+        catch (ReflectiveOperationException | RuntimeException ex)
+        {
+            return null;
+        }
+    }
+
+    private static void reap()
+    {
+        List<Watched> exited = new ArrayList<>();
+        while (true)
+        {
+            synchronized (LOCK)
+            {
+                try
+                {
+                    while (WATCHED.isEmpty())
+                    {
+                        LOCK.wait();
+                    }
+                    long waitNanos = nextPollNanos() - System.nanoTime();
+                    if (waitNanos > 0L)
+                    {
+                        TimeUnit.NANOSECONDS.timedWait(LOCK, waitNanos);
+                    }
+                }
+                catch (InterruptedException ex)
+                {
+                    LOGGER.log(Level.WARNING, "Process reaper interrupted");
+                    reaper = null;
+                    return;
+                }
+                long now = System.nanoTime();
+                Iterator<Watched> iter = WATCHED.iterator();
+                while (iter.hasNext())
+                {
+                    Watched watched = iter.next();
+                    if (watched.dueNanos - now <= 0L && watched.poll(now))
+                    {
+                        iter.remove();
+                        exited.add(watched);
+                    }
+                }
+            }
+            // notify outside the lock: listeners may start new processes
+            for (Watched watched : exited)
+            {
+                try
+                {
+                    watched.owner.processExited(watched.exitValue);
+                }
+                catch (RuntimeException ex)
+                {
+                    LOGGER.log(Level.SEVERE,
+                               "Exit handling failed: {0}",
+                               ex.toString());
+                }
+            }
+            exited.clear();
+        }
+    }
+
+    private static long nextPollNanos()
+    {
+        long reval = WATCHED.get(0).dueNanos;
+        for (Watched watched : WATCHED)
+        {
+            if (watched.dueNanos - reval < 0L)
+            {
+                reval = watched.dueNanos;
+            }
+        }
+        return reval;
+    }
+
+    private static class Watched
+    {
+
+        final ConcreteProcess owner;
+        final Process process;
+        int exitValue = 0;
+        long pollMillis = MIN_POLL_MILLIS;
+        long dueNanos;
+
+        Watched(ConcreteProcess owner, Process process)
+        {
+            this.owner = owner;
+            this.process = process;
+            this.dueNanos = System.nanoTime() +
+                            TimeUnit.MILLISECONDS.toNanos(pollMillis);
+        }
+
+        boolean poll(long now)
+        {
+            if (hasExited(process))
+            {
+                exitValue = process.exitValue();
+                return true;
+            }
+            // back off while the process keeps running
+            pollMillis = Math.min(pollMillis * 2, MAX_POLL_MILLIS);
+            dueNanos = now + TimeUnit.MILLISECONDS.toNanos(pollMillis);
+            return false;
+        }
+    }
+}
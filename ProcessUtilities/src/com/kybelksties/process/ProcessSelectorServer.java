@@ -0,0 +1,728 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import com.kybelksties.protocol.HashedWheelTimer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Non-blocking front end of the ProcessServer. A small, fixed number of event
+ * loops multiplex all client sockets through selectors; complete frames are
+ * handed to a fixed worker pool which calls ProcessServer.dispatch(). The
+ * messages of one client are processed one at a time and in order, so the
+ * request/response dialogue is the same as with one ServerLoop thread per
+ * client, but the thread count does not grow with the number of clients.
+ *
+ * @author Dieter J Kybelksties
+ */
+class ProcessSelectorServer implements Closeable
+{
+
+    private static final Class CLAZZ = ProcessSelectorServer.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    private static final int DEFAULT_READ_BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * How long a connection that is closed after its last response may take
+     * to send what is still queued, before it is closed regardless.
+     * Configured by the system property
+     * "com.kybelksties.process.ProcessSelectorServer.closeFlushMillis",
+     * defaults to 2 seconds.
+     */
+    static final long CLOSE_FLUSH_MILLIS =
+                      Long.getLong(CLASS_NAME + ".closeFlushMillis", 2000L);
+
+    private final int port;
+    private final EventLoop[] loops;
+    private final ExecutorService workers;
+    private final AtomicInteger clientNumbers = new AtomicInteger(0);
+    private final AtomicInteger nextLoop = new AtomicInteger(0);
+    private final AtomicInteger connectionCount = new AtomicInteger(0);
+    private ServerSocketChannel serverChannel = null;
+    private volatile boolean running = false;
+
+    /**
+     * Construct a selector server.
+     *
+     * @param port           the port to listen on; 0 picks an ephemeral port
+     * @param selectorThreads number of event loops, at least 1
+     * @param workerThreads  number of threads processing messages, at least 1
+     */
+    ProcessSelectorServer(int port, int selectorThreads, int workerThreads)
+    {
+        this.port = port;
+        this.loops = new EventLoop[Math.max(1, selectorThreads)];
+        this.workers = Executors.newFixedThreadPool(
+        Math.max(1, workerThreads),
+        new NamedThreadFactory("ProcessSelectorServer-worker-", true));
+    }
+
+    /**
+     * Bind the listening socket and start the event loops.
+     *
+     * @throws IOException if the port cannot be bound
+     */
+    synchronized void start() throws IOException
+    {
+        if (running)
+        {
+            return;
+        }
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.configureBlocking(false);
+        serverChannel.socket().setReuseAddress(true);
+        serverChannel.bind(new InetSocketAddress(port));
+        running = true;
+        for (int i = 0; i < loops.length; i++)
+        {
+            loops[i] = new EventLoop(i);
+        }
+        loops[0].registerAcceptor(serverChannel);
+        for (EventLoop loop : loops)
+        {
+            loop.thread.start();
+        }
+        ProcessServer.logInfo("Selector server listening on port {0} " +
+                              "with {1} event loop(s)",
+                              getLocalPort(),
+                              loops.length);
+    }
+
+    /**
+     * Retrieve the port actually bound.
+     *
+     * @return the local port or -1 if not started
+     */
+    int getLocalPort()
+    {
+        return serverChannel == null ?
+               -1 :
+               serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Retrieve the number of currently open client connections.
+     *
+     * @return the connection count
+     */
+    int getConnectionCount()
+    {
+        return connectionCount.get();
+    }
+
+    /**
+     * Check whether the server is still running.
+     *
+     * @return true if so, false otherwise
+     */
+    boolean isRunning()
+    {
+        return running;
+    }
+
+    /**
+     * Block until all event loops have finished.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    void awaitTermination() throws InterruptedException
+    {
+        for (EventLoop loop : loops)
+        {
+            if (loop != null)
+            {
+                loop.thread.join();
+            }
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        running = false;
+        for (EventLoop loop : loops)
+        {
+            if (loop != null)
+            {
+                loop.selector.wakeup();
+            }
+        }
+        try
+        {
+            if (serverChannel != null)
+            {
+                serverChannel.close();
+            }
+        }
+        catch (IOException ex)
+        {
+            ProcessServer.logError("Couldn't close the server channel: {0}",
+                                   ex.toString());
+        }
+        workers.shutdown();
+    }
+
+    private void accept() throws IOException
+    {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null)
+        {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            EventLoop loop = loops[(nextLoop.getAndIncrement() &
+                                    Integer.MAX_VALUE) % loops.length];
+            loop.register(new Connection(channel,
+                                         loop,
+                                         clientNumbers.getAndIncrement()));
+        }
+    }
+
+    /**
+     * One selector with the thread that drives it.
+     */
+    private class EventLoop implements Runnable
+    {
+
+        private final Selector selector;
+        private final Thread thread;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+        EventLoop(int index) throws IOException
+        {
+            selector = Selector.open();
+            thread = new Thread(this, "ProcessSelectorServer-loop-" + index);
+        }
+
+        void registerAcceptor(final ServerSocketChannel channel)
+                throws IOException
+        {
+            channel.register(selector, SelectionKey.OP_ACCEPT);
+        }
+
+        void register(final Connection connection)
+        {
+            execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        connection.key = connection.channel.register(
+                        selector,
+                        SelectionKey.OP_READ,
+                        connection);
+                        connectionCount.incrementAndGet();
+                        connection.session.awaitIdentify(new Runnable()
+                        {
+                            @Override
+                            public void run()
+                            {
+                                execute(new Runnable()
+                                {
+                                    @Override
+                                    public void run()
+                                    {
+                                        connection.close();
+                                    }
+                                });
+                            }
+                        });
+                    }
+                    catch (IOException ex)
+                    {
+                        ProcessServer.logError("Cannot register {0}: {1}",
+                                               connection.session,
+                                               ex.toString());
+                        connection.close();
+                    }
+                }
+            });
+        }
+
+        /**
+         * Run a task on the loop thread. All changes to selection keys are
+         * made through here so that no locking is needed.
+         *
+         * @param task the task to run
+         */
+        void execute(Runnable task)
+        {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                while (running)
+                {
+                    Runnable task;
+                    while ((task = tasks.poll()) != null)
+                    {
+                        task.run();
+                    }
+                    selector.select();
+                    Iterator<SelectionKey> iter =
+                                           selector.selectedKeys().iterator();
+                    while (iter.hasNext())
+                    {
+                        SelectionKey key = iter.next();
+                        iter.remove();
+                        handle(key);
+                    }
+                }
+            }
+            catch (IOException ex)
+            {
+                ProcessServer.logError("Selector loop failed: {0}",
+                                       ex.toString());
+            }
+            finally
+            {
+                for (SelectionKey key : selector.keys())
+                {
+                    if (key.attachment() instanceof Connection)
+                    {
+                        ((Connection) key.attachment()).close();
+                    }
+                }
+                try
+                {
+                    selector.close();
+                }
+                catch (IOException ex)
+                {
+                    ProcessServer.logError("Couldn't close the selector: {0}",
+                                           ex.toString());
+                }
+            }
+        }
+
+        private void handle(SelectionKey key)
+        {
+            if (!key.isValid())
+            {
+                return;
+            }
+            if (key.isAcceptable())
+            {
+                try
+                {
+                    accept();
+                }
+                catch (IOException ex)
+                {
+                    ProcessServer.logError("Accept failed: {0}",
+                                           ex.toString());
+                }
+                return;
+            }
+            Connection connection = (Connection) key.attachment();
+            try
+            {
+                if (key.isReadable())
+                {
+                    connection.onReadable();
+                }
+                if (key.isValid() && key.isWritable())
+                {
+                    connection.onWritable();
+                }
+            }
+            catch (IOException ex)
+            {
+                ProcessServer.logError("Error handling client {0}: {1}",
+                                       connection.session.getClientNumber(),
+                                       ex.toString());
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * State of a single client connection.
+     */
+    private class Connection implements HandlerRegistry.Responder
+    {
+
+        private final SocketChannel channel;
+        private final EventLoop loop;
+        private final ClientSession session;
+        private volatile ProcessMessageCodec codec =
+                                             ProcessMessageCodec.SERIALIZED;
+        private final Queue<byte[]> inbound = new ConcurrentLinkedQueue<>();
+        private final Queue<ByteBuffer> outbound =
+                                        new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean processing = new AtomicBoolean(false);
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+        private ByteBuffer readBuffer =
+                           ByteBuffer.allocate(DEFAULT_READ_BUFFER_SIZE);
+        private SelectionKey key = null;
+        private Runnable afterClose = null;
+
+        Connection(SocketChannel channel, EventLoop loop, int clientNumber)
+        {
+            this.channel = channel;
+            this.loop = loop;
+            this.session = new ClientSession(clientNumber);
+            this.session.setResponder(this);
+        }
+
+        /**
+         * Read what is available and cut complete frames out of the buffer.
+         * Only called on the loop thread.
+         */
+        void onReadable() throws IOException
+        {
+            if (channel.read(readBuffer) < 0)
+            {
+                close();
+                return;
+            }
+            readBuffer.flip();
+            boolean grown = false;
+            while (readBuffer.remaining() >=
+                   ProcessMessageCodec.FRAME_HEADER_LENGTH)
+            {
+                int length = readBuffer.getInt(readBuffer.position());
+                ProcessMessageCodec.checkFrameLength(
+                        length,
+                        session.isIdentified() ?
+                        ProcessMessageCodec.MAX_FRAME_LENGTH :
+                        ProcessMessageCodec.MAX_UNIDENTIFIED_FRAME_LENGTH);
+                int frameLength = ProcessMessageCodec.FRAME_HEADER_LENGTH +
+                                  length;
+                if (readBuffer.remaining() < frameLength)
+                {
+                    // grow only once the bytes received fill the buffer,
+                    // not to whatever length the header announces
+                    if (readBuffer.remaining() == readBuffer.capacity())
+                    {
+                        ByteBuffer larger = ByteBuffer.allocate(
+                                   (int) Math.min(frameLength,
+                                                  2L * readBuffer.capacity()));
+                        larger.put(readBuffer);
+                        readBuffer = larger;
+                        grown = true;
+                    }
+                    break;
+                }
+                readBuffer.position(readBuffer.position() +
+                                    ProcessMessageCodec.FRAME_HEADER_LENGTH);
+                byte[] payload = new byte[length];
+                readBuffer.get(payload);
+                inbound.add(payload);
+            }
+            if (!grown)
+            {
+                readBuffer.compact();
+                if (readBuffer.position() == 0 &&
+                    readBuffer.capacity() > DEFAULT_READ_BUFFER_SIZE)
+                {
+                    // don't keep a big buffer per idle client
+                    readBuffer = ByteBuffer.allocate(DEFAULT_READ_BUFFER_SIZE);
+                }
+            }
+            schedule();
+        }
+
+        /**
+         * Write as much of the pending output as the socket accepts. Only
+         * called on the loop thread.
+         */
+        void onWritable() throws IOException
+        {
+            ByteBuffer frame;
+            while ((frame = outbound.peek()) != null)
+            {
+                channel.write(frame);
+                if (frame.hasRemaining())
+                {
+                    return;
+                }
+                outbound.poll();
+                session.getFlowControl().sent();
+            }
+            if (afterClose != null)
+            {
+                // everything has been sent before closing
+                close();
+                return;
+            }
+            // the client has caught up: read its requests again
+            key.interestOps(SelectionKey.OP_READ);
+        }
+
+        /**
+         * Make sure a worker is draining the inbound frames, unless one is
+         * already doing so. This keeps the messages of a client in order.
+         */
+        void schedule()
+        {
+            if (inbound.isEmpty() || !processing.compareAndSet(false, true))
+            {
+                return;
+            }
+            try
+            {
+                workers.execute(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        drain();
+                    }
+                });
+            }
+            catch (RuntimeException ex)
+            {
+                processing.set(false);
+                close();
+            }
+        }
+
+        private void drain()
+        {
+            try
+            {
+                byte[] payload;
+                while (!closed.get() && (payload = inbound.poll()) != null)
+                {
+                    try
+                    {
+                        ProcessMessage rcvdMsg =
+                                       ProcessMessageCodec.decodeFrame(
+                                               payload,
+                                               0,
+                                               payload.length);
+                        ProcessServer.dispatch(session, rcvdMsg, this);
+                    }
+                    catch (IOException | ClassNotFoundException |
+                           RuntimeException ex)
+                    {
+                        // a failing request must not stall the connection
+                        send(ProcessMessage.makeInvalid(ex.toString()));
+                    }
+                    // switches after the identify handshake
+                    codec = session.getCodec();
+                    if (!ProcessServer.keepRunning)
+                    {
+                        loop.execute(new Runnable()
+                        {
+                            @Override
+                            public void run()
+                            {
+                                flushAndClose(new Runnable()
+                                {
+                                    @Override
+                                    public void run()
+                                    {
+                                        ProcessSelectorServer.this.close();
+                                    }
+                                });
+                            }
+                        });
+                        return;
+                    }
+                }
+            }
+            finally
+            {
+                processing.set(false);
+            }
+            schedule();
+        }
+
+        @Override
+        public void respond(ProcessMessage response)
+        {
+            if (!closed.get())
+            {
+                send(response);
+            }
+        }
+
+        /**
+         * Queue a message for sending. May be called from any thread. The
+         * queue is bounded by the session's flow control: while it is full
+         * the client's requests are not read, so that it cannot add more
+         * responses, and pushed messages are dropped or the client is
+         * disconnected according to the SlowConsumerPolicy.
+         *
+         * @param message the message to send
+         */
+        void send(ProcessMessage message)
+        {
+            final FlowControl flow = session.getFlowControl();
+            FlowControl.Admission admission = flow.admit(message);
+            if (admission == FlowControl.Admission.DROP)
+            {
+                return;
+            }
+            if (admission == FlowControl.Admission.DISCONNECT)
+            {
+                ProcessServer.logError("Disconnecting slow client {0}: {1}",
+                                       session,
+                                       flow.toString());
+                loop.execute(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        close();
+                    }
+                });
+                return;
+            }
+            try
+            {
+                byte[] payload = codec.encode(message);
+                ByteBuffer frame = ByteBuffer.allocate(
+                           ProcessMessageCodec.FRAME_HEADER_LENGTH +
+                           payload.length);
+                frame.putInt(payload.length).put(payload).flip();
+                outbound.add(frame);
+                loop.execute(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        if (key != null && key.isValid())
+                        {
+                            key.interestOps(flow.isCongested() ?
+                                            SelectionKey.OP_WRITE :
+                                            SelectionKey.OP_READ |
+                                            SelectionKey.OP_WRITE);
+                        }
+                    }
+                });
+            }
+            catch (IOException ex)
+            {
+                flow.sent();
+                ProcessServer.logError("Cannot encode response to {0}: {1}",
+                                       session,
+                                       ex.toString());
+            }
+        }
+
+        /**
+         * Close the connection once the queued responses are sent. What the
+         * socket accepts now is written at once, the rest when the socket
+         * becomes writable again; a client that does not read is closed
+         * after CLOSE_FLUSH_MILLIS, so the loop never waits for it. Only
+         * called on the loop thread.
+         *
+         * @param then run when the connection is closed
+         */
+        private void flushAndClose(Runnable then)
+        {
+            if (closed.get())
+            {
+                then.run();
+                return;
+            }
+            afterClose = then;
+            try
+            {
+                onWritable();
+            }
+            catch (IOException ex)
+            {
+                ProcessServer.logError("Couldn't flush {0}: {1}",
+                                       session,
+                                       ex.toString());
+                close();
+            }
+            if (closed.get())
+            {
+                return;
+            }
+            key.interestOps(SelectionKey.OP_WRITE);
+            HashedWheelTimer.shared().newTimeout(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    loop.execute(new Runnable()
+                    {
+                        @Override
+                        public void run()
+                        {
+                            close();
+                        }
+                    });
+                }
+            }, CLOSE_FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        void close()
+        {
+            if (!closed.compareAndSet(false, true))
+            {
+                return;
+            }
+            session.closed();
+            while (outbound.poll() != null)
+            {
+                session.getFlowControl().sent();
+            }
+            if (key != null)
+            {
+                key.cancel();
+                connectionCount.decrementAndGet();
+            }
+            try
+            {
+                channel.close();
+            }
+            catch (IOException e)
+            {
+                ProcessServer.logError("Couldn't close the socket: {0}",
+                                       e.toString());
+            }
+            if (afterClose != null)
+            {
+                afterClose.run();
+            }
+        }
+    }
+}
@@ -23,20 +23,24 @@ import com.kybelksties.general.LogFormatter;
 import com.kybelksties.general.SystemProperties;
 import com.kybelksties.general.ToString;
 import com.kybelksties.protocol.Actor;
-import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.io.Serializable;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import org.jutils.jprocesses.JProcesses;
 import org.jutils.jprocesses.model.ProcessInfo;
 
 /**
@@ -56,12 +60,38 @@ public class ProcessServer
     private static final String CLASS_NAME = CLAZZ.getName();
     private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
 
-    static boolean keepRunning = true;
-    final static String HOSTNAME = (String) SystemProperties.get("HOSTNAME");
+    static volatile boolean keepRunning = true;
+    final static String HOSTNAME = hostName();
     static int port;
-    static Map<Integer, ServerLoop> map = new HashMap<>();
-    static Map<String, ConcreteProcess> monitoredProcesses = new TreeMap<>();
-    static long processNumber = 0;
+    // the processes started by the server that have not yet ended, by ID
+    static Map<String, ConcreteProcess> monitoredProcesses =
+                                        Collections.synchronizedMap(
+                                        new TreeMap<String, ConcreteProcess>());
+    // the server IDs of the monitored processes that have not yet ended, to
+    // name them in pushes
+    static final Map<ConcreteProcess, String> MONITORED_IDS =
+                                              Collections.synchronizedMap(
+                                              new IdentityHashMap<ConcreteProcess, String>());
+    static final AtomicLong processNumber = new AtomicLong(0L);
+    static final ProcessServer SERVER = new ProcessServer();
+    static final int DEFAULT_MAX_THREADS = 256;
+    /**
+     * The number of threads starting the processes of a batch instruction in
+     * parallel; the rest of a batch waits for a free thread, so a large batch
+     * does not fork all its processes at once. Configured by the system
+     * property "com.kybelksties.process.ProcessServer.launchThreads",
+     * defaults to the number of available processors.
+     */
+    static final int LAUNCH_THREADS = Math.max(
+                     1,
+                     Integer.getInteger(
+                             CLASS_NAME + ".launchThreads",
+                             Runtime.getRuntime().availableProcessors()));
+    static final ExecutorService LAUNCHER = Executors.newFixedThreadPool(
+                                 LAUNCH_THREADS,
+                                 new NamedThreadFactory(
+                                         "ProcessServer-launch-",
+                                         true));
 
     public ProcessServer()
     {
@@ -81,55 +111,489 @@ public class ProcessServer
 
     /**
      * Application method to run the server runs in an infinite (interuptable)
-     * loop listening on a given port. When a connection is requested, it spawns
-     * a new thread to do the servicing and immediately returns to listening.
-     * The server keeps a unique client number for each client that connects
-     * just to show interesting logging messages. It is certainly not necessary
-     * to do this.
+     * loop listening on a given port. In BLOCKING mode a new thread is spawned
+     * for each connection that is accepted. VIRTUAL_THREADS mode does the same
+     * with virtual threads, or a bounded pool where they are not available. In
+     * SELECTOR mode all connections are served by a fixed number of selector
+     * threads and workers.
      *
-     * @param args first argument is the port
+     * @param args first argument is the port, second the optional Mode, third
+     *             the optional maximum number of threads for VIRTUAL_THREADS
+     *             (fallback) or selector threads for SELECTOR mode and fourth
+     *             the optional number of worker threads for SELECTOR mode
      * @throws java.lang.Exception
      */
     public static void main(String[] args) throws Exception
     {
-        int clientNumber = 0;
         port = (args == null || args.length == 0) ?
                9898 :
                Integer.parseInt(args[0]);
-        logInfo("Starting Server");
-        ServerSocket listener = new ServerSocket(port);
-        while (keepRunning)
+        Mode mode = (args == null || args.length < 2) ?
+                    Mode.BLOCKING :
+                    Mode.valueOf(args[1].toUpperCase());
+        logInfo("Starting Server in {0} mode", mode);
+        if (ProcessLauncher.HELPERS > 0)
+        {
+            // fork the processes from small helpers rather than this JVM
+            ProcessLauncher.start(ProcessLauncher.HELPERS);
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        switch (mode)
         {
-            // blocking here, waiting for incoming request, then accept
-            Socket acceptedSocket = listener.accept();
+            case SELECTOR:
+                int selectorThreads = args.length < 3 ?
+                                      1 :
+                                      Integer.parseInt(args[2]);
+                int workerThreads = args.length < 4 ?
+                                    cores :
+                                    Integer.parseInt(args[3]);
+                ProcessSelectorServer selectorServer =
+                                      new ProcessSelectorServer(port,
+                                                                selectorThreads,
+                                                                workerThreads);
+                selectorServer.start();
+                selectorServer.awaitTermination();
+                break;
+            case VIRTUAL_THREADS:
+                int maxThreads = args.length < 3 ?
+                                 DEFAULT_MAX_THREADS :
+                                 Integer.parseInt(args[2]);
+                runBlocking(ProcessBlockingServer.virtualOrBounded(maxThreads));
+                break;
+            case BLOCKING:
+            default:
+                runBlocking(ProcessBlockingServer.threadPerConnection());
+                break;
+        }
+        logInfo("Finished Server");
+    }
 
-            if (keepRunning)
+    private static void runBlocking(ExecutorService executor) throws Exception
+    {
+        ProcessBlockingServer server = new ProcessBlockingServer(port, executor);
+        server.start();
+        server.awaitTermination();
+    }
+
+    /**
+     * Process a message received from a client and send the response. This
+     * is shared by all server modes; it may be called concurrently for
+     * different clients but is called sequentially for any one client. Most
+     * messages are handled before this returns; those with a detached handler,
+     * like listProcesses, are handled on a pool and answered later, so that
+     * they do not hold up the client's next requests.
+     *
+     * @param session   the client that sent the message
+     * @param rcvdMsg   the received message
+     * @param responder sends the response back to the client
+     */
+    static void dispatch(ClientSession session,
+                         ProcessMessage rcvdMsg,
+                         HandlerRegistry.Responder responder)
+    {
+        HANDLERS.dispatch(session, rcvdMsg, responder);
+    }
+
+    /**
+     * Creates the response to the messages of one type.
+     */
+    interface Handler
+    {
+
+        /**
+         * Handle a message received from a client.
+         *
+         * @param session the client that sent the message
+         * @param rcvdMsg the received message
+         * @return the response to send back to the client
+         */
+        ProcessMessage handle(ClientSession session, ProcessMessage rcvdMsg);
+    }
+
+    /**
+     * The cached table of the processes on this host; its refresh interval in
+     * milliseconds can be set with the system property
+     * "com.kybelksties.process.ProcessTable.refreshMillis".
+     */
+    static final ProcessTable PROCESS_TABLE = new ProcessTable(
+                              Long.getLong(ProcessTable.class.getName() +
+                                           ".refreshMillis",
+                                           ProcessTable.DEFAULT_REFRESH_MILLIS));
+    /**
+     * Samples the resource use of the processes in monitoredProcesses.
+     */
+    static final ResourceSampler RESOURCES = new ResourceSampler(
+                                 ResourceSampler.DEFAULT_INTERVAL_MILLIS,
+                                 ResourceSampler.DEFAULT_CAPACITY);
+    /**
+     * Pushes the state changes of monitored processes to subscribed clients.
+     */
+    static final StateChangePublisher STATE_CHANGES = new StateChangePublisher(
+                                      StateChangePublisher.DEFAULT_TICK_MILLIS);
+    /**
+     * Maximum number of process listings that are made at once.
+     */
+    static final int MAX_CONCURRENT_LISTINGS = 2;
+    // messages without handler are acknowledged
+    static final HandlerRegistry HANDLERS = makeHandlers();
+
+    private static HandlerRegistry makeHandlers()
+    {
+        HandlerRegistry reval = new HandlerRegistry();
+        reval.register(ExeMessageType.chitChat(), new Handler()
+        {
+            @Override
+            public ProcessMessage handle(ClientSession session,
+                                         ProcessMessage rcvdMsg)
+            {
+                logInfo(ToString.make(rcvdMsg.getObjects()));
+                return ProcessMessage.makeAcknowledge();
+            }
+        });
+        reval.register(ExeMessageType.stopServer(), new Handler()
+        {
+            @Override
+            public ProcessMessage handle(ClientSession session,
+                                         ProcessMessage rcvdMsg)
+            {
+                logInfo("Bye, bye!");
+                keepRunning = false;
+                return ProcessMessage.makeAcknowledge();
+            }
+        });
+        reval.register(ExeMessageType.identify(), new Handler()
+        {
+            @Override
+            public ProcessMessage handle(ClientSession session,
+                                         ProcessMessage rcvdMsg)
+            {
+                return identify(session, rcvdMsg);
+            }
+        });
+        reval.register(ExeMessageType.startProcess(), new Handler()
+        {
+            @Override
+            public ProcessMessage handle(ClientSession session,
+                                         ProcessMessage rcvdMsg)
+            {
+                ProcessMessage msg = ProcessMessage.makeAcknowledge();
+                try
+                {
+                    ScheduledProcess sp =
+                                     (ScheduledProcess) rcvdMsg.getObjects().
+                                     get(0);
+                    String ID = start(session, sp);
+                    if (ID != null)
+                    {
+                        msg = ProcessMessage.makeAcknowledge(
+                        sp.getProcess().getState(),
+                        "Server ID=" + ID);
+                    }
+                }
+                catch (ClassCastException e)
+                {
+                    msg = ProcessMessage.makeInvalid(e.toString());
+                }
+                return msg;
+            }
+        });
+        reval.register(ExeMessageType.startProcesses(), new Handler()
+        {
+            @Override
+            public ProcessMessage handle(ClientSession session,
+                                         ProcessMessage rcvdMsg)
             {
-                ServerLoop s = new ServerLoop(acceptedSocket, clientNumber);
-                map.put(clientNumber, s);
-                s.start();
-                clientNumber++;
+                return startAll(session, rcvdMsg.getObjects());
             }
+        });
+        Handler killer = new Handler()
+        {
+            @Override
+            public ProcessMessage handle(ClientSession session,
+                                         ProcessMessage rcvdMsg)
+            {
+                ArrayList<Boolean> killed = new ArrayList<>();
+                for (Object ID : rcvdMsg.getObjects())
+                {
+                    killed.add(kill(ID));
+                }
+                return ProcessMessage.makeAcknowledge(killed);
+            }
+        };
+        reval.register(ExeMessageType.killProcess(), killer);
+        reval.register(ExeMessageType.killProcesses(), killer);
+        reval.register(ExeMessageType.listProcesses(), new Handler()
+        {
+            @Override
+            public ProcessMessage handle(ClientSession session,
+                                         ProcessMessage rcvdMsg)
+            {
+                ArrayList objs = rcvdMsg.getObjects();
+                if (objs.isEmpty() || !(objs.get(0) instanceof Long))
+                {
+                    return new ProcessMessage<>(
+                           ExeMessageType.processList(),
+                           (ArrayList<ProcessInfo>) list());
+                }
+                PROCESS_TABLE.start();
+                ProcessTable.Delta delta = PROCESS_TABLE.getDelta(
+                                   (Long) objs.get(0));
+                return new ProcessMessage<Serializable>(
+                       ExeMessageType.processList(),
+                       delta.sequence,
+                       delta.full,
+                       delta.changed,
+                       delta.removed);
+            }
+        }, MAX_CONCURRENT_LISTINGS);
+        reval.register(ExeMessageType.processResources(), new Handler()
+        {
+            @Override
+            public ProcessMessage handle(ClientSession session,
+                                         ProcessMessage rcvdMsg)
+            {
+                ArrayList<ResourceSamples> samples = new ArrayList<>();
+                for (Object ID : rcvdMsg.getObjects())
+                {
+                    samples.add(ID instanceof String ?
+                                RESOURCES.getSamples((String) ID) :
+                                null);
+                }
+                return ProcessMessage.makeAcknowledge(samples);
+            }
+        });
+        reval.register(ExeMessageType.subscribe(), new Handler()
+        {
+            @Override
+            public ProcessMessage handle(ClientSession session,
+                                         ProcessMessage rcvdMsg)
+            {
+                STATE_CHANGES.subscribe(session, rcvdMsg.getObjects());
+                return ProcessMessage.makeAcknowledge();
+            }
+        });
+        reval.register(ExeMessageType.unsubscribe(), new Handler()
+        {
+            @Override
+            public ProcessMessage handle(ClientSession session,
+                                         ProcessMessage rcvdMsg)
+            {
+                STATE_CHANGES.unsubscribe(session, rcvdMsg.getObjects());
+                return ProcessMessage.makeAcknowledge();
+            }
+        });
+        reval.register(ExeMessageType.credit(), new Handler()
+        {
+            @Override
+            public ProcessMessage handle(ClientSession session,
+                                         ProcessMessage rcvdMsg)
+            {
+                ArrayList objs = rcvdMsg.getObjects();
+                int credits = objs.size() > 0 &&
+                              objs.get(0) instanceof Integer ?
+                              (Integer) objs.get(0) :
+                              0;
+                return ProcessMessage.makeAcknowledge(
+                       session.getFlowControl().grant(credits));
+            }
+        });
+        Handler unsupported = new Handler()
+        {
+            @Override
+            public ProcessMessage handle(ClientSession session,
+                                         ProcessMessage rcvdMsg)
+            {
+                return ProcessMessage.makeInvalid(rcvdMsg.getType() +
+                                                  " is not supported.");
+            }
+        };
+        reval.register(ExeMessageType.processList(), unsupported);
+        reval.register(ExeMessageType.restartProcess(), unsupported);
+        return reval;
+    }
+
+    private static ProcessMessage identify(ClientSession session,
+                                           ProcessMessage rcvdMsg)
+    {
+        ArrayList objs = rcvdMsg.getObjects();
+        logInfo(rcvdMsg.toString());
+        session.identify((String) objs.get(0), (Integer) objs.get(1));
+        logInfo("Connected to port {0} on {1}", objs.toArray());
+
+        // Send a welcome message to the client.
+        String welcome = "Hello client '" +
+                         session.getClientNumber() +
+                         "'. Received ID: " +
+                         ToString.make(objs) +
+                         ". You are connected to server at " +
+                         HOSTNAME;
+        if (objs.size() > 2)
+        {
+            // the client offers codecs: name the chosen one in the
+            // welcome, which is still sent with the old codec
+            ProcessMessageCodec codec = ProcessMessageCodec.negotiate(
+                                (String) objs.get(2));
+            session.setCodec(codec);
+            return new ProcessMessage(ExeMessageType.chitChat(),
+                                      welcome,
+                                      codec.name());
         }
-        for (Integer s : map.keySet())
+        return ProcessMessage.makeChitChat(welcome);
+    }
+
+    /**
+     * Retrieve the name of this host, which the scheduled processes to start
+     * here name as their target. The environment variable HOSTNAME is not
+     * exported by every shell, so the name is otherwise asked of the network
+     * layer.
+     *
+     * @return the host name, null if not known
+     */
+    static String hostName()
+    {
+        String reval = (String) SystemProperties.get("HOSTNAME");
+        if (reval == null)
         {
-            ServerLoop loop = map.remove(s);
-            loop.interrupt();
-            logInfo(loop.getName() + " interrupted and removed.");
+            try
+            {
+                reval = InetAddress.getLocalHost().getHostName();
+            }
+            catch (UnknownHostException ex)
+            {
+                LOGGER.log(Level.WARNING,
+                           "Cannot tell the host name: {0}",
+                           ex.toString());
+            }
         }
-        logInfo("Finished Server");
+        return reval;
     }
 
     /**
+     * Start a scheduled process if it is meant for this host and monitor it.
      *
-     * @return
+     * @param session the client that sent the instruction
+     * @param sp      the scheduled process
+     * @return the server ID of the started process, null if the process is
+     *         meant for another host
      */
-    public static List<ProcessInfo> list()
+    private static String start(ClientSession session, ScheduledProcess sp)
     {
-        List<ProcessInfo> processesList = JProcesses.getProcessList();
+        if (HOSTNAME == null || !HOSTNAME.equals(sp.getTargetMachine()))
+        {
+            return null;
+        }
+        String ID = "(" + processNumber.getAndIncrement() + ") " +
+                    session.getClientServerAddress() +
+                    ":" + session.getClientPort() + "-" +
+                    sp.getExeDefinition().getName();
+
+        ConcreteProcess ps = sp.start();
+        MONITORED_IDS.put(ps, ID);
+        monitoredProcesses.put(ID, ps);
+        ps.addStateChangeEventListener(SERVER);
+        if (!ps.isRunning())
+        {
+            // ended before the server listened to it
+            MONITORED_IDS.remove(ps);
+            monitoredProcesses.remove(ID);
+            ps.removeStateChangeEventListener(SERVER);
+        }
+        RESOURCES.watch(ID, ps);
+        return ID;
+    }
 
-        logInfo("in list: {0} processes running.", processesList.size());
-        return processesList;
+    /**
+     * Start a list of scheduled processes in parallel and answer with all
+     * their states at once. The acknowledgement carries the list of states
+     * and the list of server IDs in the order of the instruction; processes
+     * meant for another host or that cannot be started are reported with
+     * state StartFailed and a null ID.
+     *
+     * @param session the client that sent the instruction
+     * @param objs    the scheduled processes
+     * @return the acknowledgement
+     */
+    private static ProcessMessage startAll(final ClientSession session,
+                                           ArrayList objs)
+    {
+        List<Future<String>> launches = new ArrayList<>();
+        for (final Object obj : objs)
+        {
+            launches.add(LAUNCHER.submit(new Callable<String>()
+            {
+                @Override
+                public String call() throws Exception
+                {
+                    return start(session, (ScheduledProcess) obj);
+                }
+            }));
+        }
+        ArrayList<ConcreteProcess.State> states = new ArrayList<>();
+        ArrayList<String> IDs = new ArrayList<>();
+        for (int i = 0; i < objs.size(); i++)
+        {
+            String ID = null;
+            try
+            {
+                ID = launches.get(i).get();
+            }
+            catch (InterruptedException ex)
+            {
+                Thread.currentThread().interrupt();
+            }
+            catch (ExecutionException ex)
+            {
+                logError("Cannot start process {0}: {1}",
+                         i,
+                         ex.getCause().toString());
+            }
+            states.add(ID == null ?
+                       ConcreteProcess.State.StartFailed :
+                       ((ScheduledProcess) objs.get(i)).getProcess().getState());
+            IDs.add(ID);
+        }
+        return ProcessMessage.makeAcknowledge(states, IDs);
+    }
+
+    /**
+     * Kill a monitored process.
+     *
+     * @param ID the server ID of the process
+     * @return true if the process was found and killed, false otherwise
+     */
+    private static boolean kill(Object ID)
+    {
+        ConcreteProcess ps = ID instanceof String ?
+                             monitoredProcesses.get((String) ID) :
+                             null;
+        if (ps == null || !ps.isRunning())
+        {
+            return false;
+        }
+        try
+        {
+            ps.destroy();
+            // destroy() does not announce the Terminated state
+            ps.fireProcessStateEvent();
+            return true;
+        }
+        catch (RuntimeException ex)
+        {
+            logError("Cannot kill process {0}: {1}", ID, ex.toString());
+            return false;
+        }
+    }
+
+    /**
+     * Retrieve the processes running on this host, as of the last refresh of
+     * the process table.
+     *
+     * @return the processes
+     */
+    public static List<ProcessInfo> list()
+    {
+        PROCESS_TABLE.start();
+        return PROCESS_TABLE.getProcesses();
     }
 
     /**
@@ -162,197 +626,44 @@ public class ProcessServer
     public void processStateChanged(ConcreteProcess.StateEvent evt)
     {
         ConcreteProcess ps = (ConcreteProcess) evt.getSource();
-//        ps.state
+        ConcreteProcess.State state = ps.getState();
+        boolean ended = state != ConcreteProcess.State.NotStarted &&
+                        state != ConcreteProcess.State.Running;
+        String ID = ended ? MONITORED_IDS.remove(ps) : MONITORED_IDS.get(ps);
+        if (ID != null)
+        {
+            STATE_CHANGES.stateChanged(ID, state);
+        }
+        if (ended)
+        {
+            // the last state change the server is told of
+            ps.removeStateChangeEventListener(SERVER);
+            if (ID != null)
+            {
+                monitoredProcesses.remove(ID);
+            }
+        }
     }
 
     /**
-     * A private thread to handle the client requests on a particular socket.
-     * The client terminates the dialogue by sending a STOP-command.
+     * The ways the server can serve its clients.
      */
-    private static class ServerLoop extends Thread
+    public enum Mode
     {
 
-        ObjectOutputStream out = null;
-        ObjectInputStream in = null;
-        private int clientNumber = 0;
-        private Socket socket = null;
-        private String clientServerAddress = "";
-        private int clientPort = 0;
-
-        ServerLoop(Socket socket, int clientNumber) throws Exception
-        {
-            setName("'ServerLoop for client " + clientNumber + "'");
-            out = new ObjectOutputStream(socket.getOutputStream());
-            out.flush();
-            in = new ObjectInputStream(socket.getInputStream());
-
-            try
-            {
-                if (socket == null)
-                {
-                    throw new Exception("Socket cannot be null");
-                }
-                if (socket.isClosed())
-                {
-                    throw new Exception("Socket should not be closed but is!!");
-                }
-                this.socket = socket;
-                this.clientNumber = clientNumber;
-                // Expecting an Identification from the client
-                ProcessMessage idMsg = (ProcessMessage) in.readObject();
-                logInfo(idMsg.toString());
-                clientServerAddress = (String) idMsg.getObjects().get(0);
-                clientPort = (Integer) idMsg.getObjects().get(1);
-
-                // Send a welcome message to the client.
-                ProcessMessage msg = ProcessMessage.makeChitChat(
-                               "Hello client '" +
-                               clientNumber +
-                               "'. Received ID: " +
-                               ToString.make(idMsg.getObjects()) +
-                               ". You are connected to server at " +
-                               HOSTNAME);
-                out.writeObject(msg);
-                out.flush();
-
-            }
-            catch (IOException ex)
-            {
-                logError("in ServerSocket: " + ex.toString());
-            }
-        }
-
         /**
-         * Services this thread's client by first sending the client a welcome
-         * message then repeatedly reading commands and sending back the
-         * results.
+         * One thread per connected client.
          */
-        @Override
-        public void run()
-        {
-            try
-            {
-                ProcessMessage msg = new ProcessMessage(
-                               ExeMessageType.acknowledge());
-
-                while (keepRunning)
-                {
-                    logInfo("In While {0}", getName());
-                    // Get message object from the client
-                    Object readObj = in.readObject();
-                    if (readObj == null)
-                    {
-                        logInfo("the read object is invalid!!!");
-                        keepRunning = false;
-                        break;
-                    }
-
-                    ProcessMessage rcvdMsg = (ProcessMessage) readObj;
-                    ArrayList objs = rcvdMsg.getObjects();
-//                    if (rcvdMsg.isInstruction())
-                    {
-                        if (rcvdMsg.getType().equals(ExeMessageType.chitChat()))
-                        {
-                            logInfo(ToString.make(objs));
-                        }
-                        if (rcvdMsg.getType().equals(ExeMessageType.chitChat()))
-                        {
-                            logInfo("Bye, bye!");
-                            keepRunning = false;
-                            msg = ProcessMessage.makeAcknowledge();
-                        }
-                        if (rcvdMsg.getType().equals(ExeMessageType.identify()))
-                        {
-                            logInfo("Connected to port {0} on {1}",
-                                    objs.toArray());
-                        }
-                        if (rcvdMsg.getType().equals(ExeMessageType.
-                                startProcess()))
-                        {
-                            try
-                            {
-                                ScheduledProcess sp =
-                                                 (ScheduledProcess) objs.
-                                                 get(0);
-
-                                if (HOSTNAME.equals(sp.getTargetMachine()))
-                                {
-                                    String ID =
-                                           "(" + processNumber++ + ") " +
-                                           clientServerAddress +
-                                           ":" + clientPort + "-" +
-                                           sp.getExeDefinition().
-                                           getName();
-
-                                    ConcreteProcess ps = sp.start();
-                                    ps.addStateChangeEventListener(
-                                            (ConcreteProcess.StateEventListener) this);
-                                    msg = ProcessMessage.makeAcknowledge(
-                                    ps.state, "Server ID=" + ID);
-                                    monitoredProcesses.put(ID,
-                                                           sp.getProcess());
-                                }
-                            }
-                            catch (ClassCastException e)
-                            {
-                                msg = ProcessMessage.makeInvalid(
-                                e.toString());
-                            }
-                        }
-                        if (rcvdMsg.getType().equals(ExeMessageType.
-                                processList()))
-                        {
-                            logInfo("ProcessList:");
-                            System.exit(0);
-                        }
-                        if (rcvdMsg.getType().equals(
-                                ExeMessageType.listProcesses()))
-                        {
-                            msg = new ProcessMessage(
-                            ExeMessageType.processList(),
-                            (ArrayList<ProcessInfo>) list());
-                        }
-                        if (rcvdMsg.getType().equals(
-                                ExeMessageType.killProcess()))
-                        {
-                            System.exit(0);
-                        }
-                        if (rcvdMsg.getType().equals(
-                                ExeMessageType.restartProcess()))
-                        {
-                            System.exit(0);
-                        }
-                        out.writeObject(msg);
-                        out.flush();
-                    }
-
-                }
-            }
-            catch (IOException | ClassNotFoundException | ClassCastException e)
-            {
-                logError("Error handling client {0}: {1}",
-                         clientNumber,
-                         ToString.make(e.toString()));
-            }
-
-            finally
-            {
-                if (!keepRunning)
-                {
-                    interrupt();
-                }
-                try
-                {
-                    socket.shutdownInput();
-                    socket.shutdownOutput();
-                    socket.close();
-                }
-                catch (IOException e)
-                {
-                    logError("Couldn't close the socket: {0}", e.toString());
-                }
-            }
-        }
+        BLOCKING,
+        /**
+         * One virtual thread per connected client, or a bounded pool of
+         * platform threads where virtual threads are not available.
+         */
+        VIRTUAL_THREADS,
+        /**
+         * A fixed number of selector threads and workers for all clients.
+         */
+        SELECTOR
     }
 
 }
@@ -22,8 +22,12 @@ package com.kybelksties.process;
 import com.kybelksties.protocol.ProtocolException;
 import com.kybelksties.protocol.State;
 import java.util.logging.Logger;
+import org.openide.util.Exceptions;
 
 /**
+ * The states of the actors of the ProcessClientServerProtocol. There is
+ * exactly one instance per state, so that states can be compared by identity;
+ * each state has a small integer id.
  *
  * @author Dieter J Kybelksties
  */
@@ -40,112 +44,96 @@ public class ProcessState extends State
         Initial, Ready, SendingAck, SendingHeartbeat, Executing, Error;
     };
 
-    private static State initial = initial();
-    private static State ready = ready();
-    private static State sendingAck = sendingAck();
-    private static State sendingHeartbeat = sendingHeartbeat();
-    private static State executing = executing();
-    private static State error = error();
+    /**
+     * The number of process states, one more than the highest id.
+     */
+    public static final int COUNT = States.values().length;
+    private static final ProcessState[] INSTANCES = makeInstances();
 
-    private ProcessState(States state) throws ProtocolException
+    private static ProcessState[] makeInstances()
     {
-        super(state.name());
-    }
-
-    public static State initial()
-    {
-        if (initial == null)
+        ProcessState[] reval = new ProcessState[COUNT];
+        for (States state : States.values())
         {
             try
             {
-                initial = new ProcessState(States.Initial);
+                reval[state.ordinal()] = new ProcessState(state);
             }
             catch (ProtocolException ex)
             {
-
+                Exceptions.printStackTrace(ex);
             }
         }
-        return initial;
+        return reval;
     }
 
-    public static State ready()
+    private final States state;
+
+    private ProcessState(States state) throws ProtocolException
     {
-        if (ready == null)
-        {
-            try
-            {
-                ready = new ProcessState(States.Ready);
-            }
-            catch (ProtocolException ex)
-            {
+        super(state.name());
+        this.state = state;
+    }
 
-            }
-        }
-        return ready;
+    /**
+     * Replace a deserialized state by the single instance.
+     *
+     * @return the single instance of the state
+     */
+    private Object readResolve()
+    {
+        return INSTANCES[state.ordinal()];
     }
 
-    static State error()
+    /**
+     * Retrieve the id of the state, a small integer to index tables with.
+     *
+     * @return the id, between 0 and COUNT - 1
+     */
+    public int getId()
     {
-        if (error == null)
-        {
-            try
-            {
-                error = new ProcessState(States.Error);
-            }
-            catch (ProtocolException ex)
-            {
+        return state.ordinal();
+    }
 
-            }
-        }
-        return error;
+    /**
+     * Retrieve the state for an id.
+     *
+     * @param id the id of the state
+     * @return the state, null if there is no state with that id
+     */
+    public static State valueOf(int id)
+    {
+        return id >= 0 && id < COUNT ? INSTANCES[id] : null;
     }
 
-    public static State sendingAck()
+    public static State initial()
     {
-        if (sendingAck == null)
-        {
-            try
-            {
-                sendingAck = new ProcessState(States.SendingAck);
-            }
-            catch (ProtocolException ex)
-            {
+        return INSTANCES[States.Initial.ordinal()];
+    }
 
-            }
-        }
-        return sendingAck;
+    public static State ready()
+    {
+        return INSTANCES[States.Ready.ordinal()];
     }
 
-    public static State sendingHeartbeat()
+    static State error()
     {
-        if (sendingHeartbeat == null)
-        {
-            try
-            {
-                sendingHeartbeat = new ProcessState(States.SendingHeartbeat);
-            }
-            catch (ProtocolException ex)
-            {
+        return INSTANCES[States.Error.ordinal()];
+    }
 
-            }
-        }
-        return sendingHeartbeat;
+    public static State sendingAck()
+    {
+        return INSTANCES[States.SendingAck.ordinal()];
     }
 
-    public static State executing()
+    public static State sendingHeartbeat()
     {
-        if (executing == null)
-        {
-            try
-            {
-                executing = new ProcessState(States.Executing);
-            }
-            catch (ProtocolException ex)
-            {
+        return INSTANCES[States.SendingHeartbeat.ordinal()];
+    }
 
-            }
-        }
-        return executing;
+    public static State executing()
+    {
+        return INSTANCES[States.Executing.ordinal()];
     }
 
 }
@@ -0,0 +1,522 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jutils.jprocesses.JProcesses;
+import org.jutils.jprocesses.model.ProcessInfo;
+
+/**
+ * A cached table of the processes running on this host. A single background
+ * sampler refreshes the table at a fixed interval, so that any number of
+ * clients can list the processes as often as they like without each request
+ * forking a "ps". On Linux the sampler reads /proc directly and only reads
+ * the command line and owner of processes it has not seen before; elsewhere
+ * it falls back to JProcesses.
+ * <p>
+ * Each refresh that changes the table increments its sequence number and
+ * records what changed, so that a client that knows an earlier sequence
+ * number can be sent only the processes that have changed or gone since.
+ *
+ * @author Dieter J Kybelksties
+ */
+class ProcessTable
+{
+
+    private static final Class CLAZZ = ProcessTable.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    /**
+     * Default interval between two refreshes in milliseconds.
+     */
+    static final long DEFAULT_REFRESH_MILLIS = 1000L;
+    /**
+     * Number of refreshes whose changes are kept for deltas.
+     */
+    static final int DELTA_HISTORY = 64;
+
+    private static final File PROC = new File("/proc");
+    // USER_HZ, the unit of the times in /proc/<pid>/stat on all platforms
+    private static final long CLOCK_TICKS_PER_SECOND = 100L;
+    private static final long PAGE_KILOBYTES = 4L;
+
+    private final long refreshMillis;
+    private final boolean useProc;
+    private final Object sampleLock = new Object();
+    // guarded by sampleLock
+    private final Map<String, Sample> samples = new HashMap<>();
+    private long lastSampleNanos = 0L;
+    private long bootMillis = -1L;
+    // guarded by this
+    private final ArrayDeque<Delta> history = new ArrayDeque<>();
+    private Map<String, ProcessInfo> processes = new LinkedHashMap<>();
+    private long sequence = 0L;
+    private ScheduledExecutorService sampler = null;
+
+    /**
+     * Construct a table that is refreshed at the given interval once started.
+     *
+     * @param refreshMillis the interval between two refreshes in milliseconds
+     */
+    ProcessTable(long refreshMillis)
+    {
+        this(refreshMillis, new File(PROC, "self/stat").canRead());
+    }
+
+    /**
+     * Construct a table.
+     *
+     * @param refreshMillis the interval between two refreshes in milliseconds
+     * @param useProc       whether to read /proc rather than use JProcesses
+     */
+    ProcessTable(long refreshMillis, boolean useProc)
+    {
+        this.refreshMillis = Math.max(1L, refreshMillis);
+        this.useProc = useProc;
+    }
+
+    /**
+     * Fill the table and start the background sampler, unless already done.
+     */
+    void start()
+    {
+        synchronized (this)
+        {
+            if (sampler != null)
+            {
+                return;
+            }
+            sampler = Executors.newSingleThreadScheduledExecutor(
+            new NamedThreadFactory("ProcessTable-", true));
+        }
+        refresh();
+        sampler.scheduleWithFixedDelay(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                refresh();
+            }
+        }, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop the background sampler. The table keeps its last content.
+     */
+    synchronized void stop()
+    {
+        if (sampler != null)
+        {
+            sampler.shutdownNow();
+            sampler = null;
+        }
+    }
+
+    /**
+     * Retrieve the sequence number of the current content.
+     *
+     * @return the sequence number, 0 before the first refresh
+     */
+    synchronized long getSequence()
+    {
+        return sequence;
+    }
+
+    /**
+     * Retrieve the processes as of the last refresh.
+     *
+     * @return a new list of the processes
+     */
+    synchronized ArrayList<ProcessInfo> getProcesses()
+    {
+        return new ArrayList<>(processes.values());
+    }
+
+    /**
+     * Retrieve what has changed since a sequence number. If the changes since
+     * then are no longer known, or the sequence number is negative, the delta
+     * is the full table.
+     *
+     * @param since the sequence number the client has seen last
+     * @return the changes from that sequence number to the current one
+     */
+    synchronized Delta getDelta(long since)
+    {
+        if (since == sequence)
+        {
+            return new Delta(sequence,
+                             false,
+                             new ArrayList<ProcessInfo>(),
+                             new ArrayList<String>());
+        }
+        if (since < 0 ||
+            since > sequence ||
+            history.isEmpty() ||
+            history.peekFirst().sequence > since + 1)
+        {
+            return new Delta(sequence,
+                             true,
+                             new ArrayList<>(processes.values()),
+                             new ArrayList<String>());
+        }
+        Map<String, ProcessInfo> changed = new LinkedHashMap<>();
+        Set<String> removed = new HashSet<>();
+        for (Delta delta : history)
+        {
+            if (delta.sequence <= since)
+            {
+                continue;
+            }
+            for (String pid : delta.removed)
+            {
+                changed.remove(pid);
+                removed.add(pid);
+            }
+            for (ProcessInfo info : delta.changed)
+            {
+                removed.remove(info.getPid());
+                changed.put(info.getPid(), info);
+            }
+        }
+        return new Delta(sequence,
+                         false,
+                         new ArrayList<>(changed.values()),
+                         new ArrayList<>(removed));
+    }
+
+    /**
+     * Sample the processes once and record the changes. Called by the
+     * sampler; tests may call it directly.
+     */
+    void refresh()
+    {
+        synchronized (sampleLock)
+        {
+            try
+            {
+                publish(useProc ? readProc() : readJProcesses());
+            }
+            catch (RuntimeException ex)
+            {
+                LOGGER.log(Level.WARNING,
+                           "Cannot sample processes: {0}",
+                           ex.toString());
+            }
+        }
+    }
+
+    private void publish(Map<String, ProcessInfo> current)
+    {
+        synchronized (this)
+        {
+            ArrayList<ProcessInfo> changed = new ArrayList<>();
+            ArrayList<String> removed = new ArrayList<>();
+            for (ProcessInfo info : current.values())
+            {
+                if (!same(info, processes.get(info.getPid())))
+                {
+                    changed.add(info);
+                }
+            }
+            for (String pid : processes.keySet())
+            {
+                if (!current.containsKey(pid))
+                {
+                    removed.add(pid);
+                }
+            }
+            processes = current;
+            if (!changed.isEmpty() || !removed.isEmpty())
+            {
+                sequence++;
+                history.addLast(new Delta(sequence, false, changed, removed));
+                while (history.size() > DELTA_HISTORY)
+                {
+                    history.removeFirst();
+                }
+            }
+        }
+    }
+
+    private static boolean same(ProcessInfo info, ProcessInfo other)
+    {
+        return other != null &&
+               Objects.equals(info.getName(), other.getName()) &&
+               Objects.equals(info.getCommand(), other.getCommand()) &&
+               Objects.equals(info.getUser(), other.getUser()) &&
+               Objects.equals(info.getCpuUsage(), other.getCpuUsage()) &&
+               Objects.equals(info.getPhysicalMemory(),
+                              other.getPhysicalMemory()) &&
+               Objects.equals(info.getVirtualMemory(),
+                              other.getVirtualMemory()) &&
+               Objects.equals(info.getTime(), other.getTime()) &&
+               Objects.equals(info.getPriority(), other.getPriority());
+    }
+
+    private static Map<String, ProcessInfo> readJProcesses()
+    {
+        Map<String, ProcessInfo> reval = new LinkedHashMap<>();
+        for (ProcessInfo info : JProcesses.getProcessList())
+        {
+            reval.put(info.getPid(), info);
+        }
+        return reval;
+    }
+
+    /**
+     * Read all processes from /proc. Only called holding the sample lock.
+     */
+    private Map<String, ProcessInfo> readProc()
+    {
+        long now = System.nanoTime();
+        double elapsedSeconds = lastSampleNanos == 0L ?
+                                0.0 :
+                                (now - lastSampleNanos) / 1.0e9;
+        lastSampleNanos = now;
+        if (bootMillis < 0)
+        {
+            bootMillis = readBootMillis();
+        }
+        Map<String, ProcessInfo> reval = new LinkedHashMap<>();
+        String[] pids = PROC.list();
+        if (pids == null)
+        {
+            return reval;
+        }
+        for (String pid : pids)
+        {
+            if (!isNumber(pid))
+            {
+                continue;
+            }
+            String stat = readFile(new File(PROC, pid + "/stat"));
+            int endOfName = stat == null ? -1 : stat.lastIndexOf(')');
+            if (endOfName < 0)
+            {
+                // the process has gone since the directory was listed
+                continue;
+            }
+            String name = stat.substring(stat.indexOf('(') + 1, endOfName);
+            String[] fields = stat.substring(endOfName + 2).split(" ");
+            // fields[0] is field 3 of proc(5): the state
+            long cpuTicks = Long.parseLong(fields[11]) +
+                            Long.parseLong(fields[12]);
+            long startTicks = Long.parseLong(fields[19]);
+
+            Sample sample = samples.get(pid);
+            if (sample == null || sample.startTicks != startTicks)
+            {
+                sample = new Sample(startTicks, cpuTicks);
+                sample.command = readCommand(pid, name);
+                sample.user = readUser(pid);
+                samples.put(pid, sample);
+            }
+            double cpu = elapsedSeconds <= 0.0 ?
+                         0.0 :
+                         100.0 * (cpuTicks - sample.cpuTicks) /
+                         CLOCK_TICKS_PER_SECOND /
+                         elapsedSeconds;
+            sample.cpuTicks = cpuTicks;
+            sample.seen = now;
+
+            ProcessInfo info = new ProcessInfo();
+            info.setPid(pid);
+            info.setName(name);
+            info.setCommand(sample.command);
+            info.setUser(sample.user);
+            info.setCpuUsage(String.format("%.1f", cpu));
+            info.setPhysicalMemory(String.valueOf(
+                    Long.parseLong(fields[21]) * PAGE_KILOBYTES));
+            info.setVirtualMemory(String.valueOf(
+                    Long.parseLong(fields[20]) / 1024L));
+            info.setPriority(fields[15]);
+            info.setTime(formatCpuTime(cpuTicks / CLOCK_TICKS_PER_SECOND));
+            info.setStartTime(bootMillis < 0 ?
+                              "" :
+                              new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").
+                              format(new Date(bootMillis +
+                                              startTicks * 1000L /
+                                              CLOCK_TICKS_PER_SECOND)));
+            reval.put(pid, info);
+        }
+        // forget the processes that have gone
+        for (Iterator<Sample> it = samples.values().iterator();
+             it.hasNext();)
+        {
+            if (it.next().seen != now)
+            {
+                it.remove();
+            }
+        }
+        return reval;
+    }
+
+    private static boolean isNumber(String name)
+    {
+        for (int i = 0; i < name.length(); i++)
+        {
+            if (!Character.isDigit(name.charAt(i)))
+            {
+                return false;
+            }
+        }
+        return !name.isEmpty();
+    }
+
+    private static String readCommand(String pid, String name)
+    {
+        String cmdline = readFile(new File(PROC, pid + "/cmdline"));
+        // kernel threads have no command line
+        return cmdline == null || cmdline.isEmpty() ?
+               "[" + name + "]" :
+               cmdline.replace('\0', ' ').trim();
+    }
+
+    private static String readUser(String pid)
+    {
+        try
+        {
+            return Files.getOwner(Paths.get(PROC.getPath(), pid)).getName();
+        }
+        catch (IOException | UnsupportedOperationException ex)
+        {
+            return "";
+        }
+    }
+
+    private static long readBootMillis()
+    {
+        String stat = readFile(new File(PROC, "stat"));
+        if (stat != null)
+        {
+            for (String line : stat.split("\n"))
+            {
+                if (line.startsWith("btime "))
+                {
+                    return Long.parseLong(line.substring(6).trim()) * 1000L;
+                }
+            }
+        }
+        return -1L;
+    }
+
+    private static String formatCpuTime(long seconds)
+    {
+        return String.format("%d:%02d:%02d",
+                             seconds / 3600,
+                             seconds / 60 % 60,
+                             seconds % 60);
+    }
+
+    /**
+     * Read a small file of /proc in one go.
+     *
+     * @param file the file
+     * @return the content, null if it cannot be read
+     */
+    static String readFile(File file)
+    {
+        byte[] buffer = new byte[4096];
+        int length = 0;
+        try (InputStream in = new FileInputStream(file))
+        {
+            int read;
+            while ((read = in.read(buffer, length, buffer.length - length)) > 0)
+            {
+                length += read;
+                if (length == buffer.length)
+                {
+                    buffer = Arrays.copyOf(buffer, 2 * length);
+                }
+            }
+        }
+        catch (IOException ex)
+        {
+            return null;
+        }
+        return new String(buffer, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * What is known about a process between two refreshes.
+     */
+    private static final class Sample
+    {
+
+        private final long startTicks;
+        private long cpuTicks;
+        private long seen = 0L;
+        private String command = "";
+        private String user = "";
+
+        Sample(long startTicks, long cpuTicks)
+        {
+            this.startTicks = startTicks;
+            this.cpuTicks = cpuTicks;
+        }
+    }
+
+    /**
+     * The changes of the table between two sequence numbers.
+     */
+    static final class Delta
+    {
+
+        final long sequence;
+        final boolean full;
+        final ArrayList<ProcessInfo> changed;
+        final ArrayList<String> removed;
+
+        Delta(long sequence,
+              boolean full,
+              ArrayList<ProcessInfo> changed,
+              ArrayList<String> removed)
+        {
+            this.sequence = sequence;
+            this.full = full;
+            this.changed = changed;
+            this.removed = removed;
+        }
+    }
+}
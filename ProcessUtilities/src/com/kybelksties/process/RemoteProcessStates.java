@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Follows the states of processes started on a server through the state
+ * changes the server pushes, so that a scheduled process launched remotely
+ * reaches its final state on the client too. The ProcessLaunchScheduler needs
+ * this to launch the processes that depend on the end of a remote one.
+ * <p>
+ * One instance follows the processes started through one client. Each launch
+ * first subscribes the client to the state changes of all processes of the
+ * server - the server ID of a process is only known from the acknowledgement
+ * of its start instruction - and then sends the start instruction, so that
+ * the server records the changes from the start. A push that overtakes the
+ * acknowledgement is kept until the process is known.
+ *
+ * @author Dieter J Kybelksties
+ */
+final class RemoteProcessStates implements ProcessClient.PushListener
+{
+
+    private static final Class CLAZZ = RemoteProcessStates.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    /**
+     * The number of states of processes not (yet) followed that are kept.
+     */
+    static final int MAX_UNKNOWN = 1024;
+
+    // the instances do not refer to their clients, so closed clients go
+    private static final Map<ProcessClient, RemoteProcessStates> FOLLOWERS =
+            new WeakHashMap<>();
+
+    private final Map<String, ScheduledProcess> followed = new HashMap<>();
+    // the latest states of processes not followed, oldest dropped first
+    private final Map<String, ConcreteProcess.State> unknown =
+            new LinkedHashMap<String, ConcreteProcess.State>()
+    {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(
+                Map.Entry<String, ConcreteProcess.State> eldest)
+        {
+            return size() > MAX_UNKNOWN;
+        }
+    };
+
+    private RemoteProcessStates()
+    {
+    }
+
+    /**
+     * Send the start instruction of a scheduled process to its server and
+     * follow the process' state until it ends.
+     *
+     * @param schedProc the scheduled process
+     * @throws IOException            if the server cannot be reached
+     * @throws ClassNotFoundException if the server's welcome message cannot
+     *                                be de-serialised
+     */
+    static void launch(final ScheduledProcess schedProc)
+            throws IOException, ClassNotFoundException
+    {
+        ProcessClient client = ProcessClientPool.get(
+                      schedProc.getConnectionInfo());
+        final RemoteProcessStates states = of(client);
+        // renewed with every launch, as a reconnected client starts afresh
+        client.sendAsync(ProcessMessage.makeSubscribe(new ArrayList<String>()));
+        schedProc.sendStartInstructionAsync().addListener(
+                new ResponseFuture.Listener()
+        {
+            @Override
+            public void responseReceived(ProcessMessage response)
+            {
+                // the instruction's own listener has set state and server ID
+                states.follow(schedProc);
+            }
+
+            @Override
+            public void requestFailed(Throwable reason)
+            {
+                // reported as StartFailed by the instruction's own listener
+            }
+        });
+    }
+
+    private static RemoteProcessStates of(ProcessClient client)
+    {
+        synchronized (FOLLOWERS)
+        {
+            RemoteProcessStates reval = FOLLOWERS.get(client);
+            if (reval == null)
+            {
+                reval = new RemoteProcessStates();
+                client.addPushListener(reval);
+                FOLLOWERS.put(client, reval);
+            }
+            return reval;
+        }
+    }
+
+    private static boolean isFinal(ConcreteProcess.State state)
+    {
+        return state != ConcreteProcess.State.NotStarted &&
+               state != ConcreteProcess.State.Running;
+    }
+
+    private void follow(ScheduledProcess schedProc)
+    {
+        String serverId = schedProc.getServerId();
+        if (serverId == null ||
+            schedProc.getProcess().getState() != ConcreteProcess.State.Running)
+        {
+            return;
+        }
+        ConcreteProcess.State early;
+        synchronized (this)
+        {
+            early = unknown.remove(serverId);
+            if (early == null || !isFinal(early))
+            {
+                followed.put(serverId, schedProc);
+            }
+        }
+        if (early != null)
+        {
+            schedProc.getProcess().setState(early);
+        }
+    }
+
+    @Override
+    public void messagePushed(ProcessMessage message)
+    {
+        List objs = message.getObjects();
+        if (objs == null ||
+            objs.size() < 2 ||
+            !(objs.get(0) instanceof List) ||
+            !(objs.get(1) instanceof List))
+        {
+            return;
+        }
+        List serverIds = (List) objs.get(0);
+        List newStates = (List) objs.get(1);
+        List<ScheduledProcess> changed = new ArrayList<>();
+        List<ConcreteProcess.State> states = new ArrayList<>();
+        synchronized (this)
+        {
+            for (int i = 0;
+                 i < Math.min(serverIds.size(), newStates.size());
+                 i++)
+            {
+                if (!(serverIds.get(i) instanceof String) ||
+                    !(newStates.get(i) instanceof ConcreteProcess.State))
+                {
+                    continue;
+                }
+                String serverId = (String) serverIds.get(i);
+                ConcreteProcess.State state =
+                                      (ConcreteProcess.State) newStates.get(i);
+                ScheduledProcess schedProc = isFinal(state) ?
+                                             followed.remove(serverId) :
+                                             followed.get(serverId);
+                if (schedProc == null)
+                {
+                    unknown.put(serverId, state);
+                }
+                else
+                {
+                    changed.add(schedProc);
+                    states.add(state);
+                }
+            }
+        }
+        // set outside the lock: listeners may launch further processes
+        for (int i = 0; i < changed.size(); i++)
+        {
+            changed.get(i).getProcess().setState(states.get(i));
+        }
+    }
+}
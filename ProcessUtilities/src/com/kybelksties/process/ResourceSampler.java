@@ -0,0 +1,325 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Samples the resource use of the processes started by the server from
+ * /proc/&lt;pid&gt;. A single thread reads all watched processes in one pass
+ * per interval and appends to one ResourceSamples buffer per process. A
+ * process is sampled until it has exited; its samples are kept until it is
+ * no longer watched, or until it has been finished for the retention time
+ * or more than the maximum number of finished processes are kept, whichever
+ * comes first. Where there is no /proc nothing is sampled.
+ *
+ * @author Dieter J Kybelksties
+ */
+class ResourceSampler
+{
+
+    private static final Class CLAZZ = ResourceSampler.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    /**
+     * Default interval between two passes in milliseconds.
+     */
+    static final long DEFAULT_INTERVAL_MILLIS = 1000L;
+    /**
+     * Default number of samples kept per process.
+     */
+    static final int DEFAULT_CAPACITY = 600;
+    /**
+     * Default time in milliseconds the samples of a finished process are
+     * kept. Configured by the system property
+     * "com.kybelksties.process.ResourceSampler.retentionMillis", defaults to
+     * 10 minutes.
+     */
+    static final long DEFAULT_RETENTION_MILLIS =
+                      Long.getLong(CLASS_NAME + ".retentionMillis",
+                                   10L * 60L * 1000L);
+    /**
+     * Default number of finished processes whose samples are kept. Configured
+     * by the system property
+     * "com.kybelksties.process.ResourceSampler.maxFinished", defaults to 256.
+     */
+    static final int DEFAULT_MAX_FINISHED =
+                     Integer.getInteger(CLASS_NAME + ".maxFinished", 256);
+
+    private static final File PROC = new File("/proc");
+    // USER_HZ, the unit of the times in /proc/<pid>/stat on all platforms
+    private static final long CLOCK_TICKS_PER_SECOND = 100L;
+    private static final long PAGE_KILOBYTES = 4L;
+
+    private final long intervalMillis;
+    private final int capacity;
+    private final long retentionMillis;
+    private final int maxFinished;
+    private final ConcurrentMap<String, Watched> watched =
+                                                 new ConcurrentHashMap<>();
+    // the IDs of the finished processes, in the order they were found so
+    private final Queue<String> finished = new ConcurrentLinkedQueue<>();
+    private ScheduledExecutorService sampler = null;
+
+    /**
+     * Construct a sampler.
+     *
+     * @param intervalMillis the interval between two passes in milliseconds
+     * @param capacity       the number of samples kept per process
+     */
+    ResourceSampler(long intervalMillis, int capacity)
+    {
+        this(intervalMillis,
+             capacity,
+             DEFAULT_RETENTION_MILLIS,
+             DEFAULT_MAX_FINISHED);
+    }
+
+    /**
+     * Construct a sampler with limits on the samples kept of finished
+     * processes.
+     *
+     * @param intervalMillis  the interval between two passes in milliseconds
+     * @param capacity        the number of samples kept per process
+     * @param retentionMillis how long the samples of a finished process are
+     *                        kept
+     * @param maxFinished     the number of finished processes whose samples
+     *                        are kept
+     */
+    ResourceSampler(long intervalMillis,
+                    int capacity,
+                    long retentionMillis,
+                    int maxFinished)
+    {
+        this.intervalMillis = Math.max(1L, intervalMillis);
+        this.capacity = capacity;
+        this.retentionMillis = Math.max(0L, retentionMillis);
+        this.maxFinished = Math.max(0, maxFinished);
+    }
+
+    /**
+     * Start sampling a process. The sampling thread is started on the first
+     * call.
+     *
+     * @param id      the server ID of the process
+     * @param process the started process
+     */
+    void watch(String id, ConcreteProcess process)
+    {
+        long pid = process.getPid();
+        if (pid < 0 || !PROC.isDirectory())
+        {
+            return;
+        }
+        watched.put(id, new Watched(process, pid, capacity));
+        synchronized (this)
+        {
+            if (sampler == null)
+            {
+                sampler = Executors.newSingleThreadScheduledExecutor(
+                new NamedThreadFactory("ResourceSampler-", true));
+                sampler.scheduleWithFixedDelay(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        sample();
+                    }
+                }, 0L, intervalMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Stop sampling a process and drop its samples.
+     *
+     * @param id the server ID of the process
+     */
+    void unwatch(String id)
+    {
+        watched.remove(id);
+    }
+
+    /**
+     * Retrieve a copy of the samples of a process.
+     *
+     * @param id the server ID of the process
+     * @return the samples, oldest first, null if the process is not watched
+     */
+    ResourceSamples getSamples(String id)
+    {
+        Watched process = watched.get(id);
+        return process == null ? null : process.samples.snapshot();
+    }
+
+    /**
+     * Stop the sampling thread.
+     */
+    synchronized void stop()
+    {
+        if (sampler != null)
+        {
+            sampler.shutdownNow();
+            sampler = null;
+        }
+    }
+
+    /**
+     * Take one sample of every watched process that is still running and
+     * drop the samples of finished processes that are no longer kept.
+     */
+    void sample()
+    {
+        long now = System.currentTimeMillis();
+        long nanos = System.nanoTime();
+        for (Map.Entry<String, Watched> entry : watched.entrySet())
+        {
+            Watched process = entry.getValue();
+            if (process.finished)
+            {
+                continue;
+            }
+            boolean running;
+            try
+            {
+                running = sample(process, now, nanos);
+            }
+            catch (RuntimeException ex)
+            {
+                LOGGER.log(Level.WARNING,
+                           "Cannot sample process {0}: {1}",
+                           new Object[]
+                           {
+                               process.pid, ex.toString()
+                           });
+                running = false;
+            }
+            if (!running)
+            {
+                process.finished = true;
+                process.finishedMillis = now;
+                finished.add(entry.getKey());
+            }
+        }
+        evictFinished(now);
+    }
+
+    private void evictFinished(long now)
+    {
+        String id;
+        while ((id = finished.peek()) != null)
+        {
+            Watched process = watched.get(id);
+            if (process != null &&
+                finished.size() <= maxFinished &&
+                now - process.finishedMillis < retentionMillis)
+            {
+                return;
+            }
+            finished.poll();
+            if (process != null)
+            {
+                watched.remove(id, process);
+            }
+        }
+    }
+
+    private static boolean sample(Watched process, long now, long nanos)
+    {
+        if (!process.process.isRunning())
+        {
+            return false;
+        }
+        String stat = ProcessTable.readFile(new File(PROC,
+                                                     process.pid + "/stat"));
+        int endOfName = stat == null ? -1 : stat.lastIndexOf(')');
+        if (endOfName < 0)
+        {
+            return false;
+        }
+        String[] fields = stat.substring(endOfName + 2).split(" ");
+        // fields[0] is field 3 of proc(5): the state
+        long cpuTicks = Long.parseLong(fields[11]) + Long.parseLong(fields[12]);
+        int threadCount = Integer.parseInt(fields[17]);
+        long rss = Long.parseLong(fields[21]) * PAGE_KILOBYTES;
+
+        long bytesRead = -1L;
+        long bytesWritten = -1L;
+        // only readable for processes of the same user
+        String io = ProcessTable.readFile(new File(PROC, process.pid + "/io"));
+        if (io != null)
+        {
+            for (String line : io.split("\\n"))
+            {
+                if (line.startsWith("read_bytes:"))
+                {
+                    bytesRead = Long.parseLong(line.substring(11).trim());
+                }
+                else if (line.startsWith("write_bytes:"))
+                {
+                    bytesWritten = Long.parseLong(line.substring(12).trim());
+                }
+            }
+        }
+
+        float cpu = 0.0f;
+        if (process.lastNanos != 0L && nanos > process.lastNanos)
+        {
+            cpu = (float) (100.0 * (cpuTicks - process.lastCpuTicks) /
+                           CLOCK_TICKS_PER_SECOND /
+                           ((nanos - process.lastNanos) / 1.0e9));
+        }
+        process.lastCpuTicks = cpuTicks;
+        process.lastNanos = nanos;
+        process.samples.add(now, cpu, rss, threadCount, bytesRead, bytesWritten);
+        return true;
+    }
+
+    private static final class Watched
+    {
+
+        private final ConcreteProcess process;
+        private final long pid;
+        private final ResourceSamples samples;
+        // only used by the sampling thread
+        private long lastCpuTicks = 0L;
+        private long lastNanos = 0L;
+        private boolean finished = false;
+        private long finishedMillis = 0L;
+
+        Watched(ConcreteProcess process, long pid, int capacity)
+        {
+            this.process = process;
+            this.pid = pid;
+            this.samples = new ResourceSamples(capacity);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import java.io.Serializable;
+import java.util.logging.Logger;
+
+/**
+ * A time series of the resource use of a process: CPU, resident memory,
+ * number of threads and I/O. A fixed number of the most recent samples is
+ * kept, older ones being overwritten. The samples are held in one primitive
+ * array per measure, so that sampling many processes does not create any
+ * objects.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class ResourceSamples implements Serializable
+{
+
+    private static final Class CLAZZ = ResourceSamples.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+    private static final long serialVersionUID = 4715082946633829171L;
+
+    private final long[] times;
+    private final float[] cpuPercent;
+    private final long[] rssKilobytes;
+    private final int[] threads;
+    private final long[] readBytes;
+    private final long[] writeBytes;
+    private int oldest = 0;
+    private int size = 0;
+    private long totalAdded = 0L;
+
+    /**
+     * Construct with a capacity.
+     *
+     * @param capacity the maximal number of samples kept
+     */
+    public ResourceSamples(int capacity)
+    {
+        if (capacity <= 0)
+        {
+            throw new IllegalArgumentException(
+                    "Capacity must be positive but is " + capacity);
+        }
+        times = new long[capacity];
+        cpuPercent = new float[capacity];
+        rssKilobytes = new long[capacity];
+        threads = new int[capacity];
+        readBytes = new long[capacity];
+        writeBytes = new long[capacity];
+    }
+
+    /**
+     * Retrieve the capacity.
+     *
+     * @return the maximal number of samples kept
+     */
+    public int getCapacity()
+    {
+        return times.length;
+    }
+
+    /**
+     * Append a sample, overwriting the oldest one if the buffer is full.
+     *
+     * @param time         the time of the sample in milliseconds since the
+     *                     epoch
+     * @param cpu          the CPU use since the previous sample in percent of
+     *                     one processor
+     * @param rss          the resident memory in kilobytes
+     * @param threadCount  the number of threads
+     * @param bytesRead    the bytes read from storage so far, -1 if unknown
+     * @param bytesWritten the bytes written to storage so far, -1 if unknown
+     */
+    public synchronized void add(long time,
+                                 float cpu,
+                                 long rss,
+                                 int threadCount,
+                                 long bytesRead,
+                                 long bytesWritten)
+    {
+        int capacity = times.length;
+        int index = (oldest + size) % capacity;
+        times[index] = time;
+        cpuPercent[index] = cpu;
+        rssKilobytes[index] = rss;
+        threads[index] = threadCount;
+        readBytes[index] = bytesRead;
+        writeBytes[index] = bytesWritten;
+        if (size < capacity)
+        {
+            size++;
+        }
+        else
+        {
+            oldest = (oldest + 1) % capacity;
+        }
+        totalAdded++;
+    }
+
+    /**
+     * Retrieve the number of samples kept.
+     *
+     * @return the number of samples, at most the capacity
+     */
+    public synchronized int size()
+    {
+        return size;
+    }
+
+    /**
+     * Retrieve the number of samples ever added.
+     *
+     * @return the number of samples added, including those overwritten
+     */
+    public synchronized long getTotalAdded()
+    {
+        return totalAdded;
+    }
+
+    /**
+     * Copy the samples kept, oldest first, into a buffer that is exactly as
+     * large as needed.
+     *
+     * @return the copy
+     */
+    public synchronized ResourceSamples snapshot()
+    {
+        ResourceSamples reval = new ResourceSamples(Math.max(1, size));
+        for (int i = 0; i < size; i++)
+        {
+            int index = (oldest + i) % times.length;
+            reval.add(times[index],
+                      cpuPercent[index],
+                      rssKilobytes[index],
+                      threads[index],
+                      readBytes[index],
+                      writeBytes[index]);
+        }
+        reval.totalAdded = totalAdded;
+        return reval;
+    }
+
+    /**
+     * Retrieve the time of a sample.
+     *
+     * @param i the number of the sample, 0 being the oldest kept
+     * @return the time in milliseconds since the epoch
+     */
+    public synchronized long getTime(int i)
+    {
+        return times[index(i)];
+    }
+
+    /**
+     * Retrieve the CPU use of a sample.
+     *
+     * @param i the number of the sample, 0 being the oldest kept
+     * @return the CPU use in percent of one processor
+     */
+    public synchronized float getCpuPercent(int i)
+    {
+        return cpuPercent[index(i)];
+    }
+
+    /**
+     * Retrieve the resident memory of a sample.
+     *
+     * @param i the number of the sample, 0 being the oldest kept
+     * @return the resident memory in kilobytes
+     */
+    public synchronized long getRssKilobytes(int i)
+    {
+        return rssKilobytes[index(i)];
+    }
+
+    /**
+     * Retrieve the number of threads of a sample.
+     *
+     * @param i the number of the sample, 0 being the oldest kept
+     * @return the number of threads
+     */
+    public synchronized int getThreads(int i)
+    {
+        return threads[index(i)];
+    }
+
+    /**
+     * Retrieve the bytes read as of a sample.
+     *
+     * @param i the number of the sample, 0 being the oldest kept
+     * @return the bytes read from storage so far, -1 if unknown
+     */
+    public synchronized long getReadBytes(int i)
+    {
+        return readBytes[index(i)];
+    }
+
+    /**
+     * Retrieve the bytes written as of a sample.
+     *
+     * @param i the number of the sample, 0 being the oldest kept
+     * @return the bytes written to storage so far, -1 if unknown
+     */
+    public synchronized long getWriteBytes(int i)
+    {
+        return writeBytes[index(i)];
+    }
+
+    private int index(int i)
+    {
+        if (i < 0 || i >= size)
+        {
+            throw new IndexOutOfBoundsException(
+                    "Sample " + i + " of " + size);
+        }
+        return (oldest + i) % times.length;
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import java.util.ArrayList;
+import java.util.EventListener;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The pending response to a request sent by a ProcessClient. It is completed
+ * by the client's reader thread when the response with the request's
+ * correlation id arrives, or failed when the connection is lost. Besides
+ * waiting with get(), callers can add Listener s to be told of the outcome
+ * without holding a thread.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class ResponseFuture implements Future<ProcessMessage>
+{
+
+    private static final Class CLAZZ = ResponseFuture.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    private final long correlationId;
+    private final CountDownLatch done = new CountDownLatch(1);
+    private final List<Listener> listeners = new ArrayList<>();
+    private boolean completed = false;
+    private volatile ProcessMessage response = null;
+    private volatile Throwable failure = null;
+    private volatile boolean cancelled = false;
+
+    /**
+     * Construct for a request.
+     *
+     * @param correlationId the correlation id of the request
+     */
+    ResponseFuture(long correlationId)
+    {
+        this.correlationId = correlationId;
+    }
+
+    /**
+     * Retrieve the correlation id of the request.
+     *
+     * @return the correlation id
+     */
+    long getCorrelationId()
+    {
+        return correlationId;
+    }
+
+    /**
+     * Complete with the response.
+     *
+     * @param response the response received
+     * @return true if this call completed the future, false if it had already
+     *         been completed
+     */
+    boolean complete(ProcessMessage response)
+    {
+        List<Listener> toNotify;
+        synchronized (this)
+        {
+            if (completed)
+            {
+                return false;
+            }
+            completed = true;
+            this.response = response;
+            toNotify = takeListeners();
+        }
+        notifyListeners(toNotify);
+        done.countDown();
+        return true;
+    }
+
+    /**
+     * Complete with an error.
+     *
+     * @param failure the reason why there will be no response
+     * @return true if this call completed the future, false if it had already
+     *         been completed
+     */
+    boolean fail(Throwable failure)
+    {
+        List<Listener> toNotify;
+        synchronized (this)
+        {
+            if (completed)
+            {
+                return false;
+            }
+            completed = true;
+            this.failure = failure;
+            toNotify = takeListeners();
+        }
+        notifyListeners(toNotify);
+        done.countDown();
+        return true;
+    }
+
+    /**
+     * Cancelling only stops waiting: the request has already been sent and
+     * its response will be dropped. Listeners are told of the cancellation as
+     * a failure.
+     *
+     * @param mayInterruptIfRunning ignored
+     * @return true if cancelled, false if already completed
+     */
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning)
+    {
+        List<Listener> toNotify;
+        synchronized (this)
+        {
+            if (completed)
+            {
+                return false;
+            }
+            completed = true;
+            cancelled = true;
+            failure = new CancellationException();
+            toNotify = takeListeners();
+        }
+        notifyListeners(toNotify);
+        done.countDown();
+        return true;
+    }
+
+    /**
+     * Add a listener to be told of the response or the failure. Listeners
+     * are called before get() returns, on the client's reader thread, so they
+     * must not block. A listener added after completion is called at once on
+     * the calling thread.
+     *
+     * @param listener the listener
+     * @return this future, to allow chaining
+     */
+    public ResponseFuture addListener(Listener listener)
+    {
+        synchronized (this)
+        {
+            if (!completed)
+            {
+                listeners.add(listener);
+                return this;
+            }
+        }
+        ArrayList<Listener> now = new ArrayList<>();
+        now.add(listener);
+        notifyListeners(now);
+        return this;
+    }
+
+    @Override
+    public boolean isCancelled()
+    {
+        return cancelled;
+    }
+
+    @Override
+    public boolean isDone()
+    {
+        return done.getCount() == 0;
+    }
+
+    @Override
+    public ProcessMessage get()
+            throws InterruptedException, ExecutionException
+    {
+        done.await();
+        return result();
+    }
+
+    @Override
+    public ProcessMessage get(long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException
+    {
+        if (!done.await(timeout, unit))
+        {
+            throw new TimeoutException("No response to request " +
+                                       correlationId +
+                                       " within " +
+                                       timeout +
+                                       " " +
+                                       unit);
+        }
+        return result();
+    }
+
+    private List<Listener> takeListeners()
+    {
+        List<Listener> reval = new ArrayList<>(listeners);
+        listeners.clear();
+        return reval;
+    }
+
+    private void notifyListeners(List<Listener> toNotify)
+    {
+        for (Listener listener : toNotify)
+        {
+            try
+            {
+                if (failure == null)
+                {
+                    listener.responseReceived(response);
+                }
+                else
+                {
+                    listener.requestFailed(failure);
+                }
+            }
+            catch (RuntimeException ex)
+            {
+                LOGGER.log(Level.SEVERE,
+                           "Listener of request {0} failed: {1}",
+                           new Object[]
+                           {
+                               correlationId, ex.toString()
+                           });
+            }
+        }
+    }
+
+    private ProcessMessage result() throws ExecutionException
+    {
+        if (cancelled)
+        {
+            throw new CancellationException();
+        }
+        if (failure != null)
+        {
+            throw new ExecutionException(failure);
+        }
+        return response;
+    }
+
+    /**
+     * Interface that listeners to the outcome of a request have to implement.
+     */
+    public interface Listener extends EventListener
+    {
+
+        /**
+         * Called when the response has arrived.
+         *
+         * @param response the response
+         */
+        void responseReceived(ProcessMessage response);
+
+        /**
+         * Called when there will be no response, because the connection was
+         * lost or the request was cancelled.
+         *
+         * @param reason the reason
+         */
+        void requestFailed(Throwable reason);
+    }
+}
@@ -27,6 +27,10 @@ import com.kybelksties.gui.ColorUtils;
 import java.awt.Color;
 import java.awt.Frame;
 import java.awt.Rectangle;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
@@ -101,6 +105,8 @@ public class ScheduledProcess implements Serializable
     ConnectionInfoList.ConnectionInfo connectionInfo =
                                       new ConnectionInfoList.ConnectionInfo();
     private Rectangle dimensions = null;
+    // the ID under which the server monitors the started process
+    transient private String serverId = null;
 
     /**
      * Default construct.
@@ -242,6 +248,27 @@ public class ScheduledProcess implements Serializable
         this.connectionInfo = connectionInfo;
     }
 
+    /**
+     * Retrieve the ID under which the server monitors the process once it has
+     * been started.
+     *
+     * @return the server ID, null if the process has not been started
+     */
+    public String getServerId()
+    {
+        return serverId;
+    }
+
+    /**
+     * Set the ID under which the server monitors the process.
+     *
+     * @param serverId the server ID
+     */
+    void setServerId(String serverId)
+    {
+        this.serverId = serverId;
+    }
+
     /**
      * Get the value of dimensions.
      *
@@ -559,28 +586,15 @@ public class ScheduledProcess implements Serializable
      */
     public ProcessMessage sendStartInstruction()
     {
-        ProcessMessage msg = new ProcessMessage(
-                       ExeMessageType.startProcess(),
-                       this);
         ProcessMessage response;
         try
         {
-            ProcessClient client = new ProcessClient(
-                          connectionInfo.serverIP,
-                          connectionInfo.port);
-            response = client.sendMessage(msg);
-            if (response.isAcknowledgement())
+            response = sendStartInstructionAsync().get();
+            if (!response.isAcknowledgement() ||
+                process.getState() == ConcreteProcess.State.StartFailed)
             {
-                Object ack = response.getObjects().get(0);
-                ConcreteProcess.State state = (ConcreteProcess.State) ack;
-                process.setState(state);
-            }
-            else
-            {
-                process.setState(ConcreteProcess.State.StartFailed);
                 throw new Exception("Failed to start");
             }
-
         }
         catch (Exception ex)
         {
@@ -590,6 +604,57 @@ public class ScheduledProcess implements Serializable
         return response;
     }
 
+    /**
+     * Send this scheduled process information to the target machine without
+     * waiting for the server's answer. The state of the process is updated
+     * when the answer arrives, so that many processes can be started on many
+     * servers at the same time.
+     *
+     * @return the pending answer of the server
+     * @throws IOException            if the server cannot be reached
+     * @throws ClassNotFoundException if the server's welcome message cannot
+     *                                be de-serialised
+     */
+    public ResponseFuture sendStartInstructionAsync()
+            throws IOException, ClassNotFoundException
+    {
+        ProcessMessage msg = new ProcessMessage(
+                       ExeMessageType.startProcess(),
+                       this);
+        ProcessClient client = ProcessClientPool.get(connectionInfo);
+        return client.sendAsync(msg).addListener(new ResponseFuture.Listener()
+        {
+            @Override
+            public void responseReceived(ProcessMessage response)
+            {
+                ArrayList objs = response.getObjects();
+                if (response.isAcknowledgement() &&
+                    objs != null &&
+                    !objs.isEmpty() &&
+                    objs.get(0) instanceof ConcreteProcess.State)
+                {
+                    // the ID first: state listeners may look it up
+                    if (objs.size() > 1 && objs.get(1) instanceof String)
+                    {
+                        setServerId(((String) objs.get(1)).
+                                replaceFirst("^Server ID=", ""));
+                    }
+                    process.setState((ConcreteProcess.State) objs.get(0));
+                }
+                else
+                {
+                    process.setState(ConcreteProcess.State.StartFailed);
+                }
+            }
+
+            @Override
+            public void requestFailed(Throwable reason)
+            {
+                process.setState(ConcreteProcess.State.StartFailed);
+            }
+        });
+    }
+
     /**
      * Start the execution of the scheduled process.
      *
@@ -618,8 +683,42 @@ public class ScheduledProcess implements Serializable
         }
         process.command(command);
 
-        return process.start();
+        ConcreteProcess reval = process.start();
+        if (reval.getState() != ConcreteProcess.State.StartFailed &&
+            (getWindowMode() == WindowMode.BACKGROUND ||
+             getWindowMode() == WindowMode.BACKGROUND_FILE))
+        {
+            // drain the output so that the process never blocks on it
+            try
+            {
+                reval.capture(OutputCapture.DEFAULT_CAPACITY,
+                              getWindowMode() == WindowMode.BACKGROUND_FILE ?
+                              makeLogFile() :
+                              null);
+            }
+            catch (IOException ex)
+            {
+                LOGGER.log(Level.SEVERE,
+                           "Cannot capture output of {0}: {1}",
+                           new Object[]
+                           {
+                               exeDefinition.getName(), ex.toString()
+                           });
+            }
+        }
+        return reval;
+    }
 
+    /**
+     * Create a new log file name from the log file name prefix.
+     *
+     * @return the log file, null if no log file name is set
+     */
+    File makeLogFile()
+    {
+        return logFileName == null ?
+               null :
+               new File(logFileName + DateUtils.file_now() + ".log");
     }
 
     private List<String> buildParameterList()
@@ -726,5 +825,81 @@ public class ScheduledProcess implements Serializable
         return reval;
     }
 
-    
+    /**
+     * Write the scheduled process in the binary wire format of the
+     * ProcessMessageCodec.
+     *
+     * @param out the output to write to
+     * @throws IOException if writing fails
+     */
+    void writeBinary(DataOutput out) throws IOException
+    {
+        out.writeBoolean(process != null);
+        if (process != null)
+        {
+            process.writeBinary(out);
+        }
+        out.writeBoolean(exeDefinition != null);
+        if (exeDefinition != null)
+        {
+            exeDefinition.writeBinary(out);
+        }
+        out.writeBoolean(noopTime != null);
+        if (noopTime != null)
+        {
+            out.writeLong(noopTime);
+        }
+        BinaryFormat.writeString(out, windowForeground);
+        BinaryFormat.writeString(out, windowBackground);
+        BinaryFormat.writeString(out, startInDirectory);
+        BinaryFormat.writeEnum(out, windowMode);
+        BinaryFormat.writeString(out, logFileName);
+        out.writeBoolean(connectionInfo != null);
+        if (connectionInfo != null)
+        {
+            BinaryFormat.writeString(out, connectionInfo.serverIP);
+            out.writeInt(connectionInfo.port);
+            BinaryFormat.writeString(out, connectionInfo.name);
+        }
+        BinaryFormat.writeRectangle(out, dimensions);
+    }
+
+    /**
+     * Read the scheduled process written by writeBinary().
+     *
+     * @param in the input to read from
+     * @throws IOException            if reading fails
+     * @throws ClassNotFoundException if an environment value refers to
+     *                                unknown classes
+     */
+    void readBinary(DataInput in) throws IOException, ClassNotFoundException
+    {
+        process = null;
+        if (in.readBoolean())
+        {
+            process = new ConcreteProcess();
+            process.readBinary(in);
+        }
+        exeDefinition = null;
+        if (in.readBoolean())
+        {
+            exeDefinition = new ExeDefinition();
+            exeDefinition.readBinary(in);
+        }
+        noopTime = in.readBoolean() ? in.readLong() : null;
+        windowForeground = BinaryFormat.readString(in);
+        windowBackground = BinaryFormat.readString(in);
+        startInDirectory = BinaryFormat.readString(in);
+        windowMode = BinaryFormat.readEnum(in, WindowMode.class);
+        logFileName = BinaryFormat.readString(in);
+        connectionInfo = null;
+        if (in.readBoolean())
+        {
+            connectionInfo = new ConnectionInfoList.ConnectionInfo(
+            BinaryFormat.readString(in),
+            in.readInt(),
+            BinaryFormat.readString(in));
+        }
+        dimensions = BinaryFormat.readRectangle(in);
+    }
 }
@@ -19,11 +19,15 @@
  */
 package com.kybelksties.process;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.table.AbstractTableModel;
 import javax.xml.bind.annotation.XmlAccessType;
@@ -328,6 +332,186 @@ public class ScheduledProcessTableModel extends AbstractTableModel
         return true;
     }
 
+    /**
+     * Send the start instructions of all scheduled processes without waiting
+     * for the answers of the servers in between. The processes are sent in one
+     * batch instruction per server, which starts them in parallel and answers
+     * with all their states at once. Processes whose server cannot be reached
+     * are marked as failed to start.
+     *
+     * @return the pending answers, one per server that could be reached
+     */
+    public List<ResponseFuture> sendStartInstructions()
+    {
+        List<ResponseFuture> reval = new ArrayList<>();
+        for (Map.Entry<ConnectionInfoList.ConnectionInfo,
+                       List<ScheduledProcess>> entry :
+             groupByServer(theScheduledProcesses).entrySet())
+        {
+            final List<ScheduledProcess> batch = entry.getValue();
+            try
+            {
+                ProcessMessage msg = ProcessMessage.makeStartProcesses(batch);
+                reval.add(ProcessClientPool.get(entry.getKey()).
+                        sendAsync(msg).
+                        addListener(new ResponseFuture.Listener()
+                        {
+                            @Override
+                            public void responseReceived(
+                                    ProcessMessage response)
+                            {
+                                applyStartStates(batch, response);
+                            }
+
+                            @Override
+                            public void requestFailed(Throwable reason)
+                            {
+                                setStates(batch,
+                                          ConcreteProcess.State.StartFailed);
+                            }
+                        }));
+            }
+            catch (IOException | ClassNotFoundException ex)
+            {
+                LOGGER.log(Level.SEVERE,
+                           "Cannot send start instructions: {0}",
+                           ex.toString());
+                setStates(batch, ConcreteProcess.State.StartFailed);
+            }
+        }
+        return reval;
+    }
+
+    /**
+     * Send the kill instructions of all started scheduled processes in one
+     * batch instruction per server.
+     *
+     * @return the pending answers, one per server that could be reached; each
+     *         carries a list telling for each process whether it was killed
+     */
+    public List<ResponseFuture> sendKillInstructions()
+    {
+        List<ScheduledProcess> started = new ArrayList<>();
+        for (ScheduledProcess schedProc : theScheduledProcesses)
+        {
+            if (schedProc.getServerId() != null)
+            {
+                started.add(schedProc);
+            }
+        }
+        List<ResponseFuture> reval = new ArrayList<>();
+        for (Map.Entry<ConnectionInfoList.ConnectionInfo,
+                       List<ScheduledProcess>> entry :
+             groupByServer(started).entrySet())
+        {
+            List<String> serverIds = new ArrayList<>();
+            for (ScheduledProcess schedProc : entry.getValue())
+            {
+                serverIds.add(schedProc.getServerId());
+            }
+            try
+            {
+                reval.add(ProcessClientPool.get(entry.getKey()).
+                        sendAsync(ProcessMessage.makeKillProcesses(serverIds)));
+            }
+            catch (IOException | ClassNotFoundException ex)
+            {
+                LOGGER.log(Level.SEVERE,
+                           "Cannot send kill instructions: {0}",
+                           ex.toString());
+            }
+        }
+        return reval;
+    }
+
+    /**
+     * Create a scheduler that launches the scheduled processes on their
+     * servers. Dependencies between the processes can be declared on the
+     * scheduler before it is started.
+     *
+     * @param keepTableOrder if true, each process is only launched once the
+     *                       process in the row above has been started, as
+     *                       when the table is worked through top to bottom
+     * @return the scheduler, not yet started
+     */
+    public ProcessLaunchScheduler makeLaunchScheduler(boolean keepTableOrder)
+    {
+        ProcessLaunchScheduler reval = new ProcessLaunchScheduler(
+                               theScheduledProcesses,
+                               ProcessLaunchScheduler.REMOTE);
+        if (keepTableOrder)
+        {
+            for (int row = 1; row < theScheduledProcesses.size(); row++)
+            {
+                reval.startsAfter(theScheduledProcesses.get(row),
+                                  theScheduledProcesses.get(row - 1));
+            }
+        }
+        return reval;
+    }
+
+    private static Map<ConnectionInfoList.ConnectionInfo,
+                       List<ScheduledProcess>> groupByServer(
+                    List<ScheduledProcess> processes)
+    {
+        Map<ConnectionInfoList.ConnectionInfo, List<ScheduledProcess>> reval =
+                                                                        new LinkedHashMap<>();
+        for (ScheduledProcess schedProc : processes)
+        {
+            List<ScheduledProcess> batch =
+                                   reval.get(schedProc.getConnectionInfo());
+            if (batch == null)
+            {
+                batch = new ArrayList<>();
+                reval.put(schedProc.getConnectionInfo(), batch);
+            }
+            batch.add(schedProc);
+        }
+        return reval;
+    }
+
+    private static void applyStartStates(List<ScheduledProcess> batch,
+                                         ProcessMessage response)
+    {
+        ArrayList objs = response.getObjects();
+        if (!response.isAcknowledgement() ||
+            objs == null ||
+            objs.size() < 2)
+        {
+            setStates(batch, ConcreteProcess.State.StartFailed);
+            return;
+        }
+        List states = (List) objs.get(0);
+        List serverIds = (List) objs.get(1);
+        for (int i = 0; i < batch.size(); i++)
+        {
+            ScheduledProcess schedProc = batch.get(i);
+            if (i < states.size() &&
+                states.get(i) instanceof ConcreteProcess.State)
+            {
+                schedProc.getProcess().
+                        setState((ConcreteProcess.State) states.get(i));
+                schedProc.setServerId(i < serverIds.size() ?
+                                      (String) serverIds.get(i) :
+                                      null);
+            }
+            else
+            {
+                schedProc.getProcess().
+                        setState(ConcreteProcess.State.StartFailed);
+            }
+        }
+    }
+
+    private static void setStates(List<ScheduledProcess> processes,
+                                  ConcreteProcess.State state)
+    {
+        for (ScheduledProcess schedProc : processes)
+        {
+            schedProc.getProcess().setState(state);
+        }
+    }
+
     @Override
     public Iterator<ScheduledProcess> iterator()
     {
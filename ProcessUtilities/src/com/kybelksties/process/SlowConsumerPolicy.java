@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import java.util.logging.Logger;
+
+/**
+ * What the server does with a client whose outbound queue is full because it
+ * does not read its messages fast enough. Responses to requests are never
+ * dropped: the client is waiting for them and it cannot send more requests
+ * while the server has stopped reading from it.
+ *
+ * @author Dieter J Kybelksties
+ */
+public enum SlowConsumerPolicy
+{
+
+    /**
+     * Drop pushed messages while the queue is full.
+     */
+    DROP,
+    /**
+     * Hold pushed state changes back while the queue is full; they are
+     * coalesced with later changes and sent when the client has caught up.
+     */
+    COALESCE,
+    /**
+     * Close the connection of the client.
+     */
+    DISCONNECT;
+
+    private static final Class CLAZZ = SlowConsumerPolicy.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    /**
+     * Parse a policy, ignoring case.
+     *
+     * @param string       the name of the policy
+     * @param defaultValue the policy to use if the name is null or unknown
+     * @return the policy
+     */
+    public static SlowConsumerPolicy fromString(String string,
+                                                SlowConsumerPolicy defaultValue)
+    {
+        for (SlowConsumerPolicy policy : values())
+        {
+            if (policy.name().equalsIgnoreCase(string))
+            {
+                return policy;
+            }
+        }
+        return defaultValue;
+    }
+}
@@ -0,0 +1,336 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pushes the state changes of the processes a server has started to the
+ * clients that have subscribed to them. Changes are not sent as they happen
+ * but collected per client and flushed once per tick, so that a burst of
+ * events - a batch of processes starting or finishing together - costs each
+ * client one stateChanges frame with the latest state of every process that
+ * has changed. A client that is out of credits, or whose queue is full when
+ * the policy is to coalesce, is skipped; its changes keep being coalesced and
+ * are sent on a later tick. The ticker thread is started with the first
+ * subscription.
+ *
+ * @author Dieter J Kybelksties
+ */
+class StateChangePublisher
+{
+
+    private static final Class CLAZZ = StateChangePublisher.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    /**
+     * Default time between two flushes in milliseconds.
+     */
+    static final long DEFAULT_TICK_MILLIS = 50L;
+
+    private final long tickMillis;
+    private final ConcurrentMap<ClientSession, Subscription> subscriptions =
+                                                             new ConcurrentHashMap<>();
+    // set when any subscription has pending changes
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+    private ScheduledExecutorService ticker = null;
+
+    /**
+     * Construct with the tick.
+     *
+     * @param tickMillis time between two flushes in milliseconds
+     */
+    StateChangePublisher(long tickMillis)
+    {
+        this.tickMillis = tickMillis;
+    }
+
+    /**
+     * Subscribe a client to the state changes of processes. Subscriptions
+     * add up.
+     *
+     * @param session   the client; its responder is used to push the changes
+     * @param serverIds the server IDs of the processes, empty for all
+     */
+    void subscribe(ClientSession session, Collection<?> serverIds)
+    {
+        Subscription subscription = subscriptions.get(session);
+        if (subscription == null)
+        {
+            Subscription created = new Subscription(session);
+            subscription = subscriptions.putIfAbsent(session, created);
+            if (subscription == null)
+            {
+                subscription = created;
+            }
+        }
+        subscription.add(serverIds);
+        startTicker();
+    }
+
+    /**
+     * Unsubscribe a client from the state changes of processes. IDs only
+     * cancel subscriptions to these IDs, not a subscription to all processes.
+     *
+     * @param session   the client
+     * @param serverIds the server IDs of the processes, empty to drop the
+     *                  subscription altogether
+     */
+    void unsubscribe(ClientSession session, Collection<?> serverIds)
+    {
+        if (serverIds == null || serverIds.isEmpty())
+        {
+            remove(session);
+            return;
+        }
+        Subscription subscription = subscriptions.get(session);
+        if (subscription != null)
+        {
+            subscription.remove(serverIds);
+        }
+    }
+
+    /**
+     * Drop the subscription of a client, for example when it disconnects.
+     *
+     * @param session the client
+     */
+    void remove(ClientSession session)
+    {
+        subscriptions.remove(session);
+    }
+
+    /**
+     * Retrieve the number of subscribed clients.
+     *
+     * @return the number of clients
+     */
+    int getSubscriberCount()
+    {
+        return subscriptions.size();
+    }
+
+    /**
+     * Record the new state of a process for every client interested in it.
+     * Cheap enough to be called from the thread that changed the state.
+     *
+     * @param serverId the server ID of the process
+     * @param state    the new state
+     */
+    void stateChanged(String serverId, ConcreteProcess.State state)
+    {
+        boolean recorded = false;
+        for (Subscription subscription : subscriptions.values())
+        {
+            recorded |= subscription.record(serverId, state);
+        }
+        if (recorded)
+        {
+            dirty.set(true);
+        }
+    }
+
+    /**
+     * Send one stateChanges frame to each client with pending changes. Called
+     * by the ticker; package-private so that tests can flush without waiting.
+     *
+     * @return the number of frames sent
+     */
+    int flush()
+    {
+        if (!dirty.getAndSet(false))
+        {
+            return 0;
+        }
+        int reval = 0;
+        boolean held = false;
+        for (Subscription subscription : subscriptions.values())
+        {
+            if (!subscription.hasPending())
+            {
+                continue;
+            }
+            if (!subscription.session.getFlowControl().takePushCredit())
+            {
+                held = true;
+                continue;
+            }
+            ProcessMessage frame = subscription.takeFrame();
+            HandlerRegistry.Responder responder =
+                                      subscription.session.getResponder();
+            if (frame != null && responder != null)
+            {
+                try
+                {
+                    responder.respond(frame);
+                    reval++;
+                }
+                catch (RuntimeException ex)
+                {
+                    LOGGER.log(Level.SEVERE,
+                               "Cannot push state changes to {0}: {1}",
+                               new Object[]
+                               {
+                                   subscription.session, ex.toString()
+                               });
+                }
+            }
+        }
+        if (held)
+        {
+            // try again on the next tick
+            dirty.set(true);
+        }
+        return reval;
+    }
+
+    /**
+     * Stop the ticker and drop all subscriptions.
+     */
+    synchronized void stop()
+    {
+        if (ticker != null)
+        {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+        subscriptions.clear();
+    }
+
+    private synchronized void startTicker()
+    {
+        if (ticker != null)
+        {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(
+        new NamedThreadFactory("StateChangePublisher-", true));
+        ticker.scheduleWithFixedDelay(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    flush();
+                }
+                catch (RuntimeException ex)
+                {
+                    LOGGER.log(Level.SEVERE,
+                               "Pushing state changes failed: {0}",
+                               ex.toString());
+                }
+            }
+        }, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * What one client has subscribed to and the changes not yet sent to it.
+     */
+    private static class Subscription
+    {
+
+        private final ClientSession session;
+        private boolean all = false;
+        private final Set<String> serverIds = new HashSet<>();
+        // latest state per process, in the order of the first change
+        private LinkedHashMap<String, ConcreteProcess.State> pending =
+                                                             new LinkedHashMap<>();
+
+        Subscription(ClientSession session)
+        {
+            this.session = session;
+        }
+
+        synchronized void add(Collection<?> ids)
+        {
+            if (ids == null || ids.isEmpty())
+            {
+                all = true;
+                return;
+            }
+            for (Object id : ids)
+            {
+                if (id instanceof String)
+                {
+                    serverIds.add((String) id);
+                }
+            }
+        }
+
+        synchronized void remove(Collection<?> ids)
+        {
+            serverIds.removeAll(ids);
+            pending.keySet().removeAll(ids);
+        }
+
+        synchronized boolean record(String serverId,
+                                    ConcreteProcess.State state)
+        {
+            if (!all && !serverIds.contains(serverId))
+            {
+                return false;
+            }
+            pending.put(serverId, state);
+            return true;
+        }
+
+        synchronized boolean hasPending()
+        {
+            return !pending.isEmpty();
+        }
+
+        synchronized ProcessMessage takeFrame()
+        {
+            if (pending.isEmpty())
+            {
+                return null;
+            }
+            ArrayList<String> ids = new ArrayList<>(pending.size());
+            ArrayList<ConcreteProcess.State> states =
+                                             new ArrayList<>(pending.size());
+            for (Map.Entry<String, ConcreteProcess.State> entry :
+                 pending.entrySet())
+            {
+                ids.add(entry.getKey());
+                states.add(entry.getValue());
+            }
+            pending = new LinkedHashMap<>();
+            return new ProcessMessage<ArrayList<?>>(
+                   ExeMessageType.stateChanges(),
+                   ids,
+                   states);
+        }
+    }
+}
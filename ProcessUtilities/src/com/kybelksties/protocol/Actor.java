@@ -50,9 +50,13 @@ public class Actor implements Serializable, Comparable<Object>
                         NbBundle.getMessage(CLAZZ, "Actor.ANY_ACTOR"));
     private static int index = 0;
     private final String name;
-    private State state = null;
+    private volatile State state = null;
     private final int currentIndex = index++;
     private MessageProcessor messageProcessor = new DefaultMessageProcessor();
+    private transient HashedWheelTimer.Timeout pendingTimeout = null;
+    private transient long stateChanges = 0L;
+    private transient volatile Mailbox mailbox = null;
+    private transient volatile ActorRuntime runtime = null;
 
     /**
      * Default constructor.
@@ -88,6 +92,7 @@ public class Actor implements Serializable, Comparable<Object>
                                         currentIndex) :
                     name;
         this.state = state;
+        stateChanges++;
     }
 
     /**
@@ -95,7 +100,8 @@ public class Actor implements Serializable, Comparable<Object>
      * vetting the protocol and message, set a new state for this actor if a
      * matching rule is found in the protocol and if the messageProcessor is not
      * null then also execute it. If the messageProcessor is null then the
-     * member processor is executed.
+     * member processor is executed. If the protocol defines a timeout for the
+     * new state, the timeout is started.
      *
      * @param protocol         non-null protocol object describing the rules
      * @param message          message this actor received
@@ -127,11 +133,21 @@ public class Actor implements Serializable, Comparable<Object>
         }
         try
         {
-            State newState = protocol.getResultState(this,
-                                                     message.getMessageType(),
-                                                     message.getFrom());
-            setState(newState);
-            reval = messageProcessor.processMessage(protocol, message);
+            synchronized (this)
+            {
+                if (isStaleTimeout(message))
+                {
+                    return reval;
+                }
+                State newState = protocol.getResultState(
+                      this,
+                      message.getMessageType(),
+                      message.getFrom());
+                enterState(protocol, newState);
+            }
+            reval = messageProcessor == null ?
+                    this.messageProcessor.processMessage(protocol, message) :
+                    messageProcessor.processMessage(protocol, message);
         }
         catch (Exception ex)
         {
@@ -206,13 +222,128 @@ public class Actor implements Serializable, Comparable<Object>
     }
 
     /**
-     * Change the state of the actor.
+     * Change the state of the actor. A pending timeout of the previous state
+     * is cancelled and a Timeout message of it that is already queued becomes
+     * stale.
      *
      * @param state the new state - can be null
      */
-    public void setState(State state)
+    public synchronized void setState(State state)
     {
+        if (pendingTimeout != null)
+        {
+            pendingTimeout.cancel();
+            pendingTimeout = null;
+        }
         this.state = state;
+        stateChanges++;
+    }
+
+    /**
+     * Change the state of the actor and start the timeout the protocol
+     * defines for the new state.
+     *
+     * @param protocol non-null protocol object describing the rules
+     * @param state    the new state - can be null
+     */
+    public synchronized void enterState(Protocol protocol, State state)
+    {
+        setState(state);
+        pendingTimeout = protocol.startTimeout(this);
+    }
+
+    /**
+     * Check whether the actor waits for the timeout of its current state.
+     *
+     * @return true if a timeout is pending
+     */
+    public synchronized boolean isTimeoutPending()
+    {
+        return pendingTimeout != null;
+    }
+
+    /**
+     * Called by the protocol's timer when the timeout of the current state
+     * has elapsed. The actor receives a Timeout message: through its mailbox
+     * if it runs in an ActorRuntime, otherwise at once on the timer thread.
+     *
+     * @param protocol the protocol that started the timeout
+     */
+    void timeoutElapsed(Protocol protocol)
+    {
+        try
+        {
+            Message message;
+            synchronized (this)
+            {
+                if (pendingTimeout == null || !pendingTimeout.isExpired())
+                {
+                    return;
+                }
+                pendingTimeout = null;
+                message = new Message(TimeoutMessageType.Timeout,
+                                      Actor.ANY_ACTOR,
+                                      this,
+                                      stateChanges);
+            }
+            ActorRuntime actorRuntime = runtime;
+            if (actorRuntime != null)
+            {
+                actorRuntime.send(message);
+            }
+            else
+            {
+                processMessage(protocol, message, null);
+            }
+        }
+        catch (Exception ex)
+        {
+            Exceptions.printStackTrace(ex);
+        }
+    }
+
+    /**
+     * A timeout message is stale if the actor has changed state since the
+     * timeout elapsed.
+     */
+    private boolean isStaleTimeout(Message message)
+    {
+        return message.getMessageType() == TimeoutMessageType.Timeout &&
+               message.getPayload() != null &&
+               !Long.valueOf(stateChanges).equals(message.getPayload()[0]);
+    }
+
+    /**
+     * Retrieve the mailbox the actor receives messages in when it runs in an
+     * ActorRuntime.
+     *
+     * @return the mailbox
+     */
+    Mailbox getMailbox()
+    {
+        Mailbox reval = mailbox;
+        if (reval == null)
+        {
+            synchronized (this)
+            {
+                if (mailbox == null)
+                {
+                    mailbox = new Mailbox();
+                }
+                reval = mailbox;
+            }
+        }
+        return reval;
+    }
+
+    /**
+     * Set the runtime the actor runs in.
+     *
+     * @param runtime the runtime
+     */
+    void setRuntime(ActorRuntime runtime)
+    {
+        this.runtime = runtime;
     }
 
     /**
@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.protocol;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs the actors of a protocol concurrently. Messages sent through the
+ * runtime are put into the receiving actor's mailbox and processed by a
+ * shared work-stealing pool, so the message processor runs off the sender's
+ * thread. Each actor processes one message at a time and in the order the
+ * messages arrived, while different actors proceed in parallel.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class ActorRuntime
+{
+
+    private static final Class CLAZZ = ActorRuntime.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    /**
+     * Maximum number of messages an actor processes before it gives other
+     * actors a turn on the pool.
+     */
+    public static final int THROUGHPUT = 32;
+
+    private final Protocol protocol;
+    private final ForkJoinPool pool;
+    private final AtomicLong pending = new AtomicLong();
+    private final Object idle = new Object();
+
+    /**
+     * Construct a runtime with one thread per processor.
+     *
+     * @param protocol non-null protocol object describing the rules
+     */
+    public ActorRuntime(Protocol protocol)
+    {
+        this(protocol, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Construct a runtime.
+     *
+     * @param protocol    non-null protocol object describing the rules
+     * @param parallelism the number of threads of the pool
+     */
+    public ActorRuntime(Protocol protocol, int parallelism)
+    {
+        if (protocol == null)
+        {
+            throw new IllegalArgumentException("Protocol must not be null");
+        }
+        this.protocol = protocol;
+        // asynchronous mode: actor turns are taken first in, first out
+        pool = new ForkJoinPool(parallelism,
+                                ForkJoinPool.defaultForkJoinWorkerThreadFactory,
+                                null,
+                                true);
+    }
+
+    /**
+     * Retrieve the protocol the actors follow.
+     *
+     * @return the protocol
+     */
+    public Protocol getProtocol()
+    {
+        return protocol;
+    }
+
+    /**
+     * Send a message to its receiving actor. Returns at once; the actor
+     * processes the message later on a thread of the pool. From then on the
+     * timeouts of the actor are also delivered through its mailbox.
+     *
+     * @param message the message
+     */
+    public void send(Message message)
+    {
+        Actor actor = message.getTo();
+        actor.setRuntime(this);
+        pending.incrementAndGet();
+        actor.getMailbox().offer(message);
+        schedule(actor);
+    }
+
+    /**
+     * Retrieve the number of messages sent but not yet processed.
+     *
+     * @return the number of pending messages
+     */
+    public long getPendingCount()
+    {
+        return pending.get();
+    }
+
+    /**
+     * Wait until all messages sent have been processed.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit    the unit of the timeout
+     * @return true if idle, false if the timeout elapsed first
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit)
+            throws InterruptedException
+    {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (idle)
+        {
+            while (pending.get() > 0)
+            {
+                long millis = TimeUnit.NANOSECONDS.toMillis(
+                     deadline - System.nanoTime());
+                if (millis <= 0)
+                {
+                    return false;
+                }
+                idle.wait(millis);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stop the pool. Messages not yet processed are dropped.
+     */
+    public void shutdown()
+    {
+        pool.shutdownNow();
+    }
+
+    private void schedule(final Actor actor)
+    {
+        final Mailbox mailbox = actor.getMailbox();
+        if (!mailbox.isEmpty() && mailbox.claim())
+        {
+            pool.execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    processMessages(actor, mailbox);
+                }
+            });
+        }
+    }
+
+    private void processMessages(Actor actor, Mailbox mailbox)
+    {
+        try
+        {
+            Message message;
+            int processed = 0;
+            while (processed < THROUGHPUT && (message = mailbox.poll()) != null)
+            {
+                try
+                {
+                    actor.processMessage(protocol, message, null);
+                }
+                catch (ProtocolException ex)
+                {
+                    LOGGER.log(Level.SEVERE,
+                               "{0} cannot process {1}: {2}",
+                               new Object[]
+                               {
+                                   actor, message, ex.getMessage()
+                               });
+                }
+                finally
+                {
+                    processed++;
+                    if (pending.decrementAndGet() == 0)
+                    {
+                        synchronized (idle)
+                        {
+                            idle.notifyAll();
+                        }
+                    }
+                }
+            }
+        }
+        finally
+        {
+            mailbox.release();
+            // a message may have arrived after the last poll
+            schedule(actor);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.protocol;
+
+import static com.kybelksties.protocol.ProtocolException.Type.ConflictingRules;
+import static com.kybelksties.protocol.ProtocolException.Type.MessageReceivingActorInvalid;
+import static com.kybelksties.protocol.ProtocolException.Type.MessageTypeInvalid;
+import static com.kybelksties.protocol.ProtocolException.Type.NoSuchRule;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * An immutable, compiled form of a Protocol for fast rule look-up. The names
+ * of the receiving actors, their states, the message types and the names of
+ * the sending actors are numbered, and the result states are kept in one
+ * array indexed by these numbers. A look-up is a few hash map look-ups of the
+ * keys and one array access and allocates no objects; callers that keep the
+ * numbers can skip the hash maps.
+ * <p>
+ * A rule with no sending actor or with Actor.ANY_ACTOR as sending actor
+ * applies to messages from any actor unless there is a rule for the specific
+ * sending actor. Only the name of the sending actor is considered.
+ *
+ * @author Dieter J Kybelksties
+ */
+public final class CompiledProtocol
+{
+
+    private static final Class CLAZZ = CompiledProtocol.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    /**
+     * The number of an unknown key.
+     */
+    public static final int UNKNOWN = -1;
+    /**
+     * The number of any sending actor.
+     */
+    public static final int ANY_SENDER = 0;
+
+    private final Map<String, Integer> actorIds = new HashMap<>();
+    private final Map<State, Integer> stateIds = new HashMap<>();
+    private final Map<MessageType, Integer> messageTypeIds = new HashMap<>();
+    private final Map<String, Integer> senderIds = new HashMap<>();
+    private final int stateCount;
+    private final int messageTypeCount;
+    private final int senderCount;
+    private final State[] resultStates;
+
+    /**
+     * Compile a protocol.
+     *
+     * @param protocol the protocol
+     * @throws ProtocolException if two rules for the same message lead to
+     *                           different states
+     */
+    CompiledProtocol(Protocol protocol) throws ProtocolException
+    {
+        for (Message rule : protocol.getEdges())
+        {
+            number(actorIds, rule.getTo().getName());
+            number(stateIds, rule.getTo().getState());
+            number(stateIds, protocol.getEndpoints(rule).getSecond().
+                   getState());
+            number(messageTypeIds, rule.getMessageType());
+            String sender = senderName(rule.getFrom());
+            if (sender != null && !senderIds.containsKey(sender))
+            {
+                senderIds.put(sender, senderIds.size() + 1);
+            }
+        }
+        stateCount = stateIds.size();
+        messageTypeCount = messageTypeIds.size();
+        senderCount = senderIds.size() + 1;
+        resultStates = new State[actorIds.size() *
+                                 stateCount *
+                                 messageTypeCount *
+                                 senderCount];
+
+        for (Message rule : protocol.getEdges())
+        {
+            String sender = senderName(rule.getFrom());
+            int index = index(actorIds.get(rule.getTo().getName()),
+                              stateIds.get(rule.getTo().getState()),
+                              messageTypeIds.get(rule.getMessageType()),
+                              sender == null ?
+                              ANY_SENDER :
+                              senderIds.get(sender));
+            State result = protocol.getEndpoints(rule).getSecond().getState();
+            if (resultStates[index] != null &&
+                !resultStates[index].equals(result))
+            {
+                throw new ProtocolException(ConflictingRules,
+                                            rule,
+                                            resultStates[index],
+                                            result);
+            }
+            resultStates[index] = result;
+        }
+    }
+
+    private static <K> void number(Map<K, Integer> ids, K key)
+    {
+        if (!ids.containsKey(key))
+        {
+            ids.put(key, ids.size());
+        }
+    }
+
+    private static String senderName(Actor sender)
+    {
+        return sender == null ||
+               Actor.ANY_ACTOR.getName().equals(sender.getName()) ?
+               null :
+               sender.getName();
+    }
+
+    private int index(int actorId, int stateId, int messageTypeId, int senderId)
+    {
+        return ((actorId * stateCount + stateId) * messageTypeCount +
+                messageTypeId) * senderCount + senderId;
+    }
+
+    private static <K> int idOf(Map<K, Integer> ids, K key)
+    {
+        Integer reval = ids.get(key);
+        return reval == null ? UNKNOWN : reval;
+    }
+
+    /**
+     * Retrieve the number of a receiving actor's name.
+     *
+     * @param name the name of the actor
+     * @return the number, UNKNOWN if no rule has such a receiving actor
+     */
+    public int actorId(String name)
+    {
+        return idOf(actorIds, name);
+    }
+
+    /**
+     * Retrieve the number of a state.
+     *
+     * @param state the state, may be null
+     * @return the number, UNKNOWN if no rule has such a state
+     */
+    public int stateId(State state)
+    {
+        return idOf(stateIds, state);
+    }
+
+    /**
+     * Retrieve the number of a message type.
+     *
+     * @param messageType the message type
+     * @return the number, UNKNOWN if no rule has such a message type
+     */
+    public int messageTypeId(MessageType messageType)
+    {
+        return idOf(messageTypeIds, messageType);
+    }
+
+    /**
+     * Retrieve the number of a sending actor.
+     *
+     * @param sender the sending actor, may be null
+     * @return the number, ANY_SENDER if null, Actor.ANY_ACTOR or an actor no
+     *         rule is specific to
+     */
+    public int senderId(Actor sender)
+    {
+        String name = senderName(sender);
+        if (name == null)
+        {
+            return ANY_SENDER;
+        }
+        Integer reval = senderIds.get(name);
+        return reval == null ? ANY_SENDER : reval;
+    }
+
+    /**
+     * Retrieve the resulting state by the numbers of the keys.
+     *
+     * @param actorId       number of the receiving actor's name
+     * @param stateId       number of the receiving actor's state
+     * @param messageTypeId number of the message type
+     * @param senderId      number of the sending actor
+     * @return the resulting state, null if there is no rule
+     */
+    public State findResultState(int actorId,
+                                 int stateId,
+                                 int messageTypeId,
+                                 int senderId)
+    {
+        if (actorId < 0 || stateId < 0 || messageTypeId < 0 || senderId < 0)
+        {
+            return null;
+        }
+        State reval = resultStates[index(actorId,
+                                         stateId,
+                                         messageTypeId,
+                                         senderId)];
+        if (reval == null && senderId != ANY_SENDER)
+        {
+            reval = resultStates[index(actorId,
+                                       stateId,
+                                       messageTypeId,
+                                       ANY_SENDER)];
+        }
+        return reval;
+    }
+
+    /**
+     * Retrieve the resulting state when a message is received.
+     *
+     * @param receivingActor the actor that receives the message
+     * @param messageType    the type of message received
+     * @param sendingActor   optional sending actor
+     * @return the resulting state, null if there is no rule
+     */
+    public State findResultState(Actor receivingActor,
+                                 MessageType messageType,
+                                 Actor sendingActor)
+    {
+        if (receivingActor == null || messageType == null)
+        {
+            return null;
+        }
+        return findResultState(actorId(receivingActor.getName()),
+                               stateId(receivingActor.getState()),
+                               messageTypeId(messageType),
+                               senderId(sendingActor));
+    }
+
+    /**
+     * Retrieve the resulting state when a message is received.
+     *
+     * @param receivingActor the actor that receives the message
+     * @param messageType    the type of message received
+     * @param sendingActor   optional sending actor
+     * @return the state that the receiving actor would assume if it received
+     *         the type of message
+     * @throws ProtocolException thrown if any of the compulsory parameters is
+     *                           invalid or if there is no rule for the given
+     *                           parameters
+     */
+    public State getResultState(Actor receivingActor,
+                                MessageType messageType,
+                                Actor sendingActor) throws ProtocolException
+    {
+        if (receivingActor == null)
+        {
+            throw new ProtocolException(MessageReceivingActorInvalid,
+                                        receivingActor);
+        }
+        if (messageType == null)
+        {
+            throw new ProtocolException(MessageTypeInvalid, messageType);
+        }
+        State reval = findResultState(receivingActor,
+                                      messageType,
+                                      sendingActor);
+        if (reval == null)
+        {
+            throw new ProtocolException(NoSuchRule,
+                                        receivingActor + " <-" +
+                                        messageType + "- " +
+                                        sendingActor);
+        }
+        return reval;
+    }
+}
@@ -0,0 +1,402 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.protocol;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A timer for very many pending timeouts that are mostly cancelled before
+ * they expire, like the deadlines of protocol states. Timeouts are kept in a
+ * wheel of buckets, one bucket per tick; a single thread advances the wheel
+ * once per tick and expires the timeouts of the current bucket. Adding and
+ * cancelling a timeout cost constant time and no thread or scheduled future
+ * is held per timeout. Timeouts expire up to one tick late.
+ * <p>
+ * The tasks of expired timeouts are run on the timer thread and must
+ * therefore be short.
+ *
+ * @author Dieter J Kybelksties
+ */
+public final class HashedWheelTimer
+{
+
+    private static final Class CLAZZ = HashedWheelTimer.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    /**
+     * Tick duration of the shared timer in milliseconds.
+     */
+    public static final long DEFAULT_TICK_MILLIS = 10L;
+    /**
+     * Number of buckets of the shared timer.
+     */
+    public static final int DEFAULT_TICKS_PER_WHEEL = 512;
+
+    private static HashedWheelTimer shared = null;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Object lock = new Object();
+    private Thread worker = null;
+    private volatile boolean stopped = false;
+    private long startNanos = 0L;
+
+    /**
+     * Retrieve the timer shared by all protocols.
+     *
+     * @return the shared timer
+     */
+    public static synchronized HashedWheelTimer shared()
+    {
+        if (shared == null)
+        {
+            shared = new HashedWheelTimer(DEFAULT_TICK_MILLIS,
+                                          TimeUnit.MILLISECONDS,
+                                          DEFAULT_TICKS_PER_WHEEL);
+        }
+        return shared;
+    }
+
+    /**
+     * Construct a timer.
+     *
+     * @param tickDuration  the duration of a tick, the precision of the timer
+     * @param unit          the unit of the tick duration
+     * @param ticksPerWheel the number of buckets, rounded up to a power of two
+     */
+    public HashedWheelTimer(long tickDuration, TimeUnit unit, int ticksPerWheel)
+    {
+        if (tickDuration <= 0 || ticksPerWheel <= 0)
+        {
+            throw new IllegalArgumentException(
+                    "Tick duration and ticks per wheel must be positive");
+        }
+        tickNanos = unit.toNanos(tickDuration);
+        int size = 1;
+        while (size < ticksPerWheel)
+        {
+            size <<= 1;
+        }
+        wheel = new Bucket[size];
+        for (int i = 0; i < size; i++)
+        {
+            wheel[i] = new Bucket();
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Schedule a task to run once after a delay.
+     *
+     * @param task  the task
+     * @param delay the delay
+     * @param unit  the unit of the delay
+     * @return the handle to cancel the timeout
+     */
+    public Timeout newTimeout(Runnable task, long delay, TimeUnit unit)
+    {
+        if (stopped)
+        {
+            throw new IllegalStateException("Timer has been stopped");
+        }
+        startIfNecessary();
+        Timeout reval = new Timeout(this,
+                                    task,
+                                    System.nanoTime() - startNanos +
+                                    unit.toNanos(Math.max(delay, 0L)));
+        pending.incrementAndGet();
+        added.add(reval);
+        return reval;
+    }
+
+    /**
+     * Retrieve the number of timeouts neither expired nor cancelled.
+     *
+     * @return the number of pending timeouts
+     */
+    public int pendingCount()
+    {
+        return pending.get();
+    }
+
+    /**
+     * Stop the timer. Pending timeouts will not expire.
+     */
+    public void stop()
+    {
+        stopped = true;
+        synchronized (lock)
+        {
+            if (worker != null)
+            {
+                worker.interrupt();
+            }
+        }
+    }
+
+    private void startIfNecessary()
+    {
+        synchronized (lock)
+        {
+            if (worker == null)
+            {
+                startNanos = System.nanoTime();
+                worker = new Thread(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        turn();
+                    }
+                }, "HashedWheelTimer");
+                worker.setDaemon(true);
+                worker.start();
+            }
+        }
+    }
+
+    private void turn()
+    {
+        long tick = 0L;
+        while (!stopped)
+        {
+            long deadline = (tick + 1) * tickNanos;
+            long sleepNanos = deadline - (System.nanoTime() - startNanos);
+            if (sleepNanos > 0)
+            {
+                try
+                {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                }
+                catch (InterruptedException ex)
+                {
+                    if (stopped)
+                    {
+                        return;
+                    }
+                }
+                continue;
+            }
+            removeCancelled();
+            transferAdded(tick);
+            wheel[(int) (tick & mask)].expire(deadline);
+            tick++;
+        }
+    }
+
+    private void removeCancelled()
+    {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null)
+        {
+            if (timeout.bucket != null)
+            {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void transferAdded(long tick)
+    {
+        Timeout timeout;
+        while ((timeout = added.poll()) != null)
+        {
+            if (timeout.state.get() == Timeout.CANCELLED)
+            {
+                continue;
+            }
+            long ticks = timeout.deadlineNanos / tickNanos;
+            timeout.remainingRounds = (ticks - tick) / wheel.length;
+            // a deadline already passed goes into the current bucket
+            wheel[(int) (Math.max(ticks, tick) & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * The handle of a scheduled task.
+     */
+    public static final class Timeout
+    {
+
+        static final int WAITING = 0;
+        static final int CANCELLED = 1;
+        static final int EXPIRED = 2;
+
+        private final HashedWheelTimer timer;
+        private final Runnable task;
+        private final long deadlineNanos;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        // the following are only used by the timer thread
+        private long remainingRounds = 0L;
+        private Bucket bucket = null;
+        private Timeout previous = null;
+        private Timeout next = null;
+
+        Timeout(HashedWheelTimer timer, Runnable task, long deadlineNanos)
+        {
+            this.timer = timer;
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * Cancel the timeout so that its task is not run.
+         *
+         * @return true if cancelled, false if it had already expired or been
+         *         cancelled
+         */
+        public boolean cancel()
+        {
+            if (!state.compareAndSet(WAITING, CANCELLED))
+            {
+                return false;
+            }
+            timer.pending.decrementAndGet();
+            timer.cancelled.add(this);
+            return true;
+        }
+
+        /**
+         * Check whether the timeout has been cancelled.
+         *
+         * @return true if cancelled
+         */
+        public boolean isCancelled()
+        {
+            return state.get() == CANCELLED;
+        }
+
+        /**
+         * Check whether the timeout has expired.
+         *
+         * @return true if the task has been run
+         */
+        public boolean isExpired()
+        {
+            return state.get() == EXPIRED;
+        }
+
+        private void expire()
+        {
+            if (!state.compareAndSet(WAITING, EXPIRED))
+            {
+                return;
+            }
+            timer.pending.decrementAndGet();
+            try
+            {
+                task.run();
+            }
+            catch (RuntimeException ex)
+            {
+                LOGGER.log(Level.SEVERE,
+                           "Timeout task failed: {0}",
+                           ex.toString());
+            }
+        }
+    }
+
+    /**
+     * The timeouts of one tick, as doubly linked list.
+     */
+    private static final class Bucket
+    {
+
+        private Timeout head = null;
+        private Timeout tail = null;
+
+        void add(Timeout timeout)
+        {
+            timeout.bucket = this;
+            if (head == null)
+            {
+                head = timeout;
+                tail = timeout;
+            }
+            else
+            {
+                tail.next = timeout;
+                timeout.previous = tail;
+                tail = timeout;
+            }
+        }
+
+        void remove(Timeout timeout)
+        {
+            if (timeout.bucket != this)
+            {
+                return;
+            }
+            if (timeout.previous != null)
+            {
+                timeout.previous.next = timeout.next;
+            }
+            else
+            {
+                head = timeout.next;
+            }
+            if (timeout.next != null)
+            {
+                timeout.next.previous = timeout.previous;
+            }
+            else
+            {
+                tail = timeout.previous;
+            }
+            timeout.previous = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        void expire(long deadlineNanos)
+        {
+            Timeout timeout = head;
+            while (timeout != null)
+            {
+                Timeout next = timeout.next;
+                if (timeout.state.get() == Timeout.CANCELLED)
+                {
+                    remove(timeout);
+                }
+                else if (timeout.remainingRounds <= 0 &&
+                         timeout.deadlineNanos <= deadlineNanos)
+                {
+                    remove(timeout);
+                    timeout.expire();
+                }
+                else
+                {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.protocol;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The queue of messages an actor has received but not yet processed. Any
+ * number of threads may offer messages without locking; only the thread that
+ * has claimed the mailbox polls it, so that an actor processes one message at
+ * a time.
+ *
+ * @author Dieter J Kybelksties
+ */
+final class Mailbox
+{
+
+    private final AtomicReference<Node> tail;
+    private final AtomicBoolean claimed = new AtomicBoolean(false);
+    // only accessed by the thread that has claimed the mailbox
+    private Node head;
+
+    /**
+     * Construct an empty mailbox.
+     */
+    Mailbox()
+    {
+        Node stub = new Node(null);
+        head = stub;
+        tail = new AtomicReference<>(stub);
+    }
+
+    /**
+     * Add a message. Can be called by any thread.
+     *
+     * @param message the message
+     */
+    void offer(Message message)
+    {
+        Node node = new Node(message);
+        Node previous = tail.getAndSet(node);
+        previous.next = node;
+    }
+
+    /**
+     * Remove the oldest message. Must only be called by the thread that has
+     * claimed the mailbox.
+     *
+     * @return the oldest message or null if there is none
+     */
+    Message poll()
+    {
+        Node next = head.next;
+        if (next == null)
+        {
+            return null;
+        }
+        head = next;
+        Message reval = next.message;
+        next.message = null;
+        return reval;
+    }
+
+    /**
+     * Check whether there are messages to process.
+     *
+     * @return true if there is no message, or a message is still being added
+     */
+    boolean isEmpty()
+    {
+        return head.next == null;
+    }
+
+    /**
+     * Claim the mailbox for processing.
+     *
+     * @return true if claimed, false if another thread holds the claim
+     */
+    boolean claim()
+    {
+        return claimed.compareAndSet(false, true);
+    }
+
+    /**
+     * Give up the claim.
+     */
+    void release()
+    {
+        claimed.set(false);
+    }
+
+    private static final class Node
+    {
+
+        private Message message;
+        private volatile Node next = null;
+
+        Node(Message message)
+        {
+            this.message = message;
+        }
+    }
+}
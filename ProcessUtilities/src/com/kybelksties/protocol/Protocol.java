@@ -25,6 +25,8 @@ import static com.kybelksties.protocol.ProtocolException.Type.NoSuchRule;
 import static com.kybelksties.protocol.ProtocolException.Type.ResultStateInvalid;
 import edu.uci.ics.jung.graph.DirectedSparseGraph;
 import edu.uci.ics.jung.graph.util.Pair;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlRootElement;
@@ -91,6 +93,19 @@ public class Protocol extends DirectedSparseGraph<Actor, Message>
         return resultPair.getSecond().getState();
     }
 
+    /**
+     * Freeze the rules into a transition table for fast look-up. Rules added
+     * later are not part of the compiled protocol.
+     *
+     * @return the compiled protocol
+     * @throws ProtocolException if two rules for the same message lead to
+     *                           different states
+     */
+    public CompiledProtocol compile() throws ProtocolException
+    {
+        return new CompiledProtocol(this);
+    }
+
     /**
      * Add a rule for a a state-change of a receiving actor.
      *
@@ -141,8 +156,72 @@ public class Protocol extends DirectedSparseGraph<Actor, Message>
         addEdge(message, receiverBefore, receiverAfter);
         if (timeout != null && timeout > 0 && timeoutState != null)
         {
+            final Actor receiverTimedOut = new Actor(receivingActor.getName(),
+                                                     timeoutState);
+            addVertex(receiverTimedOut);
+            // the timeout travels as payload of the reverse transition
+            addEdge(new Message(TimeoutMessageType.Timeout,
+                                Actor.ANY_ACTOR,
+                                receiverAfter,
+                                timeout),
+                    receiverAfter,
+                    receiverTimedOut);
+        }
+    }
+
+    /**
+     * Retrieve the timeout of the state an actor is in.
+     *
+     * @param actor the actor in its current state
+     * @return the timeout in milliseconds, or null if the state has none
+     */
+    public Integer getTimeout(Actor actor)
+    {
+        if (actor == null)
+        {
+            return null;
+        }
+        Collection<Message> rules = getOutEdges(new Actor(actor.getName(),
+                                                          actor.getState()));
+        if (rules != null)
+        {
+            for (Message rule : rules)
+            {
+                if (rule.getMessageType() == TimeoutMessageType.Timeout &&
+                    rule.getPayload() != null)
+                {
+                    return (Integer) rule.getPayload()[0];
+                }
+            }
+        }
+        return null;
+    }
 
+    /**
+     * Start the timeout of the state an actor is in, if the protocol defines
+     * one. All timeouts share one HashedWheelTimer, so that very many actors
+     * can wait on deadlines without a thread each. When the timeout elapses
+     * while the actor is still in the state, the actor receives a Timeout
+     * message from the protocol and so assumes the timeout state.
+     *
+     * @param actor the actor that has just entered its current state
+     * @return the pending timeout, or null if the state has none
+     */
+    HashedWheelTimer.Timeout startTimeout(final Actor actor)
+    {
+        Integer millis = getTimeout(actor);
+        if (millis == null)
+        {
+            return null;
         }
+        return HashedWheelTimer.shared().newTimeout(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                actor.timeoutElapsed(Protocol.this);
+            }
+        }, millis, TimeUnit.MILLISECONDS);
     }
 
     /**
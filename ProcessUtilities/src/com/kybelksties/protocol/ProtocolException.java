@@ -44,7 +44,8 @@ public class ProtocolException extends Exception
         ResultStateInvalid,
         StateNameInvalid,
         ProtocolInvalid,
-        MessageInvalid
+        MessageInvalid,
+        ConflictingRules
     }
 
     public ProtocolException(Type type, Object... params)
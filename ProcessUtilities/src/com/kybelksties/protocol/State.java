@@ -114,6 +114,10 @@ public class State implements Serializable, Comparable<Object>
     @Override
     public boolean equals(Object obj)
     {
+        if (this == obj)
+        {
+            return true;
+        }
         if (obj == null)
         {
             return false;
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.protocol;
+
+import java.util.Arrays;
+import java.util.TreeSet;
+
+/**
+ * The message type an actor receives from the protocol itself when it has
+ * stayed in a state longer than the timeout of the rule that led into that
+ * state.
+ *
+ * @author Dieter J Kybelksties
+ */
+public enum TimeoutMessageType implements MessageType
+{
+
+    /**
+     * The timeout of the current state has elapsed.
+     */
+    Timeout;
+
+    @Override
+    public MessageType getType()
+    {
+        return this;
+    }
+
+    @Override
+    public TreeSet<MessageType> getAllMessageTypes()
+    {
+        TreeSet<MessageType> reval = new TreeSet<>();
+        reval.addAll(Arrays.asList(values()));
+        return reval;
+    }
+
+    @Override
+    public MessageType fromString(String type)
+    {
+        return type != null && type.equalsIgnoreCase("Timeout") ?
+               Timeout :
+               null;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import com.kybelksties.protocol.State;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test that message types and process states are single instances.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class ExeMessageTypeTest
+{
+
+    private static final Class CLAZZ = ExeMessageTypeTest.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    /**
+     *
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     *
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     *
+     */
+    public ExeMessageTypeTest()
+    {
+    }
+
+    /**
+     *
+     */
+    @Before
+    public void setUp()
+    {
+    }
+
+    /**
+     *
+     */
+    @After
+    public void tearDown()
+    {
+    }
+
+    /**
+     * Test that the factories, ids and string conversion all yield the same
+     * instance.
+     */
+    @Test
+    public void testSingleInstances()
+    {
+        LOGGER.log(Level.INFO, "message types are single instances");
+        assertSame(ExeMessageType.acknowledge(), ExeMessageType.acknowledge());
+        assertSame(ExeMessageType.chitChat(),
+                   ExeMessageType.valueOf(ExeMessageType.chitChat().getId()));
+        assertSame(ExeMessageType.killProcesses(),
+                   ExeMessageType.valueOf(ExeMessageType.Type.KillProcesses));
+        assertSame(ExeMessageType.startProcess(),
+                   ExeMessageType.invalid().fromString("StartProcess"));
+        assertSame(ExeMessageType.invalid(), ExeMessageType.valueOf(-1));
+        assertEquals(ExeMessageType.COUNT,
+                     ExeMessageType.invalid().getAllMessageTypes().size());
+        for (int id = 0; id < ExeMessageType.COUNT; id++)
+        {
+            assertEquals(id, ExeMessageType.valueOf(id).getId());
+        }
+
+        assertSame(ProcessState.ready(), ProcessState.ready());
+        for (int id = 0; id < ProcessState.COUNT; id++)
+        {
+            assertEquals(id,
+                         ((ProcessState) ProcessState.valueOf(id)).getId());
+        }
+    }
+
+    /**
+     * Test that deserialization resolves to the single instances.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testSerialization() throws Exception
+    {
+        LOGGER.log(Level.INFO, "deserialize single instances");
+        assertSame(ExeMessageType.identify(),
+                   roundTrip(ExeMessageType.identify()));
+        State executing = ProcessState.executing();
+        assertSame(executing, roundTrip(executing));
+        ProcessMessage msg = ProcessMessage.makeStopServer();
+        assertSame(ExeMessageType.stopServer(),
+                   ((ProcessMessage) roundTrip(msg)).getType());
+    }
+
+    private static Object roundTrip(Object obj) throws Exception
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes))
+        {
+            out.writeObject(obj);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(
+                               new ByteArrayInputStream(bytes.toByteArray())))
+        {
+            return in.readObject();
+        }
+    }
+}
@@ -0,0 +1,406 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test the bounded outbound queues and the credit window.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class FlowControlTest
+{
+
+    private static final Class CLAZZ = FlowControlTest.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    static final int MAX_QUEUED = 4;
+
+    /**
+     *
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     *
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     *
+     */
+    public FlowControlTest()
+    {
+    }
+
+    /**
+     *
+     */
+    @Before
+    public void setUp()
+    {
+    }
+
+    /**
+     *
+     */
+    @After
+    public void tearDown()
+    {
+    }
+
+    private static ProcessMessage makePush()
+    {
+        return new ProcessMessage(ExeMessageType.stateChanges(),
+                                  new ArrayList<>(Arrays.asList("(1) a")),
+                                  new ArrayList<>(Arrays.asList(
+                                          ConcreteProcess.State.Running)));
+    }
+
+    private static void fill(FlowControl flow)
+    {
+        for (int i = 0; i < MAX_QUEUED; i++)
+        {
+            assertEquals(FlowControl.Admission.SEND,
+                         flow.admit(ProcessMessage.makeAcknowledge()));
+        }
+        assertTrue(flow.isCongested());
+    }
+
+    /**
+     * Test what each policy does with a full queue.
+     */
+    @Test
+    public void testPolicies()
+    {
+        LOGGER.log(Level.INFO, "admit frames to a full queue");
+        FlowControl drop = new FlowControl(MAX_QUEUED, SlowConsumerPolicy.DROP);
+        fill(drop);
+        assertEquals(FlowControl.Admission.DROP, drop.admit(makePush()));
+        // responses are never dropped
+        assertEquals(FlowControl.Admission.SEND,
+                     drop.admit(ProcessMessage.makeAcknowledge()));
+        assertEquals(1L, drop.getDroppedFrames());
+        assertEquals(MAX_QUEUED + 1, drop.getQueueDepth());
+        assertEquals(MAX_QUEUED + 1, drop.getPeakQueueDepth());
+        for (int i = 0; i <= MAX_QUEUED; i++)
+        {
+            drop.sent();
+        }
+        assertEquals(0, drop.getQueueDepth());
+        assertEquals(FlowControl.Admission.SEND, drop.admit(makePush()));
+
+        FlowControl coalesce = new FlowControl(MAX_QUEUED,
+                                               SlowConsumerPolicy.COALESCE);
+        assertTrue(coalesce.takePushCredit());
+        fill(coalesce);
+        assertFalse(coalesce.takePushCredit());
+        assertEquals(1L, coalesce.getDeferredPushes());
+
+        FlowControl disconnect = new FlowControl(MAX_QUEUED,
+                                                 SlowConsumerPolicy.DISCONNECT);
+        fill(disconnect);
+        assertEquals(FlowControl.Admission.DISCONNECT,
+                     disconnect.admit(ProcessMessage.makeAcknowledge()));
+
+        assertEquals(SlowConsumerPolicy.DISCONNECT,
+                     SlowConsumerPolicy.fromString("disconnect", null));
+        assertEquals(SlowConsumerPolicy.COALESCE,
+                     SlowConsumerPolicy.fromString("unknown",
+                                                   SlowConsumerPolicy.COALESCE));
+    }
+
+    /**
+     * Test that pushes are held back and coalesced while a client is out of
+     * credits.
+     */
+    @Test
+    public void testCredits()
+    {
+        LOGGER.log(Level.INFO, "hold pushes back without credits");
+        StateChangePublisher publisher = new StateChangePublisher(60000L);
+        try
+        {
+            final List<ProcessMessage> sent = new ArrayList<>();
+            ClientSession session = new ClientSession(1);
+            session.setResponder(new HandlerRegistry.Responder()
+            {
+                @Override
+                public void respond(ProcessMessage response)
+                {
+                    sent.add(response);
+                }
+            });
+            FlowControl flow = session.getFlowControl();
+            assertEquals(-1L, flow.getCredits());
+            assertEquals(1L, flow.grant(1));
+            publisher.subscribe(session, Collections.emptyList());
+
+            publisher.stateChanged("(1) a", ConcreteProcess.State.Running);
+            assertEquals(1, publisher.flush());
+            assertEquals(0L, flow.getCredits());
+
+            publisher.stateChanged("(1) a", ConcreteProcess.State.Terminated);
+            publisher.stateChanged("(2) b", ConcreteProcess.State.Running);
+            publisher.stateChanged("(1) a",
+                                   ConcreteProcess.State.FinishedSuccess);
+            assertEquals(0, publisher.flush());
+            assertEquals(0, publisher.flush());
+            assertEquals(1, sent.size());
+
+            flow.grant(2);
+            assertEquals(1, publisher.flush());
+            assertEquals(2, sent.size());
+            assertEquals(Arrays.asList("(1) a", "(2) b"),
+                         sent.get(1).getObjects().get(0));
+            assertEquals(Arrays.asList(ConcreteProcess.State.FinishedSuccess,
+                                       ConcreteProcess.State.Running),
+                         sent.get(1).getObjects().get(1));
+            assertEquals(1L, flow.getCredits());
+        }
+        finally
+        {
+            publisher.stop();
+        }
+    }
+
+    /**
+     * Test that a client with a push window keeps receiving pushes because
+     * it grants new credits as it handles them.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testPushWindow() throws Exception
+    {
+        LOGGER.log(Level.INFO, "replenish the push window");
+        ProcessSelectorServer server = new ProcessSelectorServer(0, 1, 2);
+        server.start();
+        ProcessClient client = new ProcessClient("localhost",
+                                                 server.getLocalPort());
+        try
+        {
+            final BlockingQueue<ProcessMessage> pushed =
+                                                new LinkedBlockingQueue<>();
+            client.addPushListener(new ProcessClient.PushListener()
+            {
+                @Override
+                public void messagePushed(ProcessMessage message)
+                {
+                    pushed.add(message);
+                }
+            });
+            client.setPushWindow(2);
+            assertTrue(client.sendMessage(ProcessMessage.makeSubscribe(
+                    Arrays.asList("(8) windowed"))).isAcknowledgement());
+            for (int i = 0; i < 5; i++)
+            {
+                ProcessServer.STATE_CHANGES.stateChanged(
+                        "(8) windowed",
+                        i % 2 == 0 ?
+                        ConcreteProcess.State.Running :
+                        ConcreteProcess.State.Terminated);
+                assertNotNull(pushed.poll(10, TimeUnit.SECONDS));
+            }
+        }
+        finally
+        {
+            client.close();
+            server.close();
+        }
+    }
+    /**
+     * Test that in blocking mode a subscriber which stops reading does not
+     * hold up the pushes to the other subscribers.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testBlockingSlowSubscriber() throws Exception
+    {
+        LOGGER.log(Level.INFO, "a slow subscriber in blocking mode");
+        ProcessBlockingServer server = new ProcessBlockingServer(
+                              0,
+                              ProcessBlockingServer.threadPerConnection());
+        server.start();
+        ProcessClient fast = new ProcessClient("localhost",
+                                               server.getLocalPort());
+        Socket slow = new Socket();
+        try
+        {
+            // subscribe to many long IDs and never read the pushes
+            slow.setReceiveBufferSize(4096);
+            slow.connect(new InetSocketAddress("localhost",
+                                               server.getLocalPort()));
+            ProcessMessageStream slowStream = new ProcessMessageStream(slow);
+            slowStream.write(ProcessMessage.makeIdentify("localhost", 1));
+            slowStream.read();
+            List<String> slowIds = new ArrayList<>();
+            char[] padding = new char[1000];
+            Arrays.fill(padding, 'x');
+            for (int i = 0; i < 500; i++)
+            {
+                slowIds.add("(" + i + ") " + new String(padding));
+            }
+            slowStream.write(ProcessMessage.makeSubscribe(slowIds));
+            assertTrue(slowStream.read().isAcknowledgement());
+
+            final BlockingQueue<ProcessMessage> pushed =
+                                                new LinkedBlockingQueue<>();
+            fast.addPushListener(new ProcessClient.PushListener()
+            {
+                @Override
+                public void messagePushed(ProcessMessage message)
+                {
+                    pushed.add(message);
+                }
+            });
+            assertTrue(fast.sendMessage(ProcessMessage.makeSubscribe(
+                    Arrays.asList("(9) fast"))).isAcknowledgement());
+
+            // far more than the socket buffers hold for the slow client
+            for (int round = 0; round < 40; round++)
+            {
+                ConcreteProcess.State state = round % 2 == 0 ?
+                                              ConcreteProcess.State.Running :
+                                              ConcreteProcess.State.Terminated;
+                for (String id : slowIds)
+                {
+                    ProcessServer.STATE_CHANGES.stateChanged(id, state);
+                }
+                ProcessServer.STATE_CHANGES.stateChanged("(9) fast", state);
+                assertNotNull("push " + round + " held up",
+                              pushed.poll(10, TimeUnit.SECONDS));
+            }
+        }
+        finally
+        {
+            fast.close();
+            slow.close();
+            server.close();
+        }
+    }
+
+    /**
+     * Test that the client keeps reading pushes from a server that has
+     * stopped reading: the credits it grants must not block its reader.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCreditsDoNotBlockReader() throws Exception
+    {
+        LOGGER.log(Level.INFO, "grant credits to a server that does not read");
+        final int pushes = 50000;
+        ServerSocket listener = new ServerSocket();
+        listener.setReceiveBufferSize(4096);
+        listener.bind(new InetSocketAddress("localhost", 0));
+        ProcessClient client = new ProcessClient("localhost",
+                                                 listener.getLocalPort());
+        final AtomicInteger pushed = new AtomicInteger(0);
+        client.addPushListener(new ProcessClient.PushListener()
+        {
+            @Override
+            public void messagePushed(ProcessMessage message)
+            {
+                pushed.incrementAndGet();
+            }
+        });
+        final Socket[] accepted = new Socket[1];
+        try
+        {
+            final ServerSocket server = listener;
+            Thread pusher = new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        accepted[0] = server.accept();
+                        ProcessMessageStream stream =
+                                             new ProcessMessageStream(
+                                                     accepted[0]);
+                        stream.read();
+                        stream.write(ProcessMessage.makeAcknowledge());
+                        // read nothing more, push and push
+                        for (int i = 0; i < pushes; i++)
+                        {
+                            stream.write(makePush());
+                        }
+                    }
+                    catch (Exception ex)
+                    {
+                        LOGGER.log(Level.INFO, "pusher ended: {0}",
+                                   ex.toString());
+                    }
+                }
+            });
+            pusher.setDaemon(true);
+            pusher.start();
+            client.setPushWindow(2);
+            long deadline = System.currentTimeMillis() + 60000L;
+            while (pushed.get() < pushes &&
+                   System.currentTimeMillis() < deadline)
+            {
+                Thread.sleep(50L);
+            }
+            assertEquals(pushes, pushed.get());
+        }
+        finally
+        {
+            client.close();
+            if (accepted[0] != null)
+            {
+                accepted[0].close();
+            }
+            listener.close();
+        }
+    }
+}
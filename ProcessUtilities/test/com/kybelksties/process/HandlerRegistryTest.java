@@ -0,0 +1,277 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test the dispatch of messages to inline and detached handlers.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class HandlerRegistryTest
+{
+
+    private static final Class CLAZZ = HandlerRegistryTest.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    private final ClientSession session = new ClientSession(1);
+    private final LinkedBlockingQueue<ProcessMessage> responses =
+                                                      new LinkedBlockingQueue<>();
+    private final HandlerRegistry.Responder responder =
+                                            new HandlerRegistry.Responder()
+    {
+        @Override
+        public void respond(ProcessMessage response)
+        {
+            responses.add(response);
+        }
+    };
+
+    /**
+     *
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     *
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     *
+     */
+    public HandlerRegistryTest()
+    {
+    }
+
+    /**
+     *
+     */
+    @Before
+    public void setUp()
+    {
+    }
+
+    /**
+     *
+     */
+    @After
+    public void tearDown()
+    {
+    }
+
+    /**
+     * Test that a slow detached handler does not hold up the inline handler
+     * of a later message, and that detached handlers respect their limit.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testDetachedHandlers() throws Exception
+    {
+        LOGGER.log(Level.INFO, "detached handlers do not block the connection");
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final HandlerRegistry registry = new HandlerRegistry();
+        registry.register(ExeMessageType.listProcesses(),
+                          new ProcessServer.Handler()
+        {
+            @Override
+            public ProcessMessage handle(ClientSession session,
+                                         ProcessMessage rcvdMsg)
+            {
+                int running = registry.getRunning(
+                    ExeMessageType.listProcesses());
+                int max;
+                while (running > (max = maxRunning.get()) &&
+                       !maxRunning.compareAndSet(max, running))
+                {
+                }
+                try
+                {
+                    release.await(10, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException ex)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                return new ProcessMessage(ExeMessageType.processList());
+            }
+        }, 2);
+        registry.register(ExeMessageType.chitChat(),
+                          new ProcessServer.Handler()
+        {
+            @Override
+            public ProcessMessage handle(ClientSession session,
+                                         ProcessMessage rcvdMsg)
+            {
+                return ProcessMessage.makeAcknowledge();
+            }
+        });
+        assertTrue(registry.isDetached(ExeMessageType.listProcesses()));
+        assertFalse(registry.isDetached(ExeMessageType.chitChat()));
+
+        int listings = 5;
+        for (int i = 0; i < listings; i++)
+        {
+            registry.dispatch(session,
+                              new ProcessMessage(ExeMessageType.listProcesses()),
+                              responder);
+        }
+        ProcessMessage chat = ProcessMessage.makeChitChat("still there?");
+        registry.dispatch(session, chat, responder);
+
+        // the inline handler has answered before the listings
+        ProcessMessage response = responses.poll(1, TimeUnit.SECONDS);
+        assertNotNull(response);
+        assertTrue(response.isAcknowledgement());
+        assertEquals(chat.getCorrelationId(), response.getCorrelationId());
+        assertEquals(2, registry.getRunning(ExeMessageType.listProcesses()));
+        assertNull(responses.poll(50, TimeUnit.MILLISECONDS));
+
+        release.countDown();
+        for (int i = 0; i < listings; i++)
+        {
+            response = responses.poll(10, TimeUnit.SECONDS);
+            assertNotNull(response);
+            assertEquals(ExeMessageType.processList(), response.getType());
+        }
+        assertTrue(maxRunning.get() <= 2);
+    }
+
+    /**
+     * Test that requests of a detached type are rejected once its line of
+     * waiting requests is full, and that the accepted ones are still served.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testWaitingRequestsBounded() throws Exception
+    {
+        LOGGER.log(Level.INFO, "reject requests when the line is full");
+        final CountDownLatch release = new CountDownLatch(1);
+        HandlerRegistry registry = new HandlerRegistry();
+        registry.register(ExeMessageType.listProcesses(),
+                          new ProcessServer.Handler()
+        {
+            @Override
+            public ProcessMessage handle(ClientSession session,
+                                         ProcessMessage rcvdMsg)
+            {
+                try
+                {
+                    release.await(10, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException ex)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                return new ProcessMessage(ExeMessageType.processList());
+            }
+        }, 1, 2);
+
+        // one runs, two wait and the rest is rejected
+        int listings = 6;
+        for (int i = 0; i < listings; i++)
+        {
+            ProcessMessage listing =
+                           new ProcessMessage(ExeMessageType.listProcesses());
+            listing.setCorrelationId(i + 1);
+            registry.dispatch(session, listing, responder);
+            if (i == 0)
+            {
+                long deadline = System.currentTimeMillis() + 5000;
+                while (registry.getRunning(ExeMessageType.listProcesses()) <
+                       1 && System.currentTimeMillis() < deadline)
+                {
+                    Thread.sleep(5);
+                }
+            }
+        }
+        for (int i = 4; i <= listings; i++)
+        {
+            ProcessMessage response = responses.poll(1, TimeUnit.SECONDS);
+            assertNotNull(response);
+            assertEquals(ExeMessageType.invalid(), response.getType());
+            assertEquals(i, response.getCorrelationId());
+        }
+        assertNull(responses.poll(50, TimeUnit.MILLISECONDS));
+
+        release.countDown();
+        for (int i = 1; i <= 3; i++)
+        {
+            ProcessMessage response = responses.poll(10, TimeUnit.SECONDS);
+            assertNotNull(response);
+            assertEquals(ExeMessageType.processList(), response.getType());
+            assertEquals(i, response.getCorrelationId());
+        }
+    }
+
+    /**
+     * Test that a failing handler is answered with an invalid-message and
+     * that types without handler are acknowledged.
+     */
+    @Test
+    public void testFailingAndMissingHandlers()
+    {
+        LOGGER.log(Level.INFO, "failing and missing handlers");
+        HandlerRegistry registry = new HandlerRegistry();
+        registry.register(ExeMessageType.chitChat(),
+                          new ProcessServer.Handler()
+        {
+            @Override
+            public ProcessMessage handle(ClientSession session,
+                                         ProcessMessage rcvdMsg)
+            {
+                throw new IllegalStateException("broken");
+            }
+        });
+        registry.dispatch(session, ProcessMessage.makeChitChat("x"), responder);
+        assertEquals(ExeMessageType.invalid(), responses.poll().getType());
+
+        registry.dispatch(session,
+                          new ProcessMessage(ExeMessageType.restartProcess()),
+                          responder);
+        assertTrue(responses.poll().isAcknowledgement());
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test the capture of process output.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class OutputCaptureTest
+{
+
+    private static final Class CLAZZ = OutputCaptureTest.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    static final int OUTPUT_BYTES = 4 * 1024 * 1024;
+    static final int CAPACITY = 64 * 1024;
+
+    private File teeFile = null;
+
+    /**
+     *
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     *
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     *
+     */
+    public OutputCaptureTest()
+    {
+    }
+
+    /**
+     * Create the log file.
+     *
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        teeFile = File.createTempFile("OutputCaptureTest", ".log");
+    }
+
+    /**
+     * Remove the log file.
+     */
+    @After
+    public void tearDown()
+    {
+        teeFile.delete();
+    }
+
+    /**
+     * Test that the ring buffer keeps the most recent bytes.
+     */
+    @Test
+    public void testRingBuffer()
+    {
+        LOGGER.log(Level.INFO, "keep the most recent bytes");
+        OutputRingBuffer buffer = new OutputRingBuffer(8);
+        buffer.write("abc".getBytes(), 0, 3);
+        assertArrayEquals("abc".getBytes(), buffer.snapshot());
+        buffer.write("defghij".getBytes(), 0, 7);
+        assertEquals(8, buffer.size());
+        assertEquals(10L, buffer.getTotalWritten());
+        assertArrayEquals("cdefghij".getBytes(), buffer.snapshot());
+        buffer.write("0123456789xy".getBytes(), 2, 10);
+        assertArrayEquals("456789xy".getBytes(), buffer.snapshot());
+        buffer.clear();
+        assertEquals(0, buffer.snapshot().length);
+    }
+
+    /**
+     * Test that the ring buffer allocates its memory as bytes arrive and
+     * keeps its bytes on the heap once released.
+     */
+    @Test
+    public void testRingBufferChunks()
+    {
+        LOGGER.log(Level.INFO, "allocate chunks as bytes arrive");
+        int capacity = 3 * OutputRingBuffer.CHUNK_SIZE + 5;
+        OutputRingBuffer buffer = new OutputRingBuffer(capacity);
+        assertEquals(0, buffer.getAllocated());
+        byte[] bytes = new byte[capacity + OutputRingBuffer.CHUNK_SIZE];
+        for (int i = 0; i < bytes.length; i++)
+        {
+            bytes[i] = (byte) i;
+        }
+        buffer.write(bytes, 0, 10);
+        assertEquals(OutputRingBuffer.CHUNK_SIZE, buffer.getAllocated());
+        buffer.write(bytes, 10, bytes.length - 10);
+        assertEquals(capacity, buffer.getAllocated());
+        byte[] expected = Arrays.copyOfRange(bytes,
+                                             bytes.length - capacity,
+                                             bytes.length);
+        assertArrayEquals(expected, buffer.snapshot());
+
+        buffer.release();
+        assertEquals(0, buffer.getAllocated());
+        assertEquals(capacity, buffer.size());
+        assertArrayEquals(expected, buffer.snapshot());
+    }
+
+    /**
+     * Test that a process writing much more than a pipe holds runs to its end,
+     * that all its output reaches the log file and the listeners and that
+     * only the last part is kept.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCaptureChattyProcess() throws Exception
+    {
+        LOGGER.log(Level.INFO, "capture a chatty process");
+        ConcreteProcess process = new ConcreteProcess(new String[]
+        {
+            "/bin/sh",
+            "-c",
+            "head -c " + OUTPUT_BYTES + " /dev/zero; echo error >&2"
+        }, null);
+        process.start();
+        OutputCapture capture = process.capture(CAPACITY, teeFile);
+
+        final AtomicLong received = new AtomicLong();
+        final CountDownLatch closed = new CountDownLatch(2);
+        capture.addListener(new OutputCapture.Listener()
+        {
+            @Override
+            public void outputReceived(OutputCapture.Source source,
+                                       byte[] bytes,
+                                       int offset,
+                                       int length)
+            {
+                received.addAndGet(length);
+            }
+
+            @Override
+            public void outputClosed(OutputCapture.Source source)
+            {
+                closed.countDown();
+            }
+        }, true);
+
+        assertTrue(closed.await(30, TimeUnit.SECONDS));
+        assertEquals(ConcreteProcess.State.FinishedSuccess,
+                     waitForEnd(process));
+        assertEquals(OUTPUT_BYTES + "error\n".length(), received.get());
+        assertEquals(OUTPUT_BYTES + "error\n".length(), teeFile.length());
+        OutputRingBuffer stdout = capture.getBuffer(OutputCapture.Source.STDOUT);
+        assertEquals(CAPACITY, stdout.size());
+        assertEquals(OUTPUT_BYTES, stdout.getTotalWritten());
+        assertArrayEquals("error\n".getBytes(),
+                          capture.getBuffer(OutputCapture.Source.STDERR).
+                          snapshot());
+        assertTrue(capture.isClosed(OutputCapture.Source.STDOUT));
+        assertTrue(capture.isClosed(OutputCapture.Source.STDERR));
+        assertEquals(0, stdout.getAllocated());
+    }
+
+    private static ConcreteProcess.State waitForEnd(ConcreteProcess process)
+            throws InterruptedException
+    {
+        for (int i = 0; i < 100 && process.isRunning(); i++)
+        {
+            Thread.sleep(50);
+        }
+        return process.getState();
+    }
+}
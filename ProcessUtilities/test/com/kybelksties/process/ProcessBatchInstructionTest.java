@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test the batch instructions that start and kill many processes in one round
+ * trip.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class ProcessBatchInstructionTest
+{
+
+    private static final Class CLAZZ = ProcessBatchInstructionTest.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    static final int ROWS = 300;
+    static final int STARTED = 100;
+
+    private ProcessSelectorServer server = null;
+
+    /**
+     *
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     *
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     *
+     */
+    public ProcessBatchInstructionTest()
+    {
+    }
+
+    /**
+     * Start a server on an ephemeral port.
+     *
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        server = new ProcessSelectorServer(0, 1, 4);
+        server.start();
+    }
+
+    /**
+     * Stop the server and drop the pooled clients.
+     */
+    @After
+    public void tearDown()
+    {
+        ProcessClientPool.closeAll();
+        server.close();
+    }
+
+    /**
+     * Test that the start instructions of a whole table are answered with one
+     * state per row. The rows name a host other than the server's, so the
+     * server reports all of them as failed to start.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testStartProcesses() throws Exception
+    {
+        LOGGER.log(Level.INFO, "start a table of processes in one batch");
+        ScheduledProcessTableModel model = new ScheduledProcessTableModel();
+        for (int i = 0; i < ROWS; i++)
+        {
+            ScheduledProcess sp = new ScheduledProcess(new ExeDefinition("LS"),
+                                                       null);
+            sp.setConnectionInfo(new ConnectionInfoList.ConnectionInfo(
+                    "localhost",
+                    server.getLocalPort()));
+            model.add(sp);
+        }
+
+        List<ResponseFuture> answers = model.sendStartInstructions();
+        assertEquals(1, answers.size());
+        ProcessMessage response = answers.get(0).get(10, TimeUnit.SECONDS);
+        assertTrue(response.isAcknowledgement());
+        assertEquals(ROWS, ((List) response.getObjects().get(0)).size());
+        assertEquals(ROWS, ((List) response.getObjects().get(1)).size());
+        for (ScheduledProcess sp : model)
+        {
+            assertEquals(ConcreteProcess.State.StartFailed,
+                         sp.getProcess().getState());
+            assertNull(sp.getServerId());
+        }
+        assertEquals(1, server.getConnectionCount());
+    }
+
+    /**
+     * Test that a kill instruction is answered with one flag per process.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testKillProcesses() throws Exception
+    {
+        LOGGER.log(Level.INFO, "kill unknown processes in one batch");
+        ProcessClient client = ProcessClientPool.get(
+                      new ConnectionInfoList.ConnectionInfo(
+                              "localhost",
+                              server.getLocalPort()));
+        ProcessMessage response = client.sendMessage(
+                       ProcessMessage.makeKillProcesses(
+                               Arrays.asList("(1) nowhere", "(2) nowhere")));
+        assertTrue(response.isAcknowledgement());
+        ArrayList<Boolean> expected = new ArrayList<>();
+        expected.add(Boolean.FALSE);
+        expected.add(Boolean.FALSE);
+        assertEquals(expected, response.getObjects().get(0));
+    }
+
+    /**
+     * Test that the server forgets the processes it has started once they
+     * have ended and that their output captures give up their buffers.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testEndedProcessesForgotten() throws Exception
+    {
+        LOGGER.log(Level.INFO, "forget processes that have ended");
+        ConnectionInfoList.ConnectionInfo connection =
+                                          new ConnectionInfoList.ConnectionInfo(
+                                                  ProcessServer.HOSTNAME,
+                                                  server.getLocalPort());
+        List<ScheduledProcess> processes = new ArrayList<>();
+        for (int i = 0; i < STARTED; i++)
+        {
+            ExeDefinition exe = new ExeDefinition("ENV");
+            exe.setExecutable("/usr/bin/env");
+            ScheduledProcess sp = new ScheduledProcess(exe, null);
+            sp.setWindowMode(WindowMode.BACKGROUND);
+            sp.setConnectionInfo(connection);
+            processes.add(sp);
+        }
+        ProcessClient client = ProcessClientPool.get(connection);
+        ProcessMessage response = client.sendMessage(
+                       ProcessMessage.makeStartProcesses(processes));
+        assertTrue(response.isAcknowledgement());
+        for (Object state : (List) response.getObjects().get(0))
+        {
+            assertTrue(state != ConcreteProcess.State.StartFailed);
+        }
+        for (int i = 0;
+             i < 200 &&
+             (!ProcessServer.monitoredProcesses.isEmpty() ||
+              OutputDrainer.drainedCount() > 0);
+             i++)
+        {
+            Thread.sleep(50);
+        }
+        assertTrue(ProcessServer.monitoredProcesses.isEmpty());
+        assertTrue(ProcessServer.MONITORED_IDS.isEmpty());
+        // every capture has seen both its streams end and been released
+        assertEquals(0, OutputDrainer.drainedCount());
+    }
+}
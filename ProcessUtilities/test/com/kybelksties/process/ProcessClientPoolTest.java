@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test the pooled, multiplexed ProcessClient.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class ProcessClientPoolTest
+{
+
+    private static final Class CLAZZ = ProcessClientPoolTest.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    static final int THREADS = 8;
+    static final int REQUESTS_PER_THREAD = 100;
+
+    private ProcessSelectorServer server = null;
+
+    /**
+     *
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     *
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     *
+     */
+    public ProcessClientPoolTest()
+    {
+    }
+
+    /**
+     * Start a server on an ephemeral port.
+     *
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        server = new ProcessSelectorServer(0, 1, 4);
+        server.start();
+    }
+
+    /**
+     * Stop the server and drop the pooled clients.
+     */
+    @After
+    public void tearDown()
+    {
+        ProcessClientPool.closeAll();
+        server.close();
+    }
+
+    /**
+     * Test that many threads share one connection and each gets the response
+     * to its own request.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testMultiplexedRequests() throws Exception
+    {
+        LOGGER.log(Level.INFO, "multiplex requests over a pooled client");
+        final ConnectionInfoList.ConnectionInfo info =
+                                                new ConnectionInfoList.ConnectionInfo(
+                                                        "localhost",
+                                                        server.getLocalPort());
+        ProcessClient client = ProcessClientPool.get(info);
+        assertSame(client,
+                   ProcessClientPool.get(new ConnectionInfoList.ConnectionInfo(
+                           "localhost",
+                           server.getLocalPort())));
+
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        try
+        {
+            Future<Integer>[] results = new Future[THREADS];
+            for (int t = 0; t < THREADS; t++)
+            {
+                results[t] = threads.submit(new Callable<Integer>()
+                {
+                    @Override
+                    public Integer call() throws Exception
+                    {
+                        int matched = 0;
+                        for (int i = 0; i < REQUESTS_PER_THREAD; i++)
+                        {
+                            ProcessMessage request =
+                                           ProcessMessage.makeChitChat("hi");
+                            ProcessMessage response =
+                                           ProcessClientPool.get(info).
+                                           sendMessage(request);
+                            if (response.isAcknowledgement() &&
+                                response.getCorrelationId() ==
+                                request.getCorrelationId())
+                            {
+                                matched++;
+                            }
+                        }
+                        return matched;
+                    }
+                });
+            }
+            for (Future<Integer> result : results)
+            {
+                assertEquals(REQUESTS_PER_THREAD, (int) result.get());
+            }
+        }
+        finally
+        {
+            threads.shutdownNow();
+        }
+        assertEquals(1, server.getConnectionCount());
+        assertEquals(1, ProcessClientPool.size());
+        assertEquals(0, client.getOutstandingCount());
+    }
+
+    /**
+     * Test that many requests can be outstanding at once and that listeners
+     * are told of each response.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testPipelinedAsyncRequests() throws Exception
+    {
+        LOGGER.log(Level.INFO, "pipeline asynchronous requests");
+        ProcessClient client = ProcessClientPool.get(
+                      new ConnectionInfoList.ConnectionInfo(
+                              "localhost",
+                              server.getLocalPort()));
+        final AtomicInteger received = new AtomicInteger();
+        ResponseFuture.Listener counter = new ResponseFuture.Listener()
+        {
+            @Override
+            public void responseReceived(ProcessMessage response)
+            {
+                if (response.isAcknowledgement())
+                {
+                    received.incrementAndGet();
+                }
+            }
+
+            @Override
+            public void requestFailed(Throwable reason)
+            {
+            }
+        };
+
+        int requests = THREADS * REQUESTS_PER_THREAD;
+        ProcessMessage[] sent = new ProcessMessage[requests];
+        ResponseFuture[] futures = new ResponseFuture[requests];
+        for (int i = 0; i < requests; i++)
+        {
+            sent[i] = ProcessMessage.makeChitChat("async " + i);
+            futures[i] = client.sendAsync(sent[i]).addListener(counter);
+        }
+        for (int i = 0; i < requests; i++)
+        {
+            ProcessMessage response = futures[i].get(10, TimeUnit.SECONDS);
+            assertEquals(sent[i].getCorrelationId(),
+                         response.getCorrelationId());
+        }
+        assertEquals(requests, received.get());
+        assertEquals(0, client.getOutstandingCount());
+
+        // a listener added after completion is called at once
+        final AtomicInteger late = new AtomicInteger();
+        futures[0].addListener(new ResponseFuture.Listener()
+        {
+            @Override
+            public void responseReceived(ProcessMessage response)
+            {
+                late.incrementAndGet();
+            }
+
+            @Override
+            public void requestFailed(Throwable reason)
+            {
+            }
+        });
+        assertEquals(1, late.get());
+    }
+
+    /**
+     * Test that a pooled client reconnects after its connection was closed.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testReconnect() throws Exception
+    {
+        LOGGER.log(Level.INFO, "reconnect a pooled client");
+        ConnectionInfoList.ConnectionInfo info =
+                                          new ConnectionInfoList.ConnectionInfo(
+                                                  "localhost",
+                                                  server.getLocalPort());
+        ProcessClient client = ProcessClientPool.get(info);
+        assertTrue(client.sendMessage(ProcessMessage.makeChitChat("one")).
+                isAcknowledgement());
+        client.close();
+        assertTrue(client.sendMessage(ProcessMessage.makeChitChat("two")).
+                isAcknowledgement());
+        assertTrue(client.isConnected());
+    }
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test the dependency aware launching of scheduled processes.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class ProcessLaunchSchedulerTest
+{
+
+    private static final Class CLAZZ = ProcessLaunchSchedulerTest.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    private final Map<ScheduledProcess, Long> launchTimes =
+                                              new ConcurrentHashMap<>();
+
+    // starts the process on this machine and records when
+    private final ProcessLaunchScheduler.Launcher recordingLauncher =
+                                                 new ProcessLaunchScheduler.Launcher()
+    {
+        @Override
+        public void launch(ScheduledProcess schedProc) throws Exception
+        {
+            launchTimes.put(schedProc, System.nanoTime());
+            schedProc.getProcess().start();
+        }
+    };
+
+    /**
+     *
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     *
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     *
+     */
+    public ProcessLaunchSchedulerTest()
+    {
+    }
+
+    /**
+     *
+     */
+    @Before
+    public void setUp()
+    {
+    }
+
+    /**
+     *
+     */
+    @After
+    public void tearDown()
+    {
+    }
+
+    private static ScheduledProcess makeProcess(String name, String script)
+    {
+        ScheduledProcess reval = new ScheduledProcess(new ExeDefinition(name),
+                                                      null);
+        reval.getProcess().command(new String[]
+        {
+            "/bin/sh", "-c", script
+        });
+        return reval;
+    }
+
+    private static ScheduledProcess makeRemoteProcess(
+            String executable,
+            ConnectionInfoList.ConnectionInfo connection)
+    {
+        ExeDefinition exe = new ExeDefinition(executable);
+        exe.setExecutable(executable);
+        ScheduledProcess reval = new ScheduledProcess(exe, null);
+        reval.setWindowMode(WindowMode.BACKGROUND);
+        reval.setConnectionInfo(connection);
+        return reval;
+    }
+
+    private static long millisBetween(long fromNanos, long toNanos)
+    {
+        return TimeUnit.NANOSECONDS.toMillis(toNanos - fromNanos);
+    }
+
+    /**
+     * Test that independent processes are launched together and dependent
+     * ones after their prerequisites.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testDependencies() throws Exception
+    {
+        LOGGER.log(Level.INFO, "launch along the dependencies");
+        ScheduledProcess database = makeProcess("database", "sleep 0.5");
+        ScheduledProcess service = makeProcess("service", "sleep 0.5");
+        ScheduledProcess monitor = makeProcess("monitor", "sleep 0.5");
+        ScheduledProcess report = makeProcess("report", "exit 0");
+
+        ProcessLaunchScheduler scheduler =
+                               new ProcessLaunchScheduler(Arrays.asList(
+                                       report,
+                                       service,
+                                       database,
+                                       monitor),
+                                                          recordingLauncher);
+        scheduler.dependsOn(report, database);
+        scheduler.startsAfter(service, database);
+        long begin = System.nanoTime();
+        scheduler.start();
+        assertTrue(scheduler.awaitLaunched(10, TimeUnit.SECONDS));
+        assertTrue(scheduler.getSkipped().isEmpty());
+
+        assertTrue(millisBetween(begin, launchTimes.get(monitor)) < 400);
+        assertTrue(millisBetween(begin, launchTimes.get(service)) < 400);
+        assertTrue(millisBetween(launchTimes.get(database),
+                                 launchTimes.get(report)) >= 500);
+    }
+
+    /**
+     * Test that a process depending on a remote one is launched once the
+     * server has reported the end of its prerequisite.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRemoteDependencies() throws Exception
+    {
+        LOGGER.log(Level.INFO, "launch along remote dependencies");
+        // outlives the acknowledgement of its start
+        File sleeper = File.createTempFile("ProcessLaunchSchedulerTest", ".sh");
+        Files.write(sleeper.toPath(), "#!/bin/sh\nsleep 0.5\n".getBytes());
+        sleeper.setExecutable(true);
+        ProcessSelectorServer server = new ProcessSelectorServer(0, 1, 4);
+        server.start();
+        try
+        {
+            ConnectionInfoList.ConnectionInfo connection =
+                                              new ConnectionInfoList.ConnectionInfo(
+                                                      ProcessServer.HOSTNAME,
+                                                      server.getLocalPort());
+            ScheduledProcess first = makeRemoteProcess(sleeper.getPath(),
+                                                       connection);
+            ScheduledProcess second = makeRemoteProcess("/bin/true",
+                                                        connection);
+            ProcessLaunchScheduler scheduler =
+                                   new ProcessLaunchScheduler(Arrays.asList(
+                                           first,
+                                           second),
+                                                              ProcessLaunchScheduler.REMOTE);
+            scheduler.dependsOn(second, first);
+            scheduler.start();
+            assertTrue(scheduler.awaitLaunched(10, TimeUnit.SECONDS));
+            assertTrue(scheduler.getSkipped().isEmpty());
+            assertEquals(ConcreteProcess.State.FinishedSuccess,
+                         first.getProcess().getState());
+            assertTrue(second.getServerId() != null);
+        }
+        finally
+        {
+            ProcessClientPool.closeAll();
+            server.close();
+            sleeper.delete();
+        }
+    }
+
+    /**
+     * Test that processes depending on a failed process are skipped.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFailedPrerequisite() throws Exception
+    {
+        LOGGER.log(Level.INFO, "skip processes after a failure");
+        ScheduledProcess failing = makeProcess("failing", "exit 3");
+        ScheduledProcess dependent = makeProcess("dependent", "exit 0");
+        ScheduledProcess transitive = makeProcess("transitive", "exit 0");
+        ScheduledProcess independent = makeProcess("independent", "exit 0");
+
+        ProcessLaunchScheduler scheduler =
+                               new ProcessLaunchScheduler(Arrays.asList(
+                                       failing,
+                                       dependent,
+                                       transitive,
+                                       independent),
+                                                          recordingLauncher);
+        scheduler.dependsOn(dependent, failing);
+        scheduler.startsAfter(transitive, dependent);
+        scheduler.start();
+        assertTrue(scheduler.awaitLaunched(10, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(dependent, transitive),
+                     scheduler.getSkipped());
+        assertTrue(launchTimes.containsKey(independent));
+    }
+
+    /**
+     * Test that cyclic dependencies are rejected.
+     */
+    @Test
+    public void testCycle()
+    {
+        LOGGER.log(Level.INFO, "reject a cycle");
+        ScheduledProcess first = makeProcess("first", "exit 0");
+        ScheduledProcess second = makeProcess("second", "exit 0");
+        ScheduledProcess third = makeProcess("third", "exit 0");
+        ProcessLaunchScheduler scheduler =
+                               new ProcessLaunchScheduler(Arrays.asList(first,
+                                                                        second,
+                                                                        third),
+                                                          recordingLauncher);
+        scheduler.startsAfter(second, first);
+        scheduler.startsAfter(third, second);
+        scheduler.dependsOn(first, third);
+        try
+        {
+            scheduler.start();
+            fail("Cycle not detected");
+        }
+        catch (IllegalStateException ex)
+        {
+            assertTrue(launchTimes.isEmpty());
+        }
+    }
+
+    /**
+     * Test the limit of processes launched at the same time on one machine
+     * and the no-operation time.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testParallelLimitAndDelay() throws Exception
+    {
+        LOGGER.log(Level.INFO, "limit parallel launches and delay");
+        final ScheduledExecutorService servers =
+                                       Executors.newSingleThreadScheduledExecutor();
+        final AtomicInteger inLaunch = new AtomicInteger();
+        final AtomicInteger maxInLaunch = new AtomicInteger();
+        // a launch that takes a while to be acknowledged, like a remote one
+        ProcessLaunchScheduler.Launcher slowLauncher =
+                                        new ProcessLaunchScheduler.Launcher()
+        {
+            @Override
+            public void launch(final ScheduledProcess schedProc)
+            {
+                launchTimes.put(schedProc, System.nanoTime());
+                int now = inLaunch.incrementAndGet();
+                maxInLaunch.set(Math.max(maxInLaunch.get(), now));
+                servers.schedule(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        inLaunch.decrementAndGet();
+                        schedProc.getProcess().
+                                setState(ConcreteProcess.State.Running);
+                    }
+                }, 50, TimeUnit.MILLISECONDS);
+            }
+        };
+
+        ScheduledProcess[] processes = new ScheduledProcess[6];
+        for (int i = 0; i < processes.length; i++)
+        {
+            processes[i] = makeProcess("p" + i, "exit 0");
+        }
+        processes[5].setNoopTime(1L);
+        ProcessLaunchScheduler scheduler =
+                               new ProcessLaunchScheduler(Arrays.asList(
+                                       processes),
+                                                          slowLauncher);
+        scheduler.setMaxParallelPerMachine(2);
+        long begin = System.nanoTime();
+        try
+        {
+            scheduler.start();
+            assertTrue(scheduler.awaitLaunched(10, TimeUnit.SECONDS));
+        }
+        finally
+        {
+            servers.shutdownNow();
+        }
+        assertEquals(2, maxInLaunch.get());
+        assertTrue(millisBetween(begin, launchTimes.get(processes[5])) >=
+                   1000);
+        assertTrue(millisBetween(begin, launchTimes.get(processes[4])) <
+                   1000);
+    }
+}
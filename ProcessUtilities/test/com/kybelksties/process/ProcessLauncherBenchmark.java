@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+/**
+ * Compares the launches per second of processes forked by this JVM and of
+ * processes launched by the prewarmed helpers of the ProcessLauncher. Not a
+ * unit test: run the main method from the test class path. The arguments are
+ * the number of launches per round, the number of launching threads, the
+ * number of helpers and the megabytes of heap to fill before measuring, which
+ * makes this JVM as big as a busy server; run it with a -Xmx to match. JDKs
+ * that spawn with vfork or posix_spawn do not copy the heap's page tables;
+ * -Djdk.lang.Process.launchMechanism=FORK shows the cost of a plain fork.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class ProcessLauncherBenchmark
+{
+
+    private static final Class CLAZZ = ProcessLauncherBenchmark.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    private static final int WARMUP_ROUNDS = 1;
+    private static final int MEASURED_ROUNDS = 3;
+    private static final String[] COMMAND =
+    {
+        "/bin/true"
+    };
+
+    // keeps the ballast reachable while measuring
+    private static List<byte[]> ballast = new ArrayList<>();
+
+    /**
+     * Run the benchmark.
+     *
+     * @param args optional launches per round, threads, helpers and megabytes
+     *             of ballast
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int launches = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int helpers = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        int ballastMegabytes = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+        for (int i = 0; i < ballastMegabytes; i++)
+        {
+            byte[] megabyte = new byte[1024 * 1024];
+            // touch the pages so that they are really mapped
+            for (int j = 0; j < megabyte.length; j += 4096)
+            {
+                megabyte[j] = 1;
+            }
+            ballast.add(megabyte);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try
+        {
+            System.out.printf("%-10s %8s %8s %14s%n",
+                              "launcher",
+                              "threads",
+                              "launches",
+                              "launches/s");
+            report("fork", threads, launches, measure(pool, threads, launches));
+            ProcessLauncher.start(helpers);
+            try
+            {
+                report("helpers-" + helpers,
+                       threads,
+                       launches,
+                       measure(pool, threads, launches));
+            }
+            finally
+            {
+                ProcessLauncher.stop();
+            }
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+        System.out.println("(" + ballast.size() + " MB ballast)");
+    }
+
+    private static void report(String launcher,
+                               int threads,
+                               int launches,
+                               long nanos)
+    {
+        System.out.printf("%-10s %8d %8d %14.1f%n",
+                          launcher,
+                          threads,
+                          launches,
+                          launches * 1e9 / nanos);
+    }
+
+    private static long measure(ExecutorService pool,
+                                int threads,
+                                int launches) throws Exception
+    {
+        for (int i = 0; i < WARMUP_ROUNDS; i++)
+        {
+            round(pool, threads, launches);
+        }
+        long reval = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ROUNDS; i++)
+        {
+            reval = Math.min(reval, round(pool, threads, launches));
+        }
+        return reval;
+    }
+
+    private static long round(ExecutorService pool,
+                              int threads,
+                              final int launches) throws Exception
+    {
+        final int perThread = Math.max(1, launches / threads);
+        List<Future<Integer>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++)
+        {
+            results.add(pool.submit(new Callable<Integer>()
+            {
+                @Override
+                public Integer call() throws Exception
+                {
+                    int failed = 0;
+                    for (int i = 0; i < perThread; i++)
+                    {
+                        ProcessBuilder builder = new ProcessBuilder(COMMAND);
+                        Process process = ProcessLauncher.isStarted() ?
+                                          ProcessLauncher.launch(builder) :
+                                          builder.start();
+                        if (process.waitFor() != 0)
+                        {
+                            failed++;
+                        }
+                    }
+                    return failed;
+                }
+            }));
+        }
+        int failed = 0;
+        for (Future<Integer> result : results)
+        {
+            failed += result.get();
+        }
+        if (failed > 0)
+        {
+            System.out.println(failed + " launches failed");
+        }
+        return System.nanoTime() - start;
+    }
+}
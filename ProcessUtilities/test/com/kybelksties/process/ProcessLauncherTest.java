@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import com.kybelksties.general.EnvironmentVar;
+import com.kybelksties.general.EnvironmentVarModel;
+import com.kybelksties.general.PodVariant;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test the start of processes through the launch helpers.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class ProcessLauncherTest
+{
+
+    private static final Class CLAZZ = ProcessLauncherTest.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    /**
+     *
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     *
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     *
+     */
+    public ProcessLauncherTest()
+    {
+    }
+
+    /**
+     * Start two helpers.
+     *
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        ProcessLauncher.start(2);
+    }
+
+    /**
+     * Stop the helpers.
+     */
+    @After
+    public void tearDown()
+    {
+        ProcessLauncher.stop();
+    }
+
+    private static String readAll(InputStream stream) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[256];
+        int read;
+        while ((read = stream.read(buffer, 0, buffer.length)) >= 0)
+        {
+            bytes.write(buffer, 0, read);
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Test that a launched process gets its environment and directory and
+     * that its output and exit value come back.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testLaunch() throws Exception
+    {
+        LOGGER.log(Level.INFO, "launch a process through a helper");
+        assertTrue(ProcessLauncher.isStarted());
+        ProcessBuilder builder = new ProcessBuilder(
+                       "/bin/sh",
+                       "-c",
+                       "sleep 0.2; echo \"$GREETING\"; pwd; echo oops >&2; exit 3");
+        builder.environment().clear();
+        builder.environment().put("GREETING", "hello helper");
+        builder.directory(new File("/tmp"));
+        Process process = ProcessLauncher.launch(builder);
+        assertTrue(ConcreteProcess.pidOf(process) > 0L);
+
+        assertEquals("hello helper\n/tmp\n", readAll(process.getInputStream()));
+        assertEquals("oops\n", readAll(process.getErrorStream()));
+        assertEquals(3, process.waitFor());
+        assertEquals(3, process.exitValue());
+
+        try
+        {
+            ProcessLauncher.launch(new ProcessBuilder("/no/such/program"));
+            fail("Starting a missing program should fail");
+        }
+        catch (IOException ex)
+        {
+            LOGGER.log(Level.INFO, "expected failure: {0}", ex.toString());
+        }
+    }
+
+    /**
+     * Test that a ConcreteProcess is started through the helpers while they
+     * run and is tracked, captured and killed as if started directly.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testConcreteProcess() throws Exception
+    {
+        LOGGER.log(Level.INFO, "start a concrete process through a helper");
+        EnvironmentVarModel environment = new EnvironmentVarModel();
+        environment.add(new EnvironmentVar("WHO",
+                                           "test",
+                                           new PodVariant("launcher")));
+        ConcreteProcess finished = new ConcreteProcess(new String[]
+        {
+            "/bin/sh", "-c", "echo $WHO"
+        }, environment);
+        finished.start();
+        assertEquals(ConcreteProcess.State.Running, finished.getState());
+        OutputCapture capture = finished.capture(1024, null);
+        assertEquals(0, finished.waitFor());
+        long deadline = System.currentTimeMillis() + 10000L;
+        while (finished.getState() == ConcreteProcess.State.Running &&
+               System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(10L);
+        }
+        assertEquals(ConcreteProcess.State.FinishedSuccess,
+                     finished.getState());
+        while (!capture.isClosed(OutputCapture.Source.STDOUT) &&
+               System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(10L);
+        }
+        assertEquals("launcher\n",
+                     new String(capture.getBuffer(
+                             OutputCapture.Source.STDOUT).snapshot(),
+                                StandardCharsets.UTF_8));
+
+        ConcreteProcess sleeper = new ConcreteProcess(new String[]
+        {
+            "/bin/sleep", "30"
+        }, new EnvironmentVarModel());
+        sleeper.start();
+        assertTrue(sleeper.isRunning());
+        sleeper.destroy();
+        assertTrue(sleeper.waitFor() != 0);
+    }
+
+    /**
+     * Test that output larger than the window is relayed in full while
+     * another process's output is not read, and that closing an unread stream
+     * lets its process finish.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testLargeOutput() throws Exception
+    {
+        LOGGER.log(Level.INFO, "relay output larger than the window");
+        String writeMegabyte = "head -c 1048576 /dev/zero";
+        Process unread = ProcessLauncher.launch(new ProcessBuilder(
+                "/bin/sh", "-c", writeMegabyte));
+        Process read = ProcessLauncher.launch(new ProcessBuilder(
+                "/bin/sh", "-c", writeMegabyte));
+
+        InputStream stream = read.getInputStream();
+        byte[] buffer = new byte[4096];
+        long total = 0L;
+        int count;
+        while ((count = stream.read(buffer, 0, buffer.length)) >= 0)
+        {
+            total += count;
+        }
+        assertEquals(1048576L, total);
+        assertEquals(0, read.waitFor());
+
+        // the unread process blocks on its pipe until its output is dropped
+        Thread.sleep(200L);
+        try
+        {
+            unread.exitValue();
+            fail("A process whose output is not read should block");
+        }
+        catch (IllegalThreadStateException ex)
+        {
+            LOGGER.log(Level.INFO, "still running as expected");
+        }
+        unread.getInputStream().close();
+        assertEquals(0, unread.waitFor());
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Compares the codecs of ProcessMessage s in message size and time to encode
+ * and decode. Not a unit test: run the main method from the test class path.
+ * The number of iterations can be given as first argument.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class ProcessMessageCodecBenchmark
+{
+
+    private static final Class CLAZZ = ProcessMessageCodecBenchmark.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    // keeps the JIT from dropping the work being measured
+    private static long sink = 0L;
+
+    /**
+     * Run the benchmark.
+     *
+     * @param args optional number of iterations per round
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        Map<String, ProcessMessage> messages = new LinkedHashMap<>();
+        messages.put("chitChat", ProcessMessage.makeChitChat("Hello server"));
+        messages.put("identify",
+                     ProcessMessage.makeIdentify("localhost",
+                                                 9898,
+                                                 ProcessMessageCodec.offer()));
+        messages.put("acknowledge",
+                     ProcessMessage.makeAcknowledge(
+                             ConcreteProcess.State.Running,
+                             "Server ID=(1) localhost:9898-LIST"));
+        messages.put("startProcess",
+                     ProcessMessageCodecTest.makeStartMessage());
+
+        System.out.printf("%-14s %-11s %8s %14s %14s%n",
+                          "message",
+                          "codec",
+                          "bytes",
+                          "encode ns/op",
+                          "decode ns/op");
+        for (Map.Entry<String, ProcessMessage> entry : messages.entrySet())
+        {
+            for (ProcessMessageCodec codec : ProcessMessageCodec.values())
+            {
+                ProcessMessage msg = entry.getValue();
+                byte[] bytes = codec.encode(msg);
+                for (int i = 0; i < WARMUP_ROUNDS; i++)
+                {
+                    encode(codec, msg, iterations);
+                    decode(bytes, iterations);
+                }
+                long encodeNanos = Long.MAX_VALUE;
+                long decodeNanos = Long.MAX_VALUE;
+                for (int i = 0; i < MEASURED_ROUNDS; i++)
+                {
+                    encodeNanos = Math.min(encodeNanos,
+                                           encode(codec, msg, iterations));
+                    decodeNanos = Math.min(decodeNanos,
+                                           decode(bytes, iterations));
+                }
+                System.out.printf("%-14s %-11s %8d %14d %14d%n",
+                                  entry.getKey(),
+                                  codec,
+                                  bytes.length,
+                                  encodeNanos / iterations,
+                                  decodeNanos / iterations);
+            }
+        }
+        System.out.println("(" + sink + ")");
+    }
+
+    private static long encode(ProcessMessageCodec codec,
+                               ProcessMessage msg,
+                               int iterations) throws Exception
+    {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++)
+        {
+            sink += codec.encode(msg).length;
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long decode(byte[] bytes, int iterations) throws Exception
+    {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++)
+        {
+            sink += ProcessMessageCodec.decodeFrame(bytes, 0, bytes.length).
+                    getObjects().size();
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import com.kybelksties.general.EnvironmentVar;
+import com.kybelksties.general.EnvironmentVarModel;
+import com.kybelksties.general.PodVariant;
+import java.awt.Rectangle;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test the encodings of ProcessMessage s.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class ProcessMessageCodecTest
+{
+
+    private static final Class CLAZZ = ProcessMessageCodecTest.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    /**
+     * Create a start-message with a fully populated scheduled process.
+     *
+     * @return the message
+     * @throws Exception
+     */
+    static ProcessMessage makeStartMessage() throws Exception
+    {
+        EnvironmentVarModel environment = new EnvironmentVarModel();
+        environment.add(new EnvironmentVar("HOME",
+                                           "system",
+                                           new PodVariant("/home/user")));
+        environment.add(new EnvironmentVar("DEBUG",
+                                           "flags",
+                                           new PodVariant(Boolean.TRUE)));
+        environment.add(new EnvironmentVar("RETRIES",
+                                           "flags",
+                                           new PodVariant(3)));
+
+        ExeDefinition exe = new ExeDefinition("LIST");
+        exe.setPath("/bin/");
+        exe.getParameters().add(new LetterParameter('l'));
+        exe.getParameters().add(new LetterParameter('w', "80", "132"));
+
+        ScheduledProcess sp = new ScheduledProcess(exe, environment, "/tmp");
+        sp.setConnectionInfo(new ConnectionInfoList.ConnectionInfo("server",
+                                                                   9898));
+        sp.setDimensions(new Rectangle(10, 20, 80, 24));
+        sp.setLogFileName("list.log");
+        sp.setNoopTime(250L);
+        sp.getProcess().command(new String[]
+        {
+            "/bin/ls", "-l", "-w", "80"
+        });
+        return new ProcessMessage(ExeMessageType.startProcess(), sp);
+    }
+
+    /**
+     *
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     *
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     *
+     */
+    public ProcessMessageCodecTest()
+    {
+    }
+
+    /**
+     *
+     */
+    @Before
+    public void setUp()
+    {
+    }
+
+    /**
+     *
+     */
+    @After
+    public void tearDown()
+    {
+    }
+
+    /**
+     * Test that simple messages survive the binary round trip.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testBinarySimpleMessages() throws Exception
+    {
+        LOGGER.log(Level.INFO, "binary round trip of simple messages");
+        ProcessMessage[] messages =
+        {
+            ProcessMessage.makeChitChat("Hello äöü"),
+            ProcessMessage.makeIdentify("localhost", 9898, "BINARY"),
+            ProcessMessage.makeAcknowledge(ConcreteProcess.State.Running,
+                                           "Server ID=(1)",
+                                           42L,
+                                           null),
+            ProcessMessage.makeStopServer(),
+            ProcessMessage.makeInvalid()
+        };
+        for (ProcessMessage msg : messages)
+        {
+            byte[] bytes = ProcessMessageCodec.BINARY.encode(msg);
+            ProcessMessage decoded = ProcessMessageCodec.decodeFrame(
+                           bytes,
+                           0,
+                           bytes.length);
+            assertEquals(msg.getType(), decoded.getType());
+            assertEquals(msg.getObjects(), decoded.getObjects());
+        }
+    }
+
+    /**
+     * Test that a scheduled process with all its payload survives the binary
+     * round trip.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testBinaryScheduledProcess() throws Exception
+    {
+        LOGGER.log(Level.INFO, "binary round trip of a scheduled process");
+        ProcessMessage msg = makeStartMessage();
+        ScheduledProcess sent = (ScheduledProcess) msg.getObjects().get(0);
+
+        byte[] bytes = ProcessMessageCodec.BINARY.encode(msg);
+        ProcessMessage decoded = ProcessMessageCodec.decodeFrame(bytes,
+                                                                 0,
+                                                                 bytes.length);
+        assertEquals(ExeMessageType.startProcess(), decoded.getType());
+        ScheduledProcess rcvd = (ScheduledProcess) decoded.getObjects().get(0);
+
+        assertEquals(sent.getTargetMachine(), rcvd.getTargetMachine());
+        assertEquals(sent.getPort(), rcvd.getPort());
+        assertEquals(sent.getDimensions(), rcvd.getDimensions());
+        assertEquals(sent.getLogFileName(), rcvd.getLogFileName());
+        assertEquals(sent.getNoopTime(), rcvd.getNoopTime());
+        assertEquals(sent.getStartInDirectory(), rcvd.getStartInDirectory());
+        assertEquals(sent.getWindowMode(), rcvd.getWindowMode());
+        assertEquals(sent.getWindowBackground(), rcvd.getWindowBackground());
+        assertArrayEquals(sent.getProcess().command(),
+                          rcvd.getProcess().command());
+        assertEquals(sent.getProcess().getState(),
+                     rcvd.getProcess().getState());
+
+        ExeDefinition sentExe = sent.getExeDefinition();
+        ExeDefinition rcvdExe = rcvd.getExeDefinition();
+        assertEquals(sentExe, rcvdExe);
+        assertEquals(sentExe.getExecutableWithPath(),
+                     rcvdExe.getExecutableWithPath());
+        assertEquals(sentExe.getParameters().size(),
+                     rcvdExe.getParameters().size());
+        LetterParameter width = (LetterParameter) rcvdExe.getParameters().
+                        parameterArray.get(1);
+        assertEquals(Character.valueOf('w'), width.getLetter());
+        assertEquals("80", width.getValue());
+        assertTrue(width.hasArgument());
+
+        EnvironmentVarModel sentEnv = sent.getProcess().
+                            getCategorisedEnvironment();
+        EnvironmentVarModel rcvdEnv = rcvd.getProcess().
+                            getCategorisedEnvironment();
+        assertEquals(sentEnv.allVariableNames(), rcvdEnv.allVariableNames());
+        assertEquals(sentEnv.getCategoryNameSet(),
+                     rcvdEnv.getCategoryNameSet());
+        assertEquals("/home/user", rcvdEnv.getString("HOME"));
+        assertEquals(Boolean.TRUE, rcvdEnv.getBoolean("DEBUG"));
+        assertEquals(Integer.valueOf(3), rcvdEnv.getInteger("RETRIES"));
+    }
+
+    /**
+     * Test that frames are decoded with the codec they were encoded with.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testDetect() throws Exception
+    {
+        LOGGER.log(Level.INFO, "detect the codec of a frame");
+        ProcessMessage msg = ProcessMessage.makeChitChat("detect me");
+        for (ProcessMessageCodec codec : ProcessMessageCodec.values())
+        {
+            byte[] bytes = codec.encode(msg);
+            assertEquals(codec,
+                         ProcessMessageCodec.detect(bytes, 0, bytes.length));
+            assertEquals(msg.getObjects(),
+                         ProcessMessageCodec.decodeFrame(bytes,
+                                                         0,
+                                                         bytes.length).
+                         getObjects());
+        }
+    }
+
+    /**
+     * Test the choice of codec from the peer's offer.
+     */
+    @Test
+    public void testNegotiate()
+    {
+        LOGGER.log(Level.INFO, "negotiate the codec");
+        assertEquals(ProcessMessageCodec.BINARY,
+                     ProcessMessageCodec.negotiate(
+                             ProcessMessageCodec.offer()));
+        assertEquals(ProcessMessageCodec.SERIALIZED,
+                     ProcessMessageCodec.negotiate("SERIALIZED,BINARY"));
+        assertEquals(ProcessMessageCodec.BINARY,
+                     ProcessMessageCodec.negotiate("PROTOBUF, binary"));
+        assertEquals(ProcessMessageCodec.SERIALIZED,
+                     ProcessMessageCodec.negotiate("PROTOBUF"));
+        assertEquals(ProcessMessageCodec.SERIALIZED,
+                     ProcessMessageCodec.negotiate(null));
+    }
+}
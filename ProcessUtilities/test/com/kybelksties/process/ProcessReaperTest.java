@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test the tracking of process exits by the ProcessReaper.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class ProcessReaperTest
+{
+
+    private static final Class CLAZZ = ProcessReaperTest.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    static final int PROCESSES = 200;
+
+    /**
+     *
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     *
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     *
+     */
+    public ProcessReaperTest()
+    {
+    }
+
+    /**
+     *
+     */
+    @Before
+    public void setUp()
+    {
+    }
+
+    /**
+     *
+     */
+    @After
+    public void tearDown()
+    {
+    }
+
+    /**
+     * Test that many processes are tracked to their end without a thread per
+     * process and that their final states are reported to the listeners.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testManyProcesses() throws Exception
+    {
+        LOGGER.log(Level.INFO, "track the exits of many processes");
+        final CountDownLatch finished = new CountDownLatch(PROCESSES);
+        ConcreteProcess.StateEventListener listener =
+                                           new ConcreteProcess.StateEventListener()
+        {
+            @Override
+            public void processStateChanged(ConcreteProcess.StateEvent evt)
+            {
+                ConcreteProcess.State state =
+                                      ((ConcreteProcess) evt.getSource()).
+                                      getState();
+                if (state == ConcreteProcess.State.FinishedSuccess ||
+                    state == ConcreteProcess.State.FinishedError)
+                {
+                    finished.countDown();
+                }
+            }
+        };
+
+        int threadsBefore = Thread.activeCount();
+        int maxThreads = threadsBefore;
+        List<ConcreteProcess> processes = new ArrayList<>();
+        for (int i = 0; i < PROCESSES; i++)
+        {
+            ConcreteProcess process = new ConcreteProcess(new String[]
+            {
+                "/bin/sh", "-c", "sleep 0.2; exit " + (i % 2)
+            }, null);
+            process.addStateChangeEventListener(listener);
+            processes.add(process.start());
+            maxThreads = Math.max(maxThreads, Thread.activeCount());
+        }
+        assertTrue(finished.await(30, TimeUnit.SECONDS));
+        for (int i = 0; i < PROCESSES; i++)
+        {
+            assertEquals(i % 2 == 0 ?
+                         ConcreteProcess.State.FinishedSuccess :
+                         ConcreteProcess.State.FinishedError,
+                         processes.get(i).getState());
+        }
+        assertEquals(0, ProcessReaper.watchedCount());
+        LOGGER.log(Level.INFO,
+                   "threads before: {0}, at most: {1}",
+                   new Object[]
+                   {
+                       threadsBefore, maxThreads
+                   });
+        assertTrue(maxThreads - threadsBefore < PROCESSES / 4);
+    }
+
+    /**
+     * Test that a running process is not taken for exited and an exited one
+     * is.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testHasExited() throws Exception
+    {
+        LOGGER.log(Level.INFO, "tell running from exited processes");
+        Process process = new ProcessBuilder("/bin/sh", "-c", "sleep 5").
+                start();
+        try
+        {
+            assertFalse(ProcessReaper.hasExited(process));
+        }
+        finally
+        {
+            process.destroy();
+        }
+        process.waitFor();
+        assertTrue(ProcessReaper.hasExited(process));
+    }
+}
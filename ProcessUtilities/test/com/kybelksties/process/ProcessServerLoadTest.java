@@ -0,0 +1,365 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import com.kybelksties.protocol.HashedWheelTimer;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Load test for the blocking server modes: how many client connections can a
+ * server hold and how many of them are served at the same time. The number of
+ * connections can be raised with the system property
+ * "ProcessServerLoadTest.connections".
+ *
+ * @author Dieter J Kybelksties
+ */
+public class ProcessServerLoadTest
+{
+
+    private static final Class CLAZZ = ProcessServerLoadTest.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    static final int CONNECTIONS = Integer.getInteger(
+                     "ProcessServerLoadTest.connections", 500);
+    static final int MAX_THREADS = 64;
+
+    private final List<Socket> sockets = new ArrayList<>();
+
+    /**
+     *
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     *
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     *
+     */
+    public ProcessServerLoadTest()
+    {
+    }
+
+    /**
+     *
+     */
+    @Before
+    public void setUp()
+    {
+    }
+
+    /**
+     * Close all client sockets.
+     */
+    @After
+    public void tearDown()
+    {
+        for (Socket socket : sockets)
+        {
+            try
+            {
+                socket.close();
+            }
+            catch (IOException ex)
+            {
+                // nothing to do
+            }
+        }
+        sockets.clear();
+    }
+
+    /**
+     * Test the VIRTUAL_THREADS mode: with virtual threads every connection is
+     * served, with the bounded fallback exactly as many as there are threads.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testVirtualThreadsMode() throws Exception
+    {
+        LOGGER.log(Level.INFO, "load test of VIRTUAL_THREADS mode");
+        boolean virtual =
+                ProcessBlockingServer.virtualThreadPerConnection() != null;
+        ProcessBlockingServer server = new ProcessBlockingServer(
+                              0,
+                              ProcessBlockingServer.virtualOrBounded(
+                                      MAX_THREADS));
+        server.start();
+        try
+        {
+            int served = connectAll(server.getLocalPort());
+            waitForConnections(server, CONNECTIONS);
+            LOGGER.log(Level.INFO,
+                       "{0} threads: held {1} connections, served {2}",
+                       new Object[]
+                       {
+                           virtual ? "virtual" : "bounded",
+                           server.getConnectionCount(),
+                           served
+                       });
+            assertEquals(CONNECTIONS, server.getConnectionCount());
+            assertEquals(virtual ?
+                         CONNECTIONS :
+                         Math.min(CONNECTIONS, MAX_THREADS),
+                         served);
+        }
+        finally
+        {
+            server.close();
+        }
+    }
+
+    /**
+     * Test the SELECTOR mode: all connections are served with a fixed number
+     * of threads.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testSelectorMode() throws Exception
+    {
+        LOGGER.log(Level.INFO, "load test of SELECTOR mode");
+        ProcessSelectorServer server = new ProcessSelectorServer(0, 1, 4);
+        server.start();
+        try
+        {
+            int served = connectAll(server.getLocalPort());
+            LOGGER.log(Level.INFO,
+                       "selector: held {0} connections, served {1}",
+                       new Object[]
+                       {
+                           server.getConnectionCount(), served
+                       });
+            assertEquals(CONNECTIONS, server.getConnectionCount());
+            assertEquals(CONNECTIONS, served);
+        }
+        finally
+        {
+            server.close();
+        }
+    }
+
+    /**
+     * Test that both front ends drop a client that connects but never
+     * identifies itself once the handshake timeout has passed.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testUnidentifiedClientDropped() throws Exception
+    {
+        LOGGER.log(Level.INFO, "drop clients that do not identify");
+        ProcessBlockingServer blocking = new ProcessBlockingServer(
+                              0,
+                              ProcessBlockingServer.threadPerConnection());
+        ProcessSelectorServer selector = new ProcessSelectorServer(0, 1, 1);
+        blocking.start();
+        selector.start();
+        try
+        {
+            Socket silentBlocking = new Socket("localhost",
+                                               blocking.getLocalPort());
+            Socket silentSelector = new Socket("localhost",
+                                               selector.getLocalPort());
+            sockets.add(silentBlocking);
+            sockets.add(silentSelector);
+            long start = System.currentTimeMillis();
+            assertDropped(silentBlocking);
+            assertDropped(silentSelector);
+            long waited = System.currentTimeMillis() - start;
+            assertTrue(waited >=
+                       ProcessClientServerProtocol.HANDSHAKE_TIMEOUT_MILLIS -
+                       500L);
+            assertEquals(0, blocking.getConnectionCount());
+            assertEquals(0, selector.getConnectionCount());
+        }
+        finally
+        {
+            blocking.close();
+            selector.close();
+        }
+    }
+
+    /**
+     * Test that a client which has not identified cannot announce a large
+     * frame: it is dropped at once instead of being given a buffer, and its
+     * identify deadline does not outlive the connection.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testLargeFrameBeforeIdentifyDropped() throws Exception
+    {
+        LOGGER.log(Level.INFO, "drop large frames before the identify");
+        ProcessBlockingServer blocking = new ProcessBlockingServer(
+                              0,
+                              ProcessBlockingServer.threadPerConnection());
+        ProcessSelectorServer selector = new ProcessSelectorServer(0, 1, 1);
+        blocking.start();
+        selector.start();
+        try
+        {
+            int pendingBefore = HashedWheelTimer.shared().pendingCount();
+            long start = System.currentTimeMillis();
+            for (int port : new int[]
+            {
+                blocking.getLocalPort(), selector.getLocalPort()
+            })
+            {
+                Socket socket = new Socket("localhost", port);
+                sockets.add(socket);
+                DataOutputStream out = new DataOutputStream(
+                                 socket.getOutputStream());
+                out.writeInt(ProcessMessageCodec.MAX_FRAME_LENGTH);
+                out.flush();
+                assertDropped(socket);
+            }
+            assertTrue(System.currentTimeMillis() - start <
+                       ProcessClientServerProtocol.HANDSHAKE_TIMEOUT_MILLIS);
+            assertTrue(HashedWheelTimer.shared().pendingCount() <=
+                       pendingBefore);
+        }
+        finally
+        {
+            blocking.close();
+            selector.close();
+        }
+    }
+
+    /**
+     * Test that a client gives up on a server that accepts the connection
+     * but never answers the identification.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testSilentServerFailsConnect() throws Exception
+    {
+        LOGGER.log(Level.INFO, "fail the handshake with a silent server");
+        try (ServerSocket silent = new ServerSocket(0))
+        {
+            ProcessClient client = new ProcessClient("localhost",
+                                                     silent.getLocalPort());
+            long start = System.currentTimeMillis();
+            try
+            {
+                client.connectToServer();
+                fail("Connected without a welcome message");
+            }
+            catch (SocketTimeoutException ex)
+            {
+                // expected
+            }
+            assertTrue(System.currentTimeMillis() - start <
+                       3 * ProcessClientServerProtocol.HANDSHAKE_TIMEOUT_MILLIS);
+            assertFalse(client.isConnected());
+        }
+    }
+
+    private void assertDropped(Socket socket) throws IOException
+    {
+        socket.setSoTimeout(
+                3 * ProcessClientServerProtocol.HANDSHAKE_TIMEOUT_MILLIS);
+        try
+        {
+            assertEquals(-1, socket.getInputStream().read());
+        }
+        catch (SocketTimeoutException ex)
+        {
+            fail("The server has kept an unidentified client");
+        }
+        catch (IOException ex)
+        {
+            // reset by the server: dropped as well
+        }
+    }
+
+    /**
+     * Open all connections and send the identification on each, then count
+     * the connections on which the welcome message has arrived.
+     */
+    private int connectAll(int port) throws Exception
+    {
+        List<ProcessMessageStream> streams = new ArrayList<>();
+        for (int i = 0; i < CONNECTIONS; i++)
+        {
+            Socket socket = new Socket("localhost", port);
+            sockets.add(socket);
+            ProcessMessageStream stream = new ProcessMessageStream(socket);
+            stream.write(ProcessMessage.makeIdentify("localhost", i));
+            streams.add(stream);
+        }
+        // give the server time to answer everyone it is going to answer
+        Thread.sleep(2000L);
+        int served = 0;
+        for (int i = 0; i < CONNECTIONS; i++)
+        {
+            sockets.get(i).setSoTimeout(served < MAX_THREADS ? 5000 : 50);
+            try
+            {
+                ProcessMessage welcome = streams.get(i).read();
+                if (welcome.getType().equals(ExeMessageType.chitChat()))
+                {
+                    served++;
+                }
+            }
+            catch (SocketTimeoutException ex)
+            {
+                // still waiting for a thread
+            }
+        }
+        return served;
+    }
+
+    private void waitForConnections(ProcessBlockingServer server, int count)
+            throws InterruptedException
+    {
+        for (int i = 0; i < 100 && server.getConnectionCount() < count; i++)
+        {
+            Thread.sleep(50L);
+        }
+    }
+}
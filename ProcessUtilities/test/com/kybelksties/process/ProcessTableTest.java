@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import java.io.File;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.jutils.jprocesses.model.ProcessInfo;
+
+/**
+ * Test the cached process table.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class ProcessTableTest
+{
+
+    private static final Class CLAZZ = ProcessTableTest.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    /**
+     *
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     *
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     *
+     */
+    public ProcessTableTest()
+    {
+    }
+
+    /**
+     *
+     */
+    @Before
+    public void setUp()
+    {
+    }
+
+    /**
+     *
+     */
+    @After
+    public void tearDown()
+    {
+    }
+
+    /**
+     * Test that the table read from /proc contains this process and that
+     * deltas report started and finished processes.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testProcDeltas() throws Exception
+    {
+        LOGGER.log(Level.INFO, "process table deltas from /proc");
+        if (!new File("/proc/self/stat").canRead())
+        {
+            LOGGER.log(Level.INFO, "no /proc: skipped");
+            return;
+        }
+        String self = new File("/proc/self").getCanonicalFile().getName();
+        ProcessTable table = new ProcessTable(60000L, true);
+        table.refresh();
+        long first = table.getSequence();
+        assertTrue(first > 0);
+        assertNotNull(find(table.getDelta(-1).changed, self, null));
+
+        Process sleeper = new ProcessBuilder("sleep", "30").start();
+        try
+        {
+            table.refresh();
+            ProcessTable.Delta started = table.getDelta(first);
+            assertFalse(started.full);
+            ProcessInfo info = find(started.changed, null, "sleep 30");
+            assertNotNull(info);
+            String pid = info.getPid();
+            assertEquals("sleep", info.getName());
+
+            sleeper.destroy();
+            sleeper.waitFor();
+            table.refresh();
+            ProcessTable.Delta finished = table.getDelta(started.sequence);
+            assertTrue(finished.removed.contains(pid));
+            // across both refreshes the sleeper is only reported as gone
+            ProcessTable.Delta both = table.getDelta(first);
+            assertTrue(both.removed.contains(pid));
+            assertEquals(null, find(both.changed, pid, null));
+        }
+        finally
+        {
+            sleeper.destroy();
+        }
+
+        ProcessTable.Delta none = table.getDelta(table.getSequence());
+        assertFalse(none.full);
+        assertTrue(none.changed.isEmpty());
+        assertTrue(none.removed.isEmpty());
+        ProcessTable.Delta full = table.getDelta(-1);
+        assertTrue(full.full);
+        assertEquals(table.getProcesses().size(), full.changed.size());
+    }
+
+    private static ProcessInfo find(Iterable<ProcessInfo> processes,
+                                    String pid,
+                                    String command)
+    {
+        for (ProcessInfo info : processes)
+        {
+            if ((pid == null || pid.equals(info.getPid())) &&
+                (command == null || command.equals(info.getCommand())))
+            {
+                return info;
+            }
+        }
+        return null;
+    }
+}
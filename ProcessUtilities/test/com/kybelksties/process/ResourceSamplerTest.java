@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import java.io.File;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test the sampling of the resource use of processes.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class ResourceSamplerTest
+{
+
+    private static final Class CLAZZ = ResourceSamplerTest.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    /**
+     *
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     *
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     *
+     */
+    public ResourceSamplerTest()
+    {
+    }
+
+    /**
+     *
+     */
+    @Before
+    public void setUp()
+    {
+    }
+
+    /**
+     *
+     */
+    @After
+    public void tearDown()
+    {
+    }
+
+    /**
+     * Test that the buffer keeps the most recent samples in order.
+     */
+    @Test
+    public void testRingBuffer()
+    {
+        LOGGER.log(Level.INFO, "keep the most recent samples");
+        ResourceSamples samples = new ResourceSamples(4);
+        for (int i = 0; i < 10; i++)
+        {
+            samples.add(i, i * 1.5f, 1000 + i, i % 3, 10 * i, 20 * i);
+        }
+        assertEquals(4, samples.size());
+        assertEquals(10L, samples.getTotalAdded());
+        ResourceSamples copy = samples.snapshot();
+        assertEquals(4, copy.getCapacity());
+        for (int i = 0; i < 4; i++)
+        {
+            int n = 6 + i;
+            assertEquals(n, copy.getTime(i));
+            assertEquals(n * 1.5f, copy.getCpuPercent(i), 0.0f);
+            assertEquals(1000 + n, copy.getRssKilobytes(i));
+            assertEquals(n % 3, copy.getThreads(i));
+            assertEquals(10 * n, copy.getReadBytes(i));
+            assertEquals(20 * n, copy.getWriteBytes(i));
+        }
+        try
+        {
+            copy.getTime(4);
+            fail("Sample 4 of 4 must not exist");
+        }
+        catch (IndexOutOfBoundsException ex)
+        {
+            // expected
+        }
+    }
+
+    /**
+     * Test that a running process is sampled from /proc until it exits.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testSampleProcess() throws Exception
+    {
+        LOGGER.log(Level.INFO, "sample a running process");
+        if (!new File("/proc/self/stat").canRead())
+        {
+            LOGGER.log(Level.INFO, "no /proc: skipped");
+            return;
+        }
+        ConcreteProcess process = new ConcreteProcess(new String[]
+        {
+            "/bin/sh", "-c", "sleep 1"
+        }, null);
+        process.start();
+        assertTrue(process.getPid() > 0);
+
+        ResourceSampler sampler = new ResourceSampler(60000L, 16);
+        assertNull(sampler.getSamples("sleeper"));
+        sampler.watch("sleeper", process);
+        sampler.sample();
+        sampler.sample();
+        ResourceSamples samples = sampler.getSamples("sleeper");
+        sampler.stop();
+        assertTrue(samples.size() >= 2);
+        assertTrue(samples.getRssKilobytes(0) > 0);
+        assertTrue(samples.getThreads(0) >= 1);
+
+        process.waitFor();
+        long sampled = sampler.getSamples("sleeper").getTotalAdded();
+        sampler.sample();
+        assertEquals(sampled, sampler.getSamples("sleeper").getTotalAdded());
+        sampler.unwatch("sleeper");
+        assertNull(sampler.getSamples("sleeper"));
+    }
+    /**
+     * Test that the samples of finished processes are dropped after the
+     * retention time and beyond the maximum number of finished processes.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFinishedEvicted() throws Exception
+    {
+        LOGGER.log(Level.INFO, "drop the samples of finished processes");
+        if (!new File("/proc/self/stat").canRead())
+        {
+            LOGGER.log(Level.INFO, "no /proc: skipped");
+            return;
+        }
+        ResourceSampler kept = new ResourceSampler(60000L, 16, 60000L, 1);
+        ResourceSampler expired = new ResourceSampler(60000L, 16, 0L, 10);
+        String[] ids =
+        {
+            "first", "second"
+        };
+        for (String id : ids)
+        {
+            ConcreteProcess process = new ConcreteProcess(new String[]
+            {
+                "/bin/sh", "-c", "exit 0"
+            }, null);
+            process.start();
+            kept.watch(id, process);
+            expired.watch(id, process);
+            process.waitFor();
+        }
+        kept.sample();
+        expired.sample();
+        kept.stop();
+        expired.stop();
+
+        // only the most recently finished one is kept
+        int remaining = 0;
+        for (String id : ids)
+        {
+            remaining += kept.getSamples(id) == null ? 0 : 1;
+            assertNull(expired.getSamples(id));
+        }
+        assertEquals(1, remaining);
+    }
+}
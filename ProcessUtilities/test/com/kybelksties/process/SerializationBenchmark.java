@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import com.kybelksties.general.BinaryCodec;
+import com.kybelksties.general.EnvironmentVar;
+import com.kybelksties.general.EnvironmentVarModel;
+import com.kybelksties.general.FileUtilities;
+import com.kybelksties.general.PodVariant;
+import com.kybelksties.general.StreamCodec;
+import java.io.File;
+import java.util.logging.Logger;
+
+/**
+ * Compares writing and reading a large EnvironmentVarModel and a large set
+ * of ExeDefinitions to and from file by Java serialization and by their
+ * binary codecs, each through all stream codecs. Not a unit test: run the
+ * main method from the test class path. The arguments are the number of
+ * variables and of definitions.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class SerializationBenchmark
+{
+
+    private static final Class CLAZZ = SerializationBenchmark.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int MEASURED_ROUNDS = 5;
+
+    // keeps the JIT from dropping the work being measured
+    private static long sink = 0L;
+
+    /**
+     * Run the benchmark.
+     *
+     * @param args optional number of variables and of definitions
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int variables = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int definitions = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+
+        EnvironmentVarModel environment = new EnvironmentVarModel();
+        for (int i = 0; i < variables; i++)
+        {
+            PodVariant value = i % 3 == 0 ?
+                               new PodVariant(i) :
+                               i % 3 == 1 ?
+                               new PodVariant(Boolean.valueOf(i % 2 == 0)) :
+                               new PodVariant("/opt/product/" + (i % 50) +
+                                              "/lib:/usr/lib");
+            environment.add(new EnvironmentVar("VAR_" + i,
+                                               "category" + (i % 20),
+                                               value));
+        }
+        ExeDefinitions exeDefinitions = new ExeDefinitions();
+        for (int i = 0; i < definitions; i++)
+        {
+            ExeDefinition exe = new ExeDefinition("TOOL" + i);
+            exe.setPath("/opt/product/" + (i % 50) + "/bin/");
+            exe.getParameters().add(new LetterParameter('l'));
+            exe.getParameters().add(new LetterParameter('w', "80", "132"));
+            exeDefinitions.add(exe);
+        }
+
+        File file = File.createTempFile(CLAZZ.getSimpleName(), ".bin");
+        try
+        {
+            System.out.printf("%-16s %-13s %-8s %10s %10s %10s%n",
+                              "object",
+                              "format",
+                              "codec",
+                              "bytes",
+                              "write ms",
+                              "read ms");
+            for (StreamCodec codec : StreamCodec.values())
+            {
+                run("environment", file, environment, null, codec);
+                run("environment",
+                    file,
+                    environment,
+                    EnvironmentVarModel.BINARY_CODEC,
+                    codec);
+            }
+            for (StreamCodec codec : StreamCodec.values())
+            {
+                run("exeDefinitions", file, exeDefinitions, null, codec);
+                run("exeDefinitions",
+                    file,
+                    exeDefinitions,
+                    ExeDefinitions.BINARY_CODEC,
+                    codec);
+            }
+        }
+        finally
+        {
+            file.delete();
+        }
+        LOGGER.fine(String.valueOf(sink));
+    }
+
+    private static <T> void run(String name,
+                                File file,
+                                T obj,
+                                BinaryCodec<T> binaryCodec,
+                                StreamCodec codec) throws Exception
+    {
+        String filename = file.getPath();
+        long bestWrite = Long.MAX_VALUE;
+        long bestRead = Long.MAX_VALUE;
+        for (int i = 0; i < WARMUP_ROUNDS + MEASURED_ROUNDS; i++)
+        {
+            long start = System.nanoTime();
+            if (binaryCodec == null)
+            {
+                FileUtilities.serialize(filename, obj, codec);
+            }
+            else
+            {
+                FileUtilities.writeBinary(filename, obj, binaryCodec, codec);
+            }
+            long written = System.nanoTime();
+            Object read = binaryCodec == null ?
+                          FileUtilities.deserialize(filename, codec) :
+                          FileUtilities.readBinary(filename,
+                                                   binaryCodec,
+                                                   codec);
+            long end = System.nanoTime();
+            sink += read.hashCode();
+            if (i >= WARMUP_ROUNDS)
+            {
+                bestWrite = Math.min(bestWrite, written - start);
+                bestRead = Math.min(bestRead, end - written);
+            }
+        }
+        System.out.printf("%-16s %-13s %-8s %10d %10.1f %10.1f%n",
+                          name,
+                          binaryCodec == null ? "serializable" : "binary",
+                          codec,
+                          file.length(),
+                          bestWrite / 1e6,
+                          bestRead / 1e6);
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.process;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test the push of state changes to subscribed clients.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class StateChangePublisherTest
+{
+
+    private static final Class CLAZZ = StateChangePublisherTest.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    static final int EVENTS = 1000;
+
+    private StateChangePublisher publisher = null;
+
+    /**
+     *
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     *
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     *
+     */
+    public StateChangePublisherTest()
+    {
+    }
+
+    /**
+     * Create a publisher with a tick too long to interfere with the tests.
+     */
+    @Before
+    public void setUp()
+    {
+        publisher = new StateChangePublisher(60000L);
+    }
+
+    /**
+     * Stop the publisher.
+     */
+    @After
+    public void tearDown()
+    {
+        publisher.stop();
+    }
+
+    private static ClientSession makeSession(int clientNumber,
+                                             final List<ProcessMessage> sent)
+    {
+        ClientSession reval = new ClientSession(clientNumber);
+        reval.setResponder(new HandlerRegistry.Responder()
+        {
+            @Override
+            public void respond(ProcessMessage response)
+            {
+                sent.add(response);
+            }
+        });
+        return reval;
+    }
+
+    /**
+     * Test that a burst of changes costs each subscriber one frame with the
+     * latest state of every process it is interested in.
+     */
+    @Test
+    public void testCoalescing()
+    {
+        LOGGER.log(Level.INFO, "coalesce a burst of state changes");
+        List<ProcessMessage> toAll = new ArrayList<>();
+        List<ProcessMessage> toOne = new ArrayList<>();
+        publisher.subscribe(makeSession(1, toAll), Collections.emptyList());
+        publisher.subscribe(makeSession(2, toOne), Arrays.asList("(1) a"));
+        assertEquals(2, publisher.getSubscriberCount());
+
+        for (int i = 0; i < EVENTS; i++)
+        {
+            publisher.stateChanged("(" + (i % 10) + ") a",
+                                   i < EVENTS - 10 ?
+                                   ConcreteProcess.State.Running :
+                                   ConcreteProcess.State.FinishedSuccess);
+        }
+        assertEquals(2, publisher.flush());
+        assertEquals(0, publisher.flush());
+
+        assertEquals(1, toAll.size());
+        ProcessMessage frame = toAll.get(0);
+        assertTrue(frame.isPush());
+        assertEquals(0L, frame.getCorrelationId());
+        List ids = (List) frame.getObjects().get(0);
+        List states = (List) frame.getObjects().get(1);
+        assertEquals(10, ids.size());
+        assertEquals("(0) a", ids.get(0));
+        for (Object state : states)
+        {
+            assertEquals(ConcreteProcess.State.FinishedSuccess, state);
+        }
+
+        assertEquals(1, toOne.size());
+        assertEquals(Arrays.asList("(1) a"), toOne.get(0).getObjects().get(0));
+    }
+
+    /**
+     * Test that unsubscribed clients get no more changes.
+     */
+    @Test
+    public void testUnsubscribe()
+    {
+        LOGGER.log(Level.INFO, "unsubscribe from state changes");
+        List<ProcessMessage> sent = new ArrayList<>();
+        ClientSession session = makeSession(1, sent);
+        publisher.subscribe(session, Arrays.asList("(1) a", "(2) b"));
+        publisher.unsubscribe(session, Arrays.asList("(1) a"));
+        publisher.stateChanged("(1) a", ConcreteProcess.State.Running);
+        assertEquals(0, publisher.flush());
+        publisher.stateChanged("(2) b", ConcreteProcess.State.Running);
+        assertEquals(1, publisher.flush());
+
+        publisher.unsubscribe(session, Collections.emptyList());
+        assertEquals(0, publisher.getSubscriberCount());
+        publisher.stateChanged("(2) b", ConcreteProcess.State.FinishedError);
+        assertEquals(0, publisher.flush());
+        assertEquals(1, sent.size());
+    }
+
+    /**
+     * Test that a client subscribed over the wire is pushed the changes.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testPushToClient() throws Exception
+    {
+        LOGGER.log(Level.INFO, "push state changes to a client");
+        ProcessSelectorServer server = new ProcessSelectorServer(0, 1, 2);
+        server.start();
+        ProcessClient client = new ProcessClient("localhost",
+                                                 server.getLocalPort());
+        try
+        {
+            final BlockingQueue<ProcessMessage> pushed =
+                                                new LinkedBlockingQueue<>();
+            client.addPushListener(new ProcessClient.PushListener()
+            {
+                @Override
+                public void messagePushed(ProcessMessage message)
+                {
+                    pushed.add(message);
+                }
+            });
+            assertTrue(client.sendMessage(ProcessMessage.makeSubscribe(
+                    Arrays.asList("(7) pushed"))).isAcknowledgement());
+
+            ProcessServer.STATE_CHANGES.stateChanged(
+                    "(7) pushed",
+                    ConcreteProcess.State.Running);
+            ProcessServer.STATE_CHANGES.stateChanged(
+                    "(7) pushed",
+                    ConcreteProcess.State.FinishedSuccess);
+            ProcessMessage frame = pushed.poll(10, TimeUnit.SECONDS);
+            assertNotNull(frame);
+            assertEquals(Arrays.asList("(7) pushed"),
+                         frame.getObjects().get(0));
+            assertEquals(Arrays.asList(ConcreteProcess.State.FinishedSuccess),
+                         frame.getObjects().get(1));
+
+            // requests are still answered while pushes arrive
+            assertTrue(client.sendMessage(ProcessMessage.makeUnsubscribe(
+                    Collections.<String>emptyList())).isAcknowledgement());
+            assertEquals(0, client.getOutstandingCount());
+        }
+        finally
+        {
+            client.close();
+            server.close();
+        }
+    }
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.protocol;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test the mailbox based actor runtime.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class ActorRuntimeTest
+{
+
+    private static final Class CLAZZ = ActorRuntimeTest.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    static final int ACTORS = 200;
+    static final int SENDERS = 8;
+    static final int MESSAGES_PER_SENDER = 5000;
+
+    private State initial = null;
+    private State busy = null;
+    private State waiting = null;
+    private Protocol protocol = null;
+    private ActorRuntime runtime = null;
+
+    /**
+     *
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     *
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     *
+     */
+    public ActorRuntimeTest()
+    {
+    }
+
+    /**
+     * Create a protocol in which actors toggle between two states, or wait in
+     * a third one until a timeout.
+     *
+     * @throws Exception
+     */
+    @Before
+    public void setUp() throws Exception
+    {
+        initial = new State("Initial");
+        busy = new State("Busy");
+        waiting = new State("Waiting");
+        protocol = new Protocol();
+        protocol.addRule(new Actor("Worker", initial),
+                         ProtocolTest.EnumTestMessageType.StartClient,
+                         busy,
+                         Actor.ANY_ACTOR);
+        protocol.addRule(new Actor("Worker", busy),
+                         ProtocolTest.EnumTestMessageType.StopClient,
+                         initial,
+                         Actor.ANY_ACTOR);
+        protocol.addRule(new Actor("Worker", initial),
+                         ProtocolTest.EnumTestMessageType.RestartClient,
+                         waiting,
+                         Actor.ANY_ACTOR,
+                         200,
+                         initial);
+        runtime = new ActorRuntime(protocol, 4);
+    }
+
+    /**
+     * Stop the runtime.
+     */
+    @After
+    public void tearDown()
+    {
+        runtime.shutdown();
+    }
+
+    /**
+     * Test that messages from many senders are processed off the senders'
+     * threads, one at a time per actor and in order.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testConcurrentActors() throws Exception
+    {
+        LOGGER.log(Level.INFO, "process messages of concurrent senders");
+        final Actor[] actors = new Actor[ACTORS];
+        final CountingProcessor[] processors = new CountingProcessor[ACTORS];
+        for (int i = 0; i < ACTORS; i++)
+        {
+            actors[i] = new Actor("Worker", initial);
+            processors[i] = new CountingProcessor(actors[i]);
+            actors[i].setMessageProcessor(processors[i]);
+        }
+
+        ExecutorService senders = Executors.newFixedThreadPool(SENDERS);
+        final CountDownLatch sent = new CountDownLatch(SENDERS);
+        try
+        {
+            for (int s = 0; s < SENDERS; s++)
+            {
+                final int sender = s;
+                senders.execute(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        try
+                        {
+                            // each sender owns a slice of the actors so that
+                            // the start/stop pairs stay in order
+                            for (int i = 0; i < MESSAGES_PER_SENDER; i++)
+                            {
+                                Actor actor = actors[(sender + SENDERS * i) %
+                                                     ACTORS];
+                                runtime.send(new Message(
+                                        i / (ACTORS / SENDERS) % 2 == 0 ?
+                                        ProtocolTest.EnumTestMessageType.StartClient :
+                                        ProtocolTest.EnumTestMessageType.StopClient,
+                                        Actor.ANY_ACTOR,
+                                        actor));
+                            }
+                        }
+                        catch (Exception ex)
+                        {
+                            LOGGER.log(Level.SEVERE, ex.toString());
+                        }
+                        finally
+                        {
+                            sent.countDown();
+                        }
+                    }
+                });
+            }
+            assertTrue(sent.await(30, TimeUnit.SECONDS));
+            assertTrue(runtime.awaitIdle(30, TimeUnit.SECONDS));
+        }
+        finally
+        {
+            senders.shutdownNow();
+        }
+
+        int processed = 0;
+        for (int i = 0; i < ACTORS; i++)
+        {
+            processed += processors[i].count;
+            assertFalse(processors[i].overlapped);
+            assertFalse(processors[i].onSender);
+            assertEquals(initial, actors[i].getState());
+        }
+        assertEquals(SENDERS * MESSAGES_PER_SENDER, processed);
+        assertEquals(0L, runtime.getPendingCount());
+    }
+
+    /**
+     * Test that timeouts are delivered through the mailbox.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testTimeoutThroughMailbox() throws Exception
+    {
+        LOGGER.log(Level.INFO, "deliver a timeout through the mailbox");
+        Actor actor = new Actor("Worker", initial);
+        CountingProcessor processor = new CountingProcessor(actor);
+        actor.setMessageProcessor(processor);
+        runtime.send(new Message(
+                ProtocolTest.EnumTestMessageType.RestartClient,
+                Actor.ANY_ACTOR,
+                actor));
+        assertTrue(runtime.awaitIdle(5, TimeUnit.SECONDS));
+        assertEquals(waiting, actor.getState());
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (processor.count < 2 && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(10);
+        }
+        assertEquals(2, processor.count);
+        assertEquals(initial, actor.getState());
+        assertFalse(processor.onSender);
+    }
+
+    /**
+     * Test that a Timeout which elapsed while a state change was already
+     * queued is dropped once the state change has been processed, instead of
+     * being taken for the timeout of the new state.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testStaleTimeoutDropped() throws Exception
+    {
+        LOGGER.log(Level.INFO, "drop a timeout queued behind a state change");
+        State started = new State("Started");
+        State startTimedOut = new State("StartTimedOut");
+        State interrupted = new State("Interrupted");
+        State interruptTimedOut = new State("InterruptTimedOut");
+        Protocol timed = new Protocol();
+        timed.addRule(new Actor("Worker", initial),
+                      ProtocolTest.EnumTestMessageType.StartClient,
+                      started,
+                      Actor.ANY_ACTOR,
+                      50,
+                      startTimedOut);
+        timed.addRule(new Actor("Worker", started),
+                      ProtocolTest.EnumTestMessageType.InterruptClient,
+                      interrupted,
+                      Actor.ANY_ACTOR,
+                      10000,
+                      interruptTimedOut);
+        ActorRuntime timedRuntime = new ActorRuntime(timed, 2);
+        try
+        {
+            Actor actor = new Actor("Worker", initial);
+            final CountDownLatch release = new CountDownLatch(1);
+            final CountingProcessor counter = new CountingProcessor(actor);
+            actor.setMessageProcessor(new MessageProcessor()
+            {
+                @Override
+                public Object processMessage(Protocol protocol,
+                                             Message message)
+                        throws Exception
+                {
+                    if (message.getMessageType() ==
+                        ProtocolTest.EnumTestMessageType.StartClient)
+                    {
+                        // hold the mailbox while the timeout elapses
+                        release.await(5, TimeUnit.SECONDS);
+                    }
+                    return counter.processMessage(protocol, message);
+                }
+            });
+            timedRuntime.send(new Message(
+                    ProtocolTest.EnumTestMessageType.StartClient,
+                    Actor.ANY_ACTOR,
+                    actor));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!started.equals(actor.getState()) &&
+                   System.currentTimeMillis() < deadline)
+            {
+                Thread.sleep(5);
+            }
+            assertEquals(started, actor.getState());
+            timedRuntime.send(new Message(
+                    ProtocolTest.EnumTestMessageType.InterruptClient,
+                    Actor.ANY_ACTOR,
+                    actor));
+            // the Timeout of Started is queued behind InterruptClient, with
+            // StartClient still being processed
+            while (actor.isTimeoutPending() &&
+                   System.currentTimeMillis() < deadline)
+            {
+                Thread.sleep(5);
+            }
+            assertFalse(actor.isTimeoutPending());
+            assertEquals(3L, timedRuntime.getPendingCount());
+            release.countDown();
+
+            assertTrue(timedRuntime.awaitIdle(5, TimeUnit.SECONDS));
+            assertEquals(interrupted, actor.getState());
+            assertEquals(2, counter.count);
+            assertTrue(actor.isTimeoutPending());
+        }
+        finally
+        {
+            timedRuntime.shutdown();
+        }
+    }
+
+    /**
+     * Counts the messages processed and checks that no two are processed at
+     * the same time. Deliberately not thread-safe.
+     */
+    static class CountingProcessor implements MessageProcessor
+    {
+
+        private final Actor actor;
+        private final AtomicBoolean busy = new AtomicBoolean(false);
+        volatile int count = 0;
+        volatile boolean overlapped = false;
+        volatile boolean onSender = false;
+
+        CountingProcessor(Actor actor)
+        {
+            this.actor = actor;
+        }
+
+        @Override
+        public Object processMessage(Protocol protocol, Message message)
+                throws Exception
+        {
+            if (!busy.compareAndSet(false, true))
+            {
+                overlapped = true;
+            }
+            if (!Thread.currentThread().getName().contains("ForkJoinPool"))
+            {
+                onSender = true;
+            }
+            count++;
+            busy.set(false);
+            return actor.getState();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.protocol;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test the hashed timer wheel.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class HashedWheelTimerTest
+{
+
+    private static final Class CLAZZ = HashedWheelTimerTest.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    private HashedWheelTimer timer = null;
+
+    /**
+     *
+     */
+    @BeforeClass
+    public static void setUpClass()
+    {
+    }
+
+    /**
+     *
+     */
+    @AfterClass
+    public static void tearDownClass()
+    {
+    }
+
+    /**
+     *
+     */
+    public HashedWheelTimerTest()
+    {
+    }
+
+    /**
+     * Create a small wheel so that timeouts need several rounds.
+     */
+    @Before
+    public void setUp()
+    {
+        timer = new HashedWheelTimer(5, TimeUnit.MILLISECONDS, 8);
+    }
+
+    /**
+     * Stop the timer.
+     */
+    @After
+    public void tearDown()
+    {
+        timer.stop();
+    }
+
+    /**
+     * Test that timeouts expire no earlier than their delay, also when the
+     * delay spans several turns of the wheel.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExpire() throws Exception
+    {
+        LOGGER.log(Level.INFO, "expire timeouts");
+        final CountDownLatch done = new CountDownLatch(2);
+        final long start = System.nanoTime();
+        final long[] elapsed = new long[2];
+        for (int i = 0; i < 2; i++)
+        {
+            final int which = i;
+            timer.newTimeout(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    elapsed[which] = System.nanoTime() - start;
+                    done.countDown();
+                }
+            }, 20 + i * 100, TimeUnit.MILLISECONDS);
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(elapsed[0] >= TimeUnit.MILLISECONDS.toNanos(20));
+        assertTrue(elapsed[1] >= TimeUnit.MILLISECONDS.toNanos(120));
+        assertEquals(0, timer.pendingCount());
+    }
+
+    /**
+     * Test that cancelled timeouts do not expire.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCancel() throws Exception
+    {
+        LOGGER.log(Level.INFO, "cancel timeouts");
+        final AtomicInteger expired = new AtomicInteger();
+        Runnable count = new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                expired.incrementAndGet();
+            }
+        };
+        int timeouts = 10000;
+        HashedWheelTimer.Timeout last = null;
+        // long enough for none to expire while they are being created
+        for (int i = 0; i < timeouts; i++)
+        {
+            HashedWheelTimer.Timeout timeout =
+                                     timer.newTimeout(count,
+                                                      1000,
+                                                      TimeUnit.MILLISECONDS);
+            if (i % 2 == 0)
+            {
+                assertTrue(timeout.cancel());
+                assertFalse(timeout.cancel());
+                assertTrue(timeout.isCancelled());
+            }
+            last = timeout;
+        }
+        assertEquals(timeouts / 2, timer.pendingCount());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (timer.pendingCount() > 0 &&
+               System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(10);
+        }
+        assertEquals(timeouts / 2, expired.get());
+        assertTrue(last.isExpired());
+        assertFalse(last.cancel());
+    }
+}
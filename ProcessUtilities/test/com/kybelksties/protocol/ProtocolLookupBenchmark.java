@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2026 Dieter J Kybelksties
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * @date: 2026-10-18
+ * @author: Dieter J Kybelksties
+ */
+package com.kybelksties.protocol;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.logging.Logger;
+
+/**
+ * Compares the rule look-up throughput of a Protocol with that of its
+ * CompiledProtocol. Not a unit test: run the main method from the test class
+ * path. The number of iterations can be given as first argument.
+ *
+ * @author Dieter J Kybelksties
+ */
+public class ProtocolLookupBenchmark
+{
+
+    private static final Class CLAZZ = ProtocolLookupBenchmark.class;
+    private static final String CLASS_NAME = CLAZZ.getName();
+    private static final Logger LOGGER = Logger.getLogger(CLASS_NAME);
+
+    private static final int ACTORS = 4;
+    private static final int STATES = 6;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    // keeps the JIT from dropping the work being measured
+    private static long sink = 0L;
+
+    /**
+     * Run the benchmark.
+     *
+     * @param args optional number of look-ups per round
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        ProtocolTest.EnumTestMessageType[] types =
+                                           ProtocolTest.EnumTestMessageType.values();
+        State[] states = new State[STATES];
+        for (int s = 0; s < STATES; s++)
+        {
+            states[s] = new State("State" + s);
+        }
+        Actor peer = new Actor("Peer");
+        Protocol protocol = new Protocol();
+        int lookups = ACTORS * STATES * types.length;
+        Actor[] receivers = new Actor[lookups];
+        ProtocolTest.EnumTestMessageType[] received =
+                                           new ProtocolTest.EnumTestMessageType[lookups];
+        int n = 0;
+        for (int a = 0; a < ACTORS; a++)
+        {
+            for (int s = 0; s < STATES; s++)
+            {
+                for (ProtocolTest.EnumTestMessageType type : types)
+                {
+                    Actor receiver = new Actor("Actor" + a, states[s]);
+                    protocol.addRule(receiver,
+                                     type,
+                                     states[(s + type.ordinal() + 1) % STATES],
+                                     peer);
+                    receivers[n] = receiver;
+                    received[n] = type;
+                    n++;
+                }
+            }
+        }
+        CompiledProtocol compiled = protocol.compile();
+
+        System.out.printf("%-10s %12s %14s%n", "lookup", "ns/op", "bytes/op");
+        for (int variant = 0; variant < 3; variant++)
+        {
+            for (int i = 0; i < WARMUP_ROUNDS; i++)
+            {
+                run(variant, protocol, compiled, receivers, received, peer,
+                    iterations);
+            }
+            long nanos = Long.MAX_VALUE;
+            long bytes = Long.MAX_VALUE;
+            for (int i = 0; i < MEASURED_ROUNDS; i++)
+            {
+                long allocatedBefore = allocatedBytes();
+                nanos = Math.min(nanos,
+                                 run(variant, protocol, compiled, receivers,
+                                     received, peer, iterations));
+                bytes = Math.min(bytes, allocatedBytes() - allocatedBefore);
+            }
+            System.out.printf("%-10s %12.1f %14.1f%n",
+                              variant == 0 ? "graph" :
+                              variant == 1 ? "compiled" :
+                              "ids",
+                              (double) nanos / iterations,
+                              bytes < 0 ? Double.NaN :
+                              (double) bytes / iterations);
+        }
+        System.out.println("(" + sink + ")");
+    }
+
+    private static long run(int variant,
+                            Protocol protocol,
+                            CompiledProtocol compiled,
+                            Actor[] receivers,
+                            ProtocolTest.EnumTestMessageType[] types,
+                            Actor sender,
+                            int iterations) throws Exception
+    {
+        // callers on a hot path keep the numbers of their keys
+        int[][] ids = new int[receivers.length][];
+        for (int n = 0; n < receivers.length; n++)
+        {
+            ids[n] = new int[]
+            {
+                compiled.actorId(receivers[n].getName()),
+                compiled.stateId(receivers[n].getState()),
+                compiled.messageTypeId(types[n]),
+                compiled.senderId(sender)
+            };
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++)
+        {
+            int n = i % receivers.length;
+            State result = variant == 0 ?
+                           protocol.getResultState(receivers[n],
+                                                   types[n],
+                                                   sender) :
+                           variant == 1 ?
+                           compiled.findResultState(receivers[n],
+                                                    types[n],
+                                                    sender) :
+                           compiled.findResultState(ids[n][0],
+                                                    ids[n][1],
+                                                    ids[n][2],
+                                                    ids[n][3]);
+            sink += result.hashCode();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long allocatedBytes()
+    {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean)
+        {
+            return ((com.sun.management.ThreadMXBean) threads).
+                    getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1L;
+    }
+}
@@ -26,6 +26,7 @@ import java.util.logging.Logger;
 import org.junit.After;
 import org.junit.AfterClass;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -126,6 +127,168 @@ public class ProtocolTest
         System.out.println("... testing addRule() done.");
     }
 
+    /**
+     * Test of compile method, of class Protocol.
+     */
+    @Test
+    public void testCompile()
+    {
+        System.out.println("Testing compile() ...");
+        try
+        {
+            Protocol protocol = new Protocol();
+            State initial = new State("Initial");
+            State started = new State("Started");
+            State stopped = new State("Stopped");
+            protocol.addRule(new Actor("Client", initial),
+                             EnumTestMessageType.StartClient,
+                             started,
+                             new Actor("Server"));
+            protocol.addRule(new Actor("Client", started),
+                             EnumTestMessageType.StopClient,
+                             stopped,
+                             Actor.ANY_ACTOR);
+            protocol.addRule(new Actor("Client", started),
+                             EnumTestMessageType.StopClient,
+                             initial,
+                             new Actor("Supervisor"));
+            CompiledProtocol compiled = protocol.compile();
+
+            assertEquals(protocol.getResultState(
+                    new Actor("Client", initial),
+                    EnumTestMessageType.StartClient,
+                    new Actor("Server")),
+                         compiled.getResultState(
+                                 new Actor("Client", initial),
+                                 EnumTestMessageType.StartClient,
+                                 new Actor("Server")));
+            assertEquals(started,
+                         compiled.findResultState(
+                                 new Actor("Client", new State("Initial")),
+                                 EnumTestMessageType.StartClient,
+                                 new Actor("Server", stopped)));
+            assertEquals(stopped,
+                         compiled.findResultState(
+                                 new Actor("Client", started),
+                                 EnumTestMessageType.StopClient,
+                                 new Actor("Server")));
+            assertEquals(stopped,
+                         compiled.findResultState(
+                                 new Actor("Client", started),
+                                 EnumTestMessageType.StopClient,
+                                 null));
+            assertEquals(initial,
+                         compiled.findResultState(
+                                 new Actor("Client", started),
+                                 EnumTestMessageType.StopClient,
+                                 new Actor("Supervisor")));
+            assertEquals(null,
+                         compiled.findResultState(
+                                 new Actor("Client", stopped),
+                                 EnumTestMessageType.StartClient,
+                                 new Actor("Server")));
+            assertEquals(null,
+                         compiled.findResultState(
+                                 new Actor("Client", initial),
+                                 EnumTestMessageType.RestartClient,
+                                 new Actor("Server")));
+            assertEquals(CompiledProtocol.UNKNOWN, compiled.actorId("Nobody"));
+
+            int client = compiled.actorId("Client");
+            int start = compiled.messageTypeId(EnumTestMessageType.StartClient);
+            assertEquals(started,
+                         compiled.findResultState(
+                                 client,
+                                 compiled.stateId(initial),
+                                 start,
+                                 compiled.senderId(new Actor("Server"))));
+        }
+        catch (Exception ex)
+        {
+            Exceptions.printStackTrace(ex);
+            fail("Unexpected exception." + ex.toString());
+        }
+        System.out.println("... testing compile() done.");
+    }
+
+    /**
+     * Test that actors fall back to the timeout state when they stay in a
+     * state longer than its timeout, and that leaving the state in time
+     * cancels the timeout.
+     */
+    @Test
+    public void testTimeout()
+    {
+        System.out.println("Testing timeouts ...");
+        try
+        {
+            Protocol protocol = new Protocol();
+            State initial = new State("Initial");
+            State waiting = new State("Waiting");
+            State ready = new State("Ready");
+            protocol.addRule(new Actor("Client", initial),
+                             EnumTestMessageType.StartClient,
+                             waiting,
+                             Actor.ANY_ACTOR,
+                             50,
+                             initial);
+            protocol.addRule(new Actor("Client", waiting),
+                             EnumTestMessageType.StopClient,
+                             ready,
+                             Actor.ANY_ACTOR);
+            assertEquals(Integer.valueOf(50),
+                         protocol.getTimeout(new Actor("Client", waiting)));
+            assertEquals(null,
+                         protocol.getTimeout(new Actor("Client", ready)));
+            assertEquals(initial,
+                         protocol.compile().findResultState(
+                                 new Actor("Client", waiting),
+                                 TimeoutMessageType.Timeout,
+                                 null));
+
+            int actors = 5000;
+            Actor[] clients = new Actor[actors];
+            for (int i = 0; i < actors; i++)
+            {
+                clients[i] = new Actor("Client", initial);
+                clients[i].processMessage(
+                        protocol,
+                        new Message(EnumTestMessageType.StartClient,
+                                    Actor.ANY_ACTOR,
+                                    clients[i]),
+                        null);
+                assertEquals(waiting, clients[i].getState());
+                if (i % 2 == 0)
+                {
+                    clients[i].processMessage(
+                            protocol,
+                            new Message(EnumTestMessageType.StopClient,
+                                        Actor.ANY_ACTOR,
+                                        clients[i]),
+                            null);
+                }
+            }
+            long deadline = System.currentTimeMillis() + 5000;
+            while (clients[actors - 1].isTimeoutPending() &&
+                   System.currentTimeMillis() < deadline)
+            {
+                Thread.sleep(10);
+            }
+            for (int i = 0; i < actors; i++)
+            {
+                assertEquals(i % 2 == 0 ? ready : initial,
+                             clients[i].getState());
+                assertEquals(false, clients[i].isTimeoutPending());
+            }
+        }
+        catch (Exception ex)
+        {
+            Exceptions.printStackTrace(ex);
+            fail("Unexpected exception." + ex.toString());
+        }
+        System.out.println("... testing timeouts done.");
+    }
+
     enum EnumTestMessageType implements MessageType
     {
 